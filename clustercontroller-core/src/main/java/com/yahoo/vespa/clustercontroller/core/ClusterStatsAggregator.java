@@ -85,6 +85,9 @@ public class ClusterStatsAggregator {
             return;
         }
         nonUpdatedDistributors.remove(distributorIndex);
+        if (clusterStats.equals(distributorToStats.get(distributorIndex))) {
+            return; // Unchanged since last update: The aggregated stats already include these
+        }
         addStatsFromDistributor(distributorIndex, clusterStats);
     }
 
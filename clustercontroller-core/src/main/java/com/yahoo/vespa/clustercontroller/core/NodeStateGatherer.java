@@ -141,7 +141,7 @@ public class NodeStateGatherer {
 
                 // Important: The old host info should be accessible in info.getHostInfo(), see interface.
                 // Therefore, setHostInfo() must be called AFTER handleUpdatedHostInfo().
-                HostInfo hostInfo = HostInfo.createHostInfo(reply.getHostInfo());
+                HostInfo hostInfo = hostInfoFrom(reply.getHostInfo(), info.getHostInfo());
                 listener.handleUpdatedHostInfo(info, hostInfo);
                 info.setHostInfo(hostInfo);
 
@@ -151,6 +151,15 @@ public class NodeStateGatherer {
         return processedAnyResponses;
     }
 
+    /**
+     * Returns the host info in the given reply. Nodes mostly report unchanged host info, so the previous
+     * host info is reused if it was created from the same string, to avoid parsing it again.
+     */
+    private static HostInfo hostInfoFrom(String json, HostInfo previous) {
+        if (json != null && previous != null && json.equals(previous.getRawCreationString())) return previous;
+        return HostInfo.createHostInfo(json);
+    }
+
     private NodeState handleError(GetNodeStateRequest req, NodeInfo info, long currentTime) {
         String prefix = "Failed get node state request: ";
         NodeState newState = new NodeState(info.getNode().getType(), State.DOWN);
@@ -153,10 +153,11 @@ public class SystemStateBroadcaster {
         }
 
         List<NodeInfo> recipients = resolveStateVersionSendSet(dbContext);
+        ClusterStateBundle modifiedBundle = null; // Same for all nodes, so compute only once, and only if needed
         for (NodeInfo node : recipients) {
             if (nodeNeedsToObserveStartupTimestamps(node)) {
-                // TODO this is the same for all nodes, compute only once
-                ClusterStateBundle modifiedBundle = clusterStateBundle.cloneWithMapper(state -> buildModifiedClusterState(state, dbContext));
+                if (modifiedBundle == null)
+                    modifiedBundle = clusterStateBundle.cloneWithMapper(state -> buildModifiedClusterState(state, dbContext));
                 log.log(LogLevel.DEBUG, "Sending modified cluster state version " + baselineState.getVersion()
                         + " to node " + node + ": " + modifiedBundle);
                 communicator.setSystemState(modifiedBundle, node, waiter);
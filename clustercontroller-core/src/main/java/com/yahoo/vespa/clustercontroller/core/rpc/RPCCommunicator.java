@@ -48,6 +48,13 @@ public class RPCCommunicator implements Communicator {
     private int nodeStateRequestTimeoutIntervalStopPercentage;
     private int nodeStateRequestRoundTripTimeMaxSeconds;
     private final int fleetControllerIndex;
+    private final ClusterStateBundleCodec codec = new SlimeClusterStateBundleCodec();
+
+    // The bundle last sent to a node and its encoding. A new state is broadcast to all nodes
+    // with the same bundle instance, so this saves encoding and compressing it once per node.
+    private ClusterStateBundle lastEncodedBundle = null;
+    private int lastEncodedBundleVersion = 0;
+    private EncodedClusterStateBundle lastEncoding = null;
 
     public static Supervisor createRealSupervisor() {
         return new Supervisor(new Transport());
@@ -144,8 +151,7 @@ public class RPCCommunicator implements Communicator {
             req.parameters().add(new StringValue(baselineState.toString(false)));
         } else {
             req = new Request(SET_DISTRIBUTION_STATES_RPC_METHOD_NAME);
-            SlimeClusterStateBundleCodec codec = new SlimeClusterStateBundleCodec();
-            EncodedClusterStateBundle encodedBundle = codec.encode(stateBundle);
+            EncodedClusterStateBundle encodedBundle = encode(stateBundle);
             Values v = req.parameters();
             v.add(new Int8Value(encodedBundle.getCompression().type().getCode()));
             v.add(new Int32Value(encodedBundle.getCompression().uncompressedSize()));
@@ -161,6 +167,15 @@ public class RPCCommunicator implements Communicator {
         node.setSystemStateVersionSent(baselineState);
     }
 
+    private EncodedClusterStateBundle encode(ClusterStateBundle stateBundle) {
+        if (stateBundle != lastEncodedBundle || stateBundle.getVersion() != lastEncodedBundleVersion) {
+            lastEncoding = codec.encode(stateBundle);
+            lastEncodedBundle = stateBundle;
+            lastEncodedBundleVersion = stateBundle.getVersion();
+        }
+        return lastEncoding;
+    }
+
     // protected for testing.
     protected int generateNodeStateRequestTimeoutMs() {
         double intervalFraction = Math.random();
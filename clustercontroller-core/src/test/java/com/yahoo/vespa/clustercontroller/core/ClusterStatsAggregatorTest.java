@@ -111,6 +111,29 @@ public class ClusterStatsAggregatorTest {
         f.verify(new ContentClusterStatsBuilder().add(3, "default", 16 + 12, 7 + 3));
     }
 
+    @Test
+    public void aggregator_handles_repeated_unchanged_updates_from_same_distributor() {
+        Fixture f = new Fixture(distributorNodes(1, 2), contentNodes(3));
+        ContentClusterStatsBuilder stats1 = new ContentClusterStatsBuilder().add(3, "default", 10, 1);
+        ContentClusterStatsBuilder stats2 = new ContentClusterStatsBuilder().add(3, "default", 14, 5);
+
+        f.update(1, stats1);
+        f.update(1, stats1);
+        f.verify(new ContentClusterStatsBuilder().add(3, "default", 10, 1));
+        assertFalse(f.hasUpdatesFromAllDistributors());
+
+        f.update(2, stats2);
+        f.update(2, stats2);
+        f.update(1, stats1);
+        f.verify(new ContentClusterStatsBuilder().add(3, "default", 10 + 14, 1 + 5));
+        f.verify(1, ContentNodeStatsBuilder.forNode(1).add("default", 10, 1));
+        assertTrue(f.hasUpdatesFromAllDistributors());
+
+        f.update(1, new ContentClusterStatsBuilder().add(3, "default", 11, 2));
+        f.update(1, new ContentClusterStatsBuilder().add(3, "default", 11, 2));
+        f.verify(new ContentClusterStatsBuilder().add(3, "default", 11 + 14, 2 + 5));
+    }
+
     @Test
     public void aggregator_handles_more_content_nodes_that_distributors() {
         Fixture f = new Fixture(distributorNodes(1), contentNodes(3, 4));
@@ -145,6 +145,23 @@ public class RPCCommunicatorTest {
         assertThat(receivedBundle, equalTo(sentBundle));
     }
 
+    @Test
+    public void same_state_bundle_is_encoded_once_for_all_nodes() {
+        Fixture f = new Fixture();
+        ClusterFixture cf = ClusterFixture.forFlatCluster(3).bringEntireClusterUp().assignDummyRpcAddresses();
+        ClusterStateBundle sentBundle = ClusterStateBundleUtil.makeBundle("version:10 distributor:3 storage:3");
+        f.communicator.setSystemState(sentBundle, cf.cluster().getNodeInfo(Node.ofStorage(1)), f.mockWaiter);
+        byte[] firstPayload = f.receivedRequest.get().parameters().get(2).asData();
+        f.communicator.setSystemState(sentBundle, cf.cluster().getNodeInfo(Node.ofStorage(2)), f.mockWaiter);
+        byte[] secondPayload = f.receivedRequest.get().parameters().get(2).asData();
+        assertTrue(firstPayload == secondPayload);
+
+        ClusterStateBundle newBundle = ClusterStateBundleUtil.makeBundle("version:11 distributor:3 storage:3");
+        f.communicator.setSystemState(newBundle, cf.cluster().getNodeInfo(Node.ofStorage(1)), f.mockWaiter);
+        Request req = f.receivedRequest.get();
+        assertThat(RPCUtil.decodeStateBundleFromSetDistributionStatesRequest(req), equalTo(newBundle));
+    }
+
     @Test
     public void set_distribution_states_v3_rpc_auto_downgrades_to_v2_on_unknown_method_error() {
         Fixture f = new Fixture();
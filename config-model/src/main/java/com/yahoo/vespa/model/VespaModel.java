@@ -71,6 +71,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -118,6 +119,9 @@ public final class VespaModel extends AbstractConfigProducerRoot implements Seri
     
     private final FileDistributor fileDistributor;
 
+    /** Builder classes by config definition, see {@link #createBuilder} */
+    private final Map<ConfigDefinitionKey, Class<?>> builderClasses = new ConcurrentHashMap<>();
+
     /** Creates a Vespa Model from internal model types only */
     public VespaModel(ApplicationPackage app) throws IOException, SAXException {
         this(app, new NullConfigModelRegistry());
@@ -423,9 +427,29 @@ public final class VespaModel extends AbstractConfigProducerRoot implements Seri
     }
 
     public ConfigInstance.Builder createBuilder(ConfigDefinitionKey key) {
-        String className = createClassName(key.getName());
-        Class<?> clazz;
+        Class<?> clazz = builderClasses.computeIfAbsent(key, this::loadBuilderClass);
+        if (clazz == GenericConfig.GenericConfigBuilder.class)
+            return new GenericConfig.GenericConfigBuilder(key, new ConfigPayloadBuilder());
+
+        Object i;
+        try {
+            i = clazz.getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new ConfigurationRuntimeException(e);
+        }
+        if (!(i instanceof ConfigInstance.Builder)) {
+            throw new ConfigurationRuntimeException(clazz.getName() + " is not a ConfigInstance.Builder, can not produce config for the name '" + key.getName() + "'.");
+        }
+        return (ConfigInstance.Builder) i;
+    }
 
+    /**
+     * Returns the builder class of the given config definition, or the generic builder class if the model
+     * does not know the config class. The result is cached in createBuilder, as class loading is costly and
+     * is otherwise repeated for every config request.
+     */
+    private Class<?> loadBuilderClass(ConfigDefinitionKey key) {
+        String className = createClassName(key.getName());
         final String fullClassName = InstanceResolver.packageName(key) + "." + className;
         final String builderName = fullClassName + "$Builder";
         final String producerName = fullClassName + "$Producer";
@@ -435,24 +459,14 @@ public final class VespaModel extends AbstractConfigProducerRoot implements Seri
             log.log(LogLevel.DEBUG, () -> "No producer found to get classloader from for " + fullClassName + ". Using default");
         }
         try {
-            clazz = classLoader.loadClass(builderName);
+            return classLoader.loadClass(builderName);
         } catch (ClassNotFoundException e) {
             log.log(LogLevel.DEBUG, () -> "Tried to load " + builderName + ", not found, trying with generic builder");
             // TODO: Enable config compiler when configserver is using new API.
             // ConfigCompiler compiler = new LazyConfigCompiler(Files.createTempDir());
             // return compiler.compile(targetDef.generateClass()).newInstance();
-            return new GenericConfig.GenericConfigBuilder(key, new ConfigPayloadBuilder());
+            return GenericConfig.GenericConfigBuilder.class;
         }
-        Object i;
-        try {
-            i = clazz.getDeclaredConstructor().newInstance();
-        } catch (ReflectiveOperationException e) {
-            throw new ConfigurationRuntimeException(e);
-        }
-        if (!(i instanceof ConfigInstance.Builder)) {
-            throw new ConfigurationRuntimeException(fullClassName + " is not a ConfigInstance.Builder, can not produce config for the name '" + key.getName() + "'.");
-        }
-        return (ConfigInstance.Builder) i;
     }
 
     /**
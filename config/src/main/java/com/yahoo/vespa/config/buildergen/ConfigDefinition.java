@@ -6,9 +6,11 @@ import com.yahoo.config.codegen.DefParser;
 import com.yahoo.config.codegen.InnerCNode;
 import com.yahoo.config.codegen.JavaClassBuilder;
 import com.yahoo.text.StringUtilities;
+import com.yahoo.vespa.config.util.ConfigUtils;
 
 import java.io.File;
 import java.io.StringReader;
+import java.util.Arrays;
 
 /**
  * Represents a higher level functionality on a config definition to (in the future) hide the InnerCNode class.
@@ -30,6 +32,11 @@ public class ConfigDefinition {
         return cnode;
     }
 
+    /** Returns the md5 sum of this definition, as computed by clients requesting config using it */
+    public String getDefMd5() {
+        return ConfigUtils.getDefMd5(Arrays.asList(defSchema));
+    }
+
     public ConfigDefinitionClass generateClass() {
         File tempDir = Files.createTempDir();
         DefParser parser = new DefParser(name, new StringReader(StringUtilities.implode(defSchema, "\n")));
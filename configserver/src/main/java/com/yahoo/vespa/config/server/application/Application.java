@@ -28,9 +28,15 @@ import com.yahoo.vespa.flags.FetchVector;
 import com.yahoo.vespa.flags.FlagSource;
 import com.yahoo.vespa.flags.Flags;
 import com.yahoo.vespa.flags.InMemoryFlagSource;
+import com.yahoo.yolean.Exceptions;
 
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A Vespa application for a specific version of Vespa. It holds data and metadata associated with
@@ -50,6 +56,7 @@ public class Application implements ModelResult {
     private final MetricUpdater metricUpdater;
     private final ApplicationId app;
     private final BooleanFlag useConfigServerCache;
+    private final BooleanFlag preloadConfigServerCache;
 
     public Application(Model model, ServerCache cache, long appGeneration, boolean internalRedeploy,
                        Version vespaVersion, MetricUpdater metricUpdater, ApplicationId app) {
@@ -69,6 +76,9 @@ public class Application implements ModelResult {
         this.useConfigServerCache = Flags.USE_CONFIG_SERVER_CACHE
                 .with(FetchVector.Dimension.APPLICATION_ID, app.serializedForm())
                 .bindTo(flagSource);
+        this.preloadConfigServerCache = Flags.PRELOAD_CONFIG_SERVER_CACHE
+                .with(FetchVector.Dimension.APPLICATION_ID, app.serializedForm())
+                .bindTo(flagSource);
     }
 
     /**
@@ -158,6 +168,54 @@ public class Application implements ModelResult {
         return configResponse;
     }
 
+    /**
+     * Resolves all configs produced by the model and puts them in the cache, using the given pool to
+     * resolve them in parallel. This is done on activation, so that the config requests which follow
+     * from all hosts are answered from the cache instead of each resolving config from the model.
+     * Configs which cannot be resolved here are skipped, and will be resolved on request as usual.
+     */
+    public void preloadCache(ConfigResponseFactory responseFactory, ForkJoinPool pool) {
+        if ( ! useConfigServerCache.value() || ! preloadConfigServerCache.value()) return;
+
+        long start = System.currentTimeMillis();
+        Set<ConfigKey<?>> keys = allConfigsProduced();
+        Map<ConfigDefinitionKey, Optional<ConfigDefinition>> defs = new ConcurrentHashMap<>();
+        try {
+            pool.submit(() -> keys.parallelStream().forEach(key -> preload(key, defs, responseFactory))).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            log.log(LogLevel.WARNING, TenantRepository.logPre(getId()) + "Failed preloading config cache: " +
+                                      Exceptions.toMessageString(e));
+        }
+        metricUpdater.setCacheConfigElems(cache.configElems());
+        metricUpdater.setCacheChecksumElems(cache.checkSumElems());
+        log.log(LogLevel.DEBUG, () -> TenantRepository.logPre(getId()) + "Preloaded " + keys.size() + " configs in " +
+                                      (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private void preload(ConfigKey<?> configKey,
+                         Map<ConfigDefinitionKey, Optional<ConfigDefinition>> defs,
+                         ConfigResponseFactory responseFactory) {
+        ConfigDefinitionKey defKey = new ConfigDefinitionKey(configKey.getName(), configKey.getNamespace());
+        Optional<ConfigDefinition> def = defs.computeIfAbsent(defKey, key -> Optional.ofNullable(cache.getDef(key)));
+        if ( ! def.isPresent()) return;
+
+        ConfigCacheKey cacheKey = new ConfigCacheKey(configKey, def.get().getDefMd5());
+        if (cache.get(cacheKey) != null) return;
+        try {
+            ConfigPayload payload = model.getConfig(configKey, def.get());
+            if (payload == null) return;
+
+            ConfigResponse configResponse = responseFactory.createResponse(payload, def.get().getCNode(), appGeneration, internalRedeploy);
+            cache.put(cacheKey, configResponse, configResponse.getConfigMd5());
+        } catch (RuntimeException e) {
+            if (logDebug()) {
+                debug("Unable to preload config " + cacheKey + ": " + Exceptions.toMessageString(e));
+            }
+        }
+    }
+
     private boolean useCache(GetConfigRequest request) {
         if (request.noCache())
             return false;
@@ -4,9 +4,11 @@ package com.yahoo.vespa.config.server.application;
 import com.yahoo.config.model.api.HostInfo;
 import com.yahoo.config.provision.ApplicationId;
 import com.yahoo.component.Version;
+import com.yahoo.vespa.config.server.rpc.ConfigResponseFactory;
 
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /**
@@ -88,6 +90,13 @@ public final class ApplicationSet {
         }
     }
 
+    /** Preloads the config caches of all applications in this, see {@link Application#preloadCache} */
+    public void preloadCaches(ConfigResponseFactory responseFactory, ForkJoinPool pool) {
+        for (Application application : applications.values()) {
+            application.preloadCache(responseFactory, pool);
+        }
+    }
+
     public long getApplicationGeneration() {
         return generation;
     }
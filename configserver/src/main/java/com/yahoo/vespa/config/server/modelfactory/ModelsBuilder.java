@@ -10,8 +10,10 @@ import com.yahoo.config.model.api.ModelFactory;
 import com.yahoo.config.provision.AllocatedHosts;
 import com.yahoo.config.provision.ApplicationId;
 import com.yahoo.config.provision.ApplicationLockException;
+import com.yahoo.config.provision.HostSpec;
 import com.yahoo.config.provision.OutOfCapacityException;
 import com.yahoo.component.Version;
+import com.yahoo.concurrent.DaemonThreadFactory;
 import com.yahoo.config.provision.Zone;
 import com.yahoo.lang.SettableOptional;
 import com.yahoo.log.LogLevel;
@@ -25,10 +27,17 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -145,9 +154,8 @@ public abstract class ModelsBuilder<MODELRESULT extends ModelResult> {
                                                  boolean buildLatestModelForThisMajor,
                                                  int majorVersion) {
         List<MODELRESULT> allApplicationVersions = new ArrayList<>();
-        Optional<Version> latest = Optional.empty();
-        if (buildLatestModelForThisMajor) {
-            latest = Optional.of(findLatest(versions));
+        Optional<Version> latest = buildLatestModelForThisMajor ? Optional.of(findLatest(versions)) : Optional.empty();
+        if (latest.isPresent()) {
             // load latest application version
             MODELRESULT latestModelVersion = buildModelVersion(modelFactoryRegistry.getFactory(latest.get()),
                                                                applicationPackage,
@@ -169,21 +177,86 @@ public abstract class ModelsBuilder<MODELRESULT extends ModelResult> {
         // does not. In that case we really want to extend the set of allocated hosts to include those of that
         // cluster as well. To do that, create a new provisioner which uses static provisioning for known
         // clusters and the node repository provisioner as fallback.
-        for (Version version : versions) {
-            if (latest.isPresent() && version.equals(latest.get())) continue; // already loaded
-
-            MODELRESULT modelVersion = buildModelVersion(modelFactoryRegistry.getFactory(version),
-                                                         applicationPackage,
-                                                         applicationId,
-                                                         wantedNodeVespaVersion,
-                                                         allocatedHosts.asOptional(),
-                                                         now);
-            allocatedHosts.set(modelVersion.getModel().allocatedHosts()); // Update with additional clusters allocated
-            allApplicationVersions.add(modelVersion);
-        }
+        List<Version> otherVersions = versions.stream()
+                                              .filter(version -> ! (latest.isPresent() && version.equals(latest.get()))) // already loaded
+                                              .collect(Collectors.toList());
+        allApplicationVersions.addAll(buildModelVersions(otherVersions, applicationId, wantedNodeVespaVersion,
+                                                         applicationPackage, allocatedHosts, now));
         return allApplicationVersions;
     }
 
+    /**
+     * Builds the given versions in order, or in parallel if configured to, in which case all versions are
+     * built with the hosts allocated before this is called, and the hosts allocated by all of them are merged.
+     * Results, allocated hosts and failures are always resolved in the order of the given versions,
+     * so that the outcome does not depend on timing.
+     */
+    private List<MODELRESULT> buildModelVersions(List<Version> versions,
+                                                 ApplicationId applicationId,
+                                                 Version wantedNodeVespaVersion,
+                                                 ApplicationPackage applicationPackage,
+                                                 SettableOptional<AllocatedHosts> allocatedHosts,
+                                                 Instant now) {
+        int parallelism = Math.min(configserverConfig.numParallelModelBuilds(), versions.size());
+        List<MODELRESULT> modelVersions = new ArrayList<>();
+        if (parallelism <= 1) {
+            for (Version version : versions) {
+                MODELRESULT modelVersion = buildModelVersion(modelFactoryRegistry.getFactory(version),
+                                                             applicationPackage,
+                                                             applicationId,
+                                                             wantedNodeVespaVersion,
+                                                             allocatedHosts.asOptional(),
+                                                             now);
+                allocatedHosts.set(modelVersion.getModel().allocatedHosts()); // Update with additional clusters allocated
+                modelVersions.add(modelVersion);
+            }
+            return modelVersions;
+        }
+
+        log.log(LogLevel.DEBUG, "Building " + versions.size() + " model versions for " + applicationId +
+                                " using " + parallelism + " threads");
+        Optional<AllocatedHosts> hosts = allocatedHosts.asOptional();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, new DaemonThreadFactory("model builder"));
+        try {
+            List<Future<MODELRESULT>> futures = new ArrayList<>();
+            for (Version version : versions)
+                futures.add(executor.submit(() -> buildModelVersion(modelFactoryRegistry.getFactory(version),
+                                                                    applicationPackage,
+                                                                    applicationId,
+                                                                    wantedNodeVespaVersion,
+                                                                    hosts,
+                                                                    now)));
+            Map<String, HostSpec> allocated = new LinkedHashMap<>();
+            hosts.ifPresent(h -> h.getHosts().forEach(host -> allocated.put(host.hostname(), host)));
+            for (Future<MODELRESULT> future : futures) {
+                MODELRESULT modelVersion = resultOf(future);
+                // Keep additional clusters allocated by any of the versions
+                modelVersion.getModel().allocatedHosts().getHosts().forEach(host -> allocated.put(host.hostname(), host));
+                modelVersions.add(modelVersion);
+            }
+            allocatedHosts.set(AllocatedHosts.withHosts(new LinkedHashSet<>(allocated.values())));
+            return modelVersions;
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private MODELRESULT resultOf(Future<MODELRESULT> future) {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building models", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            if (e.getCause() instanceof Error) throw (Error) e.getCause();
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     private Set<Version> versionsToBuild(Set<Version> versions, Version wantedVersion, int majorVersion, AllocatedHosts allocatedHosts) {
         if (configserverConfig.buildMinimalSetOfConfigModels())
             versions = keepThoseUsedOn(allocatedHosts, versions);
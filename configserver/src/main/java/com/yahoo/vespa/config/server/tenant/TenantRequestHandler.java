@@ -7,6 +7,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
 
 import com.yahoo.component.Version;
 import com.yahoo.log.LogLevel;
@@ -40,6 +41,9 @@ public class TenantRequestHandler implements RequestHandler, ReloadHandler, Host
 
     private static final java.util.logging.Logger log = java.util.logging.Logger.getLogger(TenantRequestHandler.class.getName());
 
+    /** Pool used to resolve the configs of activated applications in parallel, shared by all tenants */
+    private static final ForkJoinPool preloadPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
     private final Metrics metrics;
     private final TenantName tenant;
     private final List<ReloadListener> reloadListeners;
@@ -89,11 +93,12 @@ public class TenantRequestHandler implements RequestHandler, ReloadHandler, Host
     }
 
     /**
-     * Activates the config of the given app. Notifies listeners
+     * Activates the config of the given app, after preloading the config cache if enabled. Notifies listeners
      *
      * @param applicationSet the {@link ApplicationSet} to be reloaded
      */
     public void reloadConfig(ApplicationSet applicationSet) {
+        applicationSet.preloadCaches(responseFactory, preloadPool);
         setLiveApp(applicationSet);
         notifyReloadListeners(applicationSet);
     }
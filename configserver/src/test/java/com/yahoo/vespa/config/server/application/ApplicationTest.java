@@ -28,6 +28,9 @@ import com.yahoo.vespa.config.server.UnknownConfigDefinitionException;
 import com.yahoo.vespa.config.server.UserConfigDefinitionRepo;
 import com.yahoo.vespa.config.server.monitoring.MetricUpdater;
 import com.yahoo.vespa.config.server.monitoring.Metrics;
+import com.yahoo.vespa.config.server.rpc.UncompressedConfigResponseFactory;
+import com.yahoo.vespa.flags.Flags;
+import com.yahoo.vespa.flags.InMemoryFlagSource;
 import com.yahoo.vespa.model.VespaModel;
 import org.junit.Before;
 import org.junit.Test;
@@ -37,8 +40,10 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -138,6 +143,19 @@ public class ApplicationTest {
         assertTrue(response == cached_response);
     }
 
+    @Test
+    public void require_that_configs_are_preloaded_into_cache() throws IOException, SAXException {
+        ServerCache cache = createCacheAndAddContent();
+        VespaModel model = new VespaModel(FilesApplicationPackage.fromFile(new File("src/test/apps/app")));
+        ApplicationId applicationId = new ApplicationId.Builder().tenant("foo").applicationName("foo").build();
+        Application application = new Application(model, cache, 1L, false, new Version(1, 2, 3),
+                                                  MetricUpdater.createTestUpdater(), applicationId,
+                                                  new InMemoryFlagSource().withBooleanFlag(Flags.PRELOAD_CONFIG_SERVER_CACHE.id(), true));
+        assertEquals(0, cache.configElems());
+        application.preloadCache(new UncompressedConfigResponseFactory(), new ForkJoinPool(2));
+        assertTrue(cache.configElems() > 0);
+    }
+
     private static GetConfigRequest createRequest(String name, String namespace, String defMd5, String[] schema, String configId) {
         Request request = JRTClientConfigRequestV3.
                 createWithParams(new ConfigKey<>(name, configId, namespace, defMd5, null), DefContent.fromArray(schema),
@@ -139,6 +139,35 @@ public class HostedDeployTest {
     }
 
 
+    @Test
+    public void testCreateModelVersionsInParallel() {
+        List<Host> hosts = Arrays.asList(createHost("host1", "6.0.0"),
+                                         createHost("host2", "6.1.0"),
+                                         createHost("host3", "6.2.0"));
+        InMemoryProvisioner provisioner = new InMemoryProvisioner(new Hosts(hosts), true);
+
+        CountingModelFactory factory600 = DeployTester.createModelFactory(Version.fromString("6.0.0"));
+        CountingModelFactory factory610 = DeployTester.createModelFactory(Version.fromString("6.1.0"));
+        CountingModelFactory factory620 = DeployTester.createModelFactory(Version.fromString("6.2.0"));
+        CountingModelFactory factory630 = DeployTester.createModelFactory(Version.fromString("6.3.0"));
+        List<ModelFactory> modelFactories = Arrays.asList(factory600, factory610, factory620, factory630);
+
+        ConfigserverConfig config = new ConfigserverConfig(new ConfigserverConfig.Builder()
+                                                                   .configServerDBDir(Files.createTempDir().getAbsolutePath())
+                                                                   .configDefinitionsDir(Files.createTempDir().getAbsolutePath())
+                                                                   .hostedVespa(true)
+                                                                   .multitenant(true)
+                                                                   .numParallelModelBuilds(3));
+        DeployTester tester = new DeployTester(modelFactories, config, Clock.systemUTC(), provisioner);
+        tester.deployApp("src/test/apps/hosted/", "6.3.0", Instant.now());
+        assertEquals(3, tester.getAllocatedHostsOf(tester.applicationId()).getHosts().size());
+
+        assertTrue(factory600.creationCount() > 0);
+        assertTrue(factory610.creationCount() > 0);
+        assertTrue(factory620.creationCount() > 0);
+        assertTrue(factory630.creationCount() > 0);
+    }
+
     /**
      * Test that only the minimal set of models are created (the wanted version and the latest version for
      * the latest major, since nodes are without version)
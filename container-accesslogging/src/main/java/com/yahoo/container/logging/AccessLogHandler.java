@@ -3,30 +3,22 @@ package com.yahoo.container.logging;
 
 import com.yahoo.container.core.AccessLogConfig;
 
-import java.util.logging.Logger;
+import java.nio.charset.StandardCharsets;
 
 /**
  * @author Bjorn Borud
  */
 class AccessLogHandler {
 
-    public Logger access = Logger.getAnonymousLogger();
-    private LogFileHandler logFileHandler;
+    private final LogFileHandler logFileHandler;
 
     public AccessLogHandler(AccessLogConfig.FileHandler config) {
-        access.setUseParentHandlers(false);
-
-        logFileHandler = new LogFileHandler(config.compressOnRotation());
+        logFileHandler = new LogFileHandler(config.compressOnRotation(), config.compressionLevel());
 
         logFileHandler.setFilePattern(config.pattern());
         logFileHandler.setRotationTimes(config.rotation());
 
         createSymlink(config, logFileHandler);
-
-        LogFormatter lf = new LogFormatter();
-        lf.messageOnly(true);
-        this.logFileHandler.setFormatter(lf);
-        access.addHandler(this.logFileHandler);
     }
 
     private void createSymlink(AccessLogConfig.FileHandler config, LogFileHandler handler) {
@@ -34,12 +26,18 @@ class AccessLogHandler {
             handler.setSymlinkName(config.symlink());
     }
 
-    public void shutdown() {
-        logFileHandler.close();
-        access.removeHandler(logFileHandler);
+    /** Writes the given log line, which must include the trailing newline */
+    void log(String line) {
+        log(line.getBytes(StandardCharsets.UTF_8));
+    }
 
-        if (logFileHandler!=null)
-            logFileHandler.shutdown();
+    /** Writes the given UTF-8 encoded log line, which must include the trailing newline */
+    void log(byte[] line) {
+        logFileHandler.publish(line);
+    }
+
+    public void shutdown() {
+        logFileHandler.shutdown();
     }
 
     void rotateNow() {
@@ -3,8 +3,6 @@ package com.yahoo.container.logging;
 
 import com.yahoo.container.core.AccessLogConfig;
 
-import java.util.logging.Level;
-
 /**
  * Log a message in Vespa JSON access log format.
  *
@@ -21,7 +19,7 @@ public final class JSONAccessLog implements  AccessLogInterface {
 
     @Override
     public void log(AccessLogEntry logEntry) {
-        logHandler.access.log(Level.INFO, new JSONFormatter(logEntry).format() + '\n');
+        logHandler.log(new JSONFormatter(logEntry).formatLine());
     }
 
     // TODO: This is never called. We should have a DI provider and call this method from its deconstruct.
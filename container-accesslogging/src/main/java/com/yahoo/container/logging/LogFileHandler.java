@@ -2,7 +2,6 @@
 package com.yahoo.container.logging;
 
 import com.yahoo.concurrent.ThreadFactoryFactory;
-import com.yahoo.container.core.AccessLogConfig;
 import com.yahoo.io.NativeIO;
 import com.yahoo.log.LogFileDb;
 import com.yahoo.system.ProcessExecuter;
@@ -11,25 +10,40 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.concurrent.ArrayBlockingQueue;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
-import java.util.logging.Level;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
 import java.util.logging.LogRecord;
 import java.util.logging.Logger;
 import java.util.logging.StreamHandler;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.Deflater;
 import java.util.zip.GZIPOutputStream;
 
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+
 /**
  * <p>Implements log file naming/rotating logic for container logs.</p>
  *
- * <p>Overridden methods: publish</p>
+ * <p>Records are encoded by the publishing thread and put on a lock-free queue. A single log thread
+ * drains the queue in batches through a direct buffer to the current file channel, and rotated files are
+ * compressed by a separate executor.</p>
+ *
+ * <p>Overridden methods: publish, close</p>
  *
  * <p>Added methods: setFilePattern, setRotationTimes, rotateNow (+ few others)</p>
  *
@@ -38,22 +52,28 @@ import java.util.zip.GZIPOutputStream;
 public class LogFileHandler extends StreamHandler {
 
     private final static Logger logger = Logger.getLogger(LogFileHandler.class.getName());
+    private final static int maxQueuedRecords = 100000;
+    private final static int writeBufferSize = 0x10000;
     private final boolean compressOnRotation;
+    private final int compressionLevel;
     private long[] rotationTimes = {0}; //default to one log per day, at midnight
     private String filePattern = "./log.%T";  // default to current directory, ms time stamp
     private long lastRotationTime = -1; // absolute time (millis since epoch) of current file start
     private int numberOfRecords = -1;
     private long nextRotationTime = 0;
-    private OutputStream currentOutputStream = null;
-    private String fileName;
+    private FileChannel currentChannel = null;
+    private volatile String fileName;
     private String symlinkName = null;
-    private ArrayBlockingQueue<LogRecord> logQueue = new ArrayBlockingQueue<>(100000);
-    private LogRecord rotateCmd = new LogRecord(Level.SEVERE, "rotateNow");
+    private final Queue<byte[]> logQueue = new ConcurrentLinkedQueue<>();
+    /** The number of records published but not yet written to file, which is bounded by maxQueuedRecords */
+    private final AtomicInteger queuedRecords = new AtomicInteger();
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(writeBufferSize);
+    private final byte[] rotateCmd = new byte[0];
+    private volatile boolean running = true;
     private ExecutorService executor = Executors.newCachedThreadPool(ThreadFactoryFactory.getDaemonThreadFactory("logfilehandler.compression"));
 
     static private class LogThread extends Thread {
         LogFileHandler logFileHandler;
-        long lastFlush = 0;
         LogThread(LogFileHandler logFile) {
             super("Logger");
             setDaemon(true);
@@ -67,33 +87,17 @@ public class LogFileHandler extends StreamHandler {
             } catch (Exception e) {
                 com.yahoo.protect.Process.logAndDie("Failed storing log records", e);
             }
-
-            logFileHandler.flush();
         }
 
+        // This thread is stopped by clearing the running flag rather than by interruption, as interrupting
+        // a thread which is writing to a file channel closes the channel
         private void storeLogRecords() throws InterruptedException {
-            while (!isInterrupted()) {
-                LogRecord r = logFileHandler.logQueue.poll(100, TimeUnit.MILLISECONDS);
-                if (r != null) {
-                    if (r == logFileHandler.rotateCmd) {
-                        logFileHandler.internalRotateNow();
-                        lastFlush = System.nanoTime();
-                    } else {
-                        logFileHandler.internalPublish(r);
-                    }
-                    flushIfOld(3, TimeUnit.SECONDS);
-                } else {
-                    flushIfOld(100, TimeUnit.MILLISECONDS);
-                }
-            }
-        }
-
-        private void flushIfOld(long age, TimeUnit unit) {
-            long now = System.nanoTime();
-            if (TimeUnit.NANOSECONDS.toMillis(now - lastFlush) > unit.toMillis(age)) {
-                logFileHandler.flush();
-                lastFlush = now;
+            while (logFileHandler.running) {
+                if (logFileHandler.writeQueuedRecords() == 0)
+                    LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(100));
             }
+            logFileHandler.writeQueuedRecords();
+            logFileHandler.closeChannel();
         }
     }
     private final LogThread logThread;
@@ -102,10 +106,15 @@ public class LogFileHandler extends StreamHandler {
         this(false);
     }
 
-    LogFileHandler(boolean compressOnRotation)
+    LogFileHandler(boolean compressOnRotation) {
+        this(compressOnRotation, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    LogFileHandler(boolean compressOnRotation, int compressionLevel)
     {
         super();
         this.compressOnRotation = compressOnRotation;
+        this.compressionLevel = compressionLevel;
         logThread = new LogThread(this);
         logThread.start();
     }
@@ -116,13 +125,40 @@ public class LogFileHandler extends StreamHandler {
      * @param r logrecord to publish
      */
     public void publish(LogRecord r) {
-        try {
-            logQueue.put(r);
-        } catch (InterruptedException e) {
+        publish(getFormatter().format(r).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends an encoded record to file, first rotating file if needed.
+     * This blocks while the number of records waiting to be written is at its maximum.
+     *
+     * @param record the record to publish, which must not be modified after this is called
+     */
+    void publish(byte[] record) {
+        // Concurrent publishers may exceed the limit slightly, which is fine as its purpose is to bound memory usage
+        while (queuedRecords.get() >= maxQueuedRecords)
+            LockSupport.parkNanos(this, TimeUnit.MICROSECONDS.toNanos(100));
+        queuedRecords.incrementAndGet();
+        logQueue.add(record);
+    }
+
+    /** Writes all records currently in the queue, and returns the number of records written */
+    private int writeQueuedRecords() throws InterruptedException {
+        int count = 0;
+        for (byte[] record = logQueue.poll(); record != null; record = logQueue.poll()) {
+            if (record == rotateCmd) {
+                internalRotateNow();
+            } else {
+                internalPublish(record);
+            }
+            count++;
         }
+        writeBuffer();
+        queuedRecords.addAndGet(-count);
+        return count;
     }
 
-    private void internalPublish(LogRecord r) throws InterruptedException {
+    private void internalPublish(byte[] record) throws InterruptedException {
         // first check to see if new file needed.
         // if so, use this.internalRotateNow() to do it
 
@@ -130,12 +166,46 @@ public class LogFileHandler extends StreamHandler {
         if (nextRotationTime <= 0) {
             nextRotationTime = getNextRotationTime(now); // lazy initialization
         }
-        if (now > nextRotationTime || currentOutputStream == null) {
+        if (now > nextRotationTime || currentChannel == null) {
             internalRotateNow();
         }
         // count records, and publish
         numberOfRecords++;
-        super.publish(r);
+        if (record.length > writeBuffer.remaining()) {
+            writeBuffer();
+        }
+        if (record.length > writeBuffer.capacity()) {
+            write(ByteBuffer.wrap(record));
+        } else {
+            writeBuffer.put(record);
+        }
+    }
+
+    /** Writes and clears the content of the write buffer */
+    private void writeBuffer() {
+        writeBuffer.flip();
+        write(writeBuffer);
+        writeBuffer.clear();
+    }
+
+    private void write(ByteBuffer buffer) {
+        try {
+            while (buffer.hasRemaining()) {
+                currentChannel.write(buffer);
+            }
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+    }
+
+    private void closeChannel() {
+        if (currentChannel == null) return;
+        try {
+            currentChannel.close();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.CLOSE_FAILURE);
+        }
+        currentChannel = null;
     }
 
     /**
@@ -191,13 +261,12 @@ public class LogFileHandler extends StreamHandler {
     }
 
     void waitDrained() {
-        while(! logQueue.isEmpty()) {
+        while (queuedRecords.get() > 0) {
             try {
                 Thread.sleep(1);
             } catch (InterruptedException e) {
             }
         }
-        super.flush();
     }
 
     private void checkAndCreateDir(String pathname) {
@@ -221,20 +290,18 @@ public class LogFileHandler extends StreamHandler {
     // Throw InterruptedException upwards rather than relying on isInterrupted to stop the thread as
     // isInterrupted() returns false after interruption in p.waitFor
     private void internalRotateNow() throws InterruptedException {
-        // figure out new file name, then
-        // use super.setOutputStream to switch to a new file
+        // write what is buffered to the current file, then
+        // figure out new file name and open a channel to it
 
         String oldFileName = fileName;
         long now = System.currentTimeMillis();
+        writeBuffer();
+        closeChannel();
         fileName = LogFormatter.insertDate(filePattern, now);
-        super.flush();
-        super.close();
 
         try {
             checkAndCreateDir(fileName);
-            FileOutputStream os = new FileOutputStream(fileName, true); // append mode, for safety
-            super.setOutputStream(os);
-            currentOutputStream = os;
+            currentChannel = FileChannel.open(Paths.get(fileName), CREATE, WRITE, APPEND); // append mode, for safety
             LogFileDb.nowLoggingTo(fileName);
         }
         catch (IOException e) {
@@ -262,7 +329,9 @@ public class LogFileHandler extends StreamHandler {
     private void runCompression(File oldFile) {
         File gzippedFile = new File(oldFile.getPath() + ".gz");
         try {
-            GZIPOutputStream compressor = new GZIPOutputStream(new FileOutputStream(gzippedFile), 0x100000);
+            GZIPOutputStream compressor = new GZIPOutputStream(new FileOutputStream(gzippedFile), 0x100000) {{
+                def.setLevel(compressionLevel);
+            }};
             FileInputStream inputStream = new FileInputStream(oldFile);
             byte [] buffer = new byte[0x100000];
 
@@ -391,12 +460,19 @@ public class LogFileHandler extends StreamHandler {
         this.symlinkName = symlinkName;
     }
 
+    /** Writes all queued records and closes the current file, see {@link #shutdown} */
+    @Override
+    public void close() {
+        shutdown();
+    }
+
     /**
-     * Flushes all queued messages, interrupts the log thread in this and
+     * Writes all queued messages, stops the log thread in this and
      * waits for it to end before returning
      */
     public void shutdown() {
-        logThread.interrupt();
+        running = false;
+        LockSupport.unpark(logThread);
         try {
             logThread.join();
             executor.shutdown();
@@ -3,8 +3,6 @@ package com.yahoo.container.logging;
 
 import com.yahoo.container.core.AccessLogConfig;
 
-import java.util.logging.Level;
-
 /**
  * Log a message in yApache log format.
  *
@@ -20,7 +18,7 @@ public final class YApacheAccessLog implements  AccessLogInterface {
 
     @Override
     public void log(final AccessLogEntry logEntry) {
-        logHandler.access.log(Level.INFO, new YApacheFormatter(logEntry).format() + '\n');
+        logHandler.log(new YApacheFormatter(logEntry).format() + '\n');
     }
 
 
@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -210,4 +211,31 @@ public class LogFileHandlerTestCase {
         IOUtils.recursiveDeleteDir(new File("./testcompression"));
     }
 
+    @Test
+    public void testConcurrentPublishing() throws InterruptedException, IOException {
+        IOUtils.recursiveDeleteDir(new File("./testconcurrentpublishing"));
+        LogFileHandler h = new LogFileHandler();
+        h.setFilePattern("./testconcurrentpublishing/logfilehandlertest.%Y%m%d%H%M%S%s");
+        Thread[] publishers = new Thread[4];
+        for (int i = 0; i < publishers.length; i++) {
+            byte[] record = ("publisher " + i + "\n").getBytes(StandardCharsets.UTF_8);
+            publishers[i] = new Thread(() -> {
+                for (int j = 0; j < 10000; j++)
+                    h.publish(record);
+            });
+            publishers[i].start();
+        }
+        for (Thread publisher : publishers)
+            publisher.join();
+        h.waitDrained();
+
+        String content = IOUtils.readFile(new File(h.getFileName()));
+        assertEquals(40000 * "publisher 0\n".length(), content.length());
+        for (int i = 0; i < publishers.length; i++)
+            assertEquals(10000, content.split("publisher " + i + "\n", -1).length - 1);
+
+        h.shutdown();
+        IOUtils.recursiveDeleteDir(new File("./testconcurrentpublishing"));
+    }
+
 }
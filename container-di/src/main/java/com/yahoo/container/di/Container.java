@@ -37,22 +37,35 @@ public class Container {
 
     private static final Logger log = Logger.getLogger(Container.class.getName());
 
+    private static final String constructionThreadsProperty = "jdisc.container.componentConstructionThreads";
+
     private final SubscriberFactory subscriberFactory;
     private ConfigKey<BundlesConfig> bundlesConfigKey;
     private ConfigKey<ComponentsConfig> componentsConfigKey;
     private final ComponentDeconstructor componentDeconstructor;
     private final Osgi osgi;
+    private final int constructionThreads;
 
     private ConfigRetriever configurer;
     private long previousConfigGeneration = -1L;
     private long leastGeneration = -1L;
 
     public Container(SubscriberFactory subscriberFactory, String configId, ComponentDeconstructor componentDeconstructor, Osgi osgi) {
+        this(subscriberFactory, configId, componentDeconstructor, osgi, constructionThreadsFromSystemProperty());
+    }
+
+    /**
+     * Creates a container which constructs up to the given number of independent components concurrently.
+     * With a single thread, components are constructed sequentially in dependency order.
+     */
+    public Container(SubscriberFactory subscriberFactory, String configId, ComponentDeconstructor componentDeconstructor,
+                     Osgi osgi, int constructionThreads) {
         this.subscriberFactory = subscriberFactory;
         this.bundlesConfigKey = new ConfigKey<>(BundlesConfig.class, configId);
         this.componentsConfigKey = new ConfigKey<>(ComponentsConfig.class, configId);
         this.componentDeconstructor = componentDeconstructor;
         this.osgi = osgi;
+        this.constructionThreads = constructionThreads;
 
         Set<ConfigKey<? extends ConfigInstance>> keySet = new HashSet<>();
         keySet.add(bundlesConfigKey);
@@ -60,6 +73,22 @@ public class Container {
         this.configurer = new ConfigRetriever(keySet, subscriberFactory::getSubscriber);
     }
 
+    /** Returns the number of component construction threads set in the system properties, or 1 if not validly set */
+    private static int constructionThreadsFromSystemProperty() {
+        String value = System.getProperty(constructionThreadsProperty);
+        if (value == null) return 1;
+        try {
+            int threads = Integer.parseInt(value.trim());
+            if (threads > 0) return threads;
+        }
+        catch (NumberFormatException e) {
+            // handled below
+        }
+        log.log(Level.WARNING, "Invalid value '" + value + "' of " + constructionThreadsProperty +
+                               ": Must be a positive integer. Constructing components in a single thread");
+        return 1;
+    }
+
     public Container(SubscriberFactory subscriberFactory, String configId, ComponentDeconstructor componentDeconstructor) {
         this(subscriberFactory, configId, componentDeconstructor, new Osgi() {
         });
@@ -226,7 +255,7 @@ public class Container {
     }
 
     private void constructComponents(ComponentGraph graph) {
-        graph.nodes().forEach(Node::newOrCachedInstance);
+        graph.constructComponents(constructionThreads);
     }
 
     public void shutdown(ComponentGraph graph, ComponentDeconstructor deconstructor) {
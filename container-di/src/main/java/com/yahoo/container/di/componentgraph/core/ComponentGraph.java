@@ -25,12 +25,17 @@ import java.lang.reflect.WildcardType;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -162,6 +167,65 @@ public class ComponentGraph {
         }
     }
 
+    /**
+     * Creates the instances of all nodes in this which do not have one already.
+     * With more than one thread, each node is constructed as soon as all the nodes it uses are, such that
+     * independent components are constructed concurrently. Construction always runs to completion, and if it
+     * failed for any node, the failure of the first such node in topological order is rethrown.
+     *
+     * @param threads the max number of components to construct concurrently
+     */
+    public void constructComponents(int threads) {
+        if (threads <= 1) {
+            nodes().forEach(Node::newOrCachedInstance);
+            logSlowestConstructions(nodes());
+            return;
+        }
+
+        List<Node> sorted = topologicalSort(nodes());
+        Map<ComponentId, Throwable> failures = new ConcurrentHashMap<>();
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            Map<ComponentId, CompletableFuture<Void>> constructed = new HashMap<>();
+            for (Node node : sorted) {
+                CompletableFuture<?>[] used = node.usedComponents().stream()
+                                                  .map(usedNode -> constructed.get(usedNode.componentId()))
+                                                  .filter(Objects::nonNull)
+                                                  .toArray(CompletableFuture[]::new);
+                constructed.put(node.componentId(), CompletableFuture.allOf(used).thenRunAsync(() -> {
+                    try {
+                        node.newOrCachedInstance();
+                    }
+                    catch (RuntimeException | Error e) {
+                        failures.put(node.componentId(), e);
+                        throw e;
+                    }
+                }, pool));
+            }
+            CompletableFuture.allOf(constructed.values().toArray(new CompletableFuture[0])).handle((result, e) -> null).join();
+        }
+        finally {
+            pool.shutdown();
+        }
+
+        for (Node node : sorted) {
+            Throwable failure = failures.get(node.componentId());
+            if (failure instanceof Error) throw (Error) failure;
+            if (failure != null) throw (RuntimeException) failure;
+        }
+        logSlowestConstructions(sorted);
+    }
+
+    private static void logSlowestConstructions(Collection<Node> nodes) {
+        if ( ! log.isLoggable(LogLevel.DEBUG)) return;
+        nodes.stream()
+             .filter(node -> node.constructionTime().isPresent())
+             .sorted(Comparator.comparing((Node node) -> node.constructionTime().get()).reversed())
+             .limit(10)
+             .forEach(node -> log.log(LogLevel.DEBUG, "Constructed " + node.idAndType() + " in " +
+                                                      node.constructionTime().get().toMillis() + " ms"));
+    }
+
     public Collection<?> allComponentsAndProviders() {
         return nodes().stream().map(node -> node.instance().get()).collect(Collectors.toList());
     }
@@ -7,6 +7,7 @@ import com.yahoo.config.ConfigInstance;
 import com.yahoo.container.di.componentgraph.Provider;
 import com.yahoo.vespa.config.ConfigKey;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
@@ -27,7 +28,8 @@ public abstract class Node {
     private final static Logger log = Logger.getLogger(Node.class.getName());
 
     private final ComponentId componentId;
-    protected Optional<Object> instance = Optional.empty();
+    protected volatile Optional<Object> instance = Optional.empty();
+    private volatile Optional<Duration> constructionTime = Optional.empty();
     List<Node> componentsToInject = new ArrayList<>();
 
     public Node(ComponentId componentId) {
@@ -43,14 +45,21 @@ public abstract class Node {
 
     protected abstract Object newInstance();
 
-    public Object newOrCachedInstance() {
+    /**
+     * Returns the instance of this, creating it first if necessary.
+     * This is synchronized such that an instance is created at most once also when components are
+     * constructed in parallel. As the component graph is acyclic, locks are taken in a consistent order.
+     */
+    public synchronized Object newOrCachedInstance() {
         Object inst;
         if (instance.isPresent()) {
             inst = instance.get();
             log.log(SPAM, "Reusing instance for component with ID " + componentId);
         } else {
             log.log(DEBUG, "Creating new instance for component with ID " + componentId);
+            long startNanos = System.nanoTime();
             inst = newInstance();
+            constructionTime = Optional.of(Duration.ofNanos(System.nanoTime() - startNanos));
             instance = Optional.of(inst);
         }
         return component(inst);
@@ -143,6 +152,11 @@ public abstract class Node {
         return instance;
     }
 
+    /** Returns the time spent constructing the instance of this, or empty if it was not constructed by this node */
+    public Optional<Duration> constructionTime() {
+        return constructionTime;
+    }
+
     /**
      * @param identityObject
      *            The identifying object that makes the Node unique
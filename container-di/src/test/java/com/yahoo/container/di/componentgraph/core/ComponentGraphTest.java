@@ -29,7 +29,10 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Set;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 import static com.yahoo.container.di.componentgraph.core.ComponentGraph.isBindingAnnotation;
@@ -102,6 +105,66 @@ public class ComponentGraphTest {
         assertNotNull(instance);
     }
 
+    @Test
+    public void components_can_be_constructed_in_parallel() {
+        Node injectedComponent = mockComponentNode(SimpleComponent.class);
+        Node targetComponent = mockComponentNode(ComponentTakingComponent.class);
+        targetComponent.inject(injectedComponent);
+
+        ComponentGraph componentGraph = new ComponentGraph();
+        componentGraph.add(injectedComponent);
+        componentGraph.add(targetComponent);
+        componentGraph.add(mockComponentNode(SimpleComponent2.class));
+        componentGraph.complete();
+        componentGraph.constructComponents(4);
+
+        ComponentTakingComponent instance = (ComponentTakingComponent) targetComponent.instance().get();
+        assertThat(instance.injectedComponent, sameInstance(injectedComponent.instance().get()));
+        for (Node node : componentGraph.nodes())
+            assertTrue(node.constructionTime().isPresent());
+    }
+
+    @Test
+    public void shared_component_is_constructed_once_when_used_by_parallel_consumers() throws Exception {
+        Node sharedComponent = mockComponentNode(SlowlyConstructedComponent.class);
+        ComponentGraph componentGraph = new ComponentGraph();
+        componentGraph.add(sharedComponent);
+        componentGraph.complete();
+
+        SlowlyConstructedComponent.constructed.set(0);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = executor.submit(sharedComponent::newOrCachedInstance);
+            Future<Object> second = executor.submit(sharedComponent::newOrCachedInstance);
+            assertThat(first.get(), sameInstance(second.get()));
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(SlowlyConstructedComponent.constructed.get(), is(1));
+    }
+
+    @Test
+    public void parallel_construction_rethrows_failure_of_first_failing_component() {
+        Node simpleComponent = mockComponentNode(SimpleComponent.class);
+        Node failingComponent = mockComponentNode(FailingComponent.class);
+        Node componentTakingFailingComponent = mockComponentNode(ComponentTakingFailingComponent.class);
+        componentTakingFailingComponent.inject(failingComponent);
+
+        ComponentGraph componentGraph = new ComponentGraph();
+        componentGraph.add(simpleComponent);
+        componentGraph.add(failingComponent);
+        componentGraph.add(componentTakingFailingComponent);
+        componentGraph.complete();
+        try {
+            componentGraph.constructComponents(4);
+            fail("Expected exception");
+        } catch (ComponentNode.ComponentConstructorException e) {
+            assertThat(e.getMessage(), containsString(FailingComponent.class.getName()));
+        }
+        assertTrue(simpleComponent.instance().isPresent());
+        assertFalse(componentTakingFailingComponent.instance().isPresent());
+    }
+
     @Test
     public void all_components_of_a_type_can_be_injected() {
         ComponentGraph componentGraph = new ComponentGraph();
@@ -467,6 +530,26 @@ public class ComponentGraphTest {
     public static class SimpleComponent2 extends AbstractComponent {
     }
 
+    public static class FailingComponent extends AbstractComponent {
+        public FailingComponent() {
+            throw new RuntimeException("Failing on purpose");
+        }
+    }
+
+    public static class SlowlyConstructedComponent extends AbstractComponent {
+        static final AtomicInteger constructed = new AtomicInteger();
+
+        public SlowlyConstructedComponent() throws InterruptedException {
+            constructed.incrementAndGet();
+            Thread.sleep(100);
+        }
+    }
+
+    public static class ComponentTakingFailingComponent extends AbstractComponent {
+        public ComponentTakingFailingComponent(FailingComponent component) {
+        }
+    }
+
     public static class SimpleDerivedComponent extends SimpleComponent {
     }
 
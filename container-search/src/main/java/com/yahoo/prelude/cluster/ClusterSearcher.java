@@ -11,6 +11,7 @@ import com.yahoo.concurrent.Receiver.MessageState;
 import com.yahoo.container.QrSearchersConfig;
 import com.yahoo.container.handler.VipStatus;
 import com.yahoo.fs4.mplex.Backend;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.net.HostName;
 import com.yahoo.search.dispatch.Dispatcher;
 import com.yahoo.prelude.fastsearch.FS4ResourcePool;
@@ -104,11 +105,12 @@ public class ClusterSearcher extends Searcher {
                            ClusterInfoConfig clusterInfoConfig,
                            Statistics manager,
                            FS4ResourcePool fs4ResourcePool,
-                           VipStatus vipStatus) {
+                           VipStatus vipStatus,
+                           Metric metric) {
         super(id);
         this.fs4ResourcePool = fs4ResourcePool;
 
-        Dispatcher dispatcher = new Dispatcher(id.stringValue(), dispatchConfig, fs4ResourcePool, clusterInfoConfig.nodeCount(), vipStatus);
+        Dispatcher dispatcher = new Dispatcher(id.stringValue(), dispatchConfig, fs4ResourcePool, clusterInfoConfig.nodeCount(), vipStatus, metric);
 
         monitor = (dispatcher.searchCluster().directDispatchTarget().isPresent()) // dispatcher should decide vip status instead
                 ? new ClusterMonitor(this, monitorConfig, Optional.empty())
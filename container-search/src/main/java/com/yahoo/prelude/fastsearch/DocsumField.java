@@ -87,7 +87,7 @@ public abstract class DocsumField {
      */
     public abstract Object convert(Inspector value);
 
-    /** Returns whether this is the string field type. */
+    /** Returns whether values of this field are strings which can be rendered as raw UTF-8 */
     boolean isString() { return false; }
 
 }
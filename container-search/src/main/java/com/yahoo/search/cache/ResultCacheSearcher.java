@@ -0,0 +1,284 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache;
+
+import com.google.inject.Inject;
+import com.yahoo.component.ComponentId;
+import com.yahoo.component.chain.dependencies.After;
+import com.yahoo.component.chain.dependencies.Before;
+import com.yahoo.component.chain.dependencies.Provides;
+import com.yahoo.metrics.simple.Counter;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.processing.request.CompoundName;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.config.ResultCacheConfig;
+import com.yahoo.search.query.Model;
+import com.yahoo.search.query.Presentation;
+import com.yahoo.search.query.Ranking;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.HitGroup;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.search.searchchain.PhaseNames;
+import com.yahoo.search.searchchain.SearchChainRegistry;
+
+import java.time.Clock;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * A cache of complete, filled results.
+ * <p>
+ * This takes these query parameter arguments:
+ * <ul>
+ *     <li>resultcache.enable - (Boolean) whether results of this query may be served from and stored in the cache.
+ *     Default is false, so this is typically turned on in the query profiles of the applications
+ *     where somewhat stale results are acceptable.
+ *     <li>resultcache.ttl - (Double) the max age in seconds of a cached result which may be returned for this query.
+ *     This can only be used to lower the ttl given in config.
+ * </ul>
+ * <p>
+ * Results are keyed by the query tree, filters, ranking, presentation, offset and hits of the query as
+ * defined by {@link Query#equals}, the requested summary fields, the search chain and the values of all the
+ * other properties of the query, such as the streaming user or group, the timeout and any custom
+ * parameters, as these may change the result. Queries which set nocache,
+ * which request grouping or which ask for more than the configured max hits are passed through, and results
+ * containing errors or having degraded coverage are never stored.
+ * <p>
+ * The cache is bounded both by size, evicting the least recently used result, and by age.
+ * It is cleared whenever a query arrives with a new search chain registry, as that means a new
+ * configuration or schema generation is in effect.
+ * <p>
+ * Metrics: This will emit the count metrics resultcache.hits and resultcache.misses.
+ * <p>
+ * Ordering: This searcher Provides resultCache, and must be placed after query transformation
+ * but before federation and blending.
+ *
+ * @author agent
+ */
+@After(PhaseNames.TRANSFORMED_QUERY)
+@Before(PhaseNames.BLENDED_RESULT)
+@Provides(ResultCacheSearcher.RESULT_CACHE)
+public class ResultCacheSearcher extends Searcher {
+
+    /** Constant containing the name this Provides - "resultCache", for ordering constraints */
+    public static final String RESULT_CACHE = "resultCache";
+
+    public static final CompoundName enableKey = new CompoundName("resultcache.enable");
+    public static final CompoundName ttlKey = new CompoundName("resultcache.ttl");
+
+    private static final String hitsMetricName = "resultcache.hits";
+    private static final String missesMetricName = "resultcache.misses";
+
+    private final Cache cache;
+
+    /** The max age of results served from this cache */
+    private final long ttlMillis;
+
+    /** The max offset+hits of queries to cache results of */
+    private final int maxHits;
+
+    private final Clock clock;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    @Inject
+    public ResultCacheSearcher(ResultCacheConfig config, MetricReceiver metric) {
+        this(config, metric, Clock.systemUTC());
+    }
+
+    /** For testing - allows injection of a timer to avoid depending on the system clock */
+    public ResultCacheSearcher(ResultCacheConfig config, MetricReceiver metric, Clock clock) {
+        this.ttlMillis = (long)(config.ttl() * 1000);
+        this.cache = new Cache(config.maxEntries(), ttlMillis);
+        this.maxHits = config.maxHits();
+        this.clock = clock;
+
+        this.hitCounter = metric.declareCounter(hitsMetricName);
+        this.missCounter = metric.declareCounter(missesMetricName);
+    }
+
+    @Override
+    public Result search(Query query, Execution execution) {
+        if ( ! query.properties().getBoolean(enableKey, false))
+            return execution.search(query);
+        if (query.getNoCache()) {
+            query.trace("Not using the result cache: nocache is set", false, 6);
+            return execution.search(query);
+        }
+        if ( ! query.getSelect().getGrouping().isEmpty()) {
+            query.trace("Not using the result cache: Grouping results are not cached", false, 6);
+            return execution.search(query);
+        }
+        if (query.getOffset() + query.getHits() > maxHits) {
+            query.trace("Not using the result cache: offset+hits is larger than " + maxHits, false, 6);
+            return execution.search(query);
+        }
+
+        cache.clearIfNewGeneration(execution.context());
+
+        ComponentId chainId = execution.chain().getId();
+        CachedResult cached = cache.get(new CacheKey(chainId, query), clock.millis(), ttlMillis(query));
+        if (cached != null) {
+            hitCounter.add();
+            query.trace("Returning result from the result cache", false, 3);
+            return cached.toResult(query);
+        }
+
+        missCounter.add();
+        CacheKey key = new CacheKey(chainId, query.clone()); // before downstream searchers modify the query
+        Result result = execution.search(query);
+        execution.fill(result, query.getPresentation().getSummary());
+        if (isCacheable(result))
+            cache.put(key, new CachedResult(result, clock.millis()));
+        return result;
+    }
+
+    private long ttlMillis(Query query) {
+        Double queryTtl = query.properties().getDouble(ttlKey);
+        if (queryTtl == null) return ttlMillis;
+        return Math.min(ttlMillis, (long)(queryTtl * 1000));
+    }
+
+    private boolean isCacheable(Result result) {
+        if (result.hits().getErrorHit() != null) return false;
+        Coverage coverage = result.getCoverage(false);
+        return coverage == null || ! coverage.isDegraded();
+    }
+
+    /** The key of a cached result. The query held must not be modified after this is created. */
+    private static final class CacheKey {
+
+        private final ComponentId chainId;
+        private final Query query;
+        private final Set<String> summaryFields;
+
+        /** The values of all the properties of the query, as Query.equals ignores these */
+        private final Map<String, String> properties;
+
+        private final int hashCode;
+
+        CacheKey(ComponentId chainId, Query query) {
+            this.chainId = chainId;
+            this.query = query;
+            this.summaryFields = new HashSet<>(query.getPresentation().getSummaryFields());
+            this.properties = propertiesOf(query);
+            this.hashCode = Objects.hash(chainId, query, summaryFields, properties);
+        }
+
+        private static Map<String, String> propertiesOf(Query query) {
+            Map<String, String> properties = new TreeMap<>();
+            for (Map.Entry<String, Object> property : query.properties().listProperties().entrySet()) {
+                if (property.getKey().startsWith("resultcache.")) continue;
+                Object value = property.getValue();
+                if (value instanceof Model || value instanceof Ranking || value instanceof Presentation) continue; // compared by Query.equals
+                properties.put(property.getKey(), String.valueOf(value));
+            }
+            return properties;
+        }
+
+        @Override
+        public int hashCode() { return hashCode; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof CacheKey)) return false;
+            CacheKey other = (CacheKey) o;
+            return hashCode == other.hashCode &&
+                   chainId.equals(other.chainId) &&
+                   summaryFields.equals(other.summaryFields) &&
+                   properties.equals(other.properties) &&
+                   query.equals(other.query);
+        }
+
+    }
+
+    /** An immutable copy of the parts of a result which are returned from the cache */
+    private static final class CachedResult {
+
+        private final HitGroup hits;
+        private final long totalHitCount;
+        private final long deepHitCount;
+        private final Coverage coverage;
+        private final long createdMillis;
+
+        CachedResult(Result result, long createdMillis) {
+            this.hits = result.hits().clone();
+            this.totalHitCount = result.getTotalHitCount();
+            this.deepHitCount = result.getDeepHitCount();
+            this.coverage = copyOf(result.getCoverage(false));
+            this.createdMillis = createdMillis;
+        }
+
+        Result toResult(Query query) {
+            Result result = new Result(query, hits.clone());
+            result.setTotalHitCount(totalHitCount);
+            result.setDeepHitCount(deepHitCount);
+            result.setCoverage(copyOf(coverage));
+            return result;
+        }
+
+        boolean isCreatedBefore(long millis) { return createdMillis < millis; }
+
+        private static Coverage copyOf(Coverage coverage) {
+            if (coverage == null) return null;
+            Coverage copy = new Coverage(0, 0, 0, 0);
+            copy.merge(coverage);
+            return copy;
+        }
+
+    }
+
+    /** A size and age bounded LRU map of cached results which is cleared on new configuration generations */
+    private static final class Cache {
+
+        private final Map<CacheKey, CachedResult> results;
+        private final long ttlMillis;
+
+        /**
+         * The search chain registry of the last execution seen. This is created together with the index facts
+         * of each new configuration generation of the search handler, so a new instance means a new generation.
+         */
+        private SearchChainRegistry searchChainRegistry = null;
+
+        Cache(int maxEntries, long ttlMillis) {
+            this.ttlMillis = ttlMillis;
+            this.results = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<CacheKey, CachedResult> eldest) {
+                    return size() > maxEntries;
+                }
+            };
+        }
+
+        synchronized void clearIfNewGeneration(Execution.Context context) {
+            if (context.searchChainRegistry() == searchChainRegistry) return;
+            results.clear();
+            searchChainRegistry = context.searchChainRegistry();
+        }
+
+        /** Returns the result cached for this key if it is no older than the given ttl, or null */
+        synchronized CachedResult get(CacheKey key, long nowMillis, long queryTtlMillis) {
+            CachedResult cached = results.get(key);
+            if (cached == null) return null;
+            if (cached.isCreatedBefore(nowMillis - ttlMillis)) {
+                results.remove(key);
+                return null;
+            }
+            if (cached.isCreatedBefore(nowMillis - queryTtlMillis)) return null;
+            return cached;
+        }
+
+        synchronized void put(CacheKey key, CachedResult result) {
+            results.put(key, result);
+        }
+
+    }
+
+}
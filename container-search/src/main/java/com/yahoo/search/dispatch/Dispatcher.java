@@ -3,6 +3,7 @@ package com.yahoo.search.dispatch;
 
 import com.yahoo.component.AbstractComponent;
 import com.yahoo.container.handler.VipStatus;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.prelude.fastsearch.DocumentDatabase;
 import com.yahoo.prelude.fastsearch.FS4InvokerFactory;
 import com.yahoo.prelude.fastsearch.FS4ResourcePool;
@@ -18,8 +19,10 @@ import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.vespa.config.search.DispatchConfig;
 
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
@@ -39,6 +42,11 @@ import java.util.Set;
 public class Dispatcher extends AbstractComponent {
     private static final int MAX_GROUP_SELECTION_ATTEMPTS = 3;
 
+    private static final String CONCURRENCY_LIMIT_METRIC = "dispatch.node.concurrency_limit";
+    private static final String IN_FLIGHT_METRIC = "dispatch.node.queries_in_flight";
+    /** Queries sent to a group where some node already had as many queries in flight as its limit allows */
+    private static final String SATURATED_METRIC = "dispatch.saturated_group_queries";
+
     /** If enabled, this internal dispatcher will be preferred over fdispatch whenever possible */
     private static final CompoundName dispatchInternal = new CompoundName("dispatch.internal");
 
@@ -49,18 +57,39 @@ public class Dispatcher extends AbstractComponent {
     private final RpcResourcePool rpcResourcePool;
     private final boolean multilevelDispatch;
     private final boolean internalDispatchByDefault;
+    private final Metric metric;
+    private final Metric.Context clusterMetricContext;
+    private final Map<Integer, Metric.Context> nodeMetricContexts = new HashMap<>();
+
+    public Dispatcher(String clusterId, DispatchConfig dispatchConfig, FS4ResourcePool fs4ResourcePool, int containerClusterSize,
+                      VipStatus vipStatus) {
+        this(clusterId, dispatchConfig, fs4ResourcePool, containerClusterSize, vipStatus, new NullMetric());
+    }
 
-    public Dispatcher(String clusterId, DispatchConfig dispatchConfig, FS4ResourcePool fs4ResourcePool, int containerClusterSize, VipStatus vipStatus) {
-        this(new SearchCluster(clusterId, dispatchConfig, fs4ResourcePool, containerClusterSize, vipStatus), dispatchConfig);
+    public Dispatcher(String clusterId, DispatchConfig dispatchConfig, FS4ResourcePool fs4ResourcePool, int containerClusterSize,
+                      VipStatus vipStatus, Metric metric) {
+        this(new SearchCluster(clusterId, dispatchConfig, fs4ResourcePool, containerClusterSize, vipStatus), dispatchConfig, metric);
     }
 
     public Dispatcher(SearchCluster searchCluster, DispatchConfig dispatchConfig) {
+        this(searchCluster, dispatchConfig, new NullMetric());
+    }
+
+    public Dispatcher(SearchCluster searchCluster, DispatchConfig dispatchConfig, Metric metric) {
         this.searchCluster = searchCluster;
         this.loadBalancer = new LoadBalancer(searchCluster,
                 dispatchConfig.distributionPolicy() == DispatchConfig.DistributionPolicy.ROUNDROBIN);
         this.rpcResourcePool = new RpcResourcePool(dispatchConfig);
         this.multilevelDispatch = dispatchConfig.useMultilevelDispatch();
         this.internalDispatchByDefault = !dispatchConfig.useFdispatchByDefault();
+        this.metric = metric;
+        this.clusterMetricContext = metric.createContext(Map.of("clusterid", searchCluster.clusterId()));
+        for (Group group : searchCluster.orderedGroups()) {
+            for (Node node : group.nodes()) {
+                nodeMetricContexts.put(node.key(), metric.createContext(Map.of("clusterid", searchCluster.clusterId(),
+                                                                               "distributionKey", node.key())));
+            }
+        }
     }
 
     /** Returns the search cluster this dispatches to */
@@ -154,7 +183,14 @@ public class Dispatcher extends AbstractComponent {
             if (invoker.isPresent()) {
                 query.trace(false, 2, "Dispatching internally to search group ", group.id());
                 query.getModel().setSearchPath("/" + group.id());
-                invoker.get().teardown((success, time) -> loadBalancer.releaseGroup(group, success, time));
+                if (group.isSaturated()) {
+                    query.trace(false, 3, "Concurrency limit reached in all available groups, sending to saturated search group ", group.id());
+                    metric.add(SATURATED_METRIC, 1, clusterMetricContext);
+                }
+                invoker.get().teardown((success, time) -> {
+                    loadBalancer.releaseGroup(group, success, time);
+                    reportConcurrency(group);
+                });
                 return invoker;
             } else {
                 loadBalancer.releaseGroup(group, false, 0);
@@ -167,4 +203,28 @@ public class Dispatcher extends AbstractComponent {
 
         return Optional.empty();
     }
+
+    private void reportConcurrency(Group group) {
+        for (Node node : group.nodes()) {
+            Metric.Context context = nodeMetricContexts.get(node.key());
+            if (context == null) continue;
+
+            metric.set(CONCURRENCY_LIMIT_METRIC, node.concurrencyLimit().limit(), context);
+            metric.set(IN_FLIGHT_METRIC, node.concurrencyLimit().inFlight(), context);
+        }
+    }
+
+    /** Used when there is nowhere to report metrics */
+    private static class NullMetric implements Metric {
+
+        @Override
+        public void set(String key, Number val, Context ctx) { }
+
+        @Override
+        public void add(String key, Number val, Context ctx) { }
+
+        @Override
+        public Context createContext(Map<String, ?> properties) { return null; }
+
+    }
 }
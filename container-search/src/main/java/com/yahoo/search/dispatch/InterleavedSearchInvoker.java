@@ -87,6 +87,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
         trimResult = originalHits != query.getHits() || originalOffset != query.getOffset();
 
         for (SearchInvoker invoker : invokers) {
+            invoker.requestStarted();
             invoker.sendSearchRequest(query, null);
             askedNodes++;
         }
@@ -105,7 +106,9 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
                     log.fine(() -> "Search timed out with " + askedNodes + " requests made, " + answeredNodes + " responses received");
                     break;
                 } else {
-                    mergeResult(invoker.getSearchResult(cacheKey, execution));
+                    Result partialResult = invoker.getSearchResult(cacheKey, execution);
+                    invoker.requestCompleted(partialResult);
+                    mergeResult(partialResult);
                     ejectInvoker(invoker);
                 }
                 nextTimeout = nextTimeout();
@@ -137,6 +140,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
 
     private void insertTimeoutErrors() {
         if (!invokers.isEmpty()) {
+            invokers.forEach(invoker -> invoker.requestCompleted(true));
             String keys = invokers.stream().map(SearchInvoker::distributionKey).map(dk -> dk.map(i -> i.toString()).orElse("(unspecified)"))
                     .collect(Collectors.joining(", "));
 
@@ -249,6 +253,7 @@ public class InterleavedSearchInvoker extends SearchInvoker implements ResponseM
     @Override
     protected void release() {
         if (!invokers.isEmpty()) {
+            invokers.forEach(SearchInvoker::requestAborted);
             invokers.forEach(SearchInvoker::close);
             invokers.clear();
         }
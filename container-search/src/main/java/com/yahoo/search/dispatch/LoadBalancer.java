@@ -5,6 +5,7 @@ import com.yahoo.search.dispatch.searchcluster.Group;
 import com.yahoo.search.dispatch.searchcluster.SearchCluster;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Random;
@@ -46,12 +47,18 @@ public class LoadBalancer {
      * Select and allocate the search cluster group which is to be used for the next search query. Callers <b>must</b> call
      * {@link #releaseGroup} symmetrically for each taken allocation.
      *
+     * Groups where some node has reached its concurrency limit are avoided as long as other groups are available.
+     *
      * @param rejectedGroups if not null, the load balancer will only return groups with IDs not in the set
      * @return The node group to target, or <i>empty</i> if the internal dispatch logic cannot be used
      */
     public Optional<Group> takeGroup(Set<Integer> rejectedGroups) {
         synchronized (this) {
-            Optional<GroupStatus> best = scheduler.takeNextGroup(rejectedGroups);
+            Set<Integer> avoidedGroups = withSaturatedGroups(rejectedGroups);
+            Optional<GroupStatus> best = scheduler.takeNextGroup(avoidedGroups);
+            if (!best.isPresent() && avoidedGroups != rejectedGroups) {
+                best = scheduler.takeNextGroup(rejectedGroups);
+            }
 
             if (best.isPresent()) {
                 GroupStatus gs = best.get();
@@ -86,6 +93,19 @@ public class LoadBalancer {
         }
     }
 
+    private Set<Integer> withSaturatedGroups(Set<Integer> rejectedGroups) {
+        Set<Integer> rejected = rejectedGroups;
+        for (GroupStatus gs : scoreboard) {
+            if (gs.group.isSaturated()) {
+                if (rejected == rejectedGroups) {
+                    rejected = (rejectedGroups == null) ? new HashSet<>() : new HashSet<>(rejectedGroups);
+                }
+                rejected.add(gs.groupId());
+            }
+        }
+        return rejected;
+    }
+
     static class GroupStatus {
         private final Group group;
         private int allocations = 0;
@@ -6,6 +6,7 @@ import com.yahoo.prelude.fastsearch.CacheKey;
 import com.yahoo.search.Query;
 import com.yahoo.search.Result;
 import com.yahoo.search.dispatch.searchcluster.Node;
+import com.yahoo.search.result.ErrorMessage;
 import com.yahoo.search.searchchain.Execution;
 
 import java.io.IOException;
@@ -20,6 +21,7 @@ import java.util.Optional;
 public abstract class SearchInvoker extends CloseableInvoker {
     private final Optional<Node> node;
     private ResponseMonitor<SearchInvoker> monitor;
+    private long requestStartTime = -1;
 
     protected SearchInvoker(Optional<Node> node) {
         this.node = node;
@@ -31,10 +33,16 @@ public abstract class SearchInvoker extends CloseableInvoker {
      * for correct result windowing.
      */
     public Result search(Query query, QueryPacket queryPacket, CacheKey cacheKey, Execution execution) throws IOException {
-        sendSearchRequest(query, queryPacket);
-        Result result = getSearchResult(cacheKey, execution);
-        setFinalStatus(result.hits().getError() == null);
-        return result;
+        requestStarted();
+        try {
+            sendSearchRequest(query, queryPacket);
+            Result result = getSearchResult(cacheKey, execution);
+            setFinalStatus(result.hits().getError() == null);
+            requestCompleted(result);
+            return result;
+        } finally {
+            requestAborted();
+        }
     }
 
     protected abstract void sendSearchRequest(Query query, QueryPacket queryPacket) throws IOException;
@@ -54,4 +62,46 @@ public abstract class SearchInvoker extends CloseableInvoker {
     protected Optional<Integer> distributionKey() {
         return node.map(Node::key);
     }
+
+    /** Registers a request to the node of this invoker, if any, with the concurrency limit of the node */
+    void requestStarted() {
+        node.ifPresent(n -> n.concurrencyLimit().start());
+        requestStartTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Registers the outcome of the request started by {@link #requestStarted} from the result it produced.
+     * Errors other than timeouts tell nothing about the load on the node, so they end the request without an outcome.
+     */
+    void requestCompleted(Result result) {
+        ErrorMessage error = result.hits().getError();
+        if (error == null) {
+            requestCompleted(false);
+        } else if (error.getCode() == ErrorMessage.timeoutCode) {
+            requestCompleted(true);
+        } else {
+            requestAborted();
+        }
+    }
+
+    /** Registers the outcome of the request started by {@link #requestStarted}. Later calls have no effect. */
+    void requestCompleted(boolean timedOut) {
+        if (requestStartTime < 0) return;
+
+        long latency = System.currentTimeMillis() - requestStartTime;
+        requestStartTime = -1;
+        if (timedOut) {
+            node.ifPresent(n -> n.concurrencyLimit().timeout());
+        } else {
+            node.ifPresent(n -> n.concurrencyLimit().complete(latency));
+        }
+    }
+
+    /** Ends the request started by {@link #requestStarted} without an outcome, unless already completed */
+    void requestAborted() {
+        if (requestStartTime < 0) return;
+
+        requestStartTime = -1;
+        node.ifPresent(n -> n.concurrencyLimit().abort());
+    }
 }
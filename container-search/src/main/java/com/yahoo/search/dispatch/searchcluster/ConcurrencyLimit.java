@@ -0,0 +1,98 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.searchcluster;
+
+/**
+ * An adaptive limit on the number of requests in flight to a single search node.
+ *
+ * The limit follows the latency gradient of the node: The lowest latency observed is taken as the latency
+ * of the node when it is not loaded, and the limit shrinks in proportion to how much the smoothed latency
+ * exceeds this, while a small headroom lets the limit grow when latency is stable. Timeouts shrink the limit
+ * multiplicatively. This class is multithread safe.
+ *
+ * @author agent
+ */
+public class ConcurrencyLimit {
+
+    static final int INITIAL_LIMIT = 64;
+    static final int MIN_LIMIT = 4;
+    static final int MAX_LIMIT = 1024;
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LATENCY_SMOOTHING = 0.1;
+    private static final double NO_LOAD_LATENCY_DRIFT = 0.001;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double TIMEOUT_BACKOFF = 0.8;
+
+    private double limit = INITIAL_LIMIT;
+    private int inFlight = 0;
+    private double noLoadLatency = -1;
+    private double smoothedLatency = -1;
+
+    /** Registers that a request is sent to the node */
+    public synchronized void start() {
+        inFlight++;
+    }
+
+    /** Registers that a response was received from the node after the given time, and adjusts the limit */
+    public synchronized void complete(long latencyMs) {
+        release();
+        double latency = Math.max(latencyMs, 1);
+        if (noLoadLatency < 0) {
+            noLoadLatency = latency;
+            smoothedLatency = latency;
+            return;
+        }
+        // Let the no-load latency drift slowly upwards, so that it follows permanent changes in the node
+        noLoadLatency = Math.min(latency, noLoadLatency + (latency - noLoadLatency) * NO_LOAD_LATENCY_DRIFT);
+        smoothedLatency += (latency - smoothedLatency) * LATENCY_SMOOTHING;
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, noLoadLatency / smoothedLatency));
+        if (gradient == 1.0 && inFlight < limit / 2) {
+            return; // The limit is not what holds back traffic, so there is nothing to learn from this
+        }
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        setLimit(limit * (1 - SMOOTHING) + newLimit * SMOOTHING);
+    }
+
+    /** Registers that no response was received from the node within the query timeout */
+    public synchronized void timeout() {
+        release();
+        setLimit(limit * TIMEOUT_BACKOFF);
+    }
+
+    /** Registers that a request ended without providing any information about the node */
+    public synchronized void abort() {
+        release();
+    }
+
+    /** Returns whether there are as many requests in flight to the node as the current limit allows */
+    public synchronized boolean isSaturated() {
+        return inFlight >= (int) limit;
+    }
+
+    /** Returns the current limit on requests in flight */
+    public synchronized int limit() {
+        return (int) limit;
+    }
+
+    /** Returns the number of requests currently in flight */
+    public synchronized int inFlight() {
+        return inFlight;
+    }
+
+    private void release() {
+        if (inFlight > 0) {
+            inFlight--;
+        }
+    }
+
+    private void setLimit(double limit) {
+        this.limit = Math.max(MIN_LIMIT, Math.min(MAX_LIMIT, limit));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "concurrency limit " + (int) limit + " with " + inFlight + " in flight";
+    }
+
+}
@@ -45,6 +45,16 @@ public class Group {
         hasSufficientCoverage.lazySet(sufficientCoverage);
     }
 
+    /** Returns whether some working node in this group has as many queries in flight as its concurrency limit allows */
+    public boolean isSaturated() {
+        for (Node node : nodes) {
+            if (node.isWorking() && node.concurrencyLimit().isSaturated()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public int workingNodes() {
         int nodesUp = 0;
         for (Node node : nodes) {
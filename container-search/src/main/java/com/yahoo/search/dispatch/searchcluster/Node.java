@@ -20,6 +20,7 @@ public class Node {
 
     private final AtomicBoolean working = new AtomicBoolean(true);
     private final AtomicLong activeDocuments = new AtomicLong(0);
+    private final ConcurrencyLimit concurrencyLimit = new ConcurrencyLimit();
 
     public Node(int key, String hostname, int fs4port, int group) {
         this.key = key;
@@ -55,6 +56,11 @@ public class Node {
         return this.activeDocuments.get();
     }
 
+    /** Returns the limit on queries in flight to this node */
+    public ConcurrencyLimit concurrencyLimit() {
+        return concurrencyLimit;
+    }
+
     @Override
     public int hashCode() { return Objects.hash(hostname, fs4port); }
 
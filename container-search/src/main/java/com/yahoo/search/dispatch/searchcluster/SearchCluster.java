@@ -150,6 +150,9 @@ public class SearchCluster implements NodeManager<Node> {
         return dispatchConfig;
     }
 
+    /** Returns the id of this cluster */
+    public String clusterId() { return clusterId; }
+
     /** Returns the number of nodes in this cluster (across all groups) */
     public int size() { return size; }
 
@@ -11,8 +11,6 @@ import com.yahoo.data.JsonProducer;
 import com.yahoo.data.access.Inspectable;
 import com.yahoo.data.access.Inspector;
 import com.yahoo.data.access.Type;
-import com.yahoo.data.access.simple.JsonRender;
-import com.yahoo.data.access.simple.Value;
 import com.yahoo.document.datatypes.FieldValue;
 import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.datatypes.TensorFieldValue;
@@ -668,6 +666,8 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
      */
     private static class FieldConsumer implements Hit.RawUtf8Consumer {
 
+        private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
         private final JsonGenerator generator;
         private final boolean debugRendering;
 
@@ -745,32 +745,86 @@ public class JsonRenderer extends AsynchronousSectionedRenderer<Result> {
             return true;
         }
 
-        private static Inspector wrapAsMap(Inspector data) {
-            if (data.type() != Type.ARRAY) return null;
-            if (data.entryCount() == 0) return null;
-            Value.ObjectValue map = new Value.ObjectValue();
+        /** Returns whether the given data is an array of key/value objects, which is rendered as a JSON object */
+        private static boolean isMap(Inspector data) {
+            if (data.type() != Type.ARRAY) return false;
+            if (data.entryCount() == 0) return false;
             for (int i = 0; i < data.entryCount(); i++) {
                 Inspector obj = data.entry(i);
-                if (obj.type() != Type.OBJECT) return null;
-                if (obj.fieldCount() != 2) return null;
-                Inspector key = obj.field("key");
-                Inspector value = obj.field("value");
-                if (key.type() != Type.STRING) return null;
-                if (! value.valid()) return null;
-                map.put(key.asString(), value);
+                if (obj.type() != Type.OBJECT) return false;
+                if (obj.fieldCount() != 2) return false;
+                if (obj.field("key").type() != Type.STRING) return false;
+                if (! obj.field("value").valid()) return false;
             }
-            return map;
+            return true;
         }
 
         private void renderInspector(Inspector data) throws IOException {
-            StringBuilder intermediate = new StringBuilder();
-            Inspector asMap = wrapAsMap(data);
-            if (asMap != null) {
-                JsonRender.render(asMap, intermediate, true);
+            if (isMap(data)) {
+                generator.writeStartObject();
+                for (Inspector entry : data.entries()) {
+                    generator.writeFieldName(entry.field("key").asString());
+                    renderInspectorValue(entry.field("value"));
+                }
+                generator.writeEndObject();
             } else {
-                JsonRender.render(data, intermediate, true);
+                renderInspectorValue(data);
+            }
+        }
+
+        /**
+         * Streams the given data directly to the generator.
+         * Strings are copied as UTF-8 without being decoded when the data is binary slime.
+         */
+        private void renderInspectorValue(Inspector data) throws IOException {
+            switch (data.type()) {
+                case EMPTY:
+                    generator.writeNull();
+                    break;
+                case BOOL:
+                    generator.writeBoolean(data.asBool());
+                    break;
+                case LONG:
+                    generator.writeNumber(data.asLong());
+                    break;
+                case DOUBLE:
+                    double value = data.asDouble();
+                    if (Double.isFinite(value))
+                        generator.writeNumber(value);
+                    else
+                        generator.writeNull();
+                    break;
+                case STRING:
+                    byte[] utf8 = data.asUtf8();
+                    generator.writeUTF8String(utf8, 0, utf8.length);
+                    break;
+                case DATA:
+                    generator.writeString(toHexString(data.asData()));
+                    break;
+                case ARRAY:
+                    generator.writeStartArray();
+                    for (Inspector entry : data.entries())
+                        renderInspectorValue(entry);
+                    generator.writeEndArray();
+                    break;
+                case OBJECT:
+                    generator.writeStartObject();
+                    for (Map.Entry<String, Inspector> field : data.fields()) {
+                        generator.writeFieldName(field.getKey());
+                        renderInspectorValue(field.getValue());
+                    }
+                    generator.writeEndObject();
+                    break;
+            }
+        }
+
+        private static String toHexString(byte[] data) {
+            StringBuilder hex = new StringBuilder(2 + data.length * 2).append("0x");
+            for (byte b : data) {
+                hex.append(HEX_DIGITS[(b >> 4) & 0xf]);
+                hex.append(HEX_DIGITS[b & 0xf]);
             }
-            generator.writeRawValue(intermediate.toString());
+            return hex.toString();
         }
 
         private void renderFieldContents(Object field) throws IOException {
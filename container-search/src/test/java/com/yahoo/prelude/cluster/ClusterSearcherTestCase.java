@@ -7,6 +7,7 @@ import com.yahoo.container.QrConfig;
 import com.yahoo.container.QrSearchersConfig;
 import com.yahoo.container.search.Fs4Config;
 import com.yahoo.fs4.QueryPacket;
+import com.yahoo.jdisc.Metric;
 import com.yahoo.prelude.IndexFacts;
 import com.yahoo.prelude.IndexModel;
 import com.yahoo.prelude.SearchDefinition;
@@ -40,6 +41,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
 
 /**
  * Tests cluster monitoring
@@ -544,7 +546,8 @@ public class ClusterSearcherTestCase {
                                    createClusterInfoConfig(),
                                    Statistics.nullImplementation,
                                    new FS4ResourcePool(new Fs4Config.Builder().build(), new QrConfig.Builder().build()),
-                                   new VipStatus());
+                                   new VipStatus(),
+                                   mock(Metric.class));
     }
 
     private static ClusterInfoConfig createClusterInfoConfig() {
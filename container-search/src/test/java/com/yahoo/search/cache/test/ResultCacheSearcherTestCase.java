@@ -0,0 +1,231 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.cache.test;
+
+import com.yahoo.component.chain.Chain;
+import com.yahoo.metrics.simple.MetricReceiver;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.Searcher;
+import com.yahoo.search.cache.ResultCacheSearcher;
+import com.yahoo.search.config.ResultCacheConfig;
+import com.yahoo.search.grouping.GroupingRequest;
+import com.yahoo.search.grouping.request.GroupingOperation;
+import com.yahoo.search.result.Coverage;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.result.Hit;
+import com.yahoo.search.searchchain.Execution;
+import com.yahoo.search.searchchain.SearchChainRegistry;
+import com.yahoo.test.ManualClock;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Unit tests for ResultCacheSearcher
+ *
+ * @author agent
+ */
+public class ResultCacheSearcherTestCase {
+
+    private final ManualClock clock = new ManualClock();
+    private final MetricReceiver.MockReceiver metric = new MetricReceiver.MockReceiver();
+    private final BackendSearcher backend = new BackendSearcher();
+    private final Chain<Searcher> chain = new Chain<>("test", new ResultCacheSearcher(config(2, 10), metric, clock), backend);
+    private final SearchChainRegistry registry = new SearchChainRegistry();
+
+    @Test
+    public void testCaching() {
+        Result first = search("?query=foo&resultcache.enable=true");
+        assertEquals(1, backend.searchCount);
+        assertEquals(2, first.hits().size());
+        assertEquals(1, backend.fillCount);
+
+        Result cached = search("?query=foo&resultcache.enable=true");
+        assertEquals("Served from the cache", 1, backend.searchCount);
+        assertEquals("Returned hits are filled", 1, backend.fillCount);
+        assertEquals(2, cached.hits().size());
+        assertEquals(first.hits().get(0).getId(), cached.hits().get(0).getId());
+        assertEquals("bar", cached.hits().get(0).getField("title"));
+        assertEquals(100, cached.getTotalHitCount());
+        assertEquals(100, cached.getCoverage(false).getDocs());
+
+        cached.hits().get(0).setField("title", "modified");
+        assertEquals("Cached hits are not affected by changes to returned hits",
+                     "bar", search("?query=foo&resultcache.enable=true").hits().get(0).getField("title"));
+        assertEquals(1, backend.searchCount);
+
+        search("?query=foo&resultcache.enable=true&hits=1");
+        assertEquals("Another number of hits is another query", 2, backend.searchCount);
+        search("?query=foo&resultcache.enable=true&ranking=other");
+        assertEquals("Another rank profile is another query", 3, backend.searchCount);
+        search("?query=foo&resultcache.enable=true&presentation.summary=other");
+        assertEquals("Another summary class is another query", 4, backend.searchCount);
+
+        assertEquals(2, metric.getSnapshot().getMapForMetric("resultcache.hits").values().iterator().next().getCount());
+        assertEquals(4, metric.getSnapshot().getMapForMetric("resultcache.misses").values().iterator().next().getCount());
+    }
+
+    @Test
+    public void testAllPropertiesAreInTheKey() {
+        search("?query=foo&resultcache.enable=true&streaming.userid=1");
+        search("?query=foo&resultcache.enable=true&streaming.userid=1");
+        assertEquals(1, backend.searchCount);
+        search("?query=foo&resultcache.enable=true&streaming.userid=2");
+        assertEquals("Another streaming user is another query", 2, backend.searchCount);
+
+        search("?query=foo&resultcache.enable=true&foo=bar");
+        search("?query=foo&resultcache.enable=true&foo=bar");
+        assertEquals(3, backend.searchCount);
+        search("?query=foo&resultcache.enable=true&foo=baz");
+        assertEquals("Another value of a custom property is another query", 4, backend.searchCount);
+
+        search("?query=foo&resultcache.enable=true&ranking.matchPhase.maxHits=100");
+        assertEquals("Another match phase is another query", 5, backend.searchCount);
+        search("?query=foo&resultcache.enable=true&timeout=3");
+        assertEquals("Another timeout is another query", 6, backend.searchCount);
+    }
+
+    @Test
+    public void testCachingIsOptIn() {
+        search("?query=foo");
+        search("?query=foo");
+        assertEquals(2, backend.searchCount);
+
+        search("?query=foo&resultcache.enable=true&nocache=true");
+        search("?query=foo&resultcache.enable=true&nocache=true");
+        assertEquals("Not cached when nocache is set", 4, backend.searchCount);
+
+        search("?query=foo&resultcache.enable=true&hits=20");
+        search("?query=foo&resultcache.enable=true&hits=20");
+        assertEquals("Not cached when more hits than maxHits are requested", 6, backend.searchCount);
+
+        search(groupingQuery("?query=foo&resultcache.enable=true"));
+        search(groupingQuery("?query=foo&resultcache.enable=true"));
+        assertEquals("Not cached when grouping is requested", 8, backend.searchCount);
+    }
+
+    @Test
+    public void testExpiry() {
+        search("?query=foo&resultcache.enable=true");
+        clock.advance(Duration.ofSeconds(9));
+        search("?query=foo&resultcache.enable=true");
+        assertEquals(1, backend.searchCount);
+
+        search("?query=foo&resultcache.enable=true&resultcache.ttl=5");
+        assertEquals("A lower ttl can be set in the query", 2, backend.searchCount);
+
+        clock.advance(Duration.ofSeconds(11));
+        search("?query=foo&resultcache.enable=true&resultcache.ttl=50");
+        assertEquals("A higher ttl than configured is ignored", 3, backend.searchCount);
+    }
+
+    @Test
+    public void testEviction() {
+        search("?query=foo&resultcache.enable=true");
+        search("?query=bar&resultcache.enable=true");
+        search("?query=foo&resultcache.enable=true"); // bar is now least recently used
+        search("?query=baz&resultcache.enable=true");
+        assertEquals(3, backend.searchCount);
+
+        search("?query=foo&resultcache.enable=true");
+        assertEquals(3, backend.searchCount);
+        search("?query=bar&resultcache.enable=true");
+        assertEquals("bar was evicted", 4, backend.searchCount);
+    }
+
+    @Test
+    public void testErrorsAndDegradedResultsAreNotCached() {
+        search("?query=error&resultcache.enable=true");
+        search("?query=error&resultcache.enable=true");
+        assertEquals(2, backend.searchCount);
+
+        search("?query=degraded&resultcache.enable=true");
+        search("?query=degraded&resultcache.enable=true");
+        assertEquals(4, backend.searchCount);
+    }
+
+    @Test
+    public void testCacheIsClearedOnNewGeneration() {
+        search("?query=foo&resultcache.enable=true");
+        search("?query=foo&resultcache.enable=true");
+        assertEquals(1, backend.searchCount);
+
+        search("?query=foo&resultcache.enable=true", new SearchChainRegistry());
+        assertEquals(2, backend.searchCount);
+        search("?query=foo&resultcache.enable=true");
+        assertEquals(3, backend.searchCount);
+    }
+
+    private Result search(String queryString) {
+        return search(queryString, registry);
+    }
+
+    private Result search(String queryString, SearchChainRegistry registry) {
+        return search(new Query(queryString), registry);
+    }
+
+    private Result search(Query query) {
+        return search(query, registry);
+    }
+
+    private Result search(Query query, SearchChainRegistry registry) {
+        Result result = new Execution(chain, Execution.Context.createContextStub(registry, null)).search(query);
+        assertNotNull(result);
+        return result;
+    }
+
+    private static Query groupingQuery(String queryString) {
+        Query query = new Query(queryString);
+        GroupingRequest.newInstance(query).setRootOperation(GroupingOperation.fromString("all(group(title) each(output(count())))"));
+        return query;
+    }
+
+    private static ResultCacheConfig config(int maxEntries, double ttl) {
+        ResultCacheConfig.Builder builder = new ResultCacheConfig.Builder();
+        builder.maxEntries(maxEntries);
+        builder.ttl(ttl);
+        builder.maxHits(10);
+        return new ResultCacheConfig(builder);
+    }
+
+    private static class BackendSearcher extends Searcher {
+
+        int searchCount = 0;
+        int fillCount = 0;
+
+        @Override
+        public Result search(Query query, Execution execution) {
+            searchCount++;
+            String queryString = query.getModel().getQueryString();
+            if (queryString.equals("error"))
+                return new Result(query, ErrorMessage.createBackendCommunicationError("Node down"));
+
+            Result result = new Result(query);
+            for (int i = 0; i < Math.min(2, query.getHits()); i++) {
+                Hit hit = new Hit(queryString + ":" + i, 1.0 / (i + 1));
+                hit.setFillable();
+                result.hits().add(hit);
+            }
+            result.setTotalHitCount(100);
+            Coverage coverage = new Coverage(100, 100, 1, 1);
+            if (queryString.equals("degraded"))
+                coverage.setDegradedReason(Coverage.DEGRADED_BY_TIMEOUT);
+            result.setCoverage(coverage);
+            return result;
+        }
+
+        @Override
+        public void fill(Result result, String summaryClass, Execution execution) {
+            fillCount++;
+            for (Hit hit : result.hits().asList()) {
+                hit.setField("title", "bar");
+                hit.setFilled(summaryClass);
+            }
+        }
+
+    }
+
+}
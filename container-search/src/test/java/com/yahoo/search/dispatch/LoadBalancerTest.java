@@ -86,6 +86,32 @@ public class LoadBalancerTest {
         assertThat(group.id(), not(equalTo(id1)));
     }
 
+    @Test
+    public void requireThatLoadBalancerAvoidsSaturatedGroups() {
+        Node n1 = new Node(0, "test-node1", 0, 0);
+        Node n2 = new Node(1, "test-node2", 1, 1);
+        SearchCluster cluster = new SearchCluster("a", createDispatchConfig(n1, n2), null, 1, null);
+        LoadBalancer lb = new LoadBalancer(cluster, true);
+
+        saturate(n1);
+        for (int i = 0; i < 4; i++) {
+            Group group = lb.takeGroup(null).get();
+            assertThat(group.id(), equalTo(1));
+            lb.releaseGroup(group, true, 1.0);
+        }
+
+        // When all groups are saturated, queries are still dispatched
+        saturate(n2);
+        assertThat(lb.takeGroup(null).isPresent(), is(true));
+        assertThat(lb.takeGroup(Collections.singleton(0)).get().id(), equalTo(1));
+    }
+
+    private static void saturate(Node node) {
+        while ( ! node.concurrencyLimit().isSaturated()) {
+            node.concurrencyLimit().start();
+        }
+    }
+
     @Test
     public void requireCorrectAverageSearchTimeDecay() {
         final double SMALL = 0.00001;
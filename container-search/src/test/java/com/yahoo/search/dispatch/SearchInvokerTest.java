@@ -0,0 +1,58 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch;
+
+import com.yahoo.fs4.QueryPacket;
+import com.yahoo.prelude.fastsearch.CacheKey;
+import com.yahoo.search.Query;
+import com.yahoo.search.Result;
+import com.yahoo.search.dispatch.searchcluster.Node;
+import com.yahoo.search.result.ErrorMessage;
+import com.yahoo.search.searchchain.Execution;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class SearchInvokerTest {
+
+    @Test
+    public void requireThatOnlyTimeoutErrorsAffectTheConcurrencyLimitOfTheNode() throws Exception {
+        Node node = new Node(0, "host", 0, 0);
+        int initialLimit = node.concurrencyLimit().limit();
+
+        invoker(node, ErrorMessage.createBackendCommunicationError("Connection failed")).search(new Query(), null, null, null);
+        assertEquals(initialLimit, node.concurrencyLimit().limit());
+        assertEquals(0, node.concurrencyLimit().inFlight());
+
+        invoker(node, ErrorMessage.createTimeout("Timed out")).search(new Query(), null, null, null);
+        assertTrue(node.concurrencyLimit().limit() < initialLimit);
+        assertEquals(0, node.concurrencyLimit().inFlight());
+    }
+
+    private static SearchInvoker invoker(Node node, ErrorMessage error) {
+        return new SearchInvoker(Optional.of(node)) {
+
+            private Query query;
+
+            @Override
+            protected void sendSearchRequest(Query query, QueryPacket queryPacket) {
+                this.query = query;
+            }
+
+            @Override
+            protected Result getSearchResult(CacheKey cacheKey, Execution execution) {
+                return new Result(query, error);
+            }
+
+            @Override
+            protected void release() { }
+
+        };
+    }
+
+}
@@ -0,0 +1,89 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.search.dispatch.searchcluster;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class ConcurrencyLimitTest {
+
+    @Test
+    public void requireThatLimitIsReachedByQueriesInFlight() {
+        ConcurrencyLimit limit = new ConcurrencyLimit();
+        for (int i = 0; i < ConcurrencyLimit.INITIAL_LIMIT - 1; i++) {
+            limit.start();
+        }
+        assertFalse(limit.isSaturated());
+        limit.start();
+        assertTrue(limit.isSaturated());
+        assertThat(limit.inFlight(), is(ConcurrencyLimit.INITIAL_LIMIT));
+
+        limit.abort();
+        assertFalse(limit.isSaturated());
+        assertThat(limit.limit(), is(ConcurrencyLimit.INITIAL_LIMIT));
+    }
+
+    @Test
+    public void requireThatLimitGrowsWhileLatencyIsStable() {
+        ConcurrencyLimit limit = new ConcurrencyLimit();
+        for (int i = 0; i < 100; i++) {
+            fillAndComplete(limit, 10);
+        }
+        assertThat(limit.limit(), greaterThan(ConcurrencyLimit.INITIAL_LIMIT));
+        assertThat(limit.inFlight(), is(0));
+    }
+
+    @Test
+    public void requireThatLimitDoesNotGrowWithoutLoad() {
+        ConcurrencyLimit limit = new ConcurrencyLimit();
+        for (int i = 0; i < 100; i++) {
+            limit.start();
+            limit.complete(10);
+        }
+        assertThat(limit.limit(), is(ConcurrencyLimit.INITIAL_LIMIT));
+    }
+
+    @Test
+    public void requireThatLimitShrinksWhenLatencyIncreases() {
+        ConcurrencyLimit limit = new ConcurrencyLimit();
+        fillAndComplete(limit, 10);
+        int limitBefore = limit.limit();
+        for (int i = 0; i < 100; i++) {
+            fillAndComplete(limit, 100);
+        }
+        assertThat(limit.limit(), lessThan(limitBefore));
+    }
+
+    @Test
+    public void requireThatTimeoutsShrinkLimitDownToMinimum() {
+        ConcurrencyLimit limit = new ConcurrencyLimit();
+        limit.start();
+        limit.timeout();
+        assertThat(limit.limit(), lessThan(ConcurrencyLimit.INITIAL_LIMIT));
+        for (int i = 0; i < 100; i++) {
+            limit.start();
+            limit.timeout();
+        }
+        assertThat(limit.limit(), is(ConcurrencyLimit.MIN_LIMIT));
+        assertThat(limit.inFlight(), is(0));
+    }
+
+    private static void fillAndComplete(ConcurrencyLimit limit, long latencyMs) {
+        int queries = limit.limit();
+        for (int i = 0; i < queries; i++) {
+            limit.start();
+        }
+        for (int i = 0; i < queries; i++) {
+            limit.complete(latencyMs);
+        }
+    }
+
+}
@@ -47,6 +47,7 @@ import com.yahoo.search.statistics.ElapsedTimeTestCase;
 import com.yahoo.search.statistics.ElapsedTimeTestCase.CreativeTimeSource;
 import com.yahoo.search.statistics.ElapsedTimeTestCase.UselessSearcher;
 import com.yahoo.search.statistics.TimeTracker;
+import com.yahoo.slime.BinaryFormat;
 import com.yahoo.slime.Cursor;
 import com.yahoo.slime.Slime;
 import com.yahoo.tensor.Tensor;
@@ -1145,6 +1146,55 @@ public class JsonRendererTestCase {
         assertEqualJson(expected, summary);
     }
 
+    @Test
+    public void testBinarySlimeInField() throws IOException, InterruptedException, ExecutionException {
+        String expected = "{\n"
+                + "    \"root\": {\n"
+                + "        \"children\": [\n"
+                + "            {\n"
+                + "                \"fields\": {\n"
+                + "                    \"structured\": {\n"
+                + "                        \"string\": \"bl\u00e5b\u00e6r \\\"\\n\",\n"
+                + "                        \"long\": 7809531904,\n"
+                + "                        \"double\": 0.5,\n"
+                + "                        \"nan\": null,\n"
+                + "                        \"data\": \"0x00FF10\",\n"
+                + "                        \"array\": [true, null, \"elem\"]\n"
+                + "                    }\n"
+                + "                },\n"
+                + "                \"id\": \"BinarySlimeInField\",\n"
+                + "                \"relevance\": 1.0\n"
+                + "            }\n"
+                + "        ],\n"
+                + "        \"fields\": {\n"
+                + "            \"totalCount\": 1\n"
+                + "        },\n"
+                + "        \"id\": \"toplevel\",\n"
+                + "        \"relevance\": 1.0\n"
+                + "    }\n"
+                + "}\n";
+        Slime slime = new Slime();
+        Cursor c = slime.setObject();
+        c.setString("string", "bl\u00e5b\u00e6r \"\n");
+        c.setLong("long", 7809531904L);
+        c.setDouble("double", 0.5);
+        c.setDouble("nan", Double.NaN);
+        c.setData("data", new byte[] { 0, -1, 16 });
+        Cursor array = c.setArray("array");
+        array.addBool(true);
+        array.addNix();
+        array.addString("elem");
+        Slime decoded = BinaryFormat.decode(BinaryFormat.encode(slime));
+
+        Result r = newEmptyResult();
+        Hit h = new Hit("BinarySlimeInField");
+        h.setField("structured", new StructuredData(new SlimeAdapter(decoded.get())));
+        r.hits().add(h);
+        r.setTotalHitCount(1L);
+        String summary = render(r);
+        assertEqualJson(expected, summary);
+    }
+
     @Test
     public void testThatTheJsonValidatorCanCatchErrors() {
         String json = "{"
@@ -0,0 +1,22 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.docproc;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * {@link SimpleDocumentProcessor}s tagged with this declare that their process methods are thread safe,
+ * such that the document operations of a single {@link Processing} may be processed concurrently.
+ * The operations of a processing are then processed on a shared work-stealing pool, and the processing
+ * fails with the exception of the first failing operation, if any, after all operations are processed.
+ *
+ * @author agent
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrentOperations {
+}
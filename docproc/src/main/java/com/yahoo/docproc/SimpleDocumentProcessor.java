@@ -8,6 +8,10 @@ import com.yahoo.document.DocumentRemove;
 import com.yahoo.document.DocumentUpdate;
 import com.yahoo.log.LogLevel;
 
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
 /**
  * <p>Simple layer on top of {@link DocumentProcessor}, in order to make docproc
  * development more user friendly and to the point.</p>
@@ -27,6 +31,11 @@ import com.yahoo.log.LogLevel;
  */
 public class SimpleDocumentProcessor extends DocumentProcessor {
 
+    /** The pool processing the operations of processings concurrently, shared by all processors */
+    private static final ForkJoinPool concurrentOperationsPool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    private final boolean concurrentOperations = getClass().isAnnotationPresent(ConcurrentOperations.class);
+
     /**
      * Override this to process DocumentPuts. If this method is not overridden, the implementation in this class
      * will ignore DocumentPuts (passing them through un-processed). If processing of this DocumentPut fails, the
@@ -79,29 +88,26 @@ public class SimpleDocumentProcessor extends DocumentProcessor {
      * {@link com.yahoo.docproc.Processing#getDocumentOperations()}, an exception thrown
      * from any of the process() methods provided by this class will be thrown straight
      * out of this here. This means that failing one document will fail the
-     * entire batch.
+     * entire batch. If this is annotated with {@link ConcurrentOperations}, the operations are processed
+     * concurrently, and the exception of the first failing operation is thrown after all are processed.
      *
      * @param processing the Processing to process.
      * @return Progress.DONE, unless a subclass decides to throw an exception
      */
     @Override
     public final Progress process(Processing processing) {
-        final int initialSize = processing.getDocumentOperations().size();
-        for (DocumentOperation op : processing.getDocumentOperations()) {
+        List<DocumentOperation> operations = processing.getDocumentOperations();
+        if (concurrentOperations && operations.size() > 1) {
+            processConcurrently(operations);
+            return Progress.DONE;
+        }
+
+        final int initialSize = operations.size();
+        for (DocumentOperation op : operations) {
             try {
-                if (op instanceof DocumentPut) {
-                    process((DocumentPut) op);
-                } else if (op instanceof DocumentUpdate) {
-                    process((DocumentUpdate) op);
-                } else if (op instanceof DocumentRemove) {
-                    process((DocumentRemove) op);
-                }
+                processOperation(op);
             } catch (RuntimeException e) {
-                if (log.isLoggable(LogLevel.DEBUG) && initialSize != 1) {
-                    log.log(LogLevel.DEBUG,
-                            "Processing of document failed, from processing.getDocumentOperations() containing " +
-                            initialSize + " DocumentOperation(s).", e);
-                }
+                logFailure(initialSize, e);
                 throw e;
             }
         }
@@ -109,4 +115,39 @@ public class SimpleDocumentProcessor extends DocumentProcessor {
         return Progress.DONE;
     }
 
+    private void processConcurrently(List<DocumentOperation> operations) {
+        RuntimeException[] failures = new RuntimeException[operations.size()];
+        concurrentOperationsPool.submit(() -> IntStream.range(0, operations.size()).parallel().forEach(i -> {
+            try {
+                processOperation(operations.get(i));
+            } catch (RuntimeException e) {
+                failures[i] = e;
+            }
+        })).join();
+        for (RuntimeException failure : failures) {
+            if (failure != null) {
+                logFailure(operations.size(), failure);
+                throw failure;
+            }
+        }
+    }
+
+    private void processOperation(DocumentOperation op) {
+        if (op instanceof DocumentPut) {
+            process((DocumentPut) op);
+        } else if (op instanceof DocumentUpdate) {
+            process((DocumentUpdate) op);
+        } else if (op instanceof DocumentRemove) {
+            process((DocumentRemove) op);
+        }
+    }
+
+    private void logFailure(int initialSize, RuntimeException e) {
+        if (log.isLoggable(LogLevel.DEBUG) && initialSize != 1) {
+            log.log(LogLevel.DEBUG,
+                    "Processing of document failed, from processing.getDocumentOperations() containing " +
+                    initialSize + " DocumentOperation(s).", e);
+        }
+    }
+
 }
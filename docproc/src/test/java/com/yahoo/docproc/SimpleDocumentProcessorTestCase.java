@@ -19,6 +19,7 @@ import org.junit.Test;
 import static org.hamcrest.core.Is.is;
 import static org.hamcrest.core.IsNull.nullValue;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
 
 /**
  * @author <a href="mailto:einarmr@yahoo-inc.com">Einar M R Rosenvinge</a>
@@ -111,6 +112,46 @@ public class SimpleDocumentProcessorTestCase {
 
     }
 
+    @Test
+    public void requireThatOperationsCanBeProcessedConcurrently() {
+        DocumentType type = new DocumentType("foobar");
+        type.addField("title", DataType.STRING);
+
+        DocumentOperation[] operations = new DocumentOperation[100];
+        for (int i = 0; i < operations.length; i++)
+            operations[i] = new DocumentPut(type, "doc:this:is:document" + i);
+        Processing p = getProcessing(operations);
+        DocprocService service = setupDocprocService(new ConcurrentSimpleDocumentProcessor());
+        service.getExecutor().process(p);
+
+        assertThat(p.getDocumentOperations().size(), is(100));
+        for (int i = 0; i < operations.length; i++) {
+            assertThat(p.getDocumentOperations().get(i), is(operations[i]));
+            assertThat(((DocumentPut) p.getDocumentOperations().get(i)).getDocument().getFieldValue("title").getWrappedValue(),
+                       is("processed"));
+        }
+    }
+
+    @Test
+    public void requireThatConcurrentProcessingThrowsFirstFailure() {
+        DocumentType type = new DocumentType("foobar");
+        type.addField("title", DataType.STRING);
+
+        Processing p = getProcessing(new DocumentPut(type, "doc:this:is:a:document"),
+                                     new DocumentUpdate(type, "doc:this:is:an:update"),
+                                     new DocumentRemove(new DocumentId("doc:this:is:a:remove")),
+                                     new DocumentPut(type, "doc:this:is:a:document2"));
+
+        try {
+            new ConcurrentSimpleDocumentProcessorThrowingOnRemovesAndUpdates().process(p);
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), is("update failed"));
+        }
+        assertThat(((DocumentPut) p.getDocumentOperations().get(3)).getDocument().getFieldValue("title").getWrappedValue(),
+                   is("processed"));
+    }
+
     public static class VerySimpleDocumentProcessor extends SimpleDocumentProcessor {
 
         @Override
@@ -149,4 +190,34 @@ public class SimpleDocumentProcessorTestCase {
 
     }
 
+    @ConcurrentOperations
+    public static class ConcurrentSimpleDocumentProcessor extends SimpleDocumentProcessor {
+
+        @Override
+        public void process(DocumentPut put) {
+            put.getDocument().setFieldValue("title", new StringFieldValue("processed"));
+        }
+
+    }
+
+    @ConcurrentOperations
+    public static class ConcurrentSimpleDocumentProcessorThrowingOnRemovesAndUpdates extends SimpleDocumentProcessor {
+
+        @Override
+        public void process(DocumentPut put) {
+            put.getDocument().setFieldValue("title", new StringFieldValue("processed"));
+        }
+
+        @Override
+        public void process(DocumentRemove remove) {
+            throw new RuntimeException("remove failed");
+        }
+
+        @Override
+        public void process(DocumentUpdate update) {
+            throw new RuntimeException("update failed");
+        }
+
+    }
+
 }
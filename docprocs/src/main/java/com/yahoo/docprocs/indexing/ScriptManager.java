@@ -8,12 +8,14 @@ import com.yahoo.log.LogLevel;
 import com.yahoo.vespa.configdefinition.IlscriptsConfig;
 import com.yahoo.vespa.indexinglanguage.ScriptParserContext;
 import com.yahoo.vespa.indexinglanguage.expressions.InputExpression;
+import com.yahoo.vespa.indexinglanguage.expressions.OutputExpression;
 import com.yahoo.vespa.indexinglanguage.expressions.ScriptExpression;
 import com.yahoo.vespa.indexinglanguage.expressions.StatementExpression;
 import com.yahoo.vespa.indexinglanguage.parser.IndexingInput;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 /**
@@ -24,6 +26,8 @@ public class ScriptManager {
     private static final FastLogger log = FastLogger.getLogger(ScriptManager.class.getName());
     private static final String FULL = "[all]";
     private final Map<String, Map<String, DocumentScript>> documentFieldScripts;
+    /** The scripts resolved for each input document type name, including types inheriting or inherited by a configured one */
+    private final Map<String, Optional<Map<String, DocumentScript>>> resolvedScripts = new ConcurrentHashMap<>();
     private final DocumentTypeManager docTypeMgr;
 
     public ScriptManager(DocumentTypeManager docTypeMgr, IlscriptsConfig config, Linguistics linguistics) {
@@ -33,6 +37,11 @@ public class ScriptManager {
 
 
     private Map<String, DocumentScript> getScripts(DocumentType inputType) {
+        return resolvedScripts.computeIfAbsent(inputType.getName(), name -> Optional.ofNullable(resolveScripts(inputType)))
+                              .orElse(null);
+    }
+
+    private Map<String, DocumentScript> resolveScripts(DocumentType inputType) {
         Map<String, DocumentScript> scripts = documentFieldScripts.get(inputType.getName());
         if (scripts != null) {
             log.log(LogLevel.DEBUG, "Using script for type '%s'.", inputType.getName());
@@ -79,7 +88,9 @@ public class ScriptManager {
         parserContext.getAnnotatorConfig().setMaxTokenLength(config.fieldmatchmaxlength());
 
         for (IlscriptsConfig.Ilscript ilscript : config.ilscript()) {
-            InputExpression.FieldPathOptimizer fieldPathOptimizer = new InputExpression.FieldPathOptimizer(docTypeMgr.getDocumentType(ilscript.doctype()));
+            DocumentType documentType = docTypeMgr.getDocumentType(ilscript.doctype());
+            InputExpression.FieldPathOptimizer fieldPathOptimizer = new InputExpression.FieldPathOptimizer(documentType);
+            OutputExpression.FieldOptimizer fieldOptimizer = new OutputExpression.FieldOptimizer(documentType);
             List<StatementExpression> expressions = new ArrayList<>(ilscript.content().size());
             Map<String, DocumentScript> fieldScripts = new HashMap<>(ilscript.content().size());
             for (String content : ilscript.content()) {
@@ -88,6 +99,7 @@ public class ScriptManager {
                 InputExpression.InputFieldNameExtractor inputFieldNameExtractor = new InputExpression.InputFieldNameExtractor();
                 statement.select(inputFieldNameExtractor, inputFieldNameExtractor);
                 statement.select(fieldPathOptimizer, fieldPathOptimizer);
+                statement.select(fieldOptimizer, fieldOptimizer);
                 if (inputFieldNameExtractor.getInputFieldNames().size() == 1) {
                     String fieldName = inputFieldNameExtractor.getInputFieldNames().get(0);
                     ScriptExpression script;
@@ -111,6 +123,7 @@ public class ScriptManager {
 
             ScriptExpression script = new ScriptExpression(expressions);
             script.select(fieldPathOptimizer, fieldPathOptimizer);
+            script.select(fieldOptimizer, fieldOptimizer);
             fieldScripts.put(FULL, new DocumentScript(ilscript.doctype(), ilscript.docfield(),script));
             documentFieldScripts.put(ilscript.doctype(), Collections.unmodifiableMap(fieldScripts));
         }
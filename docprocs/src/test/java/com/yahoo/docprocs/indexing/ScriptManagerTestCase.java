@@ -11,6 +11,7 @@ import java.util.Iterator;
 
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author Simon Thoresen Hult
@@ -48,6 +49,23 @@ public class ScriptManagerTestCase {
         assertNull(scriptMgr.getScript(new DocumentType("unknown")));
     }
 
+    @Test
+    public void requireThatResolvedScriptsAreReused() {
+        DocumentTypeManager typeMgr = new DocumentTypeManager();
+        typeMgr.configure("file:src/test/cfg/documentmanager_inherit.cfg");
+
+        IlscriptsConfig.Builder config = new IlscriptsConfig.Builder();
+        config.ilscript(new IlscriptsConfig.Ilscript.Builder().doctype("newsarticle")
+                                                              .content("index"));
+        ScriptManager scriptMgr = new ScriptManager(typeMgr, new IlscriptsConfig(config), null);
+        DocumentScript script = scriptMgr.getScript(typeMgr.getDocumentType("newssummary"));
+        assertNotNull(script);
+        assertSame(script, scriptMgr.getScript(typeMgr.getDocumentType("newssummary")));
+        assertSame(script, scriptMgr.getScript(typeMgr.getDocumentType("newsarticle")));
+        assertNull(scriptMgr.getScript(new DocumentType("unknown")));
+        assertNull(scriptMgr.getScript(new DocumentType("unknown")));
+    }
+
     @Test
     public void requireThatEmptyConfigurationDoesNotThrow() {
         DocumentTypeManager typeMgr = new DocumentTypeManager();
@@ -21,7 +21,10 @@ import java.util.ListIterator;
 import java.util.RandomAccess;
 
 /**
- * FieldValue which encapsulates a Array value
+ * FieldValue which encapsulates a Array value.
+ * <p>
+ * Arrays of int, long, float and double store their elements as primitives. The elements returned from such arrays
+ * are created on access, so changes to them are not reflected in the array unless they are set back into it.
  *
  * @author Einar M R Rosenvinge
  */
@@ -35,7 +38,17 @@ public final class Array<T extends FieldValue> extends CollectionFieldValue<T> i
 
     public Array(DataType type, int initialCapacity) {
         super((ArrayDataType) type);
-        this.values = new ArrayList<>(initialCapacity);
+        this.values = createValues(((ArrayDataType) type).getNestedType(), initialCapacity);
+    }
+
+    /** Returns a list which stores values of the given type as primitives if possible, and as objects otherwise */
+    @SuppressWarnings("unchecked")
+    private static <T extends FieldValue> List<T> createValues(DataType elementType, int initialCapacity) {
+        if (elementType.equals(DataType.INT)) return (List<T>) (List<?>) new IntegerFieldValueList(initialCapacity);
+        if (elementType.equals(DataType.LONG)) return (List<T>) (List<?>) new LongFieldValueList(initialCapacity);
+        if (elementType.equals(DataType.FLOAT)) return (List<T>) (List<?>) new FloatFieldValueList(initialCapacity);
+        if (elementType.equals(DataType.DOUBLE)) return (List<T>) (List<?>) new DoubleFieldValueList(initialCapacity);
+        return new ArrayList<>(initialCapacity);
     }
 
     public Array(DataType type, List<T> values) {
@@ -62,7 +75,11 @@ public final class Array<T extends FieldValue> extends CollectionFieldValue<T> i
     @Override
     public Array<T> clone() {
         Array<T> array = (Array<T>) super.clone();
-        array.values = new ArrayList<>(values.size());
+        if (values instanceof PrimitiveFieldValueList) {
+            array.values = ((PrimitiveFieldValueList<T>) values).copy();
+            return array;
+        }
+        array.values = createValues(getDataType().getNestedType(), values.size());
         for (T fval : values) {
             array.values.add((T) fval.clone());
         }
@@ -224,6 +241,10 @@ public final class Array<T extends FieldValue> extends CollectionFieldValue<T> i
         return values.removeAll(c);
     }
 
+    /**
+     * Returns the element at the given index. For arrays of int, long, float and double this is a copy of the element,
+     * so it must be set back into the array with {@link #set} to change it.
+     */
     public T get(int index) {
         return values.get(index);
     }
@@ -271,13 +292,16 @@ public final class Array<T extends FieldValue> extends CollectionFieldValue<T> i
                 handler.getVariables().put(variable, new FieldPathIteratorHandler.IndexValue(i));
             }
 
-            FieldValue fv = values.get(i);
+            T fv = values.get(i);
             FieldPathIteratorHandler.ModificationStatus status = fv.iterateNested(fieldPath, nextPos, handler);
 
             if (status == FieldPathIteratorHandler.ModificationStatus.REMOVED) {
                 indicesToRemove.addFirst(i);
                 retVal = FieldPathIteratorHandler.ModificationStatus.MODIFIED;
             } else if (status == FieldPathIteratorHandler.ModificationStatus.MODIFIED) {
+                if (values instanceof PrimitiveFieldValueList) {
+                    values.set(i, fv); // fv is a copy of the element
+                }
                 retVal = status;
             }
         }
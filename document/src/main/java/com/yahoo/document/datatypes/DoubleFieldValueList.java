@@ -0,0 +1,78 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.datatypes;
+
+import java.util.Arrays;
+
+/**
+ * A list of {@link DoubleFieldValue}s stored as an array of double, used by {@link Array}s of double.
+ *
+ * @author agent
+ */
+public final class DoubleFieldValueList extends PrimitiveFieldValueList<DoubleFieldValue> {
+
+    private double[] values;
+
+    public DoubleFieldValueList(int initialCapacity) {
+        values = new double[initialCapacity];
+    }
+
+    private DoubleFieldValueList(double[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /** Returns the value at the given index */
+    public double getDouble(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /** Adds a value to the end of this list */
+    public void addDouble(double value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, grownCapacity(size));
+        values[size++] = value;
+        modCount++;
+    }
+
+    @Override
+    public DoubleFieldValue get(int index) {
+        return new DoubleFieldValue(getDouble(index));
+    }
+
+    @Override
+    public DoubleFieldValue set(int index, DoubleFieldValue value) {
+        checkIndex(index);
+        double previous = values[index];
+        values[index] = value.getDouble();
+        return new DoubleFieldValue(previous);
+    }
+
+    @Override
+    public void add(int index, DoubleFieldValue value) {
+        checkPositionIndex(index);
+        double newValue = value.getDouble();
+        if (size == values.length)
+            values = Arrays.copyOf(values, grownCapacity(size));
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = newValue;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public DoubleFieldValue remove(int index) {
+        checkIndex(index);
+        double previous = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        modCount++;
+        return new DoubleFieldValue(previous);
+    }
+
+    @Override
+    DoubleFieldValueList copy() {
+        return new DoubleFieldValueList(Arrays.copyOf(values, size), size);
+    }
+
+}
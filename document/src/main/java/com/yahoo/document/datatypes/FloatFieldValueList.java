@@ -0,0 +1,78 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.datatypes;
+
+import java.util.Arrays;
+
+/**
+ * A list of {@link FloatFieldValue}s stored as an array of float, used by {@link Array}s of float.
+ *
+ * @author agent
+ */
+public final class FloatFieldValueList extends PrimitiveFieldValueList<FloatFieldValue> {
+
+    private float[] values;
+
+    public FloatFieldValueList(int initialCapacity) {
+        values = new float[initialCapacity];
+    }
+
+    private FloatFieldValueList(float[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /** Returns the value at the given index */
+    public float getFloat(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /** Adds a value to the end of this list */
+    public void addFloat(float value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, grownCapacity(size));
+        values[size++] = value;
+        modCount++;
+    }
+
+    @Override
+    public FloatFieldValue get(int index) {
+        return new FloatFieldValue(getFloat(index));
+    }
+
+    @Override
+    public FloatFieldValue set(int index, FloatFieldValue value) {
+        checkIndex(index);
+        float previous = values[index];
+        values[index] = value.getFloat();
+        return new FloatFieldValue(previous);
+    }
+
+    @Override
+    public void add(int index, FloatFieldValue value) {
+        checkPositionIndex(index);
+        float newValue = value.getFloat();
+        if (size == values.length)
+            values = Arrays.copyOf(values, grownCapacity(size));
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = newValue;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public FloatFieldValue remove(int index) {
+        checkIndex(index);
+        float previous = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        modCount++;
+        return new FloatFieldValue(previous);
+    }
+
+    @Override
+    FloatFieldValueList copy() {
+        return new FloatFieldValueList(Arrays.copyOf(values, size), size);
+    }
+
+}
@@ -0,0 +1,78 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.datatypes;
+
+import java.util.Arrays;
+
+/**
+ * A list of {@link IntegerFieldValue}s stored as an array of int, used by {@link Array}s of int.
+ *
+ * @author agent
+ */
+public final class IntegerFieldValueList extends PrimitiveFieldValueList<IntegerFieldValue> {
+
+    private int[] values;
+
+    public IntegerFieldValueList(int initialCapacity) {
+        values = new int[initialCapacity];
+    }
+
+    private IntegerFieldValueList(int[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /** Returns the value at the given index */
+    public int getInt(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /** Adds a value to the end of this list */
+    public void addInt(int value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, grownCapacity(size));
+        values[size++] = value;
+        modCount++;
+    }
+
+    @Override
+    public IntegerFieldValue get(int index) {
+        return new IntegerFieldValue(getInt(index));
+    }
+
+    @Override
+    public IntegerFieldValue set(int index, IntegerFieldValue value) {
+        checkIndex(index);
+        int previous = values[index];
+        values[index] = value.getInteger();
+        return new IntegerFieldValue(previous);
+    }
+
+    @Override
+    public void add(int index, IntegerFieldValue value) {
+        checkPositionIndex(index);
+        int newValue = value.getInteger();
+        if (size == values.length)
+            values = Arrays.copyOf(values, grownCapacity(size));
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = newValue;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public IntegerFieldValue remove(int index) {
+        checkIndex(index);
+        int previous = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        modCount++;
+        return new IntegerFieldValue(previous);
+    }
+
+    @Override
+    IntegerFieldValueList copy() {
+        return new IntegerFieldValueList(Arrays.copyOf(values, size), size);
+    }
+
+}
@@ -0,0 +1,78 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.datatypes;
+
+import java.util.Arrays;
+
+/**
+ * A list of {@link LongFieldValue}s stored as an array of long, used by {@link Array}s of long.
+ *
+ * @author agent
+ */
+public final class LongFieldValueList extends PrimitiveFieldValueList<LongFieldValue> {
+
+    private long[] values;
+
+    public LongFieldValueList(int initialCapacity) {
+        values = new long[initialCapacity];
+    }
+
+    private LongFieldValueList(long[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    /** Returns the value at the given index */
+    public long getLong(int index) {
+        checkIndex(index);
+        return values[index];
+    }
+
+    /** Adds a value to the end of this list */
+    public void addLong(long value) {
+        if (size == values.length)
+            values = Arrays.copyOf(values, grownCapacity(size));
+        values[size++] = value;
+        modCount++;
+    }
+
+    @Override
+    public LongFieldValue get(int index) {
+        return new LongFieldValue(getLong(index));
+    }
+
+    @Override
+    public LongFieldValue set(int index, LongFieldValue value) {
+        checkIndex(index);
+        long previous = values[index];
+        values[index] = value.getLong();
+        return new LongFieldValue(previous);
+    }
+
+    @Override
+    public void add(int index, LongFieldValue value) {
+        checkPositionIndex(index);
+        long newValue = value.getLong();
+        if (size == values.length)
+            values = Arrays.copyOf(values, grownCapacity(size));
+        System.arraycopy(values, index, values, index + 1, size - index);
+        values[index] = newValue;
+        size++;
+        modCount++;
+    }
+
+    @Override
+    public LongFieldValue remove(int index) {
+        checkIndex(index);
+        long previous = values[index];
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        size--;
+        modCount++;
+        return new LongFieldValue(previous);
+    }
+
+    @Override
+    LongFieldValueList copy() {
+        return new LongFieldValueList(Arrays.copyOf(values, size), size);
+    }
+
+}
@@ -53,7 +53,7 @@ public class MapFieldValue<K extends FieldValue, V extends FieldValue> extends C
         if (o instanceof MapFieldValue) {
             if (o == this) return;
             MapFieldValue a = (MapFieldValue) o;
-            values.clear();
+            clear();
             putAll(a);
         } else if (o instanceof Map) {
             values = new MapWrapper((Map)o);
@@ -110,7 +110,7 @@ public class MapFieldValue<K extends FieldValue, V extends FieldValue> extends C
             return ((MapFieldValue.MapWrapper) values).map;
         }
         Map tmpMap = new HashMap();
-        for (Entry<K, V> kvEntry : values.entrySet()) {
+        for (Entry<K, V> kvEntry : entrySet()) {
             tmpMap.put(kvEntry.getKey().getWrappedValue(), kvEntry.getValue().getWrappedValue());
         }
         return tmpMap;
@@ -138,7 +138,7 @@ public class MapFieldValue<K extends FieldValue, V extends FieldValue> extends C
         return values.keySet();
     }
 
-    private void validateCompatibleTypes(DataType d, FieldValue v) {
+    void validateCompatibleTypes(DataType d, FieldValue v) {
         if (!d.isValueCompatible(v)) {
             throw new IllegalArgumentException(
                     "Incompatible data types. Got " + v.getDataType()
@@ -193,6 +193,16 @@ public class MapFieldValue<K extends FieldValue, V extends FieldValue> extends C
         return wasModified;
     }
 
+    /** Iterates into the given value of this, and puts it back if it was modified, as it may be a copy of the value */
+    private FieldPathIteratorHandler.ModificationStatus iterateValue(FieldValue key, V value, FieldPath fieldPath, int pos,
+                                                                      FieldPathIteratorHandler handler) {
+        FieldPathIteratorHandler.ModificationStatus status = value.iterateNested(fieldPath, pos, handler);
+        if (status == FieldPathIteratorHandler.ModificationStatus.MODIFIED) {
+            put((K)key, value);
+        }
+        return status;
+    }
+
    FieldPathIteratorHandler.ModificationStatus iterateNested(FieldPath fieldPath, int pos, FieldPathIteratorHandler handler, FieldValue complexFieldValue) {
         List<FieldValue> keysToRemove = new ArrayList<FieldValue>();
         boolean wasModified = false;
@@ -201,11 +211,11 @@ public class MapFieldValue<K extends FieldValue, V extends FieldValue> extends C
             switch (fieldPath.get(pos).getType()) {
                 case MAP_KEY:
                 {
-                    FieldValue val = values.get(fieldPath.get(pos).getLookupKey());
+                    V val = get(fieldPath.get(pos).getLookupKey());
                     if (val != null) {
-                        wasModified = checkAndRemove(fieldPath.get(pos).getLookupKey(), val.iterateNested(fieldPath, pos + 1, handler), wasModified, keysToRemove);
+                        wasModified = checkAndRemove(fieldPath.get(pos).getLookupKey(), iterateValue(fieldPath.get(pos).getLookupKey(), val, fieldPath, pos + 1, handler), wasModified, keysToRemove);
                     } else if (handler.createMissingPath()) {
-                        val = getDataType().getValueType().createFieldValue();
+                        val = (V)getDataType().getValueType().createFieldValue();
                         FieldPathIteratorHandler.ModificationStatus status = val.iterateNested(fieldPath, pos + 1, handler);
                         if (status == FieldPathIteratorHandler.ModificationStatus.MODIFIED) {
                             put((K)fieldPath.get(pos).getLookupKey(), (V)val);
@@ -215,34 +225,34 @@ public class MapFieldValue<K extends FieldValue, V extends FieldValue> extends C
                     break;
                 }
                 case MAP_ALL_KEYS:
-                    for (FieldValue f : values.keySet()) {
+                    for (FieldValue f : keySet()) {
                         wasModified = checkAndRemove(f, f.iterateNested(fieldPath, pos + 1, handler), wasModified, keysToRemove);
                     }
                     break;
                 case MAP_ALL_VALUES:
-                    for (Map.Entry<K, V> entry : values.entrySet()) {
-                        wasModified = checkAndRemove(entry.getKey(), entry.getValue().iterateNested(fieldPath, pos + 1, handler), wasModified, keysToRemove);
+                    for (Map.Entry<K, V> entry : entrySet()) {
+                        wasModified = checkAndRemove(entry.getKey(), iterateValue(entry.getKey(), entry.getValue(), fieldPath, pos + 1, handler), wasModified, keysToRemove);
                     }
                     break;
                 case VARIABLE:
                 {
                     FieldPathIteratorHandler.IndexValue idx = handler.getVariables().get(fieldPath.get(pos).getVariableName());
                     if (idx != null) {
-                        FieldValue val = values.get(idx.getKey());
+                        V val = get(idx.getKey());
                         if (val != null) {
-                            wasModified = checkAndRemove(idx.getKey(), val.iterateNested(fieldPath, pos + 1, handler), wasModified, keysToRemove);
+                            wasModified = checkAndRemove(idx.getKey(), iterateValue(idx.getKey(), val, fieldPath, pos + 1, handler), wasModified, keysToRemove);
                         }
                     } else {
-                        for (Map.Entry<K, V> entry : values.entrySet()) {
+                        for (Map.Entry<K, V> entry : entrySet()) {
                             handler.getVariables().put(fieldPath.get(pos).getVariableName(), new FieldPathIteratorHandler.IndexValue(entry.getKey()));
-                            wasModified = checkAndRemove(entry.getKey(), entry.getValue().iterateNested(fieldPath, pos + 1, handler), wasModified, keysToRemove);
+                            wasModified = checkAndRemove(entry.getKey(), iterateValue(entry.getKey(), entry.getValue(), fieldPath, pos + 1, handler), wasModified, keysToRemove);
                         }
                         handler.getVariables().remove(fieldPath.get(pos).getVariableName());
                     }
                     break;
                 }
                 default:
-                    for (Map.Entry<K, V> entry : values.entrySet()) {
+                    for (Map.Entry<K, V> entry : entrySet()) {
                         wasModified = checkAndRemove(entry.getKey(), entry.getKey().iterateNested(fieldPath, pos, handler), wasModified, keysToRemove);
                     }
                     break;
@@ -256,14 +266,14 @@ public class MapFieldValue<K extends FieldValue, V extends FieldValue> extends C
             }
 
             if (handler.onComplex(complexFieldValue)) {
-                for (Map.Entry<K, V> entry : values.entrySet()) {
+                for (Map.Entry<K, V> entry : entrySet()) {
                     wasModified = checkAndRemove(entry.getKey(), entry.getKey().iterateNested(fieldPath, pos, handler), wasModified, keysToRemove);
                 }
             }
         }
 
         for (FieldValue f : keysToRemove) {
-            values.remove(f);
+            remove(f);
         }
 
         return wasModified ? FieldPathIteratorHandler.ModificationStatus.MODIFIED : FieldPathIteratorHandler.ModificationStatus.NOT_MODIFIED;
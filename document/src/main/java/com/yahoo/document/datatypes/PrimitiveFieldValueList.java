@@ -0,0 +1,48 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.datatypes;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A list of numeric field values which stores the values in a primitive array rather than as field value objects.
+ * This is used by {@link Array}s of numeric types, which then take a fraction of the memory and can be serialized
+ * without creating an object per element.
+ * <p>
+ * The field values returned by these lists are created on access, so modifying them does not change the list:
+ * Use {@link #set} to replace an element.
+ *
+ * @author agent
+ */
+abstract class PrimitiveFieldValueList<T extends FieldValue> extends AbstractList<T> implements RandomAccess {
+
+    protected int size = 0;
+
+    /** Returns a deep copy of this list */
+    abstract PrimitiveFieldValueList<T> copy();
+
+    @Override
+    public int size() { return size; }
+
+    @Override
+    public void clear() {
+        size = 0;
+        modCount++;
+    }
+
+    protected final void checkIndex(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+
+    protected final void checkPositionIndex(int index) {
+        if (index < 0 || index > size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+    }
+
+    /** Returns the capacity to grow to, to have room for at least one more element than the given current capacity */
+    protected static int grownCapacity(int capacity) {
+        return Math.max(capacity * 2, 8);
+    }
+
+}
@@ -0,0 +1,247 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.datatypes;
+
+import com.yahoo.document.MapDataType;
+
+import java.util.AbstractCollection;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * The map of a weighted set of strings, which stores the keys and weights in parallel arrays, in insertion order,
+ * with an open addressing index from key to position. This avoids a map entry and a weight field value per key.
+ * <p>
+ * Weights are created on access, so changes to them are not reflected in this unless they are put back into it.
+ * Removing a key is linear in the size of the map.
+ *
+ * @author agent
+ */
+final class StringWeightedSetMap extends MapFieldValue<StringFieldValue, IntegerFieldValue> {
+
+    private StringFieldValue[] keys;
+    private int[] weights;
+    private int size = 0;
+
+    /** The positions + 1 of the keys, in the slot given by the key hash, or 0 for free slots */
+    private int[] index;
+
+    StringWeightedSetMap(MapDataType type, int initialCapacity) {
+        super(type);
+        keys = new StringFieldValue[Math.max(initialCapacity, 1)];
+        weights = new int[keys.length];
+        reindex();
+    }
+
+    /** Returns the slot of the given key, or the free slot where it belongs if it is not present */
+    private int slot(Object key) {
+        int mask = index.length - 1;
+        int hash = key.hashCode() * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (index[slot] != 0 && ! keys[index[slot] - 1].equals(key))
+            slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    /** Returns the position of the given key, or -1 if it is not present */
+    private int position(Object key) {
+        if ( ! (key instanceof StringFieldValue)) return -1;
+        return index[slot(key)] - 1;
+    }
+
+    /** Rebuilds the index of the keys, with at least twice as many slots as the capacity of this */
+    private void reindex() {
+        index = new int[Integer.highestOneBit(keys.length * 2 - 1) << 1];
+        for (int position = 0; position < size; position++)
+            index[slot(keys[position])] = position + 1;
+    }
+
+    @Override
+    public IntegerFieldValue put(StringFieldValue key, IntegerFieldValue value) {
+        validateCompatibleTypes(getDataType().getKeyType(), key);
+        validateCompatibleTypes(getDataType().getValueType(), value);
+        int slot = slot(key);
+        if (index[slot] != 0) {
+            int position = index[slot] - 1;
+            IntegerFieldValue previous = new IntegerFieldValue(weights[position]);
+            weights[position] = value.getInteger();
+            return previous;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, keys.length * 2);
+            weights = Arrays.copyOf(weights, keys.length);
+            reindex();
+            slot = slot(key);
+        }
+        keys[size] = key;
+        weights[size] = value.getInteger();
+        index[slot] = ++size;
+        return null;
+    }
+
+    @Override
+    public void putAll(Map<? extends StringFieldValue, ? extends IntegerFieldValue> m) {
+        for (Map.Entry<? extends StringFieldValue, ? extends IntegerFieldValue> entry : m.entrySet())
+            put(entry.getKey(), entry.getValue());
+    }
+
+    @Override
+    public IntegerFieldValue get(Object key) {
+        int position = position(key);
+        return position < 0 ? null : new IntegerFieldValue(weights[position]);
+    }
+
+    @Override
+    public IntegerFieldValue remove(Object key) {
+        int position = position(key);
+        if (position < 0) return null;
+
+        IntegerFieldValue previous = new IntegerFieldValue(weights[position]);
+        System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+        System.arraycopy(weights, position + 1, weights, position, size - position - 1);
+        keys[--size] = null;
+        reindex();
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(index, 0);
+        size = 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return position(key) >= 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return containsKey(o);
+    }
+
+    @Override
+    public boolean containsValue(Object value) {
+        if ( ! (value instanceof IntegerFieldValue)) return false;
+        int weight = ((IntegerFieldValue) value).getInteger();
+        for (int position = 0; position < size; position++)
+            if (weights[position] == weight) return true;
+        return false;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public Set<StringFieldValue> keySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<StringFieldValue> iterator() {
+                return new PositionIterator<>() {
+                    @Override
+                    StringFieldValue at(int position) { return keys[position]; }
+                };
+            }
+            @Override
+            public boolean contains(Object o) { return containsKey(o); }
+            @Override
+            public boolean remove(Object o) { return StringWeightedSetMap.this.remove(o) != null; }
+            @Override
+            public int size() { return size; }
+        };
+    }
+
+    @Override
+    public Collection<IntegerFieldValue> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<IntegerFieldValue> iterator() {
+                return new PositionIterator<>() {
+                    @Override
+                    IntegerFieldValue at(int position) { return new IntegerFieldValue(weights[position]); }
+                };
+            }
+            @Override
+            public int size() { return size; }
+        };
+    }
+
+    @Override
+    public Set<Map.Entry<StringFieldValue, IntegerFieldValue>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<StringFieldValue, IntegerFieldValue>> iterator() {
+                return new PositionIterator<>() {
+                    @Override
+                    Map.Entry<StringFieldValue, IntegerFieldValue> at(int position) {
+                        return new AbstractMap.SimpleImmutableEntry<>(keys[position], new IntegerFieldValue(weights[position]));
+                    }
+                };
+            }
+            @Override
+            public boolean contains(Object o) {
+                if ( ! (o instanceof Map.Entry)) return false;
+                Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                int position = position(entry.getKey());
+                return position >= 0 && new IntegerFieldValue(weights[position]).equals(entry.getValue());
+            }
+            @Override
+            public int size() { return size; }
+        };
+    }
+
+    @Override
+    public StringWeightedSetMap clone() {
+        StringWeightedSetMap copy = (StringWeightedSetMap) super.clone();
+        copy.keys = new StringFieldValue[keys.length];
+        for (int position = 0; position < size; position++)
+            copy.keys[position] = keys[position].clone();
+        copy.weights = weights.clone();
+        copy.index = index.clone();
+        return copy;
+    }
+
+    /** Iterates over the positions of this in order, and supports removal */
+    private abstract class PositionIterator<T> implements Iterator<T> {
+
+        private int next = 0;
+        private int last = -1;
+
+        abstract T at(int position);
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        public T next() {
+            if ( ! hasNext()) throw new NoSuchElementException();
+            last = next++;
+            return at(last);
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) throw new IllegalStateException();
+            StringWeightedSetMap.this.remove(keys[last]);
+            next = last;
+            last = -1;
+        }
+
+    }
+
+}
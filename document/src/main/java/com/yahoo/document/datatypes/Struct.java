@@ -5,6 +5,7 @@ import com.yahoo.collections.Hashlet;
 import com.yahoo.document.*;
 import com.yahoo.document.serialization.FieldReader;
 import com.yahoo.document.serialization.FieldWriter;
+import com.yahoo.document.serialization.SerializedFieldValue;
 import com.yahoo.document.serialization.XmlSerializationHelper;
 import com.yahoo.document.serialization.XmlStream;
 import com.yahoo.vespa.objects.Ids;
@@ -12,22 +13,42 @@ import com.yahoo.vespa.objects.Ids;
 import java.util.*;
 
 /**
+ * A struct of field values.
+ * <p>
+ * The values of fields read from a serialized document may be kept in their serialized form until the field is
+ * accessed, see {@link #setSerializedFieldValue}. Such values are deserialized on first access. Reading does not
+ * modify the struct itself, so it is safe for concurrent readers, like a struct without serialized values.
+ *
  * @author Håkon Humberset
  */
 public class Struct extends StructuredFieldValue {
 
     public static final int classId = registerClass(Ids.document + 33, Struct.class);
     private Hashlet<Integer, FieldValue> values = new Hashlet<>();
+    /**
+     * Field values read from a serialized struct, by field id, or null if none. A field has an entry in at most
+     * one of values and serializedValues. Entries set after deserialization have null values here.
+     */
+    private Hashlet<Integer, SerializedFieldValue> serializedValues = null;
+    /** The number of non-null values in serializedValues */
+    private int serializedCount = 0;
     private int [] order = null;
 
     private int version;
 
     private int [] getInOrder() {
         if (order == null) {
-            order = new int[values.size()];
+            order = new int[getFieldCount()];
             for (int i = 0; i < values.size(); i++) {
                 order[i] = values.key(i);
             }
+            if (serializedValues != null) {
+                for (int i = 0, j = values.size(); i < serializedValues.size(); i++) {
+                    if (serializedValues.value(i) != null) {
+                        order[j++] = serializedValues.key(i);
+                    }
+                }
+            }
             Arrays.sort(order);
         }
         return order;
@@ -37,6 +58,28 @@ public class Struct extends StructuredFieldValue {
         order = null;
     }
 
+    /** Returns the value of the field with the given id, deserializing it if this is the first access, or null if none */
+    private FieldValue valueOf(int fieldId) {
+        FieldValue value = values.get(fieldId);
+        if (value != null || serializedValues == null) return value;
+
+        SerializedFieldValue serialized = serializedValues.get(fieldId);
+        return serialized == null ? null : serialized.getValue(getDataType().getField(fieldId));
+    }
+
+    /** Removes the serialized value of the given field, if any, and returns whether it was present */
+    private boolean removeSerializedValue(int fieldId) {
+        if (serializedValues == null) return false;
+        int index = serializedValues.getIndexOfKey(fieldId);
+        if (index == -1 || serializedValues.value(index) == null) return false;
+        if (--serializedCount == 0) {
+            serializedValues = null;
+        } else {
+            serializedValues.setValue(index, null);
+        }
+        return true;
+    }
+
     public Struct(DataType type) {
         super((StructDataType) type);
         this.version = Document.SERIALIZED_VERSION;
@@ -84,12 +127,25 @@ public class Struct extends StructuredFieldValue {
         for (int i = 0; i < values.size(); i++) {
             struct.values.put(values.key(i), values.value(i).clone());
         }
+        struct.serializedValues = null;
+        struct.serializedCount = 0;
+        for (int i = 0; serializedValues != null && i < serializedValues.size(); i++) {
+            SerializedFieldValue serialized = serializedValues.value(i);
+            if (serialized == null) continue;
+            if (serialized.isDeserialized()) { // the value may be modified, so it must be cloned
+                struct.values.put(serializedValues.key(i), serialized.getValue(getDataType().getField(serializedValues.key(i))).clone());
+            } else {
+                struct.setSerializedFieldValue(getDataType().getField(serializedValues.key(i)), serialized.copy());
+            }
+        }
         return struct;
     }
 
     @Override
     public void clear() {
         values = new Hashlet<>();
+        serializedValues = null;
+        serializedCount = 0;
         invalidateOrder();
     }
 
@@ -117,7 +173,36 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public FieldValue getFieldValue(Field field) {
-        return values.get(field.getId());
+        return valueOf(field.getId());
+    }
+
+    /**
+     * Sets the value of a field to a serialized value, which will be deserialized when the field is accessed.
+     * Until then, the serialized value is written as-is when this is serialized.
+     * This is for use by deserializers; the serialized value is not validated.
+     */
+    public void setSerializedFieldValue(Field field, SerializedFieldValue value) {
+        int index = values.getIndexOfKey(field.getId());
+        if (index != -1) {
+            throw new IllegalArgumentException("Field " + field.getName() + " already has a deserialized value");
+        }
+        if (serializedValues == null) {
+            serializedValues = new Hashlet<>();
+        }
+        if (serializedValues.put(field.getId(), value) == null) {
+            serializedCount++;
+            invalidateOrder();
+        }
+    }
+
+    /**
+     * Returns the serialized value of the given field if it has not been accessed since this was deserialized,
+     * and null otherwise. Serializers may write this instead of serializing the value of the field.
+     */
+    public SerializedFieldValue getSerializedFieldValue(Field field) {
+        if (serializedValues == null) return null;
+        SerializedFieldValue serialized = serializedValues.get(field.getId());
+        return serialized == null || serialized.isDeserialized() ? null : serialized;
     }
 
 
@@ -128,7 +213,7 @@ public class Struct extends StructuredFieldValue {
 
     @Override
     public int getFieldCount() {
-        return values.size();
+        return values.size() + serializedCount;
     }
 
     @Override
@@ -157,7 +242,9 @@ public class Struct extends StructuredFieldValue {
         int index = values.getIndexOfKey(field.getId());
         if (index == -1) {
             values.put(field.getId(), value);
-            invalidateOrder();
+            if ( ! removeSerializedValue(field.getId())) {
+                invalidateOrder();
+            }
         } else {
             values.setValue(index, value);
         }
@@ -176,6 +263,11 @@ public class Struct extends StructuredFieldValue {
             }
             values = copy;
             invalidateOrder();
+        } else {
+            found = valueOf(field.getId());
+            if (removeSerializedValue(field.getId())) {
+                invalidateOrder();
+            }
         }
         return found;
     }
@@ -213,16 +305,33 @@ public class Struct extends StructuredFieldValue {
         if (!super.equals(o)) return false;
 
         Struct struct = (Struct) o;
-        return values.equals(struct.values);
+        if (serializedValues == null && struct.serializedValues == null) return values.equals(struct.values);
+
+        if (getFieldCount() != struct.getFieldCount()) return false;
+        for (int id : getInOrder()) {
+            if ( ! valueOf(id).equals(struct.valueOf(id))) return false;
+        }
+        return true;
     }
 
     @Override
     public int hashCode() {
         int result = super.hashCode();
-        result = 31 * result + values.hashCode();
+        result = 31 * result + valuesHashCode();
         return result;
     }
 
+    /** Returns the same hash code as values.hashCode() would if all values were in it */
+    private int valuesHashCode() {
+        if (serializedValues == null) return values.hashCode();
+
+        int hashCode = 0;
+        for (int id : getInOrder()) {
+            hashCode += Integer.hashCode(id) + valueOf(id).hashCode();
+        }
+        return hashCode;
+    }
+
     @Override
     public String toString() {
         StringBuilder retVal = new StringBuilder();
@@ -230,7 +339,7 @@ public class Struct extends StructuredFieldValue {
         int [] increasing = getInOrder();
         for (int i = 0; i < increasing.length; i++) {
             int id = increasing[i];
-            retVal.append(getDataType().getField(id)).append("=").append(values.get(id)).append(", ");
+            retVal.append(getDataType().getField(id)).append("=").append(valueOf(id)).append(", ");
         }
         return retVal.toString();
     }
@@ -247,7 +356,7 @@ public class Struct extends StructuredFieldValue {
             return cmp;
         }
         Struct rhs = (Struct)obj;
-        cmp = values.size() - rhs.values.size();
+        cmp = getFieldCount() - rhs.getFieldCount();
         if (cmp != 0) {
             return cmp;
         }
@@ -288,7 +397,7 @@ public class Struct extends StructuredFieldValue {
         }
 
         public FieldValue getValue() {
-            return values.get(id);
+            return valueOf(id);
         }
 
         public FieldValue setValue(FieldValue value) {
@@ -296,13 +405,14 @@ public class Struct extends StructuredFieldValue {
                 throw new NullPointerException("Null values in Struct not supported, use removeFieldValue() to remove value instead.");
             }
 
+            FieldValue retVal = valueOf(id);
             int index = values.getIndexOfKey(id);
-            FieldValue retVal = null;
             if (index == -1) {
                 values.put(id, value);
-                invalidateOrder();
+                if ( ! removeSerializedValue(id)) {
+                    invalidateOrder();
+                }
             } else {
-                retVal = values.value(index);
                 values.setValue(index, value);
             }
 
@@ -325,7 +435,7 @@ public class Struct extends StructuredFieldValue {
     private class FieldSet extends AbstractSet<Map.Entry<Field, FieldValue>> {
         @Override
         public int size() {
-            return values.size();
+            return getFieldCount();
         }
 
         @Override
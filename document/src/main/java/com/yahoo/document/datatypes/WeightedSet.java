@@ -24,7 +24,9 @@ import java.util.Set;
 /**
  * A weighted set, a unique set of keys with an associated integer weight. This class
  * uses an encapsulated Map (actually a LinkedHashMap) that associates each key
- * with its weight (value).
+ * with its weight (value). Weighted sets of strings store their keys and weights
+ * in arrays instead, so changes to the weights returned from them are not reflected
+ * in the set unless they are put back into it.
  *
  * @author Einar M R Rosenvinge
  */
@@ -221,7 +223,15 @@ public final class WeightedSet<K extends FieldValue> extends CollectionFieldValu
      * Reserve space for this amount of keys in order to avoid resizing
      */
     public void clearAndReserve(int count) {
-        map = new MapFieldValue<>(new MapDataType(getDataType().getNestedType(), DataType.INT), count);
+        map = createMap(new MapDataType(getDataType().getNestedType(), DataType.INT), count);
+    }
+
+    /** Returns a map which stores the keys and weights in arrays if the keys are strings, and as map entries otherwise */
+    @SuppressWarnings("unchecked")
+    private static <K extends FieldValue> MapFieldValue<K, IntegerFieldValue> createMap(MapDataType type, int initialCapacity) {
+        if (type.getKeyType().equals(DataType.STRING))
+            return (MapFieldValue<K, IntegerFieldValue>) (MapFieldValue<?, ?>) new StringWeightedSetMap(type, initialCapacity);
+        return new MapFieldValue<>(type, initialCapacity);
     }
 
     Map<K, Integer> getPrimitiveMap() {
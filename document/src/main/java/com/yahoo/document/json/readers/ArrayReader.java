@@ -4,8 +4,13 @@ package com.yahoo.document.json.readers;
 import com.fasterxml.jackson.core.JsonToken;
 import com.google.common.base.Preconditions;
 import com.yahoo.document.DataType;
+import com.yahoo.document.datatypes.Array;
 import com.yahoo.document.datatypes.CollectionFieldValue;
+import com.yahoo.document.datatypes.DoubleFieldValueList;
 import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.document.datatypes.FloatFieldValueList;
+import com.yahoo.document.datatypes.IntegerFieldValueList;
+import com.yahoo.document.datatypes.LongFieldValueList;
 import com.yahoo.document.json.TokenBuffer;
 
 import java.util.List;
@@ -27,10 +32,29 @@ public class ArrayReader {
         int initNesting = buffer.nesting();
         expectArrayStart(buffer.currentToken());
         buffer.next();
+        List<?> values = parent instanceof Array ? ((Array<?>) parent).getValues() : null;
         while (buffer.nesting() >= initNesting) {
             Preconditions.checkArgument(buffer.currentToken() != JsonToken.VALUE_NULL, "Illegal null value for array entry");
-            parent.add(readSingleValue(buffer, valueType));
+            if ( ! addPrimitive(buffer, values))
+                parent.add(readSingleValue(buffer, valueType));
             buffer.next();
         }
     }
+
+    /** Adds the current value directly to the given list if it stores primitives, and returns whether it did */
+    private static boolean addPrimitive(TokenBuffer buffer, List<?> values) {
+        if ( ! buffer.currentToken().isScalarValue()) return false;
+
+        if (values instanceof IntegerFieldValueList)
+            ((IntegerFieldValueList) values).addInt(Integer.parseInt(buffer.currentText()));
+        else if (values instanceof LongFieldValueList)
+            ((LongFieldValueList) values).addLong(Long.parseLong(buffer.currentText()));
+        else if (values instanceof FloatFieldValueList)
+            ((FloatFieldValueList) values).addFloat(Float.parseFloat(buffer.currentText()));
+        else if (values instanceof DoubleFieldValueList)
+            ((DoubleFieldValueList) values).addDouble(Double.parseDouble(buffer.currentText()));
+        else
+            return false;
+        return true;
+    }
 }
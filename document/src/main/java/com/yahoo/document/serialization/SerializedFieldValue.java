@@ -0,0 +1,83 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+
+/**
+ * The value of a field in the current serialization format, as read from a serialized document.
+ * This is kept by a {@link com.yahoo.document.datatypes.Struct}, such that fields which are never accessed are never
+ * deserialized, and are copied byte for byte when the struct is serialized again.
+ * <p>
+ * The value is deserialized once, on first access, also when this is accessed by multiple threads.
+ * It belongs to a single struct instance, as the deserialized value may be modified.
+ *
+ * @author agent
+ */
+public final class SerializedFieldValue {
+
+    private final DocumentTypeManager manager;
+    private final byte[] data;
+    private final int offset;
+    private final int length;
+
+    private volatile FieldValue value = null;
+
+    /**
+     * Creates a serialized field value.
+     *
+     * @param manager the manager of the types which may be referenced by the serialized value
+     * @param data the buffer containing the serialized value, which must not be modified after this is created
+     * @param offset the position of the serialized value in data
+     * @param length the length of the serialized value in bytes
+     */
+    SerializedFieldValue(DocumentTypeManager manager, byte[] data, int offset, int length) {
+        this.manager = manager;
+        this.data = data;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    /** Returns the value of this as a value of the given field, which is deserialized on the first call */
+    public FieldValue getValue(Field field) {
+        FieldValue value = this.value;
+        if (value == null) {
+            synchronized (this) {
+                value = this.value;
+                if (value == null) {
+                    value = deserialize(field);
+                    this.value = value;
+                }
+            }
+        }
+        return value;
+    }
+
+    /** Returns whether this is deserialized, in which case the value may be modified, such that it must be serialized again */
+    public boolean isDeserialized() { return value != null; }
+
+    /** Returns a copy of this which is not deserialized */
+    public SerializedFieldValue copy() {
+        return new SerializedFieldValue(manager, data, offset, length);
+    }
+
+    /** Deserializes this as a value of the given field */
+    public FieldValue deserialize(Field field) {
+        VespaDocumentDeserializerHead deserializer =
+                new VespaDocumentDeserializerHead(manager, GrowableByteBuffer.wrap(data, offset, length));
+        FieldValue value = field.getDataType().createFieldValue();
+        value.deserialize(field, deserializer);
+        return value;
+    }
+
+    /** Returns the size of this in bytes */
+    public int getSerializedSize() { return length; }
+
+    /** Writes the serialized form of this to the given buffer */
+    void writeTo(GrowableByteBuffer buffer) {
+        buffer.put(data, offset, length);
+    }
+
+}
@@ -22,10 +22,14 @@ import com.yahoo.document.datatypes.BoolFieldValue;
 import com.yahoo.document.datatypes.ByteFieldValue;
 import com.yahoo.document.datatypes.CollectionFieldValue;
 import com.yahoo.document.datatypes.DoubleFieldValue;
+import com.yahoo.document.datatypes.DoubleFieldValueList;
 import com.yahoo.document.datatypes.FieldValue;
 import com.yahoo.document.datatypes.FloatFieldValue;
+import com.yahoo.document.datatypes.FloatFieldValueList;
 import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.IntegerFieldValueList;
 import com.yahoo.document.datatypes.LongFieldValue;
+import com.yahoo.document.datatypes.LongFieldValueList;
 import com.yahoo.document.datatypes.MapFieldValue;
 import com.yahoo.document.datatypes.PredicateFieldValue;
 import com.yahoo.document.datatypes.Raw;
@@ -88,11 +92,23 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
     private List<SpanNode> spanNodes;
     private List<Annotation> annotations;
     private int[] stringPositions;
+    private final boolean lazyFields;
 
     VespaDocumentDeserializer6(DocumentTypeManager manager, GrowableByteBuffer buf) {
+        this(manager, buf, false);
+    }
+
+    /**
+     * Creates a deserializer.
+     *
+     * @param lazyFields whether to keep the document field values of the current serialization version
+     *                   in serialized form until they are accessed, see {@link SerializedFieldValue}
+     */
+    VespaDocumentDeserializer6(DocumentTypeManager manager, GrowableByteBuffer buf, boolean lazyFields) {
         super(buf);
         this.manager = manager;
         this.version = Document.SERIALIZED_VERSION;
+        this.lazyFields = lazyFields;
     }
 
     final public DocumentTypeManager getDocumentTypeManager() { return manager; }
@@ -153,6 +169,9 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
 
     public <T extends FieldValue> void read(FieldBase field, Array<T> array) {
         int numElements = getNumCollectionElems();
+        array.clear();
+        if (version >= 7 && readPrimitives(array.getValues(), numElements)) return;
+
         ArrayList<T> list = new ArrayList<T>(numElements);
         ArrayDataType type = array.getDataType();
         for (int i = 0; i < numElements; i++) {
@@ -163,10 +182,37 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
             fv.deserialize(null, this);
             list.add((T) fv);
         }
-        array.clear();
         array.addAll(list);
     }
 
+    /** Reads the given number of elements into the given list if it stores primitives, and returns whether it did */
+    private boolean readPrimitives(List<?> list, int numElements) {
+        if (list instanceof IntegerFieldValueList) {
+            IntegerFieldValueList values = (IntegerFieldValueList) list;
+            for (int i = 0; i < numElements; i++) {
+                values.addInt(getInt(null));
+            }
+        } else if (list instanceof LongFieldValueList) {
+            LongFieldValueList values = (LongFieldValueList) list;
+            for (int i = 0; i < numElements; i++) {
+                values.addLong(getLong(null));
+            }
+        } else if (list instanceof FloatFieldValueList) {
+            FloatFieldValueList values = (FloatFieldValueList) list;
+            for (int i = 0; i < numElements; i++) {
+                values.addFloat(getFloat(null));
+            }
+        } else if (list instanceof DoubleFieldValueList) {
+            DoubleFieldValueList values = (DoubleFieldValueList) list;
+            for (int i = 0; i < numElements; i++) {
+                values.addDouble(getDouble(null));
+            }
+        } else {
+            return false;
+        }
+        return true;
+    }
+
     public <K extends FieldValue, V extends FieldValue> void read(FieldBase field, MapFieldValue<K, V> map) {
         int numElements = getNumCollectionElems();
         Map<K,V> hash = new HashMap<>();
@@ -446,9 +492,14 @@ public class VespaDocumentDeserializer6 extends BufferSerializer implements Docu
                 }
             }
             if (s != null) {
-              FieldValue value = structField.getDataType().createFieldValue();
-              value.deserialize(structField, this);
-              s.setFieldValue(structField, value);
+              if (lazyFields && version == Document.SERIALIZED_VERSION) {
+                  s.setSerializedFieldValue(structField, new SerializedFieldValue(manager, destination, posBefore,
+                                                                                  fieldIdsAndLengths.get(i).second.intValue()));
+              } else {
+                  FieldValue value = structField.getDataType().createFieldValue();
+                  value.deserialize(structField, this);
+                  s.setFieldValue(structField, value);
+              }
             }
             //jump to beginning of next field:
             position(posBefore + fieldIdsAndLengths.get(i).second.intValue());
@@ -24,10 +24,14 @@ import com.yahoo.document.datatypes.BoolFieldValue;
 import com.yahoo.document.datatypes.ByteFieldValue;
 import com.yahoo.document.datatypes.CollectionFieldValue;
 import com.yahoo.document.datatypes.DoubleFieldValue;
+import com.yahoo.document.datatypes.DoubleFieldValueList;
 import com.yahoo.document.datatypes.FieldValue;
 import com.yahoo.document.datatypes.FloatFieldValue;
+import com.yahoo.document.datatypes.FloatFieldValueList;
 import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.IntegerFieldValueList;
 import com.yahoo.document.datatypes.LongFieldValue;
+import com.yahoo.document.datatypes.LongFieldValueList;
 import com.yahoo.document.datatypes.MapFieldValue;
 import com.yahoo.document.datatypes.PredicateFieldValue;
 import com.yahoo.document.datatypes.Raw;
@@ -143,8 +147,30 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
         buf.putInt1_2_4Bytes(array.size());
 
         List<T> lst = array.getValues();
-        for (FieldValue value : lst) {
-            value.serialize(this);
+        if (lst instanceof IntegerFieldValueList) {
+            IntegerFieldValueList values = (IntegerFieldValueList) lst;
+            for (int i = 0; i < values.size(); i++) {
+                buf.putInt(values.getInt(i));
+            }
+        } else if (lst instanceof LongFieldValueList) {
+            LongFieldValueList values = (LongFieldValueList) lst;
+            for (int i = 0; i < values.size(); i++) {
+                buf.putLong(values.getLong(i));
+            }
+        } else if (lst instanceof FloatFieldValueList) {
+            FloatFieldValueList values = (FloatFieldValueList) lst;
+            for (int i = 0; i < values.size(); i++) {
+                buf.putFloat(values.getFloat(i));
+            }
+        } else if (lst instanceof DoubleFieldValueList) {
+            DoubleFieldValueList values = (DoubleFieldValueList) lst;
+            for (int i = 0; i < values.size(); i++) {
+                buf.putDouble(values.getDouble(i));
+            }
+        } else {
+            for (FieldValue value : lst) {
+                value.serialize(this);
+            }
         }
 
     }
@@ -341,7 +367,12 @@ public class VespaDocumentSerializer6 extends BufferSerializer implements Docume
         for (Map.Entry<Field, FieldValue> value : s.getFields()) {
 
             int startPos = buffer.position();
-            value.getValue().serialize(value.getKey(), this);
+            SerializedFieldValue serialized = s.getSerializedFieldValue(value.getKey());
+            if (serialized != null) { // not accessed since it was read, so copy it as-is
+                serialized.writeTo(buffer);
+            } else {
+                value.getValue().serialize(value.getKey(), this);
+            }
 
             fieldLengths.add(buffer.position() - startPos);
             fieldIds.add(value.getKey().getId(s.getVersion()));
@@ -3,6 +3,10 @@ package com.yahoo.document.datatypes;
 
 import com.yahoo.document.ArrayDataType;
 import com.yahoo.document.DataType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.serialization.DocumentDeserializerFactory;
+import com.yahoo.document.serialization.DocumentSerializerFactory;
+import com.yahoo.io.GrowableByteBuffer;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -318,4 +322,70 @@ public class ArrayTestCase {
         assertEquals(-1, b.compareTo(a));
     }
 
+    @Test
+    public void testPrimitiveArray() {
+        Array<IntegerFieldValue> array = new Array<>(new ArrayDataType(DataType.INT));
+        assertTrue(array.getValues() instanceof IntegerFieldValueList);
+        for (int i = 0; i < 20; i++)
+            array.add(new IntegerFieldValue(i));
+        assertEquals(20, array.size());
+        assertEquals(new IntegerFieldValue(7), array.get(7));
+
+        assertEquals(new IntegerFieldValue(7), array.set(7, new IntegerFieldValue(-7)));
+        assertEquals(new IntegerFieldValue(-7), array.get(7));
+        assertEquals(new IntegerFieldValue(0), array.remove(0));
+        array.add(0, new IntegerFieldValue(100));
+        assertEquals(new IntegerFieldValue(100), array.get(0));
+        assertEquals(new IntegerFieldValue(1), array.get(1));
+        assertEquals(20, array.size());
+        assertTrue(array.contains(new IntegerFieldValue(19)));
+        assertEquals(6, array.indexOf(new IntegerFieldValue(-7)));
+
+        Array<IntegerFieldValue> objects = new Array<>(new ArrayDataType(DataType.INT));
+        List<Integer> list = new ArrayList<>();
+        for (IntegerFieldValue value : array)
+            list.add(value.getInteger());
+        objects.assign(list);
+        assertEquals(objects, array);
+        assertEquals(array, objects);
+        assertEquals(0, array.compareTo(objects));
+
+        Array<IntegerFieldValue> clone = array.clone();
+        assertEquals(array, clone);
+        clone.set(0, new IntegerFieldValue(200));
+        assertEquals(new IntegerFieldValue(100), array.get(0));
+
+        array.get(1).assign(1000);
+        assertEquals("Elements are copies", new IntegerFieldValue(1), array.get(1));
+
+        try {
+            array.get(20);
+            fail("Expected an exception");
+        } catch (IndexOutOfBoundsException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testPrimitiveArraySerialization() {
+        assertSerialization(DataType.INT, new IntegerFieldValue(1), new IntegerFieldValue(Integer.MIN_VALUE));
+        assertSerialization(DataType.LONG, new LongFieldValue(1), new LongFieldValue(Long.MAX_VALUE));
+        assertSerialization(DataType.FLOAT, new FloatFieldValue(1.5f), new FloatFieldValue(-0.25f));
+        assertSerialization(DataType.DOUBLE, new DoubleFieldValue(1.5), new DoubleFieldValue(Double.MIN_VALUE));
+    }
+
+    private static void assertSerialization(DataType elementType, FieldValue ... elements) {
+        Array<FieldValue> array = new Array<>(new ArrayDataType(elementType));
+        for (int i = 0; i < 100; i++)
+            array.add(elements[i % elements.length]);
+
+        GrowableByteBuffer buffer = new GrowableByteBuffer();
+        DocumentSerializerFactory.create6(buffer).write(null, array);
+        buffer.flip();
+        Array<FieldValue> copy = new Array<>(new ArrayDataType(elementType));
+        DocumentDeserializerFactory.create6(new DocumentTypeManager(), buffer).read(null, copy);
+        assertEquals(array, copy);
+        assertEquals(0, buffer.remaining());
+    }
+
 }
@@ -242,4 +242,44 @@ public class WeightedSetTestCase {
         assertEquals(Integer.valueOf(2), assignmentTarget.get(new StringFieldValue("bar")));
     }
 
+    @Test
+    public void testStringSetIsStoredInArrays() {
+        WeightedSet<StringFieldValue> set = new WeightedSet<>(DataType.getWeightedSet(DataType.STRING));
+        for (int i = 0; i < 100; i++)
+            set.put(new StringFieldValue("key" + i), i);
+        assertEquals(100, set.size());
+        assertEquals(Integer.valueOf(42), set.get(new StringFieldValue("key42")));
+        assertEquals(Integer.valueOf(42), set.put(new StringFieldValue("key42"), 7));
+        assertEquals(Integer.valueOf(7), set.get(new StringFieldValue("key42")));
+        assertNull(set.get(new StringFieldValue("key100")));
+
+        assertEquals(Integer.valueOf(0), set.remove(new StringFieldValue("key0")));
+        assertTrue(set.removeValue(new StringFieldValue("key1")));
+        assertEquals(98, set.size());
+        assertFalse(set.containsKey(new StringFieldValue("key0")));
+        assertEquals("Insertion order is kept", new StringFieldValue("key2"), set.fieldValueIterator().next());
+        assertEquals(Integer.valueOf(99), set.get(new StringFieldValue("key99")));
+
+        WeightedSet<StringFieldValue> copy = set.clone();
+        copy.put(new StringFieldValue("key2"), 1000);
+        assertEquals(Integer.valueOf(2), set.get(new StringFieldValue("key2")));
+        assertNotEquals(set, copy);
+        copy.put(new StringFieldValue("key2"), 2);
+        assertEquals(set, copy);
+
+        Map<String, Integer> map = new HashMap<>();
+        for (int i = 2; i < 100; i++)
+            map.put("key" + i, i == 42 ? 7 : i);
+        WeightedSet<StringFieldValue> wrapped = new WeightedSet<>(DataType.getWeightedSet(DataType.STRING));
+        wrapped.assign(map);
+        assertEquals(wrapped, set);
+        assertEquals(set, wrapped);
+        assertEquals(0, set.compareTo(wrapped));
+        assertEquals(map, set.getWrappedValue());
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertNull(set.get(new StringFieldValue("key2")));
+    }
+
 }
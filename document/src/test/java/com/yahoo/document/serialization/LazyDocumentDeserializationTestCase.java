@@ -0,0 +1,180 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.document.serialization;
+
+import com.yahoo.document.ArrayDataType;
+import com.yahoo.document.DataType;
+import com.yahoo.document.Document;
+import com.yahoo.document.DocumentType;
+import com.yahoo.document.DocumentTypeManager;
+import com.yahoo.document.Field;
+import com.yahoo.document.datatypes.Array;
+import com.yahoo.document.datatypes.IntegerFieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.io.GrowableByteBuffer;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author agent
+ */
+public class LazyDocumentDeserializationTestCase {
+
+    private static class Fixture {
+
+        final DocumentTypeManager manager = new DocumentTypeManager();
+        final DocumentType docType = new DocumentType("wide");
+
+        Fixture() {
+            for (int i = 0; i < 20; i++)
+                docType.addField("str" + i, DataType.STRING);
+            docType.addField("int", DataType.INT);
+            docType.addField("array", new ArrayDataType(DataType.STRING));
+            manager.registerDocumentType(docType);
+        }
+
+        Document createDocument() {
+            Document doc = new Document(docType, "id:ns:wide::1");
+            for (int i = 0; i < 20; i++)
+                doc.setFieldValue("str" + i, new StringFieldValue("value of field " + i));
+            doc.setFieldValue("int", new IntegerFieldValue(42));
+            Array<StringFieldValue> array = new Array<>(docType.getField("array").getDataType());
+            array.add(new StringFieldValue("foo"));
+            array.add(new StringFieldValue("bar"));
+            doc.setFieldValue("array", array);
+            return doc;
+        }
+
+        Document lazyDeserialize(byte[] data) {
+            return Document.createDocument(DocumentDeserializerFactory.createLazyHead(manager, GrowableByteBuffer.wrap(data)));
+        }
+
+        Document deserialize(byte[] data) {
+            return Document.createDocument(DocumentDeserializerFactory.createHead(manager, GrowableByteBuffer.wrap(data)));
+        }
+
+    }
+
+    private static byte[] serialize(Document doc) {
+        GrowableByteBuffer buf = new GrowableByteBuffer();
+        doc.serialize(buf);
+        buf.flip();
+        return Arrays.copyOf(buf.array(), buf.limit());
+    }
+
+    @Test
+    public void fields_are_deserialized_when_accessed() {
+        Fixture fixture = new Fixture();
+        Document doc = fixture.lazyDeserialize(serialize(fixture.createDocument()));
+        Field field = fixture.docType.getField("str3");
+
+        assertNotNull(doc.getHeader().getSerializedFieldValue(field));
+        assertEquals(22, doc.getFieldCount());
+        assertEquals(new StringFieldValue("value of field 3"), doc.getFieldValue(field));
+        assertNull(doc.getHeader().getSerializedFieldValue(field));
+        assertNotNull(doc.getHeader().getSerializedFieldValue(fixture.docType.getField("str4")));
+        assertEquals(fixture.createDocument(), doc);
+    }
+
+    @Test
+    public void unmodified_document_is_serialized_to_identical_bytes() {
+        Fixture fixture = new Fixture();
+        byte[] data = serialize(fixture.createDocument());
+
+        Document doc = fixture.lazyDeserialize(data);
+        assertArrayEquals(data, serialize(doc));
+
+        doc.getFieldValue("str7");
+        doc.getFieldValue("array");
+        assertArrayEquals(data, serialize(doc));
+    }
+
+    @Test
+    public void modified_fields_are_serialized_with_the_unmodified_ones() {
+        Fixture fixture = new Fixture();
+        Document doc = fixture.lazyDeserialize(serialize(fixture.createDocument()));
+
+        doc.setFieldValue("str1", new StringFieldValue("modified"));
+        @SuppressWarnings("unchecked")
+        Array<StringFieldValue> array = (Array<StringFieldValue>) doc.getFieldValue("array");
+        array.add(new StringFieldValue("baz"));
+        doc.removeFieldValue("int");
+
+        Document expected = fixture.createDocument();
+        expected.setFieldValue("str1", new StringFieldValue("modified"));
+        @SuppressWarnings("unchecked")
+        Array<StringFieldValue> expectedArray = (Array<StringFieldValue>) expected.getFieldValue("array");
+        expectedArray.add(new StringFieldValue("baz"));
+        expected.removeFieldValue("int");
+
+        assertEquals(expected, fixture.deserialize(serialize(doc)));
+        assertArrayEquals(serialize(expected), serialize(doc));
+    }
+
+    @Test
+    public void clones_are_independent() {
+        Fixture fixture = new Fixture();
+        Document doc = fixture.lazyDeserialize(serialize(fixture.createDocument()));
+        Document clone = doc.clone();
+
+        clone.setFieldValue("str0", new StringFieldValue("modified"));
+        assertEquals(new StringFieldValue("value of field 0"), doc.getFieldValue("str0"));
+        assertEquals(new StringFieldValue("modified"), clone.getFieldValue("str0"));
+        assertEquals(new StringFieldValue("value of field 5"), clone.getFieldValue("str5"));
+    }
+
+    @Test
+    public void clones_of_accessed_fields_are_independent() {
+        Fixture fixture = new Fixture();
+        Document doc = fixture.lazyDeserialize(serialize(fixture.createDocument()));
+
+        @SuppressWarnings("unchecked")
+        Array<StringFieldValue> array = (Array<StringFieldValue>) doc.getFieldValue("array");
+        array.add(new StringFieldValue("baz"));
+        Document clone = doc.clone();
+        array.add(new StringFieldValue("qux"));
+
+        assertEquals(3, ((Array<?>) clone.getFieldValue("array")).size());
+        assertEquals(4, ((Array<?>) doc.getFieldValue("array")).size());
+    }
+
+    @Test
+    public void concurrent_readers_get_the_same_value() throws Exception {
+        Fixture fixture = new Fixture();
+        Document doc = fixture.lazyDeserialize(serialize(fixture.createDocument()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Object>>> results = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                results.add(executor.submit(() -> {
+                    List<Object> values = new ArrayList<>();
+                    for (int j = 0; j < 20; j++)
+                        values.add(doc.getFieldValue("str" + j));
+                    values.add(doc.getFieldValue("array"));
+                    return values;
+                }));
+            }
+            List<Object> expected = results.get(0).get();
+            for (Future<List<Object>> result : results)
+                for (int i = 0; i < expected.size(); i++)
+                    assertSame(expected.get(i), result.get().get(i));
+        } finally {
+            executor.shutdown();
+        }
+        assertEquals(fixture.createDocument(), doc);
+        assertEquals(fixture.createDocument().hashCode(), doc.hashCode());
+    }
+
+}
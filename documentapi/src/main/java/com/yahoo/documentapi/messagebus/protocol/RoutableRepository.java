@@ -52,7 +52,8 @@ final class RoutableRepository {
         DocumentDeserializer in;
 
         if (version.getMajor() >= 5) {
-            in = DocumentDeserializerFactory.createHead(docMan, GrowableByteBuffer.wrap(data));
+            // Document fields are deserialized on access, as messages are often forwarded after accessing just a few
+            in = DocumentDeserializerFactory.createLazyHead(docMan, GrowableByteBuffer.wrap(data));
         } else {
             in = DocumentDeserializerFactory.create42(docMan, GrowableByteBuffer.wrap(data));
         }
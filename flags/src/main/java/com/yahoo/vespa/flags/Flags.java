@@ -25,6 +25,12 @@ public class Flags {
             "Takes effect immediately when changed.",
             HOSTNAME, APPLICATION_ID);
 
+    public static final UnboundBooleanFlag PRELOAD_CONFIG_SERVER_CACHE = defineFeatureFlag(
+            "preload-config-server-cache", false,
+            "Whether config server will generate and cache all configs of an application when it is activated.",
+            "Takes effect on next activation of the application.",
+            APPLICATION_ID);
+
     public static final UnboundBooleanFlag CONFIG_SERVER_BOOTSTRAP_IN_SEPARATE_THREAD = defineFeatureFlag(
             "config-server-bootstrap-in-separate-thread", false,
             "Whether to run config server/controller bootstrap in a separate thread.",
@@ -1,17 +1,24 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.fsa;
 
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.lang.ref.WeakReference;
 import java.net.URL;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.nio.CharBuffer;
 import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.channels.FileChannel.MapMode;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Objects;
 
 
 /**
@@ -62,6 +69,10 @@ public class FSA {
         }
 
         public void delta(char chr){
+            if (fsa.isUtf8()) {
+                deltaUtf8(chr);
+                return;
+            }
             CharBuffer chrbuf = CharBuffer.allocate(1);
             chrbuf.put(0,chr);
             ByteBuffer buf = fsa.encode(chrbuf);
@@ -72,10 +83,94 @@ public class FSA {
 
         /** Jumps ahead by string */
         public void delta(String string){
-            ByteBuffer buf = fsa.encode(string);
-            while(state >0 && buf.position()<buf.limit()){
-                delta(buf.get());
+            delta(string, 0, string.length());
+        }
+
+        /**
+         * Jumps ahead by the given bytes, which must be in the encoding of this fsa.
+         * This does not allocate any objects.
+         *
+         * @param bytes the bytes to jump ahead by
+         * @param offset the index of the first byte to use
+         * @param length the number of bytes to use
+         */
+        public void delta(byte[] bytes, int offset, int length) {
+            for (int i = offset; state > 0 && i < offset + length; i++)
+                delta(bytes[i]);
+        }
+
+        /**
+         * Jumps ahead by the characters in the given range of a character sequence.
+         * This does not allocate any objects if the encoding of this fsa is utf-8.
+         *
+         * @param chars the characters to jump ahead by
+         * @param start the index of the first character to use
+         * @param end the index after the last character to use
+         */
+        public void delta(CharSequence chars, int start, int end) {
+            if ( ! fsa.isUtf8()) {
+                ByteBuffer buf = fsa.encode(CharBuffer.wrap(chars, start, end));
+                while(state >0 && buf.position()<buf.limit()){
+                    delta(buf.get());
+                }
+                return;
+            }
+
+            for (int i = start; state > 0 && i < end; i++) {
+                char chr = chars.charAt(i);
+                if (Character.isHighSurrogate(chr) && i + 1 < end && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(chr, chars.charAt(++i));
+                    deltaIfValid((byte)(0xf0 | (codePoint >> 18)));
+                    deltaIfValid((byte)(0x80 | ((codePoint >> 12) & 0x3f)));
+                    deltaIfValid((byte)(0x80 | ((codePoint >> 6) & 0x3f)));
+                    deltaIfValid((byte)(0x80 | (codePoint & 0x3f)));
+                }
+                else {
+                    deltaUtf8(chr);
+                }
+            }
+        }
+
+        /**
+         * Jumps ahead by the characters in the given range of a character sequence if that puts us into a valid state,
+         * does nothing otherwise. This does not allocate any objects if the encoding of this fsa is utf-8.
+         *
+         * @return whether we jumped to a valid state (true) or did nothing (false)
+         */
+        public boolean tryDelta(CharSequence chars, int start, int end) {
+            int lastHash=hash;
+            int lastState=state;
+            delta(chars, start, end);
+            if (isValid()) return true;
+
+            hash=lastHash;
+            state=lastState;
+            return false;
+        }
+
+        /** Jumps ahead by the utf-8 encoding of a character which is not part of a surrogate pair */
+        private void deltaUtf8(char chr) {
+            if (chr < 0x80) {
+                deltaIfValid((byte)chr);
+            }
+            else if (chr < 0x800) {
+                deltaIfValid((byte)(0xc0 | (chr >> 6)));
+                deltaIfValid((byte)(0x80 | (chr & 0x3f)));
+            }
+            else if (Character.isSurrogate(chr)) {
+                deltaIfValid((byte)'?'); // Unpaired surrogates are replaced, like by the utf-8 encoder
             }
+            else {
+                deltaIfValid((byte)(0xe0 | (chr >> 12)));
+                deltaIfValid((byte)(0x80 | ((chr >> 6) & 0x3f)));
+                deltaIfValid((byte)(0x80 | (chr & 0x3f)));
+            }
+        }
+
+        /** Jumps ahead by the given symbol unless we are in the invalid state, where no symbols lead anywhere */
+        private void deltaIfValid(byte symbol) {
+            if (state > 0)
+                delta(symbol);
         }
 
         /**
@@ -97,7 +192,7 @@ public class FSA {
         /** Jumps ahead by a word -  if this is not the first word, it must be preceeded by space. */
         public void deltaWord(String string){
             if (state!=fsa.start()) {
-                delta((byte)' ');
+                deltaIfValid((byte)' ');
             }
             delta(string);
         }
@@ -316,12 +411,17 @@ public class FSA {
     }
 
     private boolean _ok = false;
+    private Mapping _mapping; // Keeps a shared mapping in use for as long as this is
     private MappedByteBuffer _header;
     private MappedByteBuffer _symbol_tab;
     private MappedByteBuffer _state_tab;
     private MappedByteBuffer _data;
     private MappedByteBuffer _phash;
     private Charset _charset;
+    private boolean _utf8;
+
+    /** The mappings of fsa files which are in use, shared between all FSA instances loaded from the same file */
+    private static final Map<Mapping.Key, WeakReference<Mapping>> mappings = new HashMap<>();
 
     /**
      * Loads an FSA from a resource file name, which is resolved from the class path of the
@@ -346,7 +446,9 @@ public class FSA {
     }
 
     /**
-     * Loads an FSA from a file using utf-8 encoding
+     * Loads an FSA from a file using utf-8 encoding.
+     * The file is memory mapped read-only, and the mapping is shared with all other FSA instances
+     * loaded from the same, unchanged file.
      *
      * @throws IllegalArgumentException if the file is not found
      */
@@ -356,6 +458,8 @@ public class FSA {
 
     /**
      * Loads an FSA from a file using the specified character encoding.
+     * The file is memory mapped read-only, and the mapping is shared with all other FSA instances
+     * loaded from the same, unchanged file.
      *
      * @throws IllegalArgumentException if the file is not found
      */
@@ -374,39 +478,117 @@ public class FSA {
     }
 
     private void init(String filename, String charsetname){
-        try {
-            init(new FileInputStream(filename),charsetname);
+        try (FileInputStream file = new FileInputStream(filename)) {
+            init(sharedMapping(filename, file), charsetname);
         }
         catch (FileNotFoundException e) {
             throw new IllegalArgumentException("Could not find FSA file '" + filename + "'",e);
         }
+        catch (IOException e) {
+            throw new RuntimeException("IO error while reading FSA file",e);
+        }
     }
 
     private void init(FileInputStream file, String charsetname) {
         try {
-            _charset = Charset.forName(charsetname);
-            _header = file.getChannel().map(MapMode.READ_ONLY,0,256);
-            _header.order(ByteOrder.LITTLE_ENDIAN);
-            if (h_magic()!=2038637673) {
-                throw new IOException("Stream does not contain an FSA: Wrong file magic number " + h_magic());
-            }
-            _symbol_tab = file.getChannel().map(MapMode.READ_ONLY, 256, h_size());
-            _symbol_tab.order(ByteOrder.LITTLE_ENDIAN);
-            _state_tab = file.getChannel().map(MapMode.READ_ONLY, 256+h_size(), 4*h_size());
-            _state_tab.order(ByteOrder.LITTLE_ENDIAN);
-            _data = file.getChannel().map(MapMode.READ_ONLY, 256+5*h_size(), h_data_size());
-            _data.order(ByteOrder.LITTLE_ENDIAN);
-            if(h_has_phash()>0){
-                _phash = file.getChannel().map(MapMode.READ_ONLY, 256+5*h_size()+h_data_size(), 4*h_size());
-                _phash.order(ByteOrder.LITTLE_ENDIAN);
-            }
-            _ok=true;
+            init(new Mapping(file.getChannel()), charsetname);
         }
         catch (IOException e) {
             throw new RuntimeException("IO error while reading FSA file",e);
         }
     }
 
+    private void init(Mapping mapping, String charsetname) {
+        _charset = Charset.forName(charsetname);
+        _utf8 = _charset.equals(StandardCharsets.UTF_8);
+        _mapping = mapping;
+        _header = mapping.header;
+        _symbol_tab = mapping.symbol_tab;
+        _state_tab = mapping.state_tab;
+        _data = mapping.data;
+        _phash = mapping.phash;
+        _ok = true;
+    }
+
+    /** Returns the mapping of the given file, which is created if it is not already in use */
+    private static Mapping sharedMapping(String filename, FileInputStream file) throws IOException {
+        File path = new File(filename);
+        Mapping.Key key = new Mapping.Key(path.getCanonicalPath(), path.lastModified(), file.getChannel().size());
+        synchronized (mappings) {
+            WeakReference<Mapping> reference = mappings.get(key);
+            Mapping mapping = reference == null ? null : reference.get();
+            if (mapping == null) {
+                mappings.values().removeIf(unused -> unused.get() == null);
+                mapping = new Mapping(file.getChannel());
+                mappings.put(key, new WeakReference<>(mapping));
+            }
+            return mapping;
+        }
+    }
+
+    /**
+     * The read-only memory mapped sections of an fsa file. The buffers are only accessed by absolute index,
+     * such that this may be shared by any number of FSA instances and threads.
+     * The mapping stays valid after the file is closed, until this is garbage collected.
+     */
+    private static final class Mapping {
+
+        private final MappedByteBuffer header;
+        private final MappedByteBuffer symbol_tab;
+        private final MappedByteBuffer state_tab;
+        private final MappedByteBuffer data;
+        private final MappedByteBuffer phash;
+
+        Mapping(FileChannel channel) throws IOException {
+            header = map(channel, 0, 256);
+            int magic = header.getInt(0);
+            if (magic!=2038637673) {
+                throw new IOException("Stream does not contain an FSA: Wrong file magic number " + magic);
+            }
+            int size = header.getInt(12);
+            int dataSize = header.getInt(20);
+            symbol_tab = map(channel, 256, size);
+            state_tab = map(channel, 256+size, 4*size);
+            data = map(channel, 256+5*size, dataSize);
+            phash = header.getInt(32)>0 ? map(channel, 256+5*size+dataSize, 4*size) : null;
+        }
+
+        private static MappedByteBuffer map(FileChannel channel, long position, long size) throws IOException {
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+
+        /** Identifies a version of an fsa file */
+        private static final class Key {
+
+            private final String path;
+            private final long lastModified;
+            private final long size;
+
+            Key(String path, long lastModified, long size) {
+                this.path = path;
+                this.lastModified = lastModified;
+                this.size = size;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (o == this) return true;
+                if ( ! (o instanceof Key)) return false;
+                Key other = (Key) o;
+                return path.equals(other.path) && lastModified == other.lastModified && size == other.size;
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(path, lastModified, size);
+            }
+
+        }
+
+    }
+
     private int h_magic(){
         return _header.getInt(0);
     }
@@ -445,8 +627,8 @@ public class FSA {
         return symbol;
     }
 
-    private ByteBuffer encode(String str){
-        return _charset.encode(str);
+    private boolean isUtf8(){
+        return _utf8;
     }
 
     private ByteBuffer encode(CharBuffer chrbuf){
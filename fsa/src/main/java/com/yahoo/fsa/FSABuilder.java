@@ -0,0 +1,390 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.fsa;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds a minimal, acyclic finite-state automaton from keys added in sorted order, and writes it
+ * in the binary format read by {@link FSA}, including a perfect hash and the data of each key.
+ * The perfect hash of a key is its index in the sorted order of all the keys.
+ * <p>
+ * Keys must be added in increasing order of their utf-8 encoded bytes, compared as unsigned values,
+ * which for strings without surrogate pairs is the same as the natural order of the strings.
+ * Keys must be unique and can not contain the bytes 0x00 or 0xff.
+ * <p>
+ * This is not thread safe.
+ *
+ * @author agent
+ */
+public class FSABuilder {
+
+    /** The version of the fsa library written to the header, the same as written by makefsa */
+    private static final int version = 2000001;
+    private static final int magic = 2038637673;
+    private static final int headerSize = 256;
+    private static final int finalSymbol = 255;
+
+    /** The states of the previously added key, which may still change, from the start state */
+    private final List<State> path = new ArrayList<>();
+
+    /** The states which will not change, each unique */
+    private final Map<State, State> register = new HashMap<>();
+
+    /** The states which will not change, children before parents */
+    private final List<State> frozen = new ArrayList<>();
+
+    private byte[] previousKey = null;
+    private boolean finished = false;
+
+    public FSABuilder() {
+        path.add(new State());
+    }
+
+    /** Adds a key without data */
+    public FSABuilder add(String key) {
+        return add(key.getBytes(StandardCharsets.UTF_8), new byte[0]);
+    }
+
+    /**
+     * Adds a key with a string as data. The data is stored zero terminated, like by makefsa -t,
+     * and is returned by {@link FSA#lookup} and {@link FSA.State#dataString}.
+     */
+    public FSABuilder add(String key, String data) {
+        byte[] dataBytes = data.getBytes(StandardCharsets.UTF_8);
+        return add(key.getBytes(StandardCharsets.UTF_8), Arrays.copyOf(dataBytes, dataBytes.length + 1));
+    }
+
+    /**
+     * Adds a key with the given data.
+     *
+     * @param key the bytes of the key, in the encoding of the FSA which will read this
+     * @param data the data of this key, returned by {@link FSA.State#data}
+     * @throws IllegalArgumentException if the key is not larger than the previous, or contains 0x00 or 0xff
+     */
+    public FSABuilder add(byte[] key, byte[] data) {
+        if (finished) throw new IllegalStateException("This builder is already written");
+        validate(key);
+
+        int prefixLength = commonPrefixLength(previousKey, key);
+        freezeFrom(prefixLength);
+        State state = path.get(prefixLength);
+        for (int i = prefixLength; i < key.length; i++) {
+            State next = new State();
+            state.addTransition(key[i], next);
+            path.add(next);
+            state = next;
+        }
+        state.isFinal = true;
+        state.data = data;
+        previousKey = key;
+        return this;
+    }
+
+    /** Writes the automaton built from the added keys to the given file, with serial number 0 */
+    public void write(Path file) throws IOException {
+        write(file, 0);
+    }
+
+    /** Writes the automaton built from the added keys to the given file, which is replaced if it exists */
+    public void write(Path file, int serial) throws IOException {
+        finish();
+        Packing packing = new Packing(frozen);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                    StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeFully(channel, packing.header(serial));
+            writeFully(channel, packing.symbolTable);
+            writeFully(channel, packing.stateTable);
+            writeFully(channel, packing.dataTable);
+            writeFully(channel, packing.perfectHashTable);
+        }
+    }
+
+    private void validate(byte[] key) {
+        for (byte symbol : key) {
+            if (symbol == 0 || symbol == (byte)finalSymbol)
+                throw new IllegalArgumentException("Keys can not contain the bytes 0x00 or 0xff, but got '" +
+                                                   new String(key, StandardCharsets.UTF_8) + "'");
+        }
+        if (previousKey != null && compareUnsigned(previousKey, key) >= 0)
+            throw new IllegalArgumentException("Keys must be added in increasing order, but got '" +
+                                               new String(key, StandardCharsets.UTF_8) + "' after '" +
+                                               new String(previousKey, StandardCharsets.UTF_8) + "'");
+    }
+
+    /** Replaces the states of the previous key after the given depth by equivalent registered states */
+    private void freezeFrom(int depth) {
+        for (int i = path.size() - 1; i > depth; i--) {
+            State state = path.remove(i);
+            State registered = register.get(state);
+            if (registered == null) {
+                register.put(state, state);
+                frozen.add(state);
+                registered = state;
+            }
+            path.get(i - 1).replaceLastTarget(registered);
+        }
+    }
+
+    private void finish() {
+        if (finished) return;
+        freezeFrom(0);
+        frozen.add(path.get(0)); // The start state is last
+        register.clear();
+        finished = true;
+    }
+
+    private static int commonPrefixLength(byte[] a, byte[] b) {
+        if (a == null) return 0;
+        int length = 0;
+        while (length < a.length && length < b.length && a[length] == b[length])
+            length++;
+        return length;
+    }
+
+    private static int compareUnsigned(byte[] a, byte[] b) {
+        for (int i = 0; i < a.length && i < b.length; i++) {
+            int difference = (a[i] & 0xff) - (b[i] & 0xff);
+            if (difference != 0) return difference;
+        }
+        return a.length - b.length;
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.rewind();
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+    }
+
+    /**
+     * A state of the automaton. Equality is by content, such that equivalent states can be found in the register,
+     * and is only used once the state, and therefore all the states it leads to, will not change.
+     */
+    private static class State {
+
+        private byte[] symbols = new byte[0];
+        private State[] targets = new State[0];
+        private boolean isFinal = false;
+        private byte[] data = null;
+
+        /** The index of this in the packed tables, assigned when packing */
+        private int base = 0;
+
+        void addTransition(byte symbol, State target) {
+            symbols = Arrays.copyOf(symbols, symbols.length + 1);
+            targets = Arrays.copyOf(targets, targets.length + 1);
+            symbols[symbols.length - 1] = symbol;
+            targets[targets.length - 1] = target;
+        }
+
+        void replaceLastTarget(State target) {
+            targets[targets.length - 1] = target;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof State)) return false;
+            State other = (State) o;
+            if (isFinal != other.isFinal) return false;
+            if ( ! Arrays.equals(data, other.data)) return false;
+            if ( ! Arrays.equals(symbols, other.symbols)) return false;
+            for (int i = 0; i < targets.length; i++)
+                if (targets[i] != other.targets[i]) return false; // Targets are registered, so identity is equivalence
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = Boolean.hashCode(isFinal);
+            hash = 31 * hash + Arrays.hashCode(data);
+            hash = 31 * hash + Arrays.hashCode(symbols);
+            for (State target : targets)
+                hash = 31 * hash + System.identityHashCode(target);
+            return hash;
+        }
+
+    }
+
+    /**
+     * The tables of an automaton, where each state is assigned a base index such that the cells
+     * of its transitions (base + symbol) and final marker (base + 255) are not used by any other state.
+     */
+    private static class Packing {
+
+        private final ByteBuffer symbolTable;
+        private final ByteBuffer stateTable;
+        private final ByteBuffer dataTable;
+        private final ByteBuffer perfectHashTable;
+        private final int size;
+        private final int start;
+
+        /** Packs the given states, where any state comes after all the states it has transitions to */
+        Packing(List<State> states) {
+            Cells cells = new Cells();
+            int lastBase = 0;
+            for (State state : states) {
+                // Try the free cells in order as the position of the smallest symbol of this state
+                int minSymbol = minSymbol(state);
+                int base;
+                for (int cell = cells.nextFree(1 + minSymbol); ; cell = cells.nextFree(cell + 1)) {
+                    base = cell - minSymbol;
+                    if (cells.fits(state, base)) break;
+                }
+                cells.use(state, base);
+                state.base = base;
+                lastBase = Math.max(lastBase, base);
+            }
+
+            this.size = lastBase + 256;
+            this.start = states.get(states.size() - 1).base;
+            this.symbolTable = ByteBuffer.wrap(Arrays.copyOf(cells.symbols, size));
+            this.stateTable = ByteBuffer.allocate(4 * size).order(ByteOrder.LITTLE_ENDIAN);
+            this.perfectHashTable = ByteBuffer.allocate(4 * size).order(ByteOrder.LITTLE_ENDIAN);
+            this.dataTable = dataTable(states);
+
+            Map<State, Integer> totals = new IdentityHashMap<>();
+            for (State state : states) {
+                int count = state.isFinal ? 1 : 0;
+                for (int i = 0; i < state.symbols.length; i++) {
+                    int cell = state.base + (state.symbols[i] & 0xff);
+                    stateTable.putInt(4 * cell, state.targets[i].base);
+                    perfectHashTable.putInt(4 * cell, count);
+                    count += totals.get(state.targets[i]);
+                }
+                totals.put(state, count);
+            }
+        }
+
+        /** Writes the data of all final states and stores the offset of each in the state table */
+        private ByteBuffer dataTable(List<State> states) {
+            int dataSize = 0;
+            for (State state : states)
+                if (state.isFinal)
+                    dataSize += 4 + state.data.length;
+            ByteBuffer data = ByteBuffer.allocate(dataSize).order(ByteOrder.LITTLE_ENDIAN);
+            for (State state : states) {
+                if ( ! state.isFinal) continue;
+                stateTable.putInt(4 * (state.base + finalSymbol), data.position());
+                data.putInt(state.data.length);
+                data.put(state.data);
+            }
+            return data;
+        }
+
+        ByteBuffer header(int serial) {
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(0, magic);
+            header.putInt(4, version);
+            header.putInt(8, checksum(symbolTable) + checksum(stateTable) + checksum(dataTable) + checksum(perfectHashTable));
+            header.putInt(12, size);
+            header.putInt(16, start);
+            header.putInt(20, dataTable.capacity());
+            header.putInt(24, 0); // Variable size data items
+            header.putInt(28, 0);
+            header.putInt(32, 1); // Has perfect hash
+            header.putInt(36, serial);
+            return header;
+        }
+
+        private static int minSymbol(State state) {
+            int min = state.isFinal ? finalSymbol : 256;
+            for (byte symbol : state.symbols)
+                min = Math.min(min, symbol & 0xff);
+            return min == 256 ? 0 : min;
+        }
+
+        /**
+         * The checksum used by the fsa library: The sum of the buffer as little endian 32 bit words.
+         * For compatibility, this includes the same handling of trailing bytes as the fsa library.
+         */
+        private static int checksum(ByteBuffer buffer) {
+            ByteBuffer words = buffer.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+            int size = words.capacity();
+            int checksum = 0;
+            int i = 0;
+            for (; i < size >> 2; i++)
+                checksum += words.getInt(4 * i);
+            if ((size & 1) != 0) {
+                int rest = 0;
+                for (int j = 0; j < (size & 3); j++)
+                    rest |= (words.get(4 * i + j) & 0xff) << (8 * j);
+                checksum += rest;
+            }
+            return checksum;
+        }
+
+    }
+
+
+    /** The cells of the symbol table, and which of them are used as the base of a state */
+    private static class Cells {
+
+        private byte[] symbols = new byte[1024];
+        private boolean[] bases = new boolean[1024];
+
+        /** The next cell which may be free for each cell, to skip used cells quickly */
+        private int[] next = new int[1024];
+
+        Cells() {
+            for (int i = 0; i < next.length; i++)
+                next[i] = i;
+        }
+
+        /** Returns the first free cell at or after the given one */
+        int nextFree(int cell) {
+            ensureCapacity(cell);
+            while (next[cell] != cell) {
+                next[cell] = next[next[cell]]; // Path halving
+                cell = next[cell];
+                ensureCapacity(cell);
+            }
+            return cell;
+        }
+
+        boolean fits(State state, int base) {
+            ensureCapacity(base + finalSymbol);
+            if (bases[base]) return false;
+            for (byte symbol : state.symbols)
+                if (symbols[base + (symbol & 0xff)] != 0) return false;
+            return ! state.isFinal || symbols[base + finalSymbol] == 0;
+        }
+
+        void use(State state, int base) {
+            for (byte symbol : state.symbols)
+                use(base + (symbol & 0xff), symbol);
+            if (state.isFinal)
+                use(base + finalSymbol, (byte)finalSymbol);
+            bases[base] = true;
+        }
+
+        private void use(int cell, byte symbol) {
+            symbols[cell] = symbol;
+            next[cell] = cell + 1;
+        }
+
+        private void ensureCapacity(int cell) {
+            if (cell + 1 < symbols.length) return;
+            int oldLength = symbols.length;
+            int newLength = Math.max(oldLength * 2, cell + 2);
+            symbols = Arrays.copyOf(symbols, newLength);
+            bases = Arrays.copyOf(bases, newLength);
+            next = Arrays.copyOf(next, newLength);
+            for (int i = oldLength; i < newLength; i++)
+                next[i] = i;
+        }
+
+    }
+
+}
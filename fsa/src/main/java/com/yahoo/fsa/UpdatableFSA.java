@@ -0,0 +1,116 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.fsa;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * An FSA which can be replaced at runtime by rebuilding it from a new set of keys.
+ * Rebuilding happens in the background, and the new FSA is swapped in atomically once it is built,
+ * such that users which get the {@link #current} FSA for each use always see a complete automaton.
+ * <p>
+ * This is thread safe.
+ *
+ * @author agent
+ */
+public class UpdatableFSA implements AutoCloseable {
+
+    private static final Logger log = Logger.getLogger(UpdatableFSA.class.getName());
+
+    private final Path directory;
+    private final ExecutorService rebuilder = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fsa-rebuilder");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicReference<FSA> current;
+
+    /** The file of the current FSA, if it was built by this */
+    private volatile Path currentFile = null;
+
+    /**
+     * Creates an updatable FSA
+     *
+     * @param initial the FSA to use until the first rebuild is complete
+     * @param directory the directory to write rebuilt automata to
+     */
+    public UpdatableFSA(FSA initial, Path directory) {
+        this.current = new AtomicReference<>(initial);
+        this.directory = directory;
+    }
+
+    /** Returns the current FSA. This should be called for each use to pick up any rebuilt FSA. */
+    public FSA current() { return current.get(); }
+
+    /**
+     * Rebuilds this in the background from the keys added by the given function, and swaps the new FSA in
+     * when it is complete. Rebuilds are done one at a time, in the order they are requested.
+     *
+     * @param keys a function which adds the keys of the new automaton to the given builder, in sorted order
+     * @return a future which completes with the new FSA when it is in use, or exceptionally if rebuilding failed,
+     *         in which case the current FSA is kept
+     */
+    public CompletableFuture<FSA> rebuild(Consumer<FSABuilder> keys) {
+        return CompletableFuture.supplyAsync(() -> rebuildNow(keys), rebuilder);
+    }
+
+    private FSA rebuildNow(Consumer<FSABuilder> keys) {
+        Path file = null;
+        try {
+            FSABuilder builder = new FSABuilder();
+            keys.accept(builder);
+            file = Files.createTempFile(directory, "rebuilt", ".fsa");
+            builder.write(file);
+            FSA fsa = new FSA(file.toString());
+            current.set(fsa);
+
+            // Readers of the previous FSA keep its memory mapping, which stays valid after the file is deleted
+            Path previousFile = currentFile;
+            currentFile = file;
+            deleteQuietly(previousFile);
+            return fsa;
+        }
+        catch (IOException e) {
+            deleteQuietly(file);
+            throw new UncheckedIOException("Could not rebuild FSA in " + directory, e);
+        }
+        catch (RuntimeException e) {
+            deleteQuietly(file);
+            throw e;
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        if (file == null) return;
+        try {
+            Files.deleteIfExists(file);
+        }
+        catch (IOException e) {
+            log.log(Level.WARNING, "Could not delete " + file, e);
+        }
+    }
+
+    /** Stops any rebuilding in progress and deletes the file of the current FSA if it was built by this */
+    @Override
+    public void close() {
+        rebuilder.shutdownNow();
+        try {
+            rebuilder.awaitTermination(1, TimeUnit.MINUTES);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deleteQuietly(currentFile);
+    }
+
+}
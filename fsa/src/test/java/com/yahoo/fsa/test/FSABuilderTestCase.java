@@ -0,0 +1,169 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.fsa.test;
+
+import com.yahoo.fsa.FSA;
+import com.yahoo.fsa.FSABuilder;
+import com.yahoo.fsa.UpdatableFSA;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class FSABuilderTestCase {
+
+    @Rule
+    public TemporaryFolder tmpDir = new TemporaryFolder();
+
+    @Test
+    public void testBuildingTheSameAutomatonAsMakefsa() throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get("src/test/input/test-iterator-input.txt"));
+        FSABuilder builder = new FSABuilder();
+        for (String line : lines) {
+            String[] keyAndData = line.split("\t");
+            builder.add(keyAndData[0], keyAndData[1]);
+        }
+        FSA built = write(builder);
+        FSA reference = new FSA("src/test/fsa/test-iterator.fsa");
+
+        for (String line : lines) {
+            String key = line.split("\t")[0];
+            assertEquals(reference.lookup(key), built.lookup(key));
+        }
+        assertEquals(strings(reference), strings(built));
+        assertNull(built.lookup("abac"));
+        assertNull(built.lookup("abacusx"));
+    }
+
+    @Test
+    public void testPerfectHashIsTheIndexOfTheKey() throws IOException {
+        Random random = new Random(1234);
+        TreeSet<String> keys = new TreeSet<>();
+        keys.add("");
+        while (keys.size() < 10000) {
+            StringBuilder key = new StringBuilder();
+            for (int i = random.nextInt(8); i >= 0; i--)
+                key.append((char)('a' + random.nextInt(random.nextBoolean() ? 3 : 26)));
+            if (random.nextInt(20) == 0)
+                key.append('æ');
+            keys.add(key.toString());
+        }
+
+        FSABuilder builder = new FSABuilder();
+        for (String key : keys)
+            builder.add(key, "data of " + key);
+        FSA fsa = write(builder);
+
+        assertTrue(fsa.hasPerfectHash());
+        int index = 0;
+        for (String key : keys) {
+            FSA.State state = fsa.getState();
+            state.delta(key);
+            assertTrue(state.isFinal());
+            assertEquals(index++, state.hash());
+            assertEquals("data of " + key, state.dataString());
+        }
+        assertEquals(new ArrayList<>(keys), strings(fsa));
+    }
+
+    @Test
+    public void testByteKeysAndData() throws IOException {
+        FSABuilder builder = new FSABuilder();
+        builder.add(new byte[] { 1, 2 }, new byte[] { 42 });
+        builder.add(new byte[] { 1, 2, (byte)0xfe }, new byte[] { 7, 8 });
+        FSA fsa = write(builder);
+
+        FSA.State state = fsa.getState();
+        state.delta(new byte[] { 1, 2, (byte)0xfe }, 0, 2);
+        assertEquals(42, state.data().get(0));
+        state.delta((byte)0xfe);
+        assertEquals(2, state.data().limit());
+        assertEquals(1, state.hash());
+    }
+
+    @Test
+    public void testEmptyAutomaton() throws IOException {
+        FSA fsa = write(new FSABuilder());
+        assertTrue(fsa.isOk());
+        assertNull(fsa.lookup(""));
+        assertFalse(fsa.iterator().hasNext());
+    }
+
+    @Test
+    public void testKeysMustBeSortedAndValid() {
+        FSABuilder builder = new FSABuilder().add("b");
+        try {
+            builder.add("a");
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException e) {
+            assertEquals("Keys must be added in increasing order, but got 'a' after 'b'", e.getMessage());
+        }
+        try {
+            builder.add("b");
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException expected) { }
+        try {
+            builder.add("c\u0000");
+            fail("Expected exception");
+        }
+        catch (IllegalArgumentException expected) { }
+    }
+
+    @Test
+    public void testUpdatableFSA() throws IOException, InterruptedException, ExecutionException {
+        FSA initial = new FSA("src/test/fsa/test-iterator.fsa");
+        try (UpdatableFSA fsa = new UpdatableFSA(initial, tmpDir.newFolder().toPath())) {
+            assertSame(initial, fsa.current());
+
+            FSA rebuilt = fsa.rebuild(builder -> builder.add("bar", "bar data").add("foo", "foo data")).get();
+            assertSame(rebuilt, fsa.current());
+            assertEquals("foo data", fsa.current().lookup("foo"));
+            assertNull(fsa.current().lookup("abacus"));
+
+            try {
+                fsa.rebuild(builder -> builder.add("foo").add("bar")).get();
+                fail("Expected exception");
+            }
+            catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalArgumentException);
+            }
+            assertSame(rebuilt, fsa.current());
+            assertEquals("Readers of a replaced automaton can still use it", "abacus", initial.lookup("abacus"));
+        }
+    }
+
+    private FSA write(FSABuilder builder) throws IOException {
+        File file = tmpDir.newFile();
+        builder.write(file.toPath());
+        return new FSA(file.getPath());
+    }
+
+    private static List<String> strings(FSA fsa) {
+        List<String> strings = new ArrayList<>();
+        for (Iterator<FSA.Iterator.Item> i = fsa.iterator(); i.hasNext(); )
+            strings.add(i.next().getString());
+        return strings;
+    }
+
+}
@@ -8,6 +8,7 @@ import org.junit.Test;
 import java.io.FileInputStream;
 import java.io.IOException;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
@@ -26,6 +27,19 @@ public class FSATestCase {
         state=fsa.getState();
     }
 
+    @Test
+    public void testLoadingSameFileTwice() {
+        FSA first = new FSA("src/test/fsa/test-fsa.fsa");
+        FSA second = new FSA("src/test/fsa/test-fsa.fsa");
+        FSA.State firstState = first.getState();
+        FSA.State secondState = second.getState();
+        firstState.delta("this is a test");
+        secondState.delta("this is a test");
+        assertTrue(firstState.isFinal());
+        assertTrue(secondState.isFinal());
+        assertEquals(first.version(), second.version());
+    }
+
     @Test
     public void testSingleWordDelta() {
         state.delta("aword");
@@ -79,6 +79,36 @@ public class UTF8TestCase {
         assertTrue(state.isFinal());
     }
 
+    @Test
+    public void testCharSequenceRangeDelta() {
+        StringBuilder text = new StringBuilder("foo ").append(word).append(" bar");
+        state.delta(text, 4, 4 + prefix.length());
+        assertTrue(state.isValid());
+        assertFalse(state.isFinal());
+        assertTrue(state.tryDelta(text, 4 + prefix.length(), 4 + word.length()));
+        assertTrue(state.isFinal());
+        assertFalse(state.tryDelta(text, 0, text.length()));
+        assertTrue(state.isFinal());
+    }
+
+    @Test
+    public void testByteArrayRangeDelta() {
+        byte[] bytes = new byte[prefixBuf.length + suffixBuf.length + 2];
+        System.arraycopy(prefixBuf, 0, bytes, 1, prefixBuf.length);
+        System.arraycopy(suffixBuf, 0, bytes, 1 + prefixBuf.length, suffixBuf.length);
+        state.delta(bytes, 1, prefixBuf.length);
+        assertTrue(state.isValid());
+        assertFalse(state.isFinal());
+        state.delta(bytes, 1 + prefixBuf.length, suffixBuf.length);
+        assertTrue(state.isFinal());
+    }
+
+    @Test
+    public void testUnpairedSurrogateDelta() {
+        state.delta("\ud800" + word);
+        assertFalse(state.isValid());
+    }
+
     @Test
     public void testIteratorAtStart() {
         Iterator<FSA.Iterator.Item> itr = fsa.iterator(state);
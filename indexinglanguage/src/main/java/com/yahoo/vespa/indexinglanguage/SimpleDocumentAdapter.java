@@ -87,4 +87,15 @@ public class SimpleDocumentAdapter implements DocumentAdapter {
         output.setFieldValue(field, fieldValue);
         return this;
     }
+
+    @Override
+    public SimpleDocumentAdapter setOutputValue(Expression exp, Field field, FieldValue fieldValue) {
+        if ( ! field.equals(output.getField(field.getName()))) {
+            // Resolved against another document type, e.g. a sub-type whose script is reused for this type
+            return setOutputValue(exp, field.getName(), fieldValue);
+        }
+        output.setFieldValue(field, fieldValue);
+        return this;
+    }
+
 }
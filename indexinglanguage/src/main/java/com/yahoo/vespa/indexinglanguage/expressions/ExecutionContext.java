@@ -2,6 +2,7 @@
 package com.yahoo.vespa.indexinglanguage.expressions;
 
 import com.yahoo.document.DataType;
+import com.yahoo.document.Field;
 import com.yahoo.document.FieldPath;
 import com.yahoo.document.datatypes.FieldValue;
 import com.yahoo.language.Language;
@@ -16,7 +17,8 @@ import java.util.Map;
  */
 public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cloneable {
 
-    private final Map<String, FieldValue> variables = new HashMap<>();
+    /** The variables of this, created on first use as most scripts have none */
+    private Map<String, FieldValue> variables = null;
     private final FieldValueAdapter adapter;
     private FieldValue value;
     private Language language;
@@ -72,15 +74,27 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cl
         return this;
     }
 
+    @Override
+    public ExecutionContext setOutputValue(Expression exp, Field field, FieldValue fieldValue) {
+        if (adapter == null) {
+            throw new IllegalStateException("Can not set field '" + field.getName() + "' because adapter is null.");
+        }
+        adapter.setOutputValue(exp, field, fieldValue);
+        return this;
+    }
+
     public FieldValueAdapter getAdapter() {
         return adapter;
     }
 
     public FieldValue getVariable(String name) {
-        return variables.get(name);
+        return variables == null ? null : variables.get(name);
     }
 
     public ExecutionContext setVariable(String name, FieldValue value) {
+        if (variables == null) {
+            variables = new HashMap<>();
+        }
         variables.put(name, value);
         return this;
     }
@@ -123,7 +137,9 @@ public class ExecutionContext implements FieldTypeAdapter, FieldValueAdapter, Cl
     }
 
     public ExecutionContext clear() {
-        variables.clear();
+        if (variables != null) {
+            variables.clear();
+        }
         value = null;
         return this;
     }
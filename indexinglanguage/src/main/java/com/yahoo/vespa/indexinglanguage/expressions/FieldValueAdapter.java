@@ -1,6 +1,7 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.indexinglanguage.expressions;
 
+import com.yahoo.document.Field;
 import com.yahoo.document.FieldPath;
 import com.yahoo.document.datatypes.FieldValue;
 
@@ -13,4 +14,10 @@ public interface FieldValueAdapter extends FieldTypeAdapter {
     public FieldValue getInputValue(FieldPath fieldPath);
 
     public FieldValueAdapter setOutputValue(Expression exp, String fieldName, FieldValue fieldValue);
+
+    /** Sets the value of a field resolved in advance. By default this is the same as setting it by name. */
+    public default FieldValueAdapter setOutputValue(Expression exp, Field field, FieldValue fieldValue) {
+        return setOutputValue(exp, field.getName(), fieldValue);
+    }
+
 }
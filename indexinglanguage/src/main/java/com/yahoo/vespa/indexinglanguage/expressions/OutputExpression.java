@@ -3,6 +3,9 @@ package com.yahoo.vespa.indexinglanguage.expressions;
 
 import com.yahoo.document.DataType;
 import com.yahoo.document.DocumentType;
+import com.yahoo.document.Field;
+import com.yahoo.vespa.objects.ObjectOperation;
+import com.yahoo.vespa.objects.ObjectPredicate;
 
 /**
  * @author Simon Thoresen Hult
@@ -11,6 +14,7 @@ public abstract class OutputExpression extends Expression {
 
     private final String image;
     private final String fieldName;
+    private Field field;
 
     public OutputExpression(String image, String fieldName) {
         super(UnresolvedDataType.INSTANCE);
@@ -24,7 +28,11 @@ public abstract class OutputExpression extends Expression {
 
     @Override
     protected void doExecute(ExecutionContext ctx) {
-        ctx.setOutputValue(this, fieldName, ctx.getValue());
+        if (field != null) {
+            ctx.setOutputValue(this, field, ctx.getValue());
+        } else {
+            ctx.setOutputValue(this, fieldName, ctx.getValue());
+        }
     }
 
     @Override
@@ -58,4 +66,27 @@ public abstract class OutputExpression extends Expression {
     public int hashCode() {
         return getClass().hashCode() + (fieldName != null ? fieldName.hashCode() : 0);
     }
+
+    /** Resolves the fields written by output expressions in the given document type, once rather than per document */
+    public static class FieldOptimizer implements ObjectOperation, ObjectPredicate {
+
+        private final DocumentType documentType;
+
+        public FieldOptimizer(DocumentType documentType) {
+            this.documentType = documentType;
+        }
+
+        @Override
+        public void execute(Object obj) {
+            OutputExpression exp = (OutputExpression) obj;
+            exp.field = exp.getFieldName() != null ? documentType.getField(exp.getFieldName()) : null;
+        }
+
+        @Override
+        public boolean check(Object obj) {
+            return obj instanceof OutputExpression;
+        }
+
+    }
+
 }
@@ -5,7 +5,9 @@ import com.yahoo.document.DataType;
 import com.yahoo.document.Document;
 import com.yahoo.document.DocumentType;
 import com.yahoo.document.datatypes.StringFieldValue;
+import com.yahoo.language.simple.SimpleLinguistics;
 import com.yahoo.vespa.indexinglanguage.expressions.*;
+import com.yahoo.vespa.indexinglanguage.linguistics.AnnotatorConfig;
 import com.yahoo.vespa.indexinglanguage.parser.ParseException;
 import org.junit.Test;
 
@@ -24,6 +26,7 @@ public class ScriptTestCase {
         type.addField("in-2", DataType.STRING);
         type.addField("out-1", DataType.STRING);
         type.addField("out-2", DataType.STRING);
+        type.addField("out-3", DataType.STRING);
     }
 
     @Test
@@ -76,4 +79,53 @@ public class ScriptTestCase {
         assertNotNull(output);
         assertEquals(new StringFieldValue("foo"), output.getFieldValue("out-1"));
     }
+
+    @Test
+    public void requireThatResolvingFieldsInAdvanceDoesNotChangeOutput() {
+        Expression interpreted = newIndexingScript();
+        Expression resolved = newIndexingScript();
+        resolveFields(resolved);
+
+        Document interpretedOutput = Expression.execute(interpreted, newInputDocument());
+        Document resolvedOutput = Expression.execute(resolved, newInputDocument());
+        assertEquals(new StringFieldValue("foo bar"), resolvedOutput.getFieldValue("out-3"));
+        assertEquals(interpretedOutput, resolvedOutput);
+    }
+
+    @Test
+    public void requireThatUnknownOutputFieldsFailTheSameWayWhenResolvingFieldsInAdvance() {
+        Expression resolved = new StatementExpression(new InputExpression("in-1"), new IndexExpression("unknown"));
+        resolveFields(resolved);
+        try {
+            Expression.execute(resolved, newInputDocument());
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Field 'unknown' not found in document type 'mytype'.", e.getMessage());
+        }
+    }
+
+    /** Returns input 'in-1' | tokenize normalize | index 'out-1'; input 'in-2' | attribute 'out-2'; input 'in-1' | lowercase | summary 'out-3' */
+    private static Expression newIndexingScript() {
+        return new ScriptExpression(
+                new StatementExpression(new InputExpression("in-1"),
+                                        new TokenizeExpression(new SimpleLinguistics(), new AnnotatorConfig().setRemoveAccents(true)),
+                                        new IndexExpression("out-1")),
+                new StatementExpression(new InputExpression("in-2"), new AttributeExpression("out-2")),
+                new StatementExpression(new InputExpression("in-1"), new LowerCaseExpression(), new SummaryExpression("out-3")));
+    }
+
+    private void resolveFields(Expression expression) {
+        InputExpression.FieldPathOptimizer fieldPathOptimizer = new InputExpression.FieldPathOptimizer(type);
+        expression.select(fieldPathOptimizer, fieldPathOptimizer);
+        OutputExpression.FieldOptimizer fieldOptimizer = new OutputExpression.FieldOptimizer(type);
+        expression.select(fieldOptimizer, fieldOptimizer);
+    }
+
+    private Document newInputDocument() {
+        Document input = new Document(type, "doc:scheme:");
+        input.setFieldValue("in-1", new StringFieldValue("Foo Bar"));
+        input.setFieldValue("in-2", new StringFieldValue("baz"));
+        return input;
+    }
+
 }
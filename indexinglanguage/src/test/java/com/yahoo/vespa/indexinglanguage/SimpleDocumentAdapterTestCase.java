@@ -3,6 +3,7 @@ package com.yahoo.vespa.indexinglanguage;
 
 import com.yahoo.document.*;
 import com.yahoo.document.datatypes.FieldValue;
+import com.yahoo.document.datatypes.StringFieldValue;
 import com.yahoo.document.datatypes.Struct;
 import com.yahoo.vespa.indexinglanguage.expressions.VerificationException;
 import org.junit.Test;
@@ -52,4 +53,25 @@ public class SimpleDocumentAdapterTestCase {
         }
         assertNull(adapter.getInputValue("foo"));
     }
+
+    @Test
+    public void requireThatFieldsOfOtherDocumentTypesAreNotSet() {
+        DocumentType docType = new DocumentType("my_doc");
+        docType.addField("foo", DataType.STRING);
+        DocumentType subType = new DocumentType("my_sub_doc");
+        subType.inherit(docType);
+        subType.addField("bar", DataType.STRING);
+        Document doc = new Document(docType, "doc:scheme:");
+
+        DocumentAdapter adapter = new SimpleDocumentAdapter(doc);
+        adapter.setOutputValue(null, subType.getField("foo"), new StringFieldValue("foo"));
+        assertEquals(new StringFieldValue("foo"), doc.getFieldValue("foo"));
+        try {
+            adapter.setOutputValue(null, subType.getField("bar"), new StringFieldValue("bar"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Field 'bar' not found in document type 'my_doc'.", e.getMessage());
+        }
+    }
+
 }
@@ -57,6 +57,14 @@ public class ExecutionContextTestCase {
         assertNull(ctx.getValue());
     }
 
+    @Test
+    public void requireThatUnsetVariablesAreNull() {
+        ExecutionContext ctx = new ExecutionContext();
+        assertNull(ctx.getVariable("foo"));
+        ctx.clear();
+        assertNull(ctx.getVariable("foo"));
+    }
+
     @Test
     public void requireThatClearRemovesVariables() {
         ExecutionContext ctx = new ExecutionContext();
@@ -0,0 +1,76 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.language.simple;
+
+import com.yahoo.language.Language;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A bounded cache of the processed (normalized, lowercased, accent dropped and stemmed) token strings
+ * of original tokens. This can only be shared between tokenizers using the same normalizer and transformer.
+ * When the cache is full it is cleared, such that it will be refilled by the tokens currently in use.
+ *
+ * This is thread safe.
+ *
+ * @author agent
+ */
+class ProcessedTokenCache {
+
+    static final int defaultMaxSize = 100_000;
+
+    private final int maxSize;
+    private final Map<Key, String> tokens = new ConcurrentHashMap<>();
+
+    ProcessedTokenCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /** Returns the processed token string of the given original token, or null if it is not cached */
+    String get(String original, Language language, boolean stem, boolean removeAccents) {
+        return tokens.get(new Key(original, language, stem, removeAccents));
+    }
+
+    void put(String original, Language language, boolean stem, boolean removeAccents, String processed) {
+        if (tokens.size() >= maxSize)
+            tokens.clear();
+        tokens.put(new Key(original, language, stem, removeAccents), processed);
+    }
+
+    /** Returns the number of tokens in this */
+    int size() { return tokens.size(); }
+
+    private static final class Key {
+
+        private final String original;
+        private final Language language;
+        private final boolean stem;
+        private final boolean removeAccents;
+
+        Key(String original, Language language, boolean stem, boolean removeAccents) {
+            this.original = original;
+            this.language = removeAccents ? language : null; // The language is only used to drop accents
+            this.stem = stem;
+            this.removeAccents = removeAccents;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key) o;
+            return original.equals(other.original) &&
+                   language == other.language &&
+                   stem == other.stem &&
+                   removeAccents == other.removeAccents;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 31 * original.hashCode() + (language == null ? 0 : language.hashCode());
+            return 4 * hash + (stem ? 2 : 0) + (removeAccents ? 1 : 0);
+        }
+
+    }
+
+}
@@ -31,6 +31,7 @@ public class SimpleLinguistics implements Linguistics {
     private final Detector detector;
     private final CharacterClasses characterClasses;
     private final GramSplitter gramSplitter;
+    private final ProcessedTokenCache tokenCache;
 
     @Inject
     @SuppressWarnings("deprecation")
@@ -40,13 +41,14 @@ public class SimpleLinguistics implements Linguistics {
         this.detector = new SimpleDetector();
         this.characterClasses = new CharacterClasses();
         this.gramSplitter = new GramSplitter(characterClasses);
+        this.tokenCache = new ProcessedTokenCache(ProcessedTokenCache.defaultMaxSize);
     }
 
     @Override
     public Stemmer getStemmer() { return new StemmerImpl(getTokenizer()); }
 
     @Override
-    public Tokenizer getTokenizer() { return new SimpleTokenizer(normalizer, transformer); }
+    public Tokenizer getTokenizer() { return new SimpleTokenizer(normalizer, transformer, tokenCache); }
 
     @Override
     public Normalizer getNormalizer() { return normalizer; }
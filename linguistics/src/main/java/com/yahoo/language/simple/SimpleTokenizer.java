@@ -12,7 +12,8 @@ import java.util.List;
 
 /**
  * <p>A tokenizer which splits on whitespace, normalizes and transforms using the given implementations
- * and stems using the kstem algorithm.</p>
+ * and stems using the kstem algorithm. Processed tokens are cached, such that each distinct token is only
+ * processed once.</p>
  *
  * <p>This is not multithread safe.</p>
  *
@@ -25,6 +26,7 @@ public class SimpleTokenizer implements Tokenizer {
     private final Normalizer normalizer;
     private final Transformer transformer;
     private final KStemmer stemmer = new KStemmer();
+    private final ProcessedTokenCache cache;
 
     public SimpleTokenizer() {
         this(new SimpleNormalizer(), new SimpleTransformer());
@@ -35,8 +37,14 @@ public class SimpleTokenizer implements Tokenizer {
     }
 
     public SimpleTokenizer(Normalizer normalizer, Transformer transformer) {
+        this(normalizer, transformer, new ProcessedTokenCache(ProcessedTokenCache.defaultMaxSize));
+    }
+
+    /** Creates a tokenizer sharing a cache of processed tokens with other tokenizers using the same normalizer and transformer */
+    SimpleTokenizer(Normalizer normalizer, Transformer transformer, ProcessedTokenCache cache) {
         this.normalizer = normalizer;
         this.transformer = transformer;
+        this.cache = cache;
     }
 
     @Override
@@ -63,12 +71,22 @@ public class SimpleTokenizer implements Tokenizer {
         return tokens;
     }
 
-    private String processToken(String token, Language language, StemMode stemMode, boolean removeAccents) {
+    private String processToken(String original, Language language, StemMode stemMode, boolean removeAccents) {
+        boolean stem = stemMode != StemMode.NONE;
+        String token = cache.get(original, language, stem, removeAccents);
+        if (token == null) {
+            token = processUncachedToken(original, language, stem, removeAccents);
+            cache.put(original, language, stem, removeAccents, token);
+        }
+        return token;
+    }
+
+    private String processUncachedToken(String token, Language language, boolean stem, boolean removeAccents) {
         token = normalizer.normalize(token);
         token = LinguisticsCase.toLowerCase(token);
         if (removeAccents)
             token = transformer.accentDrop(token, language);
-        if (stemMode != StemMode.NONE)
+        if (stem)
             token = stemmer.stem(token);
         return token;
     }
@@ -1274,8 +1274,14 @@ public class KStemmer {
   
   public KStemmer() {}
   
+  /** Reused to hold the term to stem */
+  private char[] termBuffer = new char[32];
+
   public String stem(String term) {
-    boolean changed = stem(term.toCharArray(), term.length());
+    int len = term.length();
+    if (termBuffer.length < len) termBuffer = new char[len];
+    term.getChars(0, len, termBuffer);
+    boolean changed = stem(termBuffer, len);
     if (!changed) return term;
     return asString();
   }
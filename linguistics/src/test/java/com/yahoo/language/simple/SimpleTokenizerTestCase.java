@@ -1,10 +1,18 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.language.simple;
 
+import com.yahoo.language.Language;
 import com.yahoo.language.process.AbstractTokenizerTestCase;
 import com.yahoo.language.process.StemMode;
+import com.yahoo.language.process.Token;
 import org.junit.Test;
 
+import java.util.Iterator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 /**
  * @author <a href="mailto:steinar@yahoo-inc.com">Steinar Knutsen</a>
  * @author bratseth
@@ -33,4 +41,34 @@ public class SimpleTokenizerTestCase extends AbstractTokenizerTestCase {
                             " ", "gods", ".", "running", ")");
     }
 
+    @Test
+    public void testProcessedTokensAreCachedPerSetting() {
+        ProcessedTokenCache cache = new ProcessedTokenCache(100);
+        SimpleTokenizer tokenizer = new SimpleTokenizer(new SimpleNormalizer(), new SimpleTransformer(), cache);
+        assertEquals("offend", tokenString(tokenizer.tokenize("Offended", Language.ENGLISH, StemMode.ALL, false)));
+        assertEquals("offended", tokenString(tokenizer.tokenize("Offended", Language.ENGLISH, StemMode.NONE, false)));
+        assertEquals("offend", tokenString(tokenizer.tokenize("Offended", Language.ENGLISH, StemMode.SHORTEST, false)));
+        assertEquals(2, cache.size());
+
+        SimpleTokenizer sharingTokenizer = new SimpleTokenizer(new SimpleNormalizer(), new SimpleTransformer(), cache);
+        assertEquals("offend", tokenString(sharingTokenizer.tokenize("Offended", Language.ENGLISH, StemMode.ALL, false)));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void testProcessedTokenCacheIsBounded() {
+        ProcessedTokenCache cache = new ProcessedTokenCache(3);
+        SimpleTokenizer tokenizer = new SimpleTokenizer(new SimpleNormalizer(), new SimpleTransformer(), cache);
+        for (String token : new String[] { "a", "b", "c", "d", "e" })
+            assertEquals(token, tokenString(tokenizer.tokenize(token, Language.ENGLISH, StemMode.NONE, false)));
+        assertTrue(cache.size() <= 3);
+    }
+
+    private static String tokenString(Iterable<Token> tokens) {
+        Iterator<Token> i = tokens.iterator();
+        String tokenString = i.next().getTokenString();
+        assertFalse(i.hasNext());
+        return tokenString;
+    }
+
 }
@@ -0,0 +1,261 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.rankingexpression.importer.configmodelview;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A cache of imported models keyed by the content of the model files and the importer used, such that
+ * models which are unchanged between deployments are not imported again.
+ * The cache is bounded both by the number of models and by their estimated retained size, and evicts the
+ * least recently used models first. Models are held by soft references so they may also be reclaimed
+ * on memory pressure. The bounds of the shared cache are set by the system properties
+ * vespa.model.import.cache.entries and vespa.model.import.cache.megabytes.
+ * <p>
+ * The string forms of constants and functions of cached models are computed once and reused, as converting
+ * the tensors of a model to strings is typically as expensive as importing it.
+ *
+ * This is thread safe.
+ *
+ * @author agent
+ */
+class ImportedMlModelCache {
+
+    /** The shared cache used when importing models in this class loader */
+    static final ImportedMlModelCache shared =
+            new ImportedMlModelCache(Integer.getInteger("vespa.model.import.cache.entries", 16),
+                                     Long.getLong("vespa.model.import.cache.megabytes", 256) * 1024 * 1024);
+
+    private final int maxEntries;
+    private final long maxRetainedBytes;
+
+    /** Cached models in least recently used order */
+    private final LinkedHashMap<Key, Entry> models = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long retainedBytes = 0;
+
+    ImportedMlModelCache(int maxEntries, long maxRetainedBytes) {
+        this.maxEntries = maxEntries;
+        this.maxRetainedBytes = maxRetainedBytes;
+    }
+
+    /**
+     * Returns the model imported from the given path by the given importer,
+     * which is either taken from this cache or imported and added to it
+     */
+    ImportedMlModel importModel(String name, File modelPath, MlModelImporter importer) {
+        Key key = new Key(name, contentHashOf(modelPath), importerVersionOf(importer));
+        Optional<CachedModel> cached = get(key);
+        if (cached.isPresent()) return cached.get().withSource(modelPath.toString());
+
+        CachedModel model = new CachedModel(importer.importModel(name, modelPath));
+        put(key, new Entry(model, sizeOf(modelPath) + model.stringBytes()));
+        return model;
+    }
+
+    /** Returns the number of models in this */
+    synchronized int size() { return models.size(); }
+
+    private synchronized Optional<CachedModel> get(Key key) {
+        Entry entry = models.get(key);
+        if (entry == null) return Optional.empty();
+
+        CachedModel model = entry.model.get();
+        if (model == null) { // reclaimed by the garbage collector
+            models.remove(key);
+            retainedBytes -= entry.retainedBytes;
+        }
+        return Optional.ofNullable(model);
+    }
+
+    private synchronized void put(Key key, Entry entry) {
+        if (entry.retainedBytes > maxRetainedBytes) return;
+
+        Entry replaced = models.put(key, entry);
+        if (replaced != null) retainedBytes -= replaced.retainedBytes;
+        retainedBytes += entry.retainedBytes;
+        for (Iterator<Entry> i = models.values().iterator();
+             (retainedBytes > maxRetainedBytes || models.size() > maxEntries) && i.hasNext(); ) {
+            retainedBytes -= i.next().retainedBytes;
+            i.remove();
+        }
+    }
+
+    private static String importerVersionOf(MlModelImporter importer) {
+        return importer.getClass().getName() + ":" + importer.getClass().getPackage().getImplementationVersion();
+    }
+
+    private static long sizeOf(File path) {
+        if (path.isFile()) return path.length();
+        long size = 0;
+        for (File child : children(path))
+            size += sizeOf(child);
+        return size;
+    }
+
+    private static String contentHashOf(File path) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, path, path);
+            StringBuilder hash = new StringBuilder();
+            for (byte b : digest.digest())
+                hash.append(String.format("%02x", b));
+            return hash.toString();
+        }
+        catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not read model " + path, e);
+        }
+    }
+
+    /** Adds the relative path and content of all files at and below the given path to the given digest */
+    private static void update(MessageDigest digest, File root, File path) throws IOException {
+        digest.update(root.toPath().relativize(path.toPath()).toString().getBytes(StandardCharsets.UTF_8));
+        if (path.isFile()) {
+            byte[] buffer = new byte[65536];
+            try (InputStream in = Files.newInputStream(path.toPath())) {
+                for (int read; (read = in.read(buffer)) > 0; )
+                    digest.update(buffer, 0, read);
+            }
+        }
+        else {
+            for (File child : children(path))
+                update(digest, root, child);
+        }
+    }
+
+    private static List<File> children(File directory) {
+        File[] children = directory.listFiles();
+        if (children == null) return Collections.emptyList();
+        Arrays.sort(children);
+        return Arrays.asList(children);
+    }
+
+    private static class Key {
+
+        private final String name;
+        private final String contentHash;
+        private final String importerVersion;
+
+        Key(String name, String contentHash, String importerVersion) {
+            this.name = name;
+            this.contentHash = contentHash;
+            this.importerVersion = importerVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == this) return true;
+            if ( ! (o instanceof Key)) return false;
+            Key other = (Key) o;
+            return name.equals(other.name) &&
+                   contentHash.equals(other.contentHash) &&
+                   importerVersion.equals(other.importerVersion);
+        }
+
+        @Override
+        public int hashCode() { return Objects.hash(name, contentHash, importerVersion); }
+
+    }
+
+    private static class Entry {
+
+        final SoftReference<CachedModel> model;
+
+        /** The estimated heap size of this model: The size of the source files plus its string forms */
+        final long retainedBytes;
+
+        Entry(CachedModel model, long retainedBytes) {
+            this.model = new SoftReference<>(model);
+            this.retainedBytes = retainedBytes;
+        }
+
+    }
+
+    /** An imported model with precomputed string forms, which may be read from another source location */
+    private static class CachedModel implements ImportedMlModel {
+
+        private final ImportedMlModel model;
+        private final String source;
+        private final Map<String, String> smallConstants;
+        private final Map<String, String> largeConstants;
+        private final Map<String, String> functions;
+        private final List<ImportedMlFunction> outputExpressions;
+
+        CachedModel(ImportedMlModel model) {
+            this.model = model;
+            this.source = model.source();
+            this.smallConstants = Collections.unmodifiableMap(model.smallConstants());
+            this.largeConstants = Collections.unmodifiableMap(model.largeConstants());
+            this.functions = Collections.unmodifiableMap(model.functions());
+            this.outputExpressions = Collections.unmodifiableList(model.outputExpressions());
+        }
+
+        private CachedModel(CachedModel other, String source) {
+            this.model = other.model;
+            this.source = source;
+            this.smallConstants = other.smallConstants;
+            this.largeConstants = other.largeConstants;
+            this.functions = other.functions;
+            this.outputExpressions = other.outputExpressions;
+        }
+
+        /** Returns this model read from the given source location */
+        CachedModel withSource(String source) { return new CachedModel(this, source); }
+
+        /** Returns the approximate number of bytes used by the string forms held by this */
+        long stringBytes() {
+            return 2 * (charsIn(smallConstants) + charsIn(largeConstants) + charsIn(functions));
+        }
+
+        private static long charsIn(Map<String, String> strings) {
+            long chars = 0;
+            for (Map.Entry<String, String> entry : strings.entrySet())
+                chars += entry.getKey().length() + entry.getValue().length();
+            return chars;
+        }
+
+        @Override
+        public String name() { return model.name(); }
+
+        @Override
+        public String source() { return source; }
+
+        @Override
+        public Optional<String> inputTypeSpec(String input) { return model.inputTypeSpec(input); }
+
+        @Override
+        public Map<String, String> smallConstants() { return smallConstants; }
+
+        @Override
+        public Map<String, String> largeConstants() { return largeConstants; }
+
+        @Override
+        public Map<String, String> functions() { return functions; }
+
+        @Override
+        public List<ImportedMlFunction> outputExpressions() { return outputExpressions; }
+
+        @Override
+        public String toString() { return model.toString(); }
+
+    }
+
+}
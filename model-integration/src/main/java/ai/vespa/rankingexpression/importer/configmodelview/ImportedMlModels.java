@@ -15,6 +15,7 @@ import java.util.Optional;
  * All models imported from the models/ directory in the application package.
  * If this is empty it may be due to either not having any models in the application package,
  * or this being created for a ZooKeeper application package, which does not have imported models.
+ * Models with the same content as previously imported models are taken from a cache rather than imported again.
  *
  * @author bratseth
  */
@@ -29,10 +30,14 @@ public class ImportedMlModels {
     }
 
     public ImportedMlModels(File modelsDirectory, Collection<MlModelImporter> importers) {
+        this(modelsDirectory, importers, ImportedMlModelCache.shared);
+    }
+
+    ImportedMlModels(File modelsDirectory, Collection<MlModelImporter> importers, ImportedMlModelCache cache) {
         Map<String, ImportedMlModel> models = new HashMap<>();
 
         // Find all subdirectories recursively which contains a model we can read
-        importRecursively(modelsDirectory, models, importers);
+        importRecursively(modelsDirectory, models, importers, cache);
         importedModels = Collections.unmodifiableMap(models);
     }
 
@@ -55,7 +60,8 @@ public class ImportedMlModels {
 
     private static void importRecursively(File dir,
                                           Map<String, ImportedMlModel> models,
-                                          Collection<MlModelImporter> importers) {
+                                          Collection<MlModelImporter> importers,
+                                          ImportedMlModelCache cache) {
         if ( ! dir.isDirectory()) return;
 
         Arrays.stream(dir.listFiles()).sorted().forEach(child -> {
@@ -66,10 +72,10 @@ public class ImportedMlModels {
                 if (existing != null)
                     throw new IllegalArgumentException("The models in " + child + " and " + existing.source() +
                                                        " both resolve to the model name '" + name + "'");
-                models.put(name, importer.get().importModel(name, child));
+                models.put(name, cache.importModel(name, child, importer.get()));
             }
             else {
-                importRecursively(child, models, importers);
+                importRecursively(child, models, importers, cache);
             }
         });
     }
@@ -0,0 +1,114 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package ai.vespa.rankingexpression.importer.configmodelview;
+
+import ai.vespa.rankingexpression.importer.ImportedModel;
+import com.yahoo.tensor.Tensor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author agent
+ */
+public class ImportedMlModelCacheTestCase {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    @Test
+    public void testCaching() throws IOException {
+        ImportedMlModelCache cache = new ImportedMlModelCache(10, 10);
+        CountingImporter importer = new CountingImporter();
+        File model1 = write("model1.test", "12345");
+        File model2 = write("model2.test", "123456");
+
+        ImportedMlModel imported = cache.importModel("model1", model1, importer);
+        assertEquals(1, importer.count);
+        assertEquals(model1.toString(), imported.source());
+
+        File model1Copy = tmp.newFolder("copy");
+        model1Copy = Files.copy(model1.toPath(), model1Copy.toPath().resolve("model1.test")).toFile();
+        imported = cache.importModel("model1", model1Copy, importer);
+        assertEquals("Unchanged content is not imported again", 1, importer.count);
+        assertEquals(model1Copy.toString(), imported.source());
+
+        write("model1.test", "54321");
+        cache.importModel("model1", model1, importer);
+        assertEquals("Changed content is imported", 2, importer.count);
+        assertEquals(1, cache.size());
+
+        cache.importModel("model2", model2, importer);
+        assertEquals(3, importer.count);
+        assertEquals("Least recently used model is evicted", 1, cache.size());
+        cache.importModel("model1", model1, importer);
+        assertEquals(4, importer.count);
+    }
+
+    @Test
+    public void testCacheIsBoundedByEntries() throws IOException {
+        ImportedMlModelCache cache = new ImportedMlModelCache(2, 1000);
+        CountingImporter importer = new CountingImporter();
+        File model1 = write("model1.test", "1");
+        File model2 = write("model2.test", "2");
+        File model3 = write("model3.test", "3");
+
+        cache.importModel("model1", model1, importer);
+        cache.importModel("model2", model2, importer);
+        cache.importModel("model3", model3, importer);
+        assertEquals(3, importer.count);
+        assertEquals(2, cache.size());
+        cache.importModel("model3", model3, importer);
+        assertEquals(3, importer.count);
+        cache.importModel("model1", model1, importer);
+        assertEquals("Least recently used model is evicted", 4, importer.count);
+    }
+
+    @Test
+    public void testStringFormsAreComputedOnce() throws IOException {
+        ImportedMlModelCache cache = new ImportedMlModelCache(10, 1000);
+        CountingImporter importer = new CountingImporter();
+        importer.constant = Tensor.from("tensor(x[1]):[-1.5]");
+        File model = write("model.test", "1");
+
+        ImportedMlModel imported = cache.importModel("model", model, importer);
+        assertEquals(importer.constant.toString(), imported.largeConstants().get("c"));
+        assertSame(imported.largeConstants(), imported.largeConstants());
+        assertSame(imported.largeConstants(), cache.importModel("model", model, importer).largeConstants());
+    }
+
+    private File write(String name, String content) throws IOException {
+        File file = new File(tmp.getRoot(), name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static class CountingImporter implements MlModelImporter {
+
+        int count = 0;
+
+        /** A large constant to add to imported models, or null to add none */
+        Tensor constant = null;
+
+        @Override
+        public boolean canImport(String modelPath) { return modelPath.endsWith(".test"); }
+
+        @Override
+        public ImportedMlModel importModel(String modelName, File modelPath) {
+            count++;
+            ImportedModel model = new ImportedModel(modelName, modelPath.toString());
+            if (constant != null)
+                model.largeConstant("c", constant);
+            return model;
+        }
+
+    }
+
+}
@@ -6,13 +6,12 @@ import com.google.common.cache.CacheBuilder;
 import com.yahoo.config.provision.NodeType;
 import com.yahoo.log.LogLevel;
 import com.yahoo.vespa.hosted.dockerapi.Container;
-import com.yahoo.vespa.hosted.node.admin.component.TaskContext;
 import com.yahoo.vespa.hosted.node.admin.docker.DockerOperations;
 import com.yahoo.vespa.hosted.node.admin.maintenance.coredump.CoredumpHandler;
 import com.yahoo.vespa.hosted.node.admin.nodeagent.NodeAgentContext;
+import com.yahoo.vespa.hosted.node.admin.task.util.file.DiskUsage;
 import com.yahoo.vespa.hosted.node.admin.task.util.file.FileFinder;
 import com.yahoo.vespa.hosted.node.admin.task.util.file.UnixPath;
-import com.yahoo.vespa.hosted.node.admin.task.util.process.Terminal;
 import com.yahoo.vespa.hosted.node.admin.util.SecretAgentCheckConfig;
 
 import java.nio.file.Files;
@@ -46,10 +45,10 @@ public class StorageMaintainer {
     private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter
             .ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC);
 
-    private final Terminal terminal;
     private final DockerOperations dockerOperations;
     private final CoredumpHandler coredumpHandler;
     private final Path archiveContainerStoragePath;
+    private final DiskUsage diskUsageCalculator = new DiskUsage();
 
     // We cache disk usage to avoid doing expensive disk operations so often
     private final Cache<Path, Long> diskUsage = CacheBuilder.newBuilder()
@@ -57,8 +56,7 @@ public class StorageMaintainer {
             .expireAfterWrite(5, TimeUnit.MINUTES)
             .build();
 
-    public StorageMaintainer(Terminal terminal, DockerOperations dockerOperations, CoredumpHandler coredumpHandler, Path archiveContainerStoragePath) {
-        this.terminal = terminal;
+    public StorageMaintainer(DockerOperations dockerOperations, CoredumpHandler coredumpHandler, Path archiveContainerStoragePath) {
         this.dockerOperations = dockerOperations;
         this.coredumpHandler = coredumpHandler;
         this.archiveContainerStoragePath = archiveContainerStoragePath;
@@ -188,7 +186,7 @@ public class StorageMaintainer {
             Long cachedDiskUsage = diskUsage.getIfPresent(path);
             if (cachedDiskUsage != null) return Optional.of(cachedDiskUsage);
 
-            long diskUsageBytes = getDiskUsedInBytes(context, path);
+            long diskUsageBytes = getDiskUsedInBytes(path);
             diskUsage.put(path, diskUsageBytes);
             return Optional.of(diskUsageBytes);
         } catch (Exception e) {
@@ -198,21 +196,8 @@ public class StorageMaintainer {
     }
 
     // Public for testing
-    long getDiskUsedInBytes(TaskContext context, Path path) {
-        if (!Files.exists(path)) return 0;
-
-        String output = terminal.newCommandLine(context)
-                .add("du", "-xsk", path.toString())
-                .setTimeout(Duration.ofSeconds(60))
-                .executeSilently()
-                .getOutput();
-
-        String[] results = output.split("\t");
-        if (results.length != 2) {
-            throw new RuntimeException("Result from disk usage command not as expected: " + output);
-        }
-
-        return 1024 * Long.valueOf(results[0]);
+    long getDiskUsedInBytes(Path path) {
+        return diskUsageCalculator.bytesUsed(path);
     }
 
 
@@ -0,0 +1,214 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.node.admin.task.util.file;
+
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Computes the disk usage of file trees, like `du -xsk`, without forking a process. Subdirectories are
+ * scanned in parallel.
+ *
+ * The usage of a regular file or directory is its size rounded up to whole blocks of the file store, as
+ * the number of allocated blocks (st_blocks) is not available in Java. Other files, like symbolic links,
+ * use no blocks. Files with several hard links are counted once, directories on other file stores than the
+ * scanned path are skipped, symbolic links are not followed, and the contents of directories which cannot
+ * be read are not counted.
+ *
+ * Each computation walks the whole tree. Reusing the sums of directories whose mtime is unchanged would not be
+ * correct, as the mtime of a directory changes when entries are added, removed or renamed, but not when
+ * files in it grow, which is how logs, the bulk of the data, are written.
+ *
+ * All instances share one pool of daemon threads, so instances need not be closed. This is thread safe.
+ *
+ * @author agent
+ */
+public class DiskUsage {
+
+    private static final long defaultBlockSize = 4096;
+
+    /** The threads scanning directories, which are daemon threads, and are stopped when idle */
+    private static final ForkJoinPool pool = new ForkJoinPool(Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final Duration timeout;
+
+    public DiskUsage() {
+        this(Duration.ofSeconds(60));
+    }
+
+    /** Creates a disk usage calculator which gives up computations which take longer than the given timeout */
+    public DiskUsage(Duration timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Returns the number of bytes used by the file or file tree at the given path, or 0 if it does not exist
+     *
+     * @throws UncheckedTimeoutException if this takes longer than the timeout of this
+     */
+    public long bytesUsed(Path path) {
+        Attributes attributes = Attributes.of(path);
+        if (attributes == null) return 0;
+
+        Scanner scanner = new Scanner(path, timeout, blockSizeOf(path), attributes.device);
+        if ( ! attributes.isDirectory) return scanner.bytesUsedBy(attributes);
+        return pool.invoke(scanner.new Scan(path, attributes));
+    }
+
+    private static long blockSizeOf(Path path) {
+        try {
+            return Files.getFileStore(path).getBlockSize();
+        } catch (UnsupportedOperationException e) {
+            return defaultBlockSize;
+        } catch (NoSuchFileException e) {
+            return defaultBlockSize;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /** The attributes of a file needed to compute disk usage */
+    private static class Attributes {
+
+        final long size;
+        final boolean isDirectory;
+        final boolean isRegularFile;
+
+        /** The device of the file store of this file, or null if not known */
+        final Object device;
+
+        /** The key identifying this file across hard links, or null if not known */
+        final Object fileKey;
+
+        /** The number of hard links to this file */
+        final int links;
+
+        private Attributes(long size, boolean isDirectory, boolean isRegularFile, Object device, Object fileKey, int links) {
+            this.size = size;
+            this.isDirectory = isDirectory;
+            this.isRegularFile = isRegularFile;
+            this.device = device;
+            this.fileKey = fileKey;
+            this.links = links;
+        }
+
+        /** Returns the attributes of the given path, or null if it does not exist */
+        static Attributes of(Path path) {
+            try {
+                if (path.getFileSystem().supportedFileAttributeViews().contains("unix")) {
+                    Map<String, Object> attributes =
+                            Files.readAttributes(path, "unix:size,isDirectory,isRegularFile,dev,fileKey,nlink",
+                                                 LinkOption.NOFOLLOW_LINKS);
+                    return new Attributes((Long) attributes.get("size"),
+                                          (Boolean) attributes.get("isDirectory"),
+                                          (Boolean) attributes.get("isRegularFile"),
+                                          attributes.get("dev"),
+                                          attributes.get("fileKey"),
+                                          (Integer) attributes.get("nlink"));
+                }
+                BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class,
+                                                                      LinkOption.NOFOLLOW_LINKS);
+                return new Attributes(attributes.size(), attributes.isDirectory(), attributes.isRegularFile(),
+                                      null, attributes.fileKey(), 1);
+            } catch (NoSuchFileException e) {
+                return null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+    /** The state of a single computation of disk usage */
+    private static class Scanner {
+
+        private final Path root;
+        private final Duration timeout;
+        private final long blockSize;
+        private final Object device;
+
+        /** The System.nanoTime() at which this scan is given up */
+        private final long deadline;
+
+        /** The keys of the files with multiple hard links which are counted already */
+        private final Set<Object> linkedFiles = ConcurrentHashMap.newKeySet();
+
+        Scanner(Path root, Duration timeout, long blockSize, Object device) {
+            this.root = root;
+            this.timeout = timeout;
+            this.blockSize = blockSize;
+            this.device = device;
+            this.deadline = System.nanoTime() + timeout.toNanos();
+        }
+
+        long bytesUsedBy(Attributes attributes) {
+            if ( ! attributes.isRegularFile && ! attributes.isDirectory) return 0;
+            if (attributes.links > 1 && attributes.fileKey != null && ! linkedFiles.add(attributes.fileKey)) return 0;
+            return (attributes.size + blockSize - 1) / blockSize * blockSize;
+        }
+
+        private class Scan extends RecursiveTask<Long> {
+
+            private final Path path;
+            private final Attributes attributes;
+
+            Scan(Path path, Attributes attributes) {
+                this.path = path;
+                this.attributes = attributes;
+            }
+
+            @Override
+            protected Long compute() {
+                if (System.nanoTime() - deadline >= 0)
+                    throw new UncheckedTimeoutException("Timed out after " + timeout + " computing the disk usage of " + root);
+
+                long bytes = bytesUsedBy(attributes);
+                List<Scan> scans = new ArrayList<>();
+                for (Path child : children(path)) {
+                    Attributes childAttributes = Attributes.of(child);
+                    if (childAttributes == null) continue; // Deleted while scanning
+                    if ( ! childAttributes.isDirectory)
+                        bytes += bytesUsedBy(childAttributes);
+                    else if (Objects.equals(device, childAttributes.device))
+                        scans.add(new Scan(child, childAttributes));
+                }
+                for (Scan scan : invokeAll(scans))
+                    bytes += scan.join();
+                return bytes;
+            }
+
+        }
+
+        private static List<Path> children(Path directory) {
+            List<Path> children = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+                stream.forEach(children::add);
+                return children;
+            } catch (NoSuchFileException | AccessDeniedException e) {
+                return Collections.emptyList();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+    }
+
+}
@@ -13,10 +13,8 @@ import com.yahoo.vespa.hosted.node.admin.nodeagent.NodeAgentContext;
 import com.yahoo.vespa.hosted.node.admin.nodeagent.NodeAgentContextImpl;
 import com.yahoo.vespa.hosted.node.admin.task.util.file.FileFinder;
 import com.yahoo.vespa.hosted.node.admin.task.util.file.UnixPath;
-import com.yahoo.vespa.hosted.node.admin.task.util.process.TestTerminal;
 import com.yahoo.vespa.hosted.provision.Node;
 import com.yahoo.vespa.test.file.TestFileSystem;
-import org.junit.After;
 import org.junit.Test;
 import org.junit.experimental.runners.Enclosed;
 import org.junit.runner.RunWith;
@@ -47,7 +45,7 @@ public class StorageMaintainerTest {
     private static final DockerOperations docker = mock(DockerOperations.class);
 
     public static class SecretAgentCheckTests {
-        private final StorageMaintainer storageMaintainer = new StorageMaintainer(null, docker, null, null);
+        private final StorageMaintainer storageMaintainer = new StorageMaintainer(docker, null, null);
 
         @Test
         public void tenant() {
@@ -190,32 +188,34 @@ public class StorageMaintainerTest {
 
     public static class DiskUsageTests {
 
-        private final TestTerminal terminal = new TestTerminal();
-
         @Test
         public void testDiskUsed() throws IOException {
-            StorageMaintainer storageMaintainer = new StorageMaintainer(terminal, docker, null, null);
+            StorageMaintainer storageMaintainer = new StorageMaintainer(docker, null, null);
             FileSystem fileSystem = TestFileSystem.create();
             NodeAgentContext context = new NodeAgentContextImpl.Builder("host-1.domain.tld").fileSystem(fileSystem).build();
-            Files.createDirectories(context.pathOnHostFromPathInNode("/"));
+            Path root = context.pathOnHostFromPathInNode("/");
+            Files.createDirectories(root.resolve("opt/vespa/var"));
+            Files.write(root.resolve("opt/vespa/var/file"), new byte[1000]);
+            long expectedBytes = bytesIn(root);
 
-            terminal.expectCommand("du -xsk /home/docker/host-1 2>&1", 0, "321\t/home/docker/host-1/");
-            assertEquals(Optional.of(328_704L), storageMaintainer.getDiskUsageFor(context));
+            assertEquals(Optional.of(expectedBytes), storageMaintainer.getDiskUsageFor(context));
 
-            // Value should still be cached, no new execution against the terminal
-            assertEquals(Optional.of(328_704L), storageMaintainer.getDiskUsageFor(context));
+            // Value should still be cached, and not reflect new files
+            Files.write(root.resolve("opt/vespa/var/file2"), new byte[1000]);
+            assertEquals(Optional.of(expectedBytes), storageMaintainer.getDiskUsageFor(context));
         }
 
         @Test
         public void testNonExistingDiskUsed() {
-            StorageMaintainer storageMaintainer = new StorageMaintainer(terminal, docker, null, null);
-            long usedBytes = storageMaintainer.getDiskUsedInBytes(null, Paths.get("/fake/path"));
+            StorageMaintainer storageMaintainer = new StorageMaintainer(docker, null, null);
+            long usedBytes = storageMaintainer.getDiskUsedInBytes(Paths.get("/fake/path"));
             assertEquals(0L, usedBytes);
         }
 
-        @After
-        public void after() {
-            terminal.verifyAllCommandsExecuted();
+        private static long bytesIn(Path root) throws IOException {
+            try (Stream<Path> paths = Files.walk(root)) {
+                return paths.mapToLong(path -> uncheck(() -> Files.size(path))).sum();
+            }
         }
     }
 
@@ -240,7 +240,7 @@ public class StorageMaintainerTest {
 
 
             // Archive container-1
-            StorageMaintainer storageMaintainer = new StorageMaintainer(null, docker, null, pathToArchiveDir);
+            StorageMaintainer storageMaintainer = new StorageMaintainer(docker, null, pathToArchiveDir);
             storageMaintainer.archiveNodeStorage(context1);
 
             // container-1 should be gone from container-storage
@@ -0,0 +1,117 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.node.admin.task.util.file;
+
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.stream.Stream;
+
+import static com.yahoo.yolean.Exceptions.uncheck;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class DiskUsageTest {
+
+    @Rule
+    public TemporaryFolder tmp = new TemporaryFolder();
+
+    private final DiskUsage diskUsage = new DiskUsage();
+    private Path root;
+    private long blockSize;
+
+    @Before
+    public void setup() throws IOException {
+        root = tmp.getRoot().toPath();
+        blockSize = Files.getFileStore(root).getBlockSize();
+    }
+
+    @Test
+    public void disk_usage_is_the_allocated_size_of_all_files_and_directories() throws IOException {
+        Files.createDirectories(root.resolve("a/b/c"));
+        Files.createDirectories(root.resolve("d"));
+        Files.write(root.resolve("file"), new byte[10]);
+        Files.write(root.resolve("a/b/file"), new byte[100]);
+        Files.write(root.resolve("a/b/c/file"), new byte[1000]);
+        Files.write(root.resolve("d/file"), new byte[10000]);
+        Files.write(root.resolve("d/empty"), new byte[0]);
+        assertEquals(blocksIn(root), diskUsage.bytesUsed(root));
+        assertEquals("A small file uses a block", blockSize, diskUsage.bytesUsed(root.resolve("a/b/file")));
+        assertEquals("An empty file uses nothing", 0, diskUsage.bytesUsed(root.resolve("d/empty")));
+    }
+
+    @Test
+    public void rescans_reflect_changes_to_files_and_directories() throws IOException {
+        Files.createDirectories(root.resolve("a/b"));
+        Files.createDirectories(root.resolve("c"));
+        Files.write(root.resolve("a/b/file"), new byte[100]);
+        Files.write(root.resolve("c/file"), new byte[1000]);
+        assertEquals(blocksIn(root), diskUsage.bytesUsed(root));
+
+        Files.write(root.resolve("a/b/file"), new byte[(int) blockSize * 3]);
+        assertEquals(blocksIn(root), diskUsage.bytesUsed(root));
+
+        Files.write(root.resolve("a/b/file2"), new byte[300]);
+        assertEquals(blocksIn(root), diskUsage.bytesUsed(root));
+
+        new UnixPath(root.resolve("c")).deleteRecursively();
+        assertEquals(blocksIn(root), diskUsage.bytesUsed(root));
+    }
+
+    @Test
+    public void hard_linked_files_are_counted_once() throws IOException {
+        Files.createDirectories(root.resolve("a"));
+        Files.write(root.resolve("file"), new byte[(int) blockSize * 2]);
+        long usedByOneLink = diskUsage.bytesUsed(root);
+
+        Files.createLink(root.resolve("a/link"), root.resolve("file"));
+        assertEquals(usedByOneLink, diskUsage.bytesUsed(root));
+    }
+
+    @Test
+    public void symbolic_links_are_not_followed() throws IOException {
+        Files.createDirectories(root.resolve("a"));
+        Files.write(root.resolve("a/file"), new byte[(int) blockSize * 2]);
+        Files.createDirectories(root.resolve("b"));
+        long used = diskUsage.bytesUsed(root);
+
+        Files.createSymbolicLink(root.resolve("b/link"), root.resolve("a"));
+        assertEquals(used, diskUsage.bytesUsed(root));
+    }
+
+    @Test
+    public void non_existing_path_uses_nothing() {
+        assertEquals(0, diskUsage.bytesUsed(root.resolve("non-existing")));
+    }
+
+    @Test
+    public void scans_time_out() throws IOException {
+        Files.createDirectories(root.resolve("a"));
+        try {
+            new DiskUsage(Duration.ZERO).bytesUsed(root);
+            fail("Expected timeout");
+        } catch (UncheckedTimeoutException e) {
+            assertTrue(e.getMessage().contains("Timed out after PT0S computing the disk usage of "));
+        }
+    }
+
+    /** Returns the size of all files and directories below the given root, each rounded up to whole blocks */
+    private long blocksIn(Path root) throws IOException {
+        try (Stream<Path> paths = Files.walk(root)) {
+            return paths.mapToLong(path -> uncheck(() -> Files.size(path)))
+                        .map(size -> (size + blockSize - 1) / blockSize * blockSize)
+                        .sum();
+        }
+    }
+
+}
@@ -167,7 +167,17 @@ public class NodeRepository extends AbstractComponent {
      * @return the node, or empty if it was not found in any of the given states
      */
     public List<Node> getNodes(NodeType type, Node.State ... inState) {
-        return db.getNodes(inState).stream().filter(node -> node.type().equals(type)).collect(Collectors.toList());
+        return db.getNodes(type, inState);
+    }
+
+    /**
+     * Finds and returns the child nodes of the given parent host in any of the given states.
+     *
+     * @param parentHostname the hostname of the parent host
+     * @param inState the states to return nodes from. If no states are given, all children of the host are returned
+     */
+    public List<Node> getChildNodes(String parentHostname, Node.State ... inState) {
+        return db.getChildNodes(parentHostname, inState);
     }
 
     /** Returns a filterable list of all nodes in this repository */
@@ -424,7 +434,7 @@ public class NodeRepository extends AbstractComponent {
 
         List<Node> nodesToDirty =
                 (nodeToDirty.type().isDockerHost() ?
-                        Stream.concat(list().childrenOf(hostname).asList().stream(), Stream.of(nodeToDirty)) :
+                        Stream.concat(getChildNodes(hostname).stream(), Stream.of(nodeToDirty)) :
                         Stream.of(nodeToDirty))
                 .filter(node -> node.state() != Node.State.dirty)
                 .collect(Collectors.toList());
@@ -494,7 +504,7 @@ public class NodeRepository extends AbstractComponent {
     }
 
     private List<Node> moveRecursively(String hostname, Node.State toState, Agent agent, Optional<String> reason) {
-        List<Node> moved = list().childrenOf(hostname).asList().stream()
+        List<Node> moved = getChildNodes(hostname).stream()
                                          .map(child -> move(child, toState, agent, reason))
                                          .collect(Collectors.toList());
 
@@ -563,7 +573,7 @@ public class NodeRepository extends AbstractComponent {
             List<Node> removed = new ArrayList<>();
 
              if (node.type().isDockerHost()) {
-                 list().childrenOf(node).asList().stream()
+                 getChildNodes(node.hostname()).stream()
                        .filter(child -> force || canRemove(child, true))
                        .forEach(removed::add);
              }
@@ -154,6 +154,9 @@ public class CuratorDatabase {
             this.curator = curator;
         }
 
+        @Override
+        public long generation() { return generation; }
+
         @Override
         public List<String> getChildren(Path path) { 
             return children.computeIfAbsent(path, key -> ImmutableList.copyOf(curator.getChildren(path)));
@@ -181,6 +184,9 @@ public class CuratorDatabase {
 
     interface Session {
 
+        /** Returns the change generation of the database content read by this session */
+        long generation();
+
         /**
          * Returns the children of this path, which may be empty.
          */
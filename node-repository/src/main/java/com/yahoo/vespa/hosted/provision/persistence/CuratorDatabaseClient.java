@@ -38,7 +38,9 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
@@ -72,6 +74,10 @@ public class CuratorDatabaseClient {
     private final Clock clock;
     private final Zone zone;
     private final CuratorCounter provisionIndexCounter;
+    private final boolean useCache;
+
+    /** The last snapshot of all nodes, which is current as long as the change generation does not change. Only used with the cache enabled */
+    private final AtomicReference<NodeSnapshot> snapshot = new AtomicReference<>(NodeSnapshot.empty());
 
     public CuratorDatabaseClient(NodeFlavors flavors, Curator curator, Clock clock, Zone zone, boolean useCache) {
         this.nodeSerializer = new NodeSerializer(flavors);
@@ -79,6 +85,7 @@ public class CuratorDatabaseClient {
         this.curatorDatabase = new CuratorDatabase(curator, root, useCache);
         this.clock = clock;
         this.provisionIndexCounter = new CuratorCounter(curator, root.append("provisionIndexCounter").getAbsolute());
+        this.useCache = useCache;
         initZK();
     }
 
@@ -255,6 +262,54 @@ public class CuratorDatabaseClient {
      * If no states are given this returns all nodes.
      */
     public List<Node> getNodes(Node.State ... states) {
+        if ( ! useCache) return readNodes(node -> true, states);
+        return snapshot().nodes(states);
+    }
+
+    /** 
+     * Returns all nodes allocated to the given application which are in one of the given states 
+     * If no states are given this returns all nodes.
+     */
+    public List<Node> getNodes(ApplicationId applicationId, Node.State ... states) {
+        if ( ! useCache)
+            return readNodes(node -> node.allocation().isPresent() && node.allocation().get().owner().equals(applicationId),
+                             states);
+        return snapshot().nodes(applicationId, states);
+    }
+
+    /**
+     * Returns all nodes of the given type which are in one of the given states.
+     * If no states are given this returns all nodes of the given type.
+     */
+    public List<Node> getNodes(NodeType type, Node.State ... states) {
+        if ( ! useCache) return readNodes(node -> node.type() == type, states);
+        return snapshot().nodes(type, states);
+    }
+
+    /**
+     * Returns all nodes having the given parent host which are in one of the given states.
+     * If no states are given this returns all children of the given host.
+     */
+    public List<Node> getChildNodes(String parentHostname, Node.State ... states) {
+        if ( ! useCache) return readNodes(node -> node.parentHostname().equals(Optional.of(parentHostname)), states);
+        return snapshot().childrenOf(parentHostname, states);
+    }
+
+    /**
+     * Returns all nodes of the flavor with the given name which are in one of the given states.
+     * If no states are given this returns all nodes of the given flavor.
+     */
+    public List<Node> getNodesWithFlavor(String flavorName, Node.State ... states) {
+        if ( ! useCache) return readNodes(node -> node.flavor().name().equals(flavorName), states);
+        return snapshot().withFlavor(flavorName, states);
+    }
+
+    /**
+     * Reads and returns the nodes in the given states (or all states if none are given) which match the given filter.
+     * This is used instead of snapshots when the curator cache is disabled, as each snapshot would then
+     * only be used once.
+     */
+    private List<Node> readNodes(Predicate<Node> filter, Node.State ... states) {
         List<Node> nodes = new ArrayList<>();
         if (states.length == 0)
             states = Node.State.values();
@@ -262,20 +317,32 @@ public class CuratorDatabaseClient {
         for (Node.State state : states) {
             for (String hostname : session.getChildren(toPath(state))) {
                 Optional<Node> node = getNode(session, hostname, state);
-                node.ifPresent(nodes::add); // node might disappear between getChildren and getNode
+                node.filter(filter).ifPresent(nodes::add); // node might disappear between getChildren and getNode
             }
         }
         return nodes;
     }
 
-    /** 
-     * Returns all nodes allocated to the given application which are in one of the given states 
-     * If no states are given this returns all nodes.
+    /**
+     * Returns the snapshot of all nodes at the current change generation. If the generation has changed since
+     * the last snapshot, a new one is created which only deserializes the nodes which have changed.
      */
-    public List<Node> getNodes(ApplicationId applicationId, Node.State ... states) {
-        List<Node> nodes = getNodes(states);
-        nodes.removeIf(node -> ! node.allocation().isPresent() || ! node.allocation().get().owner().equals(applicationId));
-        return nodes;
+    private NodeSnapshot snapshot() {
+        CuratorDatabase.Session session = curatorDatabase.getSession();
+        NodeSnapshot current = snapshot.get();
+        if (current.generation() == session.generation()) return current;
+
+        NodeSnapshot.Builder builder = new NodeSnapshot.Builder(current, session.generation());
+        for (Node.State state : Node.State.values()) {
+            for (String hostname : session.getChildren(toPath(state))) {
+                Optional<byte[]> nodeData = session.getData(toPath(state, hostname));
+                // node might disappear between getChildren and getData
+                nodeData.ifPresent(data -> builder.add(state, hostname, data, bytes -> nodeSerializer.fromJson(state, bytes)));
+            }
+        }
+        NodeSnapshot created = builder.build();
+        snapshot.accumulateAndGet(created, (old, candidate) -> candidate.generation() > old.generation() ? candidate : old);
+        return created;
     }
 
     /**
@@ -0,0 +1,156 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.hosted.provision.persistence;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.config.provision.NodeType;
+import com.yahoo.vespa.hosted.provision.Node;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+
+/**
+ * An immutable snapshot of all the nodes in the curator database at a given change generation,
+ * indexed by state, and within each state by owner application, parent host, flavor and type.
+ * Each index is created when it is first used.
+ *
+ * A snapshot of a later generation is created from the previous snapshot, such that only the nodes whose
+ * data has changed since the previous generation are deserialized again.
+ *
+ * @author agent
+ */
+class NodeSnapshot {
+
+    private final long generation;
+
+    /** The nodes of each state, with the data they were read from, by hostname */
+    private final Map<Node.State, Map<String, Entry>> nodes;
+
+    /** The indexes of the nodes, each created on first use */
+    private final Supplier<Map<Node.State, Map<ApplicationId, List<Node>>>> byOwner;
+    private final Supplier<Map<Node.State, Map<String, List<Node>>>> byParentHostname;
+    private final Supplier<Map<Node.State, Map<String, List<Node>>>> byFlavor;
+    private final Supplier<Map<Node.State, Map<NodeType, List<Node>>>> byType;
+
+    private NodeSnapshot(long generation, Map<Node.State, Map<String, Entry>> nodes) {
+        this.generation = generation;
+        this.nodes = nodes;
+        this.byOwner = Suppliers.memoize(() -> index(node -> node.allocation().map(allocation -> allocation.owner())));
+        this.byParentHostname = Suppliers.memoize(() -> index(Node::parentHostname));
+        this.byFlavor = Suppliers.memoize(() -> index(node -> Optional.of(node.flavor().name())));
+        this.byType = Suppliers.memoize(() -> index(node -> Optional.of(node.type())));
+    }
+
+    /** Returns the change generation of the database content in this */
+    long generation() { return generation; }
+
+    /** Returns the nodes in any of the given states, or all nodes if no states are given */
+    List<Node> nodes(Node.State ... states) {
+        List<Node> result = new ArrayList<>();
+        for (Node.State state : statesOrAll(states))
+            nodes.get(state).values().forEach(entry -> result.add(entry.node));
+        return result;
+    }
+
+    /** Returns the nodes allocated to the given application in any of the given states */
+    List<Node> nodes(ApplicationId owner, Node.State ... states) {
+        return lookup(byOwner, owner, states);
+    }
+
+    /** Returns the nodes of the given type in any of the given states */
+    List<Node> nodes(NodeType type, Node.State ... states) {
+        return lookup(byType, type, states);
+    }
+
+    /** Returns the nodes having the given parent host in any of the given states */
+    List<Node> childrenOf(String parentHostname, Node.State ... states) {
+        return lookup(byParentHostname, parentHostname, states);
+    }
+
+    /** Returns the nodes of the flavor with the given name in any of the given states */
+    List<Node> withFlavor(String flavorName, Node.State ... states) {
+        return lookup(byFlavor, flavorName, states);
+    }
+
+    private <KEY> List<Node> lookup(Supplier<Map<Node.State, Map<KEY, List<Node>>>> index, KEY key, Node.State ... states) {
+        List<Node> result = new ArrayList<>();
+        for (Node.State state : statesOrAll(states))
+            result.addAll(index.get().get(state).getOrDefault(key, Collections.emptyList()));
+        return result;
+    }
+
+    private <KEY> Map<Node.State, Map<KEY, List<Node>>> index(Function<Node, Optional<KEY>> keyFunction) {
+        Map<Node.State, Map<KEY, List<Node>>> index = new EnumMap<>(Node.State.class);
+        for (Map.Entry<Node.State, Map<String, Entry>> stateNodes : nodes.entrySet()) {
+            Map<KEY, List<Node>> stateIndex = new HashMap<>();
+            for (Entry entry : stateNodes.getValue().values())
+                keyFunction.apply(entry.node).ifPresent(key -> stateIndex.computeIfAbsent(key, __ -> new ArrayList<>())
+                                                                         .add(entry.node));
+            index.put(stateNodes.getKey(), stateIndex);
+        }
+        return index;
+    }
+
+    private static Node.State[] statesOrAll(Node.State[] states) {
+        return states.length == 0 ? Node.State.values() : states;
+    }
+
+    /** Returns an empty snapshot, which may be used as the previous snapshot of the first one created */
+    static NodeSnapshot empty() {
+        Map<Node.State, Map<String, Entry>> nodes = new EnumMap<>(Node.State.class);
+        for (Node.State state : Node.State.values())
+            nodes.put(state, Collections.emptyMap());
+        return new NodeSnapshot(-1, nodes);
+    }
+
+    /** Builder of the snapshot following a previous one, reusing the nodes of that which are unchanged */
+    static class Builder {
+
+        private final NodeSnapshot previous;
+        private final long generation;
+        private final Map<Node.State, Map<String, Entry>> nodes = new EnumMap<>(Node.State.class);
+
+        Builder(NodeSnapshot previous, long generation) {
+            this.previous = previous;
+            this.generation = generation;
+            for (Node.State state : Node.State.values())
+                nodes.put(state, new LinkedHashMap<>());
+        }
+
+        /** Adds the node in the given state which is serialized as the given data */
+        Builder add(Node.State state, String hostname, byte[] data, Function<byte[], Node> deserializer) {
+            Entry previousEntry = previous.nodes.get(state).get(hostname);
+            Node node = previousEntry != null && Arrays.equals(previousEntry.data, data) ? previousEntry.node
+                                                                                          : deserializer.apply(data);
+            nodes.get(state).put(hostname, new Entry(data, node));
+            return this;
+        }
+
+        NodeSnapshot build() {
+            return new NodeSnapshot(generation, nodes);
+        }
+
+    }
+
+    private static class Entry {
+
+        final byte[] data;
+        final Node node;
+
+        Entry(byte[] data, Node node) {
+            this.data = data;
+            this.node = node;
+        }
+
+    }
+
+}
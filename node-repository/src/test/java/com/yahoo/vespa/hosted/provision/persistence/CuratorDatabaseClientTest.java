@@ -2,8 +2,11 @@
 package com.yahoo.vespa.hosted.provision.persistence;
 
 import com.yahoo.config.provision.ApplicationId;
+import com.yahoo.component.Version;
 import com.yahoo.config.provision.ApplicationName;
+import com.yahoo.config.provision.ClusterMembership;
 import com.yahoo.config.provision.InstanceName;
+import com.yahoo.config.provision.NodeFlavors;
 import com.yahoo.config.provision.NodeType;
 import com.yahoo.config.provision.TenantName;
 import com.yahoo.config.provision.Zone;
@@ -11,13 +14,20 @@ import com.yahoo.vespa.curator.Curator;
 import com.yahoo.vespa.curator.Lock;
 import com.yahoo.vespa.curator.mock.MockCurator;
 import com.yahoo.vespa.hosted.provision.Node;
+import com.yahoo.vespa.hosted.provision.node.Agent;
 import com.yahoo.vespa.hosted.provision.provisioning.FlavorConfigBuilder;
 import org.junit.Test;
 
 import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author mpolden
@@ -25,8 +35,9 @@ import static org.junit.Assert.assertEquals;
 public class CuratorDatabaseClientTest {
 
     private final Curator curator = new MockCurator();
+    private final NodeFlavors flavors = FlavorConfigBuilder.createDummies("default", "large");
     private final CuratorDatabaseClient zkClient = new CuratorDatabaseClient(
-            FlavorConfigBuilder.createDummies("default"), curator, Clock.systemUTC(), Zone.defaultZone(), true);
+            flavors, curator, Clock.systemUTC(), Zone.defaultZone(), true);
 
     @Test
     public void can_read_stored_host_information() throws Exception {
@@ -38,6 +49,58 @@ public class CuratorDatabaseClientTest {
         assertEquals(NodeType.host, allocatedNodes.get(0).type());
     }
 
+    @Test
+    public void nodes_are_indexed_by_state_owner_parent_flavor_and_type() {
+        ApplicationId app = ApplicationId.from(TenantName.from("testTenant"), ApplicationName.from("testApp"), InstanceName.from("testInstance"));
+        zkClient.addNodes(Arrays.asList(
+                createNode("host1", Optional.empty(), "large", NodeType.host),
+                createNode("host2", Optional.empty(), "default", NodeType.host),
+                createNode("node1", Optional.of("host1"), "default", NodeType.tenant)
+                        .allocate(app, ClusterMembership.from("container/id1/0/0", Version.fromString("7.1")), Instant.now()),
+                createNode("node2", Optional.of("host1"), "default", NodeType.tenant)));
+
+        assertEquals(Arrays.asList("host1", "host2", "node1", "node2"), hostnames(zkClient.getNodes()));
+        assertEquals(Arrays.asList("node1"), hostnames(zkClient.getNodes(app)));
+        assertEquals(Arrays.asList("node1"), hostnames(zkClient.getNodes(app, Node.State.provisioned)));
+        assertEquals(Arrays.asList(), hostnames(zkClient.getNodes(app, Node.State.ready)));
+        assertEquals(Arrays.asList("node1", "node2"), hostnames(zkClient.getChildNodes("host1")));
+        assertEquals(Arrays.asList(), hostnames(zkClient.getChildNodes("host2")));
+        assertEquals(Arrays.asList("host1"), hostnames(zkClient.getNodesWithFlavor("large")));
+        assertEquals(Arrays.asList("host1", "host2"), hostnames(zkClient.getNodes(NodeType.host)));
+
+        Node host1 = zkClient.getNodesWithFlavor("large").get(0);
+        assertSame("Nodes are not read again when nothing changed", host1, zkClient.getNodesWithFlavor("large").get(0));
+
+        zkClient.writeTo(Node.State.dirty, zkClient.getNode("node2").get(), Agent.system, Optional.empty());
+        assertEquals(Arrays.asList("node2"), hostnames(zkClient.getChildNodes("host1", Node.State.dirty)));
+        assertEquals(Arrays.asList("node1"), hostnames(zkClient.getChildNodes("host1", Node.State.provisioned)));
+        List<Node> tenantNodes = zkClient.getNodes(NodeType.tenant, Node.State.dirty, Node.State.provisioned);
+        assertEquals("Nodes are returned in the order of the given states", Node.State.dirty, tenantNodes.get(0).state());
+        assertEquals(Node.State.provisioned, tenantNodes.get(1).state());
+        assertSame("Unchanged nodes are not read again after a change", host1, zkClient.getNodesWithFlavor("large").get(0));
+    }
+
+    @Test
+    public void nodes_can_be_looked_up_without_cache() {
+        CuratorDatabaseClient uncachedClient = new CuratorDatabaseClient(flavors, new MockCurator(), Clock.systemUTC(),
+                                                                         Zone.defaultZone(), false);
+        ApplicationId app = ApplicationId.from(TenantName.from("testTenant"), ApplicationName.from("testApp"), InstanceName.from("testInstance"));
+        uncachedClient.addNodes(Arrays.asList(
+                createNode("host1", Optional.empty(), "large", NodeType.host),
+                createNode("node1", Optional.of("host1"), "default", NodeType.tenant)
+                        .allocate(app, ClusterMembership.from("container/id1/0/0", Version.fromString("7.1")), Instant.now()),
+                createNode("node2", Optional.of("host1"), "default", NodeType.tenant)));
+        uncachedClient.writeTo(Node.State.dirty, uncachedClient.getNode("node2").get(), Agent.system, Optional.empty());
+
+        assertEquals(Arrays.asList("host1", "node1", "node2"), hostnames(uncachedClient.getNodes()));
+        assertEquals(Arrays.asList("node1"), hostnames(uncachedClient.getNodes(app)));
+        assertEquals(Arrays.asList(), hostnames(uncachedClient.getNodes(app, Node.State.dirty)));
+        assertEquals(Arrays.asList("node1", "node2"), hostnames(uncachedClient.getChildNodes("host1")));
+        assertEquals(Arrays.asList("node2"), hostnames(uncachedClient.getChildNodes("host1", Node.State.dirty)));
+        assertEquals(Arrays.asList("host1"), hostnames(uncachedClient.getNodesWithFlavor("large")));
+        assertEquals(Arrays.asList("node1", "node2"), hostnames(uncachedClient.getNodes(NodeType.tenant)));
+    }
+
     @Test
     public void locks_can_be_acquired_and_released() {
         ApplicationId app = ApplicationId.from(TenantName.from("testTenant"), ApplicationName.from("testApp"), InstanceName.from("testInstance"));
@@ -59,4 +122,13 @@ public class CuratorDatabaseClientTest {
 
     }
 
+    private Node createNode(String hostname, Optional<String> parentHostname, String flavor, NodeType type) {
+        return Node.create(hostname, Collections.singleton("::1"), Collections.emptySet(), hostname,
+                           parentHostname, flavors.getFlavorOrThrow(flavor), type);
+    }
+
+    private static List<String> hostnames(List<Node> nodes) {
+        return nodes.stream().map(Node::hostname).sorted().collect(Collectors.toList());
+    }
+
  }
@@ -7,11 +7,14 @@ import com.yahoo.searchlib.expression.ResultNode;
 import com.yahoo.vespa.objects.*;
 
 import java.util.*;
+import java.util.stream.IntStream;
 
 public class Group extends Identifiable {
 
     public static final int classId = registerClass(0x4000 + 90, Group.class);
     private static final ObjectPredicate REF_LOCATOR = new RefLocator();
+    // The number of child groups to merge at one level before merging them in parallel.
+    private static final int PARALLEL_MERGE_THRESHOLD = 1000;
     private List<Integer> orderByIdx = new ArrayList<Integer>();
     private List<ExpressionNode> orderByExp = new ArrayList<ExpressionNode>();
     private List<AggregationResult> aggregationResults = new ArrayList<AggregationResult>();
@@ -40,49 +43,90 @@ public class Group extends Identifiable {
      * @param rhs          The group to merge with.
      */
     public void merge(int firstLevel, int currentLevel, Group rhs) {
-        if (rhs.rank > rank) {
-            rank = rhs.rank; // keep highest rank
+        merge(firstLevel, currentLevel, Collections.singletonList(rhs));
+    }
+
+    /**
+     * <p>Merges the content of all the given groups <b>into</b> this, in one pass over the id-sorted children of all
+     * the groups. The result is the same as merging each of the given groups into this in order. Child groups which
+     * need merging are merged in parallel when there are many of them. When this function returns, make sure to call
+     * {@link #postMerge(java.util.List, int, int)}.</p>
+     *
+     * @param firstLevel   The first level to merge.
+     * @param currentLevel The current level.
+     * @param others       The groups to merge with.
+     */
+    public void merge(int firstLevel, int currentLevel, List<Group> others) {
+        for (Group rhs : others) {
+            if (rhs.rank > rank) {
+                rank = rhs.rank; // keep highest rank
+            }
+            if (currentLevel >= firstLevel) {
+                for (int i = 0, len = aggregationResults.size(); i < len; ++i) {
+                    aggregationResults.get(i).merge(rhs.aggregationResults.get(i));
+                }
+            }
         }
-        if (currentLevel >= firstLevel) {
-            for (int i = 0, len = aggregationResults.size(); i < len; ++i) {
-                aggregationResults.get(i).merge(rhs.aggregationResults.get(i));
+
+        List<List<Group>> sources = new ArrayList<>(others.size() + 1);
+        int maxChildren = children.size();
+        sources.add(children);
+        for (Group rhs : others) {
+            sources.add(rhs.children);
+            maxChildren += rhs.children.size();
+        }
+        int[] positions = new int[sources.size()];
+        PriorityQueue<Integer> heads = new PriorityQueue<>(sources.size(), (a, b) -> {
+            int cmp = headOf(sources, positions, a).compareTo(headOf(sources, positions, b));
+            return cmp != 0 ? cmp : Integer.compare(a, b);
+        });
+        for (int i = 0; i < sources.size(); ++i) {
+            if ( ! sources.get(i).isEmpty()) {
+                heads.add(i);
             }
         }
 
-        ArrayList<Group> merged = new ArrayList<Group>();
-        Iterator<Group> lhsChild = children.iterator(), rhsChild = rhs.children.iterator();
-        if (lhsChild.hasNext() && rhsChild.hasNext()) {
-            Group lhsGroup = lhsChild.next();
-            Group rhsGroup = rhsChild.next();
-            for (; (lhsGroup != null) && (rhsGroup != null); ) {
-                int cmp = lhsGroup.getId().compareTo(rhsGroup.getId());
-                if (cmp < 0) {
-                    merged.add(lhsGroup);
-                    lhsGroup = lhsChild.hasNext() ? lhsChild.next() : null;
-                } else if (cmp > 0) {
-                    merged.add(rhsGroup);
-                    rhsGroup = rhsChild.hasNext() ? rhsChild.next() : null;
-                } else {
-                    lhsGroup.merge(firstLevel, currentLevel + 1, rhsGroup);
-                    merged.add(lhsGroup);
-                    lhsGroup = lhsChild.hasNext() ? lhsChild.next() : null;
-                    rhsGroup = rhsChild.hasNext() ? rhsChild.next() : null;
+        int[] advanced = new int[sources.size()];
+        ArrayList<Group> merged = new ArrayList<>(maxChildren);
+        List<Group> mergeTargets = new ArrayList<>();
+        List<List<Group>> mergeSources = new ArrayList<>();
+        while ( ! heads.isEmpty()) {
+            int first = heads.poll();
+            Group target = sources.get(first).get(positions[first]);
+            List<Group> equal = null;
+            int numAdvanced = 0;
+            advanced[numAdvanced++] = first;
+            while ( ! heads.isEmpty() && target.getId().compareTo(headOf(sources, positions, heads.peek())) == 0) {
+                int next = heads.poll();
+                if (equal == null) {
+                    equal = new ArrayList<>();
                 }
+                equal.add(sources.get(next).get(positions[next]));
+                advanced[numAdvanced++] = next;
             }
-            if (lhsGroup != null) {
-                merged.add(lhsGroup);
+            for (int i = 0; i < numAdvanced; ++i) {
+                int source = advanced[i];
+                if (++positions[source] < sources.get(source).size()) {
+                    heads.add(source);
+                }
             }
-            if (rhsGroup != null) {
-                merged.add(rhsGroup);
+            merged.add(target);
+            if (equal != null) {
+                mergeTargets.add(target);
+                mergeSources.add(equal);
             }
         }
-        while (lhsChild.hasNext()) {
-            merged.add(lhsChild.next());
-        }
-        while (rhsChild.hasNext()) {
-            merged.add(rhsChild.next());
-        }
         children = merged;
+
+        IntStream merges = IntStream.range(0, mergeTargets.size());
+        if (mergeTargets.size() >= PARALLEL_MERGE_THRESHOLD) {
+            merges = merges.parallel();
+        }
+        merges.forEach(i -> mergeTargets.get(i).merge(firstLevel, currentLevel + 1, mergeSources.get(i)));
+    }
+
+    private static ResultNode headOf(List<List<Group>> sources, int[] positions, int source) {
+        return sources.get(source).get(positions[source]).getId();
     }
 
     private void executeOrderBy() {
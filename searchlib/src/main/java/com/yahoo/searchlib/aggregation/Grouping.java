@@ -73,6 +73,20 @@ public class Grouping extends Identifiable {
         root.merge(firstLevel, 0, rhs.root);
     }
 
+    /**
+     * <p>Merges the content of all the given groupings <b>into</b> this. This gives the same result as merging each of
+     * them in order, but merges the groups of all of them at once.</p>
+     *
+     * @param others The groupings to merge with.
+     */
+    public void merge(List<Grouping> others) {
+        List<Group> roots = new ArrayList<>(others.size());
+        for (Grouping rhs : others) {
+            roots.add(rhs.root);
+        }
+        root.merge(firstLevel, 0, roots);
+    }
+
     /**
      * <p>This method is invoked after merging is done. It is intended used for resolving any dependencies or derivates
      * that might have changes due to the merge.</p>
@@ -0,0 +1,93 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.searchlib.aggregation;
+
+import com.yahoo.searchlib.expression.AttributeNode;
+import com.yahoo.searchlib.expression.IntegerResultNode;
+import com.yahoo.searchlib.expression.StringResultNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks merging of multi-level grouping results from many content nodes, one at a time
+ * versus all at once.
+ *
+ * @author agent
+ */
+public class GroupingMergeBenchmark {
+
+    private static final int NODES = 100;
+    private static final int[] GROUPS_PER_LEVEL = { 200, 20, 10 };
+    private static final double GROUP_PRESENCE = 0.7;
+    private static final int ITERATIONS = 20;
+
+    public static void main(String[] args) {
+        Random random = new Random(424242);
+        List<Grouping> partials = new ArrayList<>();
+        for (int node = 0; node < NODES; ++node) {
+            partials.add(new Grouping().setFirstLevel(0)
+                                       .setLastLevel(GROUPS_PER_LEVEL.length)
+                                       .setRoot(createGroup(random, new Group(), 0)));
+        }
+
+        for (int warmup = 0; warmup < 2; ++warmup) {
+            mergeOneAtATime(partials);
+            mergeAllAtOnce(partials);
+        }
+        System.out.printf("One at a time: %.1f ms per merge\n", mergeOneAtATime(partials));
+        System.out.printf("All at once:   %.1f ms per merge\n", mergeAllAtOnce(partials));
+    }
+
+    private static double mergeOneAtATime(List<Grouping> partials) {
+        long elapsed = 0;
+        for (int i = 0; i < ITERATIONS; ++i) {
+            List<Grouping> copies = copy(partials);
+            long start = System.nanoTime();
+            Grouping merged = copies.get(0);
+            for (Grouping partial : copies.subList(1, copies.size())) {
+                merged.merge(partial);
+            }
+            merged.postMerge();
+            elapsed += System.nanoTime() - start;
+        }
+        return elapsed / 1e6 / ITERATIONS;
+    }
+
+    private static double mergeAllAtOnce(List<Grouping> partials) {
+        long elapsed = 0;
+        for (int i = 0; i < ITERATIONS; ++i) {
+            List<Grouping> copies = copy(partials);
+            long start = System.nanoTime();
+            Grouping merged = copies.get(0);
+            merged.merge(copies.subList(1, copies.size()));
+            merged.postMerge();
+            elapsed += System.nanoTime() - start;
+        }
+        return elapsed / 1e6 / ITERATIONS;
+    }
+
+    private static List<Grouping> copy(List<Grouping> partials) {
+        List<Grouping> copies = new ArrayList<>(partials.size());
+        for (Grouping partial : partials) {
+            copies.add(partial.clone());
+        }
+        return copies;
+    }
+
+    private static Group createGroup(Random random, Group group, int level) {
+        group.addAggregationResult(new CountAggregationResult(random.nextInt(1000)).setExpression(new AttributeNode("foo")))
+             .addAggregationResult(new SumAggregationResult(new IntegerResultNode(random.nextInt(100000)))
+                                           .setExpression(new AttributeNode("bar")));
+        if (level < GROUPS_PER_LEVEL.length) {
+            for (int i = 0; i < GROUPS_PER_LEVEL[level]; ++i) {
+                if (random.nextDouble() < GROUP_PRESENCE) {
+                    group.addChild(createGroup(random, new Group().setId(new StringResultNode("group-" + i)), level + 1));
+                }
+            }
+            group.sortChildrenById();
+        }
+        return group;
+    }
+
+}
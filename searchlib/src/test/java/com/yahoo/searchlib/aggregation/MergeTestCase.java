@@ -13,6 +13,7 @@ import com.yahoo.searchlib.expression.MultiplyFunctionNode;
 import com.yahoo.searchlib.expression.StringResultNode;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -724,6 +725,36 @@ public class MergeTestCase {
         assertMerge(request, rhs, lhs, expect);
     }
 
+    // Test merging of enough children at one level to merge them in parallel.
+    @Test
+    public void testMergeManyChildren() {
+        Grouping a = new Grouping().setFirstLevel(0).setLastLevel(1).setRoot(createGroupWithChildren(0, 3000, 1));
+        Grouping b = new Grouping().setFirstLevel(0).setLastLevel(1).setRoot(createGroupWithChildren(1000, 4000, 2));
+        Grouping c = new Grouping().setFirstLevel(0).setLastLevel(1).setRoot(createGroupWithChildren(2000, 5000, 4));
+
+        Group expect = new Group();
+        for (int i = 0; i < 5000; ++i) {
+            long sum = (i < 3000 ? 1 : 0) + (i >= 1000 && i < 4000 ? 2 : 0) + (i >= 2000 ? 4 : 0);
+            expect.addChild(createChild(i, sum));
+        }
+        assertMerge(Arrays.asList(a, b, c), expect);
+    }
+
+    private static Group createGroupWithChildren(int from, int to, long sum) {
+        Group group = new Group();
+        for (int i = from; i < to; ++i) {
+            group.addChild(createChild(i, sum));
+        }
+        return group;
+    }
+
+    private static Group createChild(int id, long sum) {
+        return new Group().setId(new IntegerResultNode(id))
+                          .addAggregationResult(new SumAggregationResult()
+                                                        .setSum(new IntegerResultNode(sum))
+                                                        .setExpression(new AttributeNode("foo")));
+    }
+
     private static void assertMerge(Grouping request, Group lhs, Group rhs, Group expect) {
         assertMerge(Arrays.asList(request.clone().setRoot(lhs.clone()),
                                   request.clone().setRoot(rhs.clone())),
@@ -742,6 +773,16 @@ public class MergeTestCase {
     }
 
     private static void assertMerge(List<Grouping> groupingList, Group expect) {
+        Grouping all = groupingList.get(0).clone();
+        List<Grouping> others = new ArrayList<>();
+        for (int i = 1; i < groupingList.size(); ++i) {
+            others.add(groupingList.get(i).clone());
+        }
+        all.merge(others);
+        all.postMerge();
+        assertEquals(expect.toString(), all.getRoot().toString());
+        assertEquals(expect, all.getRoot());
+
         Grouping tmp = groupingList.get(0).clone();
         for (int i = 1; i < groupingList.size(); ++i) {
             tmp.merge(groupingList.get(i));
@@ -1,10 +0,0 @@
-// Copyright 2018 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
-package com.yahoo.vespa.service.executor;
-
-/**
- * @author hakonhall
- */
-@FunctionalInterface
-public interface Cancellable {
-    void cancel();
-}
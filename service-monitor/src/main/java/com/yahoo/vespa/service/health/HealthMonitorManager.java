@@ -13,7 +13,6 @@ import com.yahoo.vespa.flags.FlagSource;
 import com.yahoo.vespa.flags.Flags;
 import com.yahoo.vespa.service.duper.DuperModelManager;
 import com.yahoo.vespa.service.duper.ZoneApplication;
-import com.yahoo.vespa.service.executor.RunletExecutorImpl;
 import com.yahoo.vespa.service.manager.HealthMonitorApi;
 import com.yahoo.vespa.service.manager.MonitorManager;
 import com.yahoo.vespa.service.monitor.ServiceId;
@@ -30,27 +29,16 @@ import java.util.concurrent.ConcurrentHashMap;
  * @author hakon
  */
 public class HealthMonitorManager implements MonitorManager, HealthMonitorApi {
-    // Weight the following against each other:
-    //  - The number of threads N working on health checking
-    //  - The health request timeout T
-    //  - The max staleness S of the health of an endpoint
-    //  - The ideal staleness I of the health of an endpoint
+    // The health of all endpoints is polled asynchronously by a single timer thread and a shared HTTP client,
+    // so the number of threads does not depend on the number of endpoints. The thread pool only handles
+    // responses, which takes little time compared to the health request timeout.
     //
-    // The largest zone is main.prod.us-west-1:
-    //  - 314 tenant host admins
-    //  - 7 proxy host admins
-    //  - 3 config host admins
-    //  - 3 config servers
-    // for a total of E = 327 endpoints
-    private static final int MAX_ENDPOINTS = 500;
+    // Failing endpoints are not polled less often than healthy ones, so that the recovery of a service is
+    // detected within the same time as before polling was asynchronous.
     private static final Duration HEALTH_REQUEST_TIMEOUT = Duration.ofSeconds(1);
     private static final Duration TARGET_HEALTH_STALENESS = Duration.ofSeconds(10);
-    private static final Duration MAX_HEALTH_STALENESS = Duration.ofSeconds(60);
-    static final int THREAD_POOL_SIZE = (int) Math.ceil(MAX_ENDPOINTS * HEALTH_REQUEST_TIMEOUT.toMillis() / (double) MAX_HEALTH_STALENESS.toMillis());
-
-    // Keep connections alive 60 seconds (>=MAX_HEALTH_STALENESS) if a keep-alive value has not be
-    // explicitly set by the server.
-    private static final Duration KEEP_ALIVE = Duration.ofSeconds(60);
+    private static final Duration MAX_HEALTH_STALENESS = TARGET_HEALTH_STALENESS;
+    static final int THREAD_POOL_SIZE = 2;
 
     private final ConcurrentHashMap<ApplicationId, ApplicationHealthMonitor> healthMonitors = new ConcurrentHashMap<>();
     private final DuperModelManager duperModel;
@@ -65,10 +53,10 @@ public class HealthMonitorManager implements MonitorManager, HealthMonitorApi {
     private HealthMonitorManager(DuperModelManager duperModel, boolean monitorTenantHostHealth) {
         this(duperModel, monitorTenantHostHealth,
                 new StateV1HealthModel(
-                        TARGET_HEALTH_STALENESS,
-                        HEALTH_REQUEST_TIMEOUT,
-                        KEEP_ALIVE,
-                        new RunletExecutorImpl(THREAD_POOL_SIZE),
+                        new StateV1HealthPoller(TARGET_HEALTH_STALENESS,
+                                                MAX_HEALTH_STALENESS,
+                                                HEALTH_REQUEST_TIMEOUT,
+                                                THREAD_POOL_SIZE),
                         monitorTenantHostHealth));
     }
 
@@ -2,11 +2,9 @@
 package com.yahoo.vespa.service.health;
 
 import com.yahoo.config.provision.HostName;
-import com.yahoo.vespa.service.executor.RunletExecutor;
 import com.yahoo.vespa.service.monitor.ServiceId;
 
 import java.net.URL;
-import java.time.Duration;
 
 import static com.yahoo.yolean.Exceptions.uncheck;
 
@@ -16,24 +14,12 @@ import static com.yahoo.yolean.Exceptions.uncheck;
 class StateV1HealthEndpoint implements HealthEndpoint {
     private final ServiceId serviceId;
     private final URL url;
-    private final Duration requestTimeout;
-    private final Duration connectionKeepAlive;
-    private final Duration delay;
-    private final RunletExecutor executor;
-
-    StateV1HealthEndpoint(ServiceId serviceId,
-                          HostName hostname,
-                          int port,
-                          Duration delay,
-                          Duration requestTimeout,
-                          Duration connectionKeepAlive,
-                          RunletExecutor executor) {
+    private final StateV1HealthPoller poller;
+
+    StateV1HealthEndpoint(ServiceId serviceId, HostName hostname, int port, StateV1HealthPoller poller) {
         this.serviceId = serviceId;
-        this.delay = delay;
-        this.executor = executor;
         this.url = uncheck(() -> new URL("http", hostname.value(), port, "/state/v1/health"));
-        this.requestTimeout = requestTimeout;
-        this.connectionKeepAlive = connectionKeepAlive;
+        this.poller = poller;
     }
 
     @Override
@@ -43,8 +29,7 @@ class StateV1HealthEndpoint implements HealthEndpoint {
 
     @Override
     public HealthMonitor startMonitoring() {
-        StateV1HealthUpdater updater = new StateV1HealthUpdater(url, requestTimeout, connectionKeepAlive);
-        return new StateV1HealthMonitor(updater, executor, delay);
+        return poller.startMonitoring(url);
     }
 
     @Override
@@ -8,11 +8,9 @@ import com.yahoo.config.model.api.ServiceInfo;
 import com.yahoo.config.provision.HostName;
 import com.yahoo.vespa.service.duper.HostAdminApplication;
 import com.yahoo.vespa.service.duper.ZoneApplication;
-import com.yahoo.vespa.service.executor.RunletExecutor;
 import com.yahoo.vespa.service.model.ApplicationInstanceGenerator;
 import com.yahoo.vespa.service.monitor.ServiceId;
 
-import java.time.Duration;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
@@ -29,21 +27,11 @@ public class StateV1HealthModel implements AutoCloseable {
 
     /** Port tags implying /state/v1/health is served on HTTP. */
     public static final List<String> HTTP_HEALTH_PORT_TAGS = Arrays.asList(PORT_TAG_HTTP, PORT_TAG_STATE);
-    private final Duration targetHealthStaleness;
-    private final Duration requestTimeout;
-    private final Duration connectionKeepAlive;
-    private final RunletExecutor executor;
+    private final StateV1HealthPoller poller;
     private final boolean monitorTenantHostHealth;
 
-    StateV1HealthModel(Duration targetHealthStaleness,
-                       Duration requestTimeout,
-                       Duration connectionKeepAlive,
-                       RunletExecutor executor,
-                       boolean monitorTenantHostHealth) {
-        this.targetHealthStaleness = targetHealthStaleness;
-        this.requestTimeout = requestTimeout;
-        this.connectionKeepAlive = connectionKeepAlive;
-        this.executor = executor;
+    StateV1HealthModel(StateV1HealthPoller poller, boolean monitorTenantHostHealth) {
+        this.poller = poller;
         this.monitorTenantHostHealth = monitorTenantHostHealth;
     }
 
@@ -72,14 +60,7 @@ public class StateV1HealthModel implements AutoCloseable {
                     if (portTaggedWith(portInfo, HTTP_HEALTH_PORT_TAGS)) {
                         // The host-admin-in-zone-application is one big hack.
                         int port = isNodeAdmin ? HostAdminApplication.HOST_ADMIN_HEALT_PORT : portInfo.getPort();
-                        StateV1HealthEndpoint endpoint = new StateV1HealthEndpoint(
-                                serviceId,
-                                hostname,
-                                port,
-                                targetHealthStaleness,
-                                requestTimeout,
-                                connectionKeepAlive,
-                                executor);
+                        StateV1HealthEndpoint endpoint = new StateV1HealthEndpoint(serviceId, hostname, port, poller);
                         endpoints.put(serviceId, endpoint);
                         break; // Avoid >1 endpoints per serviceId
                     }
@@ -104,6 +85,6 @@ public class StateV1HealthModel implements AutoCloseable {
 
     @Override
     public void close() {
-        executor.close();
+        poller.close();
     }
 }
@@ -0,0 +1,278 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.service.health;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yahoo.concurrent.DaemonThreadFactory;
+import com.yahoo.log.LogLevel;
+import com.yahoo.vespa.applicationmodel.ServiceStatus;
+import com.yahoo.vespa.applicationmodel.ServiceStatusInfo;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Polls the /state/v1/health of any number of endpoints asynchronously, using one shared HTTP client
+ * and a single timer thread, such that the number of threads does not grow with the number of endpoints.
+ * Responses are handled by a small, fixed thread pool. All threads are daemon threads.
+ *
+ * Each endpoint is polled with a fixed delay between the end of one poll and the start of the next, with a random
+ * jitter to spread the polls in time. The delay is doubled for each consecutive failure, up to a max delay.
+ *
+ * @author agent
+ */
+class StateV1HealthPoller implements AutoCloseable {
+
+    private static final Logger logger = Logger.getLogger(StateV1HealthPoller.class.getName());
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    /** The max number of bytes read from the body of a response */
+    static final long MAX_CONTENT_LENGTH = 1L << 20; // 1 MB
+
+    /** The max fraction the delay between polls is randomly shortened or lengthened by */
+    private static final double JITTER = 0.1;
+
+    private final Duration delay;
+    private final Duration maxDelay;
+    private final Duration requestTimeout;
+    private final ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new DaemonThreadFactory("health-poller-timer-"));
+    private final ExecutorService responseExecutor;
+    private final HttpClient client;
+
+    StateV1HealthPoller(Duration delay, Duration maxDelay, Duration requestTimeout, int threadPoolSize) {
+        this.delay = delay;
+        this.maxDelay = maxDelay;
+        this.requestTimeout = requestTimeout;
+        this.responseExecutor = Executors.newFixedThreadPool(threadPoolSize, new DaemonThreadFactory("health-poller-"));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(responseExecutor)
+                .connectTimeout(requestTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /** Starts polling the health of the given /state/v1/health URL, until the returned monitor is closed. */
+    HealthMonitor startMonitoring(URL url) {
+        PolledEndpoint endpoint = new PolledEndpoint(url);
+        endpoint.schedule(Duration.ofMillis(ThreadLocalRandom.current().nextLong(Math.max(1, delay.toMillis()))));
+        return endpoint;
+    }
+
+    /** Returns the delay until the next poll of an endpoint, before jitter, given its number of consecutive failures. */
+    static Duration nextDelay(Duration delay, Duration maxDelay, int consecutiveFailures) {
+        // The first failure is retried at the regular delay, to quickly confirm whether the endpoint is down
+        int doublings = Math.min(Math.max(0, consecutiveFailures - 1), 30);
+        long millis = Math.min(maxDelay.toMillis(), delay.toMillis() << doublings);
+        return Duration.ofMillis(Math.max(millis, delay.toMillis()));
+    }
+
+    /** Returns the health info of a /state/v1/health response with the given HTTP status code and body. */
+    static HealthInfo healthInfoFrom(int httpStatusCode, String body) throws IOException {
+        if (httpStatusCode < 200 || httpStatusCode >= 300) {
+            return HealthInfo.fromBadHttpStatusCode(httpStatusCode);
+        }
+
+        HealthResponse healthResponse = mapper.readValue(body, HealthResponse.class);
+
+        if (healthResponse.status == null || healthResponse.status.code == null) {
+            return HealthInfo.fromHealthStatusCode(HealthResponse.Status.DEFAULT_STATUS);
+        } else {
+            return HealthInfo.fromHealthStatusCode(healthResponse.status.code);
+        }
+    }
+
+    /**
+     * Returns the status info of an endpoint after probing its health.
+     *
+     * @param previous the status info before the probe
+     * @param healthInfo the result of the probe
+     * @param now the time the probe was started
+     * @param endpoint the endpoint which was probed
+     */
+    static ServiceStatusInfo nextServiceStatusInfo(ServiceStatusInfo previous, HealthInfo healthInfo, Instant now, String endpoint) {
+        ServiceStatus newServiceStatus = healthInfo.isHealthy() ? ServiceStatus.UP : ServiceStatus.DOWN;
+        Optional<Instant> newSince = newServiceStatus == previous.serviceStatus() ?
+                previous.since() : Optional.of(now);
+
+        return new ServiceStatusInfo(newServiceStatus, newSince, Optional.of(now),
+                healthInfo.getErrorDescription(), Optional.of(endpoint));
+    }
+
+    /** Returns a body handler which reads at most the given number of bytes of a body, and fails if there are more */
+    static HttpResponse.BodyHandler<String> boundedBodyHandler(long maxContentLength) {
+        return responseInfo -> new BoundedStringSubscriber(maxContentLength,
+                                                           responseInfo.headers().firstValueAsLong("Content-Length").orElse(-1));
+    }
+
+    private static Duration withJitter(Duration delay) {
+        double factor = 1 + ThreadLocalRandom.current().nextDouble(-JITTER, JITTER);
+        return Duration.ofMillis((long) (delay.toMillis() * factor));
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        responseExecutor.shutdown();
+        try {
+            responseExecutor.awaitTermination(requestTimeout.toMillis() * 2, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            logger.log(LogLevel.WARNING, "Interrupted while waiting for termination of health poller", e);
+        }
+    }
+
+    /** An endpoint which is polled by this. At most one poll of an endpoint is in progress at any time. */
+    private class PolledEndpoint implements HealthMonitor {
+
+        private final String endpoint;
+        private final HttpRequest request;
+
+        private volatile ServiceStatusInfo serviceStatusInfo = new ServiceStatusInfo(ServiceStatus.NOT_CHECKED);
+        private volatile boolean closed = false;
+        private int consecutiveFailures = 0;
+
+        PolledEndpoint(URL url) {
+            this.endpoint = url.toString();
+            this.request = HttpRequest.newBuilder(URI.create(url.toString())).timeout(requestTimeout).GET().build();
+        }
+
+        @Override
+        public ServiceStatusInfo getStatus() {
+            return serviceStatusInfo;
+        }
+
+        private void schedule(Duration delay) {
+            if (closed) return;
+            try {
+                timer.schedule(this::poll, delay.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // The poller is closed
+            }
+        }
+
+        private void poll() {
+            if (closed) return;
+
+            // Get time before fetching rather than after, to make the resulting age be an upper limit.
+            Instant now = Instant.now();
+            try {
+                client.sendAsync(request, boundedBodyHandler(MAX_CONTENT_LENGTH))
+                      .handle(this::toHealthInfo)
+                      .thenAccept(healthInfo -> update(healthInfo, now));
+            } catch (RejectedExecutionException e) {
+                // The poller is closed
+            }
+        }
+
+        private HealthInfo toHealthInfo(HttpResponse<String> response, Throwable throwable) {
+            if (throwable != null) {
+                Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null ?
+                        throwable.getCause() : throwable;
+                return HealthInfo.fromException(cause instanceof Exception ? (Exception) cause : new RuntimeException(cause));
+            }
+
+            try {
+                return healthInfoFrom(response.statusCode(), response.body());
+            } catch (Exception e) {
+                return HealthInfo.fromException(e);
+            }
+        }
+
+        private void update(HealthInfo healthInfo, Instant now) {
+            serviceStatusInfo = nextServiceStatusInfo(serviceStatusInfo, healthInfo, now, endpoint);
+            consecutiveFailures = healthInfo.isHealthy() ? 0 : consecutiveFailures + 1;
+            schedule(withJitter(nextDelay(delay, maxDelay, consecutiveFailures)));
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+    }
+
+    /**
+     * Collects a body as an UTF-8 string. The body is failed, and the rest of it is not read,
+     * as soon as it is known to be longer than the max length.
+     */
+    private static class BoundedStringSubscriber implements HttpResponse.BodySubscriber<String> {
+
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        private final long maxContentLength;
+        private final long declaredContentLength;
+        private Flow.Subscription subscription;
+
+        BoundedStringSubscriber(long maxContentLength, long declaredContentLength) {
+            this.maxContentLength = maxContentLength;
+            this.declaredContentLength = declaredContentLength;
+        }
+
+        @Override
+        public CompletionStage<String> getBody() {
+            return result;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (declaredContentLength > maxContentLength)
+                fail(declaredContentLength + " bytes");
+            else
+                subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            if (result.isDone()) return;
+            for (ByteBuffer buffer : buffers) {
+                if (body.size() + buffer.remaining() > maxContentLength) {
+                    fail("more than " + maxContentLength + " bytes");
+                    return;
+                }
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                body.write(bytes, 0, bytes.length);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            result.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(new String(body.toByteArray(), StandardCharsets.UTF_8));
+        }
+
+        private void fail(String length) {
+            subscription.cancel();
+            result.completeExceptionally(new IllegalArgumentException("Content too long: " + length));
+        }
+
+    }
+
+}
@@ -161,7 +161,7 @@ public class HealthMonitorManagerTest {
     @Test
     public void threadPoolSize() {
         setUp(false);
-        assertEquals(9, HealthMonitorManager.THREAD_POOL_SIZE);
+        assertEquals(2, HealthMonitorManager.THREAD_POOL_SIZE);
     }
 
     private void assertStatus(ServiceStatus expected, int verifyTimes, InfraApplication infraApplication, String hostname) {
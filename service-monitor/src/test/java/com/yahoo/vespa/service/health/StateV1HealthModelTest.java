@@ -12,9 +12,8 @@ import com.yahoo.vespa.applicationmodel.ServiceType;
 import com.yahoo.vespa.service.duper.ProxyHostApplication;
 import com.yahoo.vespa.service.duper.TestZoneApplication;
 import com.yahoo.vespa.service.duper.ZoneApplication;
-import com.yahoo.vespa.service.executor.Cancellable;
-import com.yahoo.vespa.service.executor.RunletExecutor;
 import com.yahoo.vespa.service.monitor.ServiceId;
+import org.junit.After;
 import org.junit.Test;
 
 import java.time.Duration;
@@ -27,7 +26,6 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
-import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -35,10 +33,8 @@ import static org.mockito.Mockito.when;
  * @author hakonhall
  */
 public class StateV1HealthModelTest {
-    private RunletExecutor executor = mock(RunletExecutor.class);
-    private Duration healthStaleness = Duration.ofSeconds(1);
-    private Duration requestTimeout = Duration.ofSeconds(2);
-    private Duration keepAlive = Duration.ofSeconds(3);
+    // Long delays, such that the endpoints are not polled during the test
+    private final StateV1HealthPoller poller = new StateV1HealthPoller(Duration.ofHours(1), Duration.ofHours(2), Duration.ofSeconds(2), 1);
     private final ProxyHostApplication proxyHostApplication = new ProxyHostApplication();
     private final List<HostName> hostnames = Stream.of("host1", "host2").map(HostName::from).collect(Collectors.toList());
     private final ApplicationInfo proxyHostApplicationInfo = proxyHostApplication.makeApplicationInfo(hostnames);
@@ -46,9 +42,14 @@ public class StateV1HealthModelTest {
     private StateV1HealthModel model;
     private Map<ServiceId, HealthEndpoint> endpoints;
 
+    @After
+    public void tearDown() {
+        poller.close();
+    }
+
     @Test
     public void test() {
-        model = new StateV1HealthModel(healthStaleness, requestTimeout, keepAlive, executor, false);
+        model = new StateV1HealthModel(poller, false);
         endpoints = model.extractHealthEndpoints(proxyHostApplicationInfo);
 
         assertEquals(2, endpoints.size());
@@ -66,8 +67,6 @@ public class StateV1HealthModelTest {
         assertNotNull(endpoint2);
         assertEquals("http://host2:8080/state/v1/health", endpoint2.description());
 
-        Cancellable cancellable = mock(Cancellable.class);
-        when(executor.scheduleWithFixedDelay(any(), any())).thenReturn(cancellable);
         try (HealthMonitor healthMonitor = endpoint1.startMonitoring()) {
             assertEquals(ServiceStatus.NOT_CHECKED, healthMonitor.getStatus().serviceStatus());
         }
@@ -75,7 +74,7 @@ public class StateV1HealthModelTest {
 
     @Test
     public void testMonitoringTenantHostHealth() {
-        model = new StateV1HealthModel(healthStaleness, requestTimeout, keepAlive, executor, true);
+        model = new StateV1HealthModel(poller, true);
         ApplicationInfo zoneApplicationInfo = new TestZoneApplication.Builder()
                 .addNodeAdminCluster("h1")
                 .addRoutingCluster("r1")
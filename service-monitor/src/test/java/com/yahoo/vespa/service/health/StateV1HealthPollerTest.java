@@ -0,0 +1,170 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.service.health;
+
+import com.sun.net.httpserver.HttpServer;
+import com.yahoo.vespa.applicationmodel.ServiceStatus;
+import com.yahoo.vespa.applicationmodel.ServiceStatusInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author agent
+ */
+public class StateV1HealthPollerTest {
+
+    private final StateV1HealthPoller poller = new StateV1HealthPoller(Duration.ofMillis(10), Duration.ofMillis(100), Duration.ofSeconds(5), 2);
+    private HttpServer server;
+    private volatile String healthStatusCode = "up";
+
+    @Before
+    public void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/state/v1/health", exchange -> {
+            byte[] body = ("{\"status\": {\"code\": \"" + healthStatusCode + "\"}}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.createContext("/large", exchange -> {
+            byte[] body = new byte[4096];
+            boolean chunked = exchange.getRequestURI().getQuery() != null;
+            exchange.sendResponseHeaders(200, chunked ? 0 : body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException ignored) {
+                // The client may close the connection before the whole body is written
+            }
+        });
+        server.start();
+    }
+
+    @After
+    public void stop() {
+        poller.close();
+        server.stop(0);
+    }
+
+    @Test
+    public void downThenUpThenDown() throws Exception {
+        URL url = new URL("http", server.getAddress().getHostString(), server.getAddress().getPort(), "/state/v1/health");
+        try (HealthMonitor monitor = poller.startMonitoring(url)) {
+            healthStatusCode = "initializing";
+            waitForStatus(ServiceStatus.DOWN, monitor);
+            assertEquals("Bad health status code 'initializing'", monitor.getStatus().errorOrNull());
+
+            healthStatusCode = "up";
+            waitForStatus(ServiceStatus.UP, monitor);
+            assertEquals(url.toString(), monitor.getStatus().endpointOrNull());
+
+            server.stop(0);
+            waitForStatus(ServiceStatus.DOWN, monitor);
+        }
+    }
+
+    @Test
+    public void delayIsDoubledForConsecutiveFailuresUpToMax() {
+        Duration delay = Duration.ofSeconds(10);
+        Duration maxDelay = Duration.ofSeconds(60);
+        assertEquals(delay, StateV1HealthPoller.nextDelay(delay, maxDelay, 0));
+        assertEquals(delay, StateV1HealthPoller.nextDelay(delay, maxDelay, 1));
+        assertEquals(Duration.ofSeconds(20), StateV1HealthPoller.nextDelay(delay, maxDelay, 2));
+        assertEquals(Duration.ofSeconds(40), StateV1HealthPoller.nextDelay(delay, maxDelay, 3));
+        assertEquals(maxDelay, StateV1HealthPoller.nextDelay(delay, maxDelay, 4));
+        assertEquals(maxDelay, StateV1HealthPoller.nextDelay(delay, maxDelay, 1000));
+        assertEquals("No backoff when the max delay is the delay", delay, StateV1HealthPoller.nextDelay(delay, delay, 1000));
+    }
+
+    @Test
+    public void bodyIsBounded() throws Exception {
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        URI uri = new URI("http", null, server.getAddress().getHostString(), server.getAddress().getPort(), "/large", null, null);
+        assertEquals(4096, client.send(HttpRequest.newBuilder(uri).build(), StateV1HealthPoller.boundedBodyHandler(4096)).body().length());
+        assertContentTooLong(client, uri, "Content too long: 4096 bytes");
+        assertContentTooLong(client, uri.resolve("/large?chunked"), "Content too long: more than 1024 bytes");
+    }
+
+    @Test
+    public void successfulResponse() throws IOException {
+        HealthInfo info = StateV1HealthPoller.healthInfoFrom(200, "{\n" +
+                "    \"metrics\": {\n" +
+                "        \"snapshot\": {\n" +
+                "            \"from\": 1.528789829249E9,\n" +
+                "            \"to\": 1.528789889249E9\n" +
+                "        }\n" +
+                "    },\n" +
+                "    \"status\": {\"code\": \"up\"},\n" +
+                "    \"time\": 1528789889364\n" +
+                "}");
+        assertTrue(info.isHealthy());
+    }
+
+    @Test
+    public void unhealthyResponses() throws IOException {
+        assertEquals("Bad health status code 'initializing'",
+                     StateV1HealthPoller.healthInfoFrom(200, "{\"status\": {\"code\": \"initializing\"}}").toString());
+        assertEquals("Bad health status code 'down'",
+                     StateV1HealthPoller.healthInfoFrom(200, "{\"status\": {\"foo\": \"bar\"}}").toString());
+        assertEquals("Bad health status code 'down'",
+                     StateV1HealthPoller.healthInfoFrom(200, "{\"time\": 1528789889364}").toString());
+        assertEquals("Bad HTTP response status code 500",
+                     StateV1HealthPoller.healthInfoFrom(500, "{}").toString());
+    }
+
+    @Test
+    public void statusSinceIsKeptWhileStatusIsUnchanged() {
+        Instant first = Instant.ofEpochMilli(1000);
+        Instant second = Instant.ofEpochMilli(2000);
+        ServiceStatusInfo initial = new ServiceStatusInfo(ServiceStatus.NOT_CHECKED);
+
+        ServiceStatusInfo up = StateV1HealthPoller.nextServiceStatusInfo(initial, HealthInfo.fromHealthStatusCode("up"), first, "endpoint");
+        assertEquals(ServiceStatus.UP, up.serviceStatus());
+        assertEquals(Optional.of(first), up.since());
+        assertNull(up.errorOrNull());
+
+        ServiceStatusInfo stillUp = StateV1HealthPoller.nextServiceStatusInfo(up, HealthInfo.fromHealthStatusCode("up"), second, "endpoint");
+        assertEquals(Optional.of(first), stillUp.since());
+        assertEquals(Optional.of(second), stillUp.lastChecked());
+
+        ServiceStatusInfo down = StateV1HealthPoller.nextServiceStatusInfo(stillUp, HealthInfo.fromException(new IOException("exception string")), second, "endpoint");
+        assertEquals(ServiceStatus.DOWN, down.serviceStatus());
+        assertEquals(Optional.of(second), down.since());
+        assertEquals("Exception: exception string", down.errorOrNull());
+    }
+
+    private static void assertContentTooLong(HttpClient client, URI uri, String message) throws InterruptedException {
+        try {
+            client.sendAsync(HttpRequest.newBuilder(uri).build(), StateV1HealthPoller.boundedBodyHandler(1024)).get();
+            fail("Expected exception");
+        } catch (ExecutionException e) {
+            assertEquals(message, e.getCause().getMessage());
+        }
+    }
+
+    private static void waitForStatus(ServiceStatus expected, HealthMonitor monitor) {
+        while (monitor.getStatus().serviceStatus() != expected) {
+            try { Thread.sleep(2); } catch (InterruptedException ignored) { }
+        }
+    }
+
+}
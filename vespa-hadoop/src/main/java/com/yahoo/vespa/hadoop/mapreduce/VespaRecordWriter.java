@@ -29,15 +29,28 @@ import javax.xml.stream.events.StartElement;
 import javax.xml.stream.events.XMLEvent;
 import java.io.IOException;
 import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.StringTokenizer;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 /**
  * VespaRecordWriter sends the output &lt;key, value&gt; to one or more Vespa
  * endpoints.
  *
+ * If {@link VespaConfiguration#CONVERSION_THREADS} is set, values are converted to document operations
+ * in a pool of that many threads, while converted operations are sent in the order they were written.
+ * Values which are a {@link Supplier} of the document operation are also produced in that pool.
+ *
  * @author lesters
  */
 @SuppressWarnings("rawtypes")
@@ -45,17 +58,30 @@ public class VespaRecordWriter extends RecordWriter {
 
     private final static Logger log = Logger.getLogger(VespaRecordWriter.class.getCanonicalName());
 
+    private final static JsonFactory jsonFactory = new JsonFactory();
+
     private boolean initialized = false;
+    private long startTime;
     private FeedClient feedClient;
     private final VespaCounters counters;
     private final int progressInterval;
 
+    /** Converts records to operations concurrently, or null to convert them on the writing thread */
+    private ExecutorService conversionExecutor = null;
+
+    /** Operations being converted, in the order they were written */
+    private final Deque<Future<FeedOperation>> pending = new ArrayDeque<>();
+
+    /** The max number of operations being converted before writing blocks */
+    private final int maxPending;
+
     final VespaConfiguration configuration;
 
     VespaRecordWriter(VespaConfiguration configuration, VespaCounters counters) {
         this.counters = counters;
         this.configuration = configuration;
         this.progressInterval = configuration.progressInterval();
+        this.maxPending = configuration.conversionThreads() * 100;
     }
 
 
@@ -65,19 +91,91 @@ public class VespaRecordWriter extends RecordWriter {
             initialize();
         }
 
-        String doc = data.toString().trim();
+        if (conversionExecutor == null) {
+            send(convert(data));
+            return;
+        }
+
+        // Writables are reused by Hadoop, so only suppliers are converted from the original object in the pool
+        Object record = data instanceof Supplier ? data : data.toString();
+        pending.add(conversionExecutor.submit(() -> convert(record)));
+        sendConverted(maxPending);
+    }
+
+
+    @Override
+    public void close(TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
+        try {
+            sendConverted(0);
+        } finally {
+            if (conversionExecutor != null) {
+                conversionExecutor.shutdownNow();
+            }
+            if (feedClient != null) {
+                feedClient.close();
+                reportThroughput();
+            }
+        }
+    }
+
+    /**
+     * Converts the given record to a document operation. The record is either the document operation itself,
+     * or a supplier of it, which allows the conversion to happen in the conversion pool.
+     *
+     * @return the operation to send, or null if a supplier did not produce any
+     */
+    private FeedOperation convert(Object data) throws IOException {
+        long conversionStart = System.nanoTime();
+        String doc;
+        if (data instanceof Supplier) {
+            try {
+                doc = (String) ((Supplier<?>) data).get();
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (doc == null || doc.isEmpty()) {
+                return null;
+            }
+        } else {
+            doc = data.toString();
+        }
+        doc = doc.trim();
 
         // Parse data to find document id - if none found, skip this write
         String docId = DataFormat.JSON_UTF8.equals(configuration.dataFormat()) ? findDocId(doc)
                 : findDocIdFromXml(doc);
-        if (docId != null && docId.length() >= 0) {
-            feedClient.stream(docId, doc);
+        counters.incrementConversionTimeUs(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - conversionStart));
+        return new FeedOperation(docId, doc);
+    }
+
+    /** Sends converted operations in the order they were written, until at most the given number are pending */
+    private void sendConverted(int maxPending) throws IOException, InterruptedException {
+        while ( ! pending.isEmpty() && (pending.size() > maxPending || pending.peek().isDone())) {
+            try {
+                send(pending.poll().get());
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException("Failed converting record", e.getCause());
+            }
+        }
+    }
+
+    private void send(FeedOperation operation) {
+        if (operation == null) {
+            return;
+        }
+
+        if (operation.docId != null && operation.docId.length() >= 0) {
+            feedClient.stream(operation.docId, operation.doc, System.nanoTime());
             counters.incrementDocumentsSent(1);
         } else {
             counters.incrementDocumentsSkipped(1);
         }
 
         if (counters.getDocumentsSent() % progressInterval == 0) {
+            reportThroughput();
             String progress = String.format("Feed progress: %d / %d / %d / %d (sent, ok, failed, skipped)",
                     counters.getDocumentsSent(),
                     counters.getDocumentsOk(),
@@ -85,14 +183,14 @@ public class VespaRecordWriter extends RecordWriter {
                     counters.getDocumentsSkipped());
             log.info(progress);
         }
-
     }
 
-
-    @Override
-    public void close(TaskAttemptContext taskAttemptContext) throws IOException, InterruptedException {
-        if (feedClient != null) {
-            feedClient.close();
+    /** Logs the throughput of this task, as a rate summed over all tasks would not be meaningful as a counter */
+    private void reportThroughput() {
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime);
+        if (elapsedMs > 0) {
+            log.info(String.format("Feed throughput: %d documents sent in %d ms (%d per second)",
+                    counters.getDocumentsSent(), elapsedMs, counters.getDocumentsSent() * 1000 / elapsedMs));
         }
     }
 
@@ -156,6 +254,15 @@ public class VespaRecordWriter extends RecordWriter {
         ResultCallback resultCallback = new ResultCallback(counters);
         feedClient = FeedClientFactory.create(sessionParams.build(), resultCallback);
 
+        if (configuration.conversionThreads() > 0) {
+            conversionExecutor = Executors.newFixedThreadPool(configuration.conversionThreads(), runnable -> {
+                Thread thread = new Thread(runnable, "vespa-feed-conversion");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        startTime = System.nanoTime();
+
         initialized = true;
         log.info("VespaStorage configuration:\n" + configuration.toString());
         log.info(feedClient.getStatsAsJson());
@@ -182,8 +289,7 @@ public class VespaRecordWriter extends RecordWriter {
     }
     
     private String findDocId(String json) throws IOException {
-        JsonFactory factory = new JsonFactory();
-        try(JsonParser parser = factory.createParser(json)) {
+        try(JsonParser parser = jsonFactory.createParser(json)) {
             if (parser.nextToken() != JsonToken.START_OBJECT) {
                 return null;
             }
@@ -204,6 +310,19 @@ public class VespaRecordWriter extends RecordWriter {
     }
 
 
+    private static class FeedOperation {
+
+        final String docId;
+        final String doc;
+
+        FeedOperation(String docId, String doc) {
+            this.docId = docId;
+            this.doc = doc;
+        }
+
+    }
+
+
     static class ResultCallback implements FeedClient.ResultCallback {
         final VespaCounters counters;
 
@@ -213,6 +332,10 @@ public class VespaRecordWriter extends RecordWriter {
 
         @Override
         public void onCompletion(String docId, Result documentResult) {
+            if (documentResult.getContext() instanceof Long) {
+                long sendTime = (Long) documentResult.getContext();
+                counters.incrementFeedLatencyUs(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - sendTime));
+            }
             if (!documentResult.isSuccess()) {
                 counters.incrementDocumentsFailed(1);
                 StringBuilder sb = new StringBuilder();
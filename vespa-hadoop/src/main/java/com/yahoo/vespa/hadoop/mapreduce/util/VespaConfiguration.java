@@ -27,6 +27,7 @@ public class VespaConfiguration {
     public static final String MAX_IN_FLIGHT_REQUESTS = "vespa.feed.max.in.flight.requests";
     public static final String RANDOM_STARTUP_SLEEP = "vespa.feed.random.startup.sleep.ms";
     public static final String NUM_RETRIES = "vespa.feed.num.retries";
+    public static final String CONVERSION_THREADS = "vespa.feed.conversion.threads";
 
     private final Configuration conf;
     private final Properties override;
@@ -117,6 +118,12 @@ public class VespaConfiguration {
     }
 
 
+    /** Returns the number of threads converting records to document operations, or 0 to convert on the writing thread */
+    public int conversionThreads() {
+        return getInt(CONVERSION_THREADS, 0);
+    }
+
+
     public FeedParams.DataFormat dataFormat() {
         String format = getString(DATA_FORMAT);
         if ("xml".equalsIgnoreCase(format)) {
@@ -189,6 +196,7 @@ public class VespaConfiguration {
         sb.append(MAX_IN_FLIGHT_REQUESTS + ": " +  maxInFlightRequests() +"\n");
         sb.append(RANDOM_STARTUP_SLEEP + ": " +  randomStartupSleepMs() +"\n");
         sb.append(NUM_RETRIES + ": " +  numRetries() +"\n");
+        sb.append(CONVERSION_THREADS + ": " +  conversionThreads() +"\n");
         return sb.toString();
     }
 
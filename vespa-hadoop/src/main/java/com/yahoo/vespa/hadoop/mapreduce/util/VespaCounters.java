@@ -15,11 +15,15 @@ public class VespaCounters {
     public static final String DOCS_SENT = "Documents sent";
     public static final String DOCS_FAILED = "Documents failed";
     public static final String DOCS_SKIPPED = "Documents skipped";
+    public static final String CONVERSION_TIME_US = "Conversion time us";
+    public static final String FEED_LATENCY_US = "Feed latency us";
 
     private final Counter documentsSent;
     private final Counter documentsOk;
     private final Counter documentsFailed;
     private final Counter documentsSkipped;
+    private final Counter conversionTimeUs;
+    private final Counter feedLatencyUs;
 
 
     private VespaCounters(Job job) throws IOException {
@@ -28,6 +32,8 @@ public class VespaCounters {
         documentsOk = counters.findCounter(GROUP, DOCS_OK);
         documentsFailed = counters.findCounter(GROUP, DOCS_FAILED);
         documentsSkipped = counters.findCounter(GROUP, DOCS_SKIPPED);
+        conversionTimeUs = counters.findCounter(GROUP, CONVERSION_TIME_US);
+        feedLatencyUs = counters.findCounter(GROUP, FEED_LATENCY_US);
     }
 
 
@@ -36,6 +42,8 @@ public class VespaCounters {
         documentsOk = context.getCounter(GROUP, DOCS_OK);
         documentsFailed = context.getCounter(GROUP, DOCS_FAILED);
         documentsSkipped = context.getCounter(GROUP, DOCS_SKIPPED);
+        conversionTimeUs = context.getCounter(GROUP, CONVERSION_TIME_US);
+        feedLatencyUs = context.getCounter(GROUP, FEED_LATENCY_US);
     }
 
 
@@ -44,6 +52,8 @@ public class VespaCounters {
         documentsOk = counters.findCounter(GROUP, DOCS_OK);
         documentsFailed = counters.findCounter(GROUP, DOCS_FAILED);
         documentsSkipped = counters.findCounter(GROUP, DOCS_SKIPPED);
+        conversionTimeUs = counters.findCounter(GROUP, CONVERSION_TIME_US);
+        feedLatencyUs = counters.findCounter(GROUP, FEED_LATENCY_US);
     }
 
 
@@ -102,4 +112,26 @@ public class VespaCounters {
         documentsSkipped.increment(incr);
     }
 
+
+    /** Returns the total time in microseconds spent converting records to document operations, summed over all threads */
+    public long getConversionTimeUs() {
+        return conversionTimeUs.getValue();
+    }
+
+
+    public void incrementConversionTimeUs(long incr) {
+        conversionTimeUs.increment(incr);
+    }
+
+
+    /** Returns the total time in microseconds from sending to completion of each document operation */
+    public long getFeedLatencyUs() {
+        return feedLatencyUs.getValue();
+    }
+
+
+    public void incrementFeedLatencyUs(long incr) {
+        feedLatencyUs.increment(incr);
+    }
+
 }
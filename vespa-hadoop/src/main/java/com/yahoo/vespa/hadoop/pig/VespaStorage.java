@@ -11,12 +11,15 @@ import org.apache.hadoop.mapreduce.RecordWriter;
 import org.apache.pig.ResourceSchema;
 import org.apache.pig.StoreFunc;
 import org.apache.pig.data.Tuple;
+import org.apache.pig.data.TupleFactory;
 import org.apache.pig.impl.util.UDFContext;
 
 import java.io.*;
+import java.util.ArrayList;
 import java.util.Base64;
 import java.util.Map;
 import java.util.Properties;
+import java.util.function.Supplier;
 
 /**
  * A small Pig UDF wrapper around the Vespa http client for
@@ -82,14 +85,21 @@ public class VespaStorage extends StoreFunc {
             return;
         }
 
-        String data = null;
+        Object data;
         if (createDocOp) {
-            data = createDocumentOperation(tuple);
+            if (resourceSchema == null) {
+                return;
+            }
+            // Let the record writer create the operation, which it may do concurrently with writing further tuples
+            Tuple copy = TupleFactory.getInstance().newTupleNoCopy(new ArrayList<>(tuple.getAll()));
+            data = (Supplier<String>) () -> createDocumentOperation(copy);
         } else if (!tuple.isNull(0)) {
-            data = tuple.get(0).toString(); // assume single field with correctly formatted doc op.
-        }
-
-        if (data == null || data.length() == 0) {
+            String documentOperation = tuple.get(0).toString(); // assume single field with correctly formatted doc op.
+            if (documentOperation.length() == 0) {
+                return;
+            }
+            data = documentOperation;
+        } else {
             return;
         }
 
@@ -149,18 +159,15 @@ public class VespaStorage extends StoreFunc {
     }
 
 
-    private String createDocumentOperation(Tuple tuple) throws IOException {
-        if (tuple == null || tuple.size() == 0) {
-            return null;
-        }
-        if (resourceSchema == null) {
-            return null;
-        }
-
-        Map<String, Object> fields = TupleTools.tupleMap(resourceSchema, tuple);
-        String docId = TupleTools.toString(fields, template);
+    private String createDocumentOperation(Tuple tuple) {
+        try {
+            Map<String, Object> fields = TupleTools.tupleMap(resourceSchema, tuple);
+            String docId = TupleTools.toString(fields, template);
 
-        return VespaDocumentOperation.create(operation, docId, fields, properties);
+            return VespaDocumentOperation.create(operation, docId, fields, properties);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 
@@ -58,6 +58,22 @@ public class VespaStorageTest {
     }
 
 
+    @Test
+    public void requireThatCreateOperationsFeedSucceedsWithConcurrentConversion() throws Exception {
+        Configuration conf = new HdfsConfiguration();
+        conf.set(VespaConfiguration.CONVERSION_THREADS, "4");
+        assertAllDocumentsOk("src/test/pig/feed_create_operations.pig", conf);
+    }
+
+
+    @Test
+    public void requireThatPremadeOperationsFeedSucceedsWithConcurrentConversion() throws Exception {
+        Configuration conf = new HdfsConfiguration();
+        conf.set(VespaConfiguration.CONVERSION_THREADS, "4");
+        assertAllDocumentsOk("src/test/pig/feed_operations.pig", conf);
+    }
+
+
     @Test
     public void requireThatCreateOperationsShortFormFeedSucceeds() throws Exception {
         assertAllDocumentsOk("src/test/pig/feed_create_operations_short_form.pig");
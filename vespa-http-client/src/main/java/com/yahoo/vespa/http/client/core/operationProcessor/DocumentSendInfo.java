@@ -9,18 +9,20 @@ import java.util.Map;
 
 /**
  * Keeps an overview of what is sent and what is received for an operation.
- * This class is NOT thread-safe.
+ * This class is NOT thread-safe, callers must synchronize on the instance when updating it.
  */
 class DocumentSendInfo {
 
     private final Document document;
+    private final long sequenceNumber;
     private final Map<Integer, Result.Detail> detailByClusterId = new HashMap<>();
     // This is lazily populated as normal cases does not require retries.
     private Map<Integer, Integer> attemptedRetriesByClusterId = null;
     private final StringBuilder localTrace;
 
-    DocumentSendInfo(Document document, boolean traceThisDoc) {
+    DocumentSendInfo(Document document, long sequenceNumber, boolean traceThisDoc) {
         this.document = document;
+        this.sequenceNumber = sequenceNumber;
         localTrace = traceThisDoc
                 ? new StringBuilder("\n" + document.createTimeMillis() + " Trace starting " + "\n")
                 : null;
@@ -70,4 +72,9 @@ class DocumentSendInfo {
         return document;
     }
 
+    /** Returns the order in which this operation was sent, relative to other operations of the same processor. */
+    long getSequenceNumber() {
+        return sequenceNumber;
+    }
+
 }
@@ -4,6 +4,8 @@ package com.yahoo.vespa.http.client.core.operationProcessor;
 import com.yahoo.vespa.http.client.core.ThrottlePolicy;
 
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Adjusts in-flight operations based on throughput. It will walk the graph and try to find
@@ -25,7 +27,9 @@ import java.util.concurrent.ThreadLocalRandom;
  * In case the where the queue is moved to minimum size, it will now and then increase queue size to get
  * more sample data and possibly grow size.
  *
- * Class is fully thread safe, i.e. all public methods are thread safe.
+ * Class is fully thread safe, i.e. all public methods are thread safe. Results are counted with atomics, and
+ * the adjustment at the end of a phase is done by whichever thread first sees the phase expire, while other
+ * threads carry on without waiting for it.
  *
  * @author dybis
  */
@@ -40,20 +44,21 @@ public class IncompleteResultsThrottler {
     public final long phaseSizeMs = 9000 + (ThreadLocalRandom.current().nextInt() % 2000);
     private final Clock clock;
 
-    private final Object monitor = new Object();
-    private long sampleStartTimeMs = 0;
+    // Set by the thread doing the adjustment, the fields below are only written while holding it.
+    private final AtomicBoolean adjusting = new AtomicBoolean(false);
+    private volatile long sampleStartTimeMs = 0;
     private int previousNumOk = 0;
     private int previousMaxInFlight = 0;
     private int stabilizingPhasesLeft = 0;
     private int adjustCycleCount = 0;
-    private int maxInFlightNow;
-    private int numOk = 0;
     private int minWindowSizeCounter = 0;
-    private int minPermitsAvailable = 0;
+    private volatile int maxInFlightNow;
+    private final AtomicInteger numOk = new AtomicInteger(0);
+    private final AtomicInteger minPermitsAvailable = new AtomicInteger(0);
 
     protected static int INITIAL_MAX_IN_FLIGHT_VALUE = 200;
     protected static int SECOND_MAX_IN_FLIGHT_VALUE = 270;
-    private StringBuilder debugMessage = new StringBuilder();
+    private volatile String debugMessage = "";
 
     /**
      * Creates the throttler.
@@ -83,17 +88,19 @@ public class IncompleteResultsThrottler {
         } catch (InterruptedException e) {
             // Ignore
         }
-        if (maxInFlightValue != minInFlightValue) {
-            synchronized (monitor) {
+        if (maxInFlightValue != minInFlightValue
+                && clock.getTimeMillis() >= sampleStartTimeMs + phaseSizeMs
+                && adjusting.compareAndSet(false, true)) {
+            try {
                 adjustThrottling();
+            } finally {
+                adjusting.set(false);
             }
         }
     }
 
     public String getDebugMessage() {
-        synchronized (monitor) {
-            return debugMessage.toString();
-        }
+        return debugMessage;
     }
 
     public interface Clock {
@@ -105,17 +112,13 @@ public class IncompleteResultsThrottler {
         if (!success) {
             return;
         }
-        synchronized (monitor) {
-            numOk++;
-            minPermitsAvailable = Math.min(minPermitsAvailable, blocker.availablePermits());
-        }
+        numOk.incrementAndGet();
+        minPermitsAvailable.accumulateAndGet(blocker.availablePermits(), Math::min);
     }
 
     // Only for testing
     protected int waitingThreads() {
-        synchronized (monitor) {
-            return maxInFlightNow - blocker.availablePermits();
-        }
+        return maxInFlightNow - blocker.availablePermits();
     }
 
     private double getCeilingDifferencePerformance(int adjustCycle) {
@@ -131,17 +134,17 @@ public class IncompleteResultsThrottler {
         stabilizingPhasesLeft = adjustCycleCount < 5 ? 1 : 2 + ThreadLocalRandom.current().nextInt() % 2;
 
         double maxPerformanceChange = getCeilingDifferencePerformance(adjustCycleCount);
-        boolean messagesQueued = minPermitsAvailable < 2;
+        boolean messagesQueued = minPermitsAvailable.get() < 2;
+        int numOkNow = numOk.get();
 
         int newMaxInFlight = policy.calcNewMaxInFlight(
-                maxPerformanceChange, numOk, previousNumOk, previousMaxInFlight, maxInFlightNow, messagesQueued);
-        debugMessage = new StringBuilder();
-        debugMessage.append("previousMaxInFlight: " + previousMaxInFlight
+                maxPerformanceChange, numOkNow, previousNumOk, previousMaxInFlight, maxInFlightNow, messagesQueued);
+        debugMessage = "previousMaxInFlight: " + previousMaxInFlight
                 + " maxInFlightNow: " + maxInFlightNow
-                + " numOk: " + numOk + " " + " previousOk: " + previousNumOk
-                + " new size is: " + newMaxInFlight);
+                + " numOk: " + numOkNow + " " + " previousOk: " + previousNumOk
+                + " new size is: " + newMaxInFlight;
         previousMaxInFlight = maxInFlightNow;
-        previousNumOk = numOk;
+        previousNumOk = numOkNow;
 
         setNewSemaphoreSize(adjustCycleCount == 1 ? SECOND_MAX_IN_FLIGHT_VALUE : newMaxInFlight);
     }
@@ -155,8 +158,8 @@ public class IncompleteResultsThrottler {
         if (stabilizingPhasesLeft-- == 0) {
             adjustCycle();
         }
-        numOk = 0;
-        this.minPermitsAvailable = maxInFlightNow;
+        numOk.set(0);
+        minPermitsAvailable.set(maxInFlightNow);
     }
 
     private int tryBoostingSizeIfMinValueOverSeveralCycles(final int size) {
@@ -166,7 +169,7 @@ public class IncompleteResultsThrottler {
             minWindowSizeCounter = 0;
         }
         if (minWindowSizeCounter == 4) {
-            debugMessage.append(" (inc max in flight to get more data)");
+            debugMessage += " (inc max in flight to get more data)";
             minWindowSizeCounter = 0;
             return size + 10;
         }
@@ -11,8 +11,11 @@ import com.yahoo.vespa.http.client.core.EndpointResult;
 import org.junit.Test;
 
 import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -351,6 +354,49 @@ public class OperationProcessorTest {
 
     }
 
+    @Test
+    public void testConcurrentResultsFromSeveralClusters() throws InterruptedException {
+        SessionParams sessionParams = new SessionParams.Builder()
+                .addCluster(new Cluster.Builder().addEndpoint(Endpoint.create("host")).build())
+                .addCluster(new Cluster.Builder().addEndpoint(Endpoint.create("host")).build())
+                .build();
+
+        Queue<Result> results = new ConcurrentLinkedQueue<>();
+        OperationProcessor operationProcessor = new OperationProcessor(
+                new IncompleteResultsThrottler(1000, 1000, null, null),
+                (docId, documentResult) -> results.add(documentResult),
+                sessionParams, null);
+
+        List<Document> documents = new ArrayList<>();
+        for (int x = 0; x < 200; x++) {
+            Document document = new Document("doc:a:b" + x, null, String.valueOf(x), null);
+            operationProcessor.sendDocument(document);
+            documents.add(document);
+        }
+        assertThat(operationProcessor.getIncompleteResultQueueSize(), is(200));
+
+        // Two threads per cluster, so every result is also received as a duplicate.
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int clusterId = thread % 2;
+            threads.add(new Thread(() -> {
+                for (Document document : documents) {
+                    operationProcessor.resultReceived(
+                            new EndpointResult(document.getOperationId(), new Result.Detail(Endpoint.create("host"))),
+                            clusterId);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(results.size(), is(200));
+        assertThat(operationProcessor.getIncompleteResultQueueSize(), is(0));
+        assertThat(operationProcessor.oldestIncompleteResultId(), is(Optional.empty()));
+    }
+
     @Test
     public void testWaitBlocks() throws InterruptedException {
         SessionParams sessionParams = new SessionParams.Builder()
@@ -2,13 +2,16 @@
 package com.yahoo.vespa.http.server;
 
 import com.yahoo.container.jdisc.HttpRequest;
-import com.yahoo.container.jdisc.HttpResponse;
+import com.yahoo.container.jdisc.ThreadedHttpRequestHandler;
 import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.documentapi.messagebus.protocol.DocumentMessage;
 import com.yahoo.documentapi.messagebus.protocol.DocumentProtocol;
 import com.yahoo.documentapi.metrics.DocumentOperationType;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.jdisc.ReferencedResource;
+import com.yahoo.jdisc.Response;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.jdisc.handler.ResponseHandler;
 import com.yahoo.log.LogLevel;
 import com.yahoo.messagebus.Message;
 import com.yahoo.messagebus.ReplyHandler;
@@ -21,14 +24,19 @@ import com.yahoo.vespa.http.client.core.OperationStatus;
 import com.yahoo.vespaxmlparser.VespaXMLFeedReader;
 import com.yahoo.yolean.Exceptions;
 
-import java.io.IOException;
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Optional;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Logger;
 
@@ -39,7 +47,8 @@ import static com.yahoo.messagebus.ErrorCode.SEND_QUEUE_FULL;
  *
  * The implementation is based on the code from V2, but the object model is rewritten to simplify the logic and
  * avoid using a threadpool that has no effect with all the extra that comes with it. V2 has one instance per thread
- * on the client, while this is one instance for all threads.
+ * on the client, while this is one instance for all threads. Each request is handled asynchronously by a
+ * {@link FeedRequestV3}.
  *
  * @author dybis
  */
@@ -60,7 +69,11 @@ class ClientFeederV3 {
     private final StreamReaderV3 streamReaderV3;
     private final AtomicInteger ongoingRequests = new AtomicInteger(0);
     private String hostName;
-    private AtomicInteger threadsAvailableForFeeding;
+    private final AtomicInteger requestsAvailableForFeeding;
+    private final Executor workers;
+    private final ScheduledExecutorService timer;
+    /** The open requests of this client which replies should be written to, guarded by monitor */
+    private final Set<FeedRequestV3> requestsReturningReplies = new LinkedHashSet<>();
 
     ClientFeederV3(
             ReferencedResource<SharedSourceSession> sourceSession,
@@ -69,12 +82,16 @@ class ClientFeederV3 {
             String clientId,
             Metric metric,
             ReplyHandler feedReplyHandler,
-            AtomicInteger threadsAvailableForFeeding) {
+            AtomicInteger requestsAvailableForFeeding,
+            Executor workers,
+            ScheduledExecutorService timer) {
         this.sourceSession = sourceSession;
         this.clientId = clientId;
         this.feedReplyHandler = feedReplyHandler;
         this.metric = metric;
-        this.threadsAvailableForFeeding = threadsAvailableForFeeding;
+        this.requestsAvailableForFeeding = requestsAvailableForFeeding;
+        this.workers = workers;
+        this.timer = timer;
         this.streamReaderV3 = new StreamReaderV3(feedReaderFactory, docTypeManager);
         this.hostName = HostName.getLocalhost();
     }
@@ -89,7 +106,7 @@ class ClientFeederV3 {
         // No new requests should be sent to this object, but there can be old one, even though this is very unlikely.
         while (ongoingRequests.get() > 0) {
             try {
-                ongoingRequests.wait(100);
+                Thread.sleep(100);
             } catch (InterruptedException e) {
                 break;
             }
@@ -97,68 +114,94 @@ class ClientFeederV3 {
         sourceSession.getReference().close();
     }
 
-    private void transferPreviousRepliesToResponse(BlockingQueue<OperationStatus> operations) throws InterruptedException {
-        OperationStatus status = feedReplies.poll();
-        while (status != null) {
-            outstandingOperations.decrementAndGet();
-            operations.put(status);
-            status = feedReplies.poll();
+    /**
+     * Starts handling a feed request from this client, and returns the channel the request content should be
+     * written to. Operations are sent as they are read from the content, and the replies to the operations of this
+     * client are written to the response of the request as they arrive, until all its operations are sent.
+     */
+    public ContentChannel handleRequest(HttpRequest request, ResponseHandler responseHandler) {
+        FeederSettings feederSettings = new FeederSettings(request);
+        /*
+         * The gateway handle overload from clients in different ways.
+         *
+         * If the backend is overloaded, but not the gateway, it will fill the backend, messagebus throttler
+         * will start to reject new documents and requests will wait for capacity until all requestsAvailableForFeeding
+         * are in use. However, as more requests are added, the gateway will not wait for messagebus but return
+         * transitive errors on the documents that can not be processed. These errors will cause the client(s) to
+         * back off a bit.
+         *
+         * However, we can also have the case that the gateway becomes the bottleneck (e.g. CPU). In this case
+         * we need to stop processing of new messages as early as possible and reject the request. This
+         * will cause the client(s) to back off for a while. We want some slack before we enter this mode.
+         * If we can simply transitively fail each document, it is nicer. Therefor we allow some requests to be
+         * busy processing with transitive errors before entering this mode. Since we already
+         * have flooded the backend, have several requests waiting for capacity, the number should
+         * not be very large. We try 10 for now. This should only kick in with very massive feeding to few gateway nodes.
+         */
+        if (feederSettings.denyIfBusy && requestsAvailableForFeeding.get() < -10) {
+            return new ErrorHttpResponse(getOverloadReturnCode(request), "Gateway overloaded").dispatch(request.getJDiscRequest(), responseHandler);
         }
-    }
 
-    public HttpResponse handleRequest(HttpRequest request) throws IOException {
-        threadsAvailableForFeeding.decrementAndGet();
+        requestsAvailableForFeeding.decrementAndGet();
         ongoingRequests.incrementAndGet();
-        try {
-            FeederSettings feederSettings = new FeederSettings(request);
-            /*
-             * The gateway handle overload from clients in different ways.
-             *
-             * If the backend is overloaded, but not the gateway, it will fill the backend, messagebus throttler
-             * will start to block new documents and finally all threadsAvailableForFeeding will be blocking.
-             * However, as more threads are added, the gateway will not block on messagebus but return
-             * transitive errors on the documents that can not be processed. These errors will cause the client(s) to
-             * back off a bit.
-             *
-             * However, we can also have the case that the gateway becomes the bottleneck (e.g. CPU). In this case
-             * we need to stop processing of new messages as early as possible and reject the request. This
-             * will cause the client(s) to back off for a while. We want some slack before we enter this mode.
-             * If we can simply transitively fail each document, it is nicer. Therefor we allow some threads to be
-             * busy processing requests with transitive errors before entering this mode. Since we already
-             * have flooded the backend, have several threads hanging and waiting for capacity, the number should
-             * not be very large. Too much slack can lead to too many threads handling feed and impacting query traffic.
-             * We try 10 for now. This should only kick in with very massive feeding to few gateway nodes.
-             */
-            if (feederSettings.denyIfBusy && threadsAvailableForFeeding.get() < -10) {
-                return new ErrorHttpResponse(getOverloadReturnCode(request), "Gateway overloaded");
+        FeedRequestV3 feedRequest = new FeedRequestV3(this,
+                                                      feederSettings,
+                                                      "gzip".equals(request.getHeader("content-encoding")),
+                                                      responseHandler,
+                                                      this::createResponse,
+                                                      request.getJDiscRequest().refer(),
+                                                      workers,
+                                                      timer);
+        // Handshake requests do not have DATA_FORMAT, we do not want to give responses to
+        // handshakes as it won't be processed by the client.
+        if (request.getJDiscRequest().headers().get(Headers.DATA_FORMAT) != null) {
+            synchronized (monitor) {
+                requestsReturningReplies.add(feedRequest);
             }
+        }
+        return feedRequest;
+    }
 
-            InputStream inputStream = StreamReaderV3.unzipStreamIfNeeded(request);
-            BlockingQueue<OperationStatus> replies = new LinkedBlockingQueue<>();
-            try {
-                feed(feederSettings, inputStream, replies, threadsAvailableForFeeding);
-                synchronized (monitor) {
-                    // Handshake requests do not have DATA_FORMAT, we do not want to give responses to
-                    // handshakes as it won't be processed by the client.
-                    if (request.getJDiscRequest().headers().get(Headers.DATA_FORMAT) != null) {
-                        transferPreviousRepliesToResponse(replies);
-                    }
-                }
-            } catch (InterruptedException e) {
-                // NOP, just terminate
-            } catch (Throwable e) {
-                log.log(LogLevel.WARNING, "Unhandled exception while feeding: "
-                        + Exceptions.toMessageString(e), e);
-            } finally {
-                replies.add(createOperationStatus("-", "-", ErrorCode.END_OF_FEED, false, null));
+    private Response createResponse() {
+        Response response = new Response(Response.Status.OK);
+        response.headers().add(Headers.SESSION_ID, clientId);
+        response.headers().add(Headers.VERSION, "3"); // protocol version
+        response.headers().add(Headers.OUTSTANDING_REQUESTS, Integer.toString(outstandingOperations.get()));
+        response.headers().add(Headers.HOSTNAME, hostName);
+        response.headers().add(ThreadedHttpRequestHandler.CONTENT_TYPE, "text/plain; charset=" + StandardCharsets.US_ASCII.name());
+        return response;
+    }
+
+    /** Called when all the operations of the given request are sent, to return the replies available now and respond */
+    void requestDone(FeedRequestV3 request) {
+        try {
+            synchronized (monitor) {
+                if (requestsReturningReplies.remove(request))
+                    request.write(takeReplies());
+                request.closeResponse();
             }
-            return new FeedResponse(200, replies, 3 /* protocol version */, clientId, outstandingOperations.get(), hostName);
-        } finally {
+        }
+        finally {
             ongoingRequests.decrementAndGet();
-            threadsAvailableForFeeding.incrementAndGet();
+            requestsAvailableForFeeding.incrementAndGet();
         }
     }
 
+    /** Writes the replies which have arrived to the response of some open request from this client, if any */
+    private void deliverReplies() {
+        synchronized (monitor) {
+            if (requestsReturningReplies.isEmpty() || feedReplies.isEmpty()) return;
+            requestsReturningReplies.iterator().next().write(takeReplies());
+        }
+    }
+
+    private List<OperationStatus> takeReplies() {
+        List<OperationStatus> replies = new ArrayList<>();
+        feedReplies.drainTo(replies);
+        outstandingOperations.addAndGet(-replies.size());
+        return replies;
+    }
+
     private int getOverloadReturnCode(HttpRequest request) {
         if (request.getHeader(Headers.SILENTUPGRADE) != null ) {
             return 299;
@@ -166,102 +209,49 @@ class ClientFeederV3 {
         return 429;
     }
 
-    private Optional<DocumentOperationMessageV3> pullMessageFromRequest(
-            FeederSettings settings, InputStream requestInputStream, BlockingQueue<OperationStatus> repliesFromOldMessages) {
-        while (true) {
-            Optional<String> operationId;
-            try {
-                operationId = streamReaderV3.getNextOperationId(requestInputStream);
-            } catch (IOException ioe) {
-                if (log.isLoggable(LogLevel.DEBUG)) {
-                    log.log(LogLevel.DEBUG, Exceptions.toMessageString(ioe), ioe);
-                }
-                return Optional.empty();
-            }
-            if (! operationId.isPresent()) {
-                return Optional.empty();
-            }
-
-            DocumentOperationMessageV3 message;
-            try {
-                message = getNextMessage(operationId.get(), requestInputStream, settings);
-            } catch (Exception e) {
-                if (log.isLoggable(LogLevel.DEBUG)) {
-                    log.log(LogLevel.DEBUG, Exceptions.toMessageString(e), e);
-                }
-                repliesFromOldMessages.add(new OperationStatus(
-                        Exceptions.toMessageString(e), operationId.get(), ErrorCode.ERROR, false, ""));
-
-                continue;
-            }
-            if (message != null)
-                setRoute(message, settings);
-            return Optional.ofNullable(message);
+    /** Returns the message of the given operation, ready to be sent, or null if it is the end of the feed */
+    DocumentOperationMessageV3 createMessage(String operationId, byte[] data, FeederSettings settings) throws Exception {
+        DocumentOperationMessageV3 message = getNextMessage(operationId, new ByteArrayInputStream(data), settings);
+        if (message != null) {
+            setRoute(message, settings);
+            setMessageParameters(message, settings);
         }
+        return message;
     }
 
-    private Result sendMessage(
-            FeederSettings settings,
-            DocumentOperationMessageV3 msg,
-            AtomicInteger threadsAvailableForFeeding) throws InterruptedException {
-        Result result = null;
-        while (result == null || result.getError().getCode() == SEND_QUEUE_FULL) {
+    /**
+     * Sends the given message without waiting, and returns whether it is done, or should be sent again later because
+     * the session has too much pending. Failures to send are written to the response of the given request.
+     */
+    boolean send(DocumentOperationMessageV3 msg, FeederSettings settings, FeedRequestV3 request) {
+        Result result;
+        try {
             msg.getMessage().pushHandler(feedReplyHandler);
-
-            if (settings.denyIfBusy && threadsAvailableForFeeding.get() < 1) {
-                return sourceSession.getResource().sendMessage(msg.getMessage());
-            } else {
-                result = sourceSession.getResource().sendMessageBlocking(msg.getMessage());
-            }
-            if (result.isAccepted()) {
-                return result;
-            }
-            Thread.sleep(100);
+            result = sourceSession.getResource().sendMessage(msg.getMessage());
+        } catch (RuntimeException e) {
+            request.reply(createOperationStatus(msg.getOperationId(), Exceptions.toMessageString(e),
+                                                ErrorCode.ERROR, false, msg.getMessage()));
+            return true;
         }
-        return result;
-    }
 
-    private void feed(
-            FeederSettings settings,
-            InputStream requestInputStream,
-            BlockingQueue<OperationStatus> repliesFromOldMessages,
-            AtomicInteger threadsAvailableForFeeding) throws InterruptedException {
-        while (true) {
-
-            Optional<DocumentOperationMessageV3> msg = pullMessageFromRequest(settings, requestInputStream, repliesFromOldMessages);
-
-            if (! msg.isPresent()) {
-                break;
-            }
-            setMessageParameters(msg.get(), settings);
-
-            Result result;
-            try {
-                result = sendMessage(settings, msg.get(), threadsAvailableForFeeding);
-
-            } catch  (RuntimeException e) {
-                repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(), Exceptions.toMessageString(e),
-                        ErrorCode.ERROR, false, msg.get().getMessage()));
-                continue;
-            }
-
-            if (result.isAccepted()) {
-                outstandingOperations.incrementAndGet();
-                updateOpsPerSec();
-                log(LogLevel.DEBUG, "Sent message successfully, document id: ", msg.get().getOperationId());
-            } else if (!result.getError().isFatal()) {
-                repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(), result.getError().getMessage(),
-                        ErrorCode.TRANSIENT_ERROR, false, msg.get().getMessage()));
-                continue;
-            } else {
-                // should probably not happen, but everybody knows stuff that
-                // shouldn't happen, happens all the time
-                boolean isConditionNotMet = result.getError().getCode() == DocumentProtocol.ERROR_TEST_AND_SET_CONDITION_FAILED;
-                repliesFromOldMessages.add(createOperationStatus(msg.get().getOperationId(), result.getError().getMessage(),
-                        ErrorCode.ERROR, isConditionNotMet, msg.get().getMessage()));
-                continue;
-            }
+        if (result.isAccepted()) {
+            outstandingOperations.incrementAndGet();
+            updateOpsPerSec();
+            log(LogLevel.DEBUG, "Sent message successfully, document id: ", msg.getOperationId());
+        } else if (result.getError().getCode() == SEND_QUEUE_FULL
+                   && ! (settings.denyIfBusy && requestsAvailableForFeeding.get() < 1)) {
+            return false;
+        } else if (!result.getError().isFatal()) {
+            request.reply(createOperationStatus(msg.getOperationId(), result.getError().getMessage(),
+                                                ErrorCode.TRANSIENT_ERROR, false, msg.getMessage()));
+        } else {
+            // should probably not happen, but everybody knows stuff that
+            // shouldn't happen, happens all the time
+            boolean isConditionNotMet = result.getError().getCode() == DocumentProtocol.ERROR_TEST_AND_SET_CONDITION_FAILED;
+            request.reply(createOperationStatus(msg.getOperationId(), result.getError().getMessage(),
+                                                ErrorCode.ERROR, isConditionNotMet, msg.getMessage()));
         }
+        return true;
     }
 
     private OperationStatus createOperationStatus(String id, String message,
@@ -273,10 +263,10 @@ class ClientFeederV3 {
     }
 
     // protected for mocking
-    /** Returns the next message in the stream, or null if none */
+    /** Returns the message of the operation in the given stream, or null if none */
     protected DocumentOperationMessageV3 getNextMessage(
-            String operationId, InputStream requestInputStream, FeederSettings settings) throws Exception {
-        VespaXMLFeedReader.Operation operation = streamReaderV3.getNextOperation(requestInputStream, settings);
+            String operationId, InputStream operationInputStream, FeederSettings settings) throws Exception {
+        VespaXMLFeedReader.Operation operation = streamReaderV3.getNextOperation(operationInputStream, settings);
 
         // This is a bit hard to set up while testing, so we accept that things are not perfect.
         if (sourceSession.getResource().session() != null) {
@@ -297,7 +287,9 @@ class ClientFeederV3 {
     }
 
     private void setMessageParameters(DocumentOperationMessageV3 msg, FeederSettings settings) {
-        msg.getMessage().setContext(new ReplyContext(msg.getOperationId(), feedReplies, DocumentOperationType.fromMessage(msg.getMessage())));
+        msg.getMessage().setContext(new ReplyContext(msg.getOperationId(), feedReplies,
+                                                     DocumentOperationType.fromMessage(msg.getMessage()),
+                                                     this::deliverReplies));
         if (settings.traceLevel != null) {
             msg.getMessage().getTrace().setLevel(settings.traceLevel);
         }
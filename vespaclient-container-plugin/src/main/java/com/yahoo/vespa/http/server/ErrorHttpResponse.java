@@ -2,10 +2,18 @@
 package com.yahoo.vespa.http.server;
 
 import com.yahoo.container.jdisc.HttpResponse;
+import com.yahoo.container.jdisc.ThreadedHttpRequestHandler;
+import com.yahoo.jdisc.Request;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.jdisc.handler.ResponseDispatch;
+import com.yahoo.jdisc.handler.ResponseHandler;
+import com.yahoo.jdisc.http.server.jetty.AccessLoggingRequestHandler;
 import com.yahoo.text.Utf8;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
 
 public class ErrorHttpResponse extends HttpResponse {
 
@@ -21,4 +29,31 @@ public class ErrorHttpResponse extends HttpResponse {
         outputStream.write(Utf8.toBytes(msg));
     }
 
+    /**
+     * Sends this as the response to a request handled asynchronously,
+     * and returns a content channel which discards the content of the request.
+     */
+    ContentChannel dispatch(Request request, ResponseHandler responseHandler) {
+        if (request instanceof com.yahoo.jdisc.http.HttpRequest)
+            AccessLoggingRequestHandler.getAccessLogEntry((com.yahoo.jdisc.http.HttpRequest) request)
+                                       .ifPresent(this::populateAccessLogEntry);
+        headers().put(ThreadedHttpRequestHandler.CONTENT_TYPE, getContentType() + "; charset=" + getCharacterEncoding());
+        ResponseDispatch.newInstance(getJdiscResponse(), ByteBuffer.wrap(Utf8.toBytes(msg))).dispatch(responseHandler);
+        return new DiscardingContentChannel();
+    }
+
+    private static class DiscardingContentChannel implements ContentChannel {
+
+        @Override
+        public void write(ByteBuffer buf, CompletionHandler handler) {
+            if (handler != null) handler.completed();
+        }
+
+        @Override
+        public void close(CompletionHandler handler) {
+            if (handler != null) handler.completed();
+        }
+
+    }
+
 }
@@ -2,57 +2,68 @@
 package com.yahoo.vespa.http.server;
 
 import com.yahoo.collections.Tuple2;
+import com.yahoo.concurrent.CopyOnWriteHashMap;
 import com.yahoo.container.handler.ThreadpoolConfig;
-import com.yahoo.container.jdisc.HttpRequest;
 import com.yahoo.container.jdisc.HttpResponse;
-import com.yahoo.container.jdisc.LoggingRequestHandler;
 import com.yahoo.container.jdisc.messagebus.SessionCache;
 import com.yahoo.document.config.DocumentmanagerConfig;
 import com.yahoo.documentapi.metrics.DocumentApiMetrics;
+import com.yahoo.jdisc.Metric;
+import com.yahoo.jdisc.Request;
+import com.yahoo.jdisc.application.BindingMatch;
+import com.yahoo.jdisc.handler.AbstractRequestHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.jdisc.handler.ResponseHandler;
 import com.yahoo.messagebus.ReplyHandler;
 import com.yahoo.metrics.simple.MetricReceiver;
 import com.yahoo.vespa.http.client.core.Headers;
 
 import javax.inject.Inject;
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
-import java.util.zip.GZIPInputStream;
 
 /**
  * Accept feeds from outside of the Vespa cluster.
+ * <p>
+ * Requests are handled asynchronously by FeedHandlerV3 on the given executor, which is the container's request
+ * executor. Like other request handlers, this counts handled requests per handler binding, and populates the
+ * access log entry of the request with the log values of error responses.
  *
  * @author Steinar Knutsen
  */
-public class FeedHandler extends LoggingRequestHandler {
+public class FeedHandler extends AbstractRequestHandler {
 
     protected final ReplyHandler feedReplyHandler;
     private static final List<Integer> serverSupportedVersions = Collections.unmodifiableList(Arrays.asList(3));
     private static final Pattern USER_AGENT_PATTERN = Pattern.compile("vespa-http-client \\((.+)\\)");
     private final FeedHandlerV3 feedHandlerV3;
     private final DocumentApiMetrics metricsHelper;
+    private final Metric metric;
+    private final Map<String, Metric.Context> handlerContexts = new CopyOnWriteHashMap<>();
 
     @Inject
     public FeedHandler(
-            LoggingRequestHandler.Context parentCtx,
+            Executor executor,
+            Metric metric,
             DocumentmanagerConfig documentManagerConfig,
             SessionCache sessionCache,
             ThreadpoolConfig threadpoolConfig,
             MetricReceiver metricReceiver) throws Exception {
-        super(parentCtx);
+        this.metric = metric;
         metricsHelper = new DocumentApiMetrics(metricReceiver, "vespa.http.server");
-        feedHandlerV3 = new FeedHandlerV3(parentCtx, documentManagerConfig, sessionCache, threadpoolConfig, metricsHelper);
-        feedReplyHandler = new FeedReplyReader(parentCtx.getMetric(), metricsHelper);
+        feedHandlerV3 = new FeedHandlerV3(metric, documentManagerConfig, sessionCache, threadpoolConfig, metricsHelper, executor);
+        feedReplyHandler = new FeedReplyReader(metric, metricsHelper);
     }
 
-    private Tuple2<HttpResponse, Integer> checkProtocolVersion(HttpRequest request) {
-        return doCheckProtocolVersion(request.getJDiscRequest().headers().get(Headers.VERSION));
+    private Tuple2<HttpResponse, Integer> checkProtocolVersion(Request request) {
+        return doCheckProtocolVersion(request.headers().get(Headers.VERSION));
     }
 
     static Tuple2<HttpResponse, Integer> doCheckProtocolVersion(List<String> clientSupportedVersions) {
@@ -103,38 +114,34 @@ public class FeedHandler extends LoggingRequestHandler {
     }
 
     @Override
-    public HttpResponse handle(HttpRequest request) {
+    public ContentChannel handleRequest(Request request, ResponseHandler responseHandler) {
+        metric.add("handled.requests", 1, contextFor(request.getBindingMatch()));
         metricsHelper.reportHttpRequest(findClientVersion(request).orElse(null));
         Tuple2<HttpResponse, Integer> protocolVersion = checkProtocolVersion(request);
 
         if (protocolVersion.first != null) {
-            return protocolVersion.first;
+            return ((ErrorHttpResponse) protocolVersion.first).dispatch(request, responseHandler);
         }
-        return feedHandlerV3.handle(request);
+        return feedHandlerV3.handleRequest(request, responseHandler);
     }
 
-    private static Optional<String> findClientVersion(HttpRequest request) {
-        String versionHeader = request.getHeader(Headers.CLIENT_VERSION);
+    private Metric.Context contextFor(BindingMatch<?> match) {
+        if (match == null || match.matched() == null) return null;
+        return handlerContexts.computeIfAbsent(match.matched().toString(),
+                                               name -> metric.createContext(Collections.singletonMap("handler", name)));
+    }
+
+    private static Optional<String> findClientVersion(Request request) {
+        String versionHeader = request.headers().getFirst(Headers.CLIENT_VERSION);
         if (versionHeader != null) {
             return Optional.of(versionHeader);
         }
-        return Optional.ofNullable(request.getHeader("User-Agent"))
+        return Optional.ofNullable(request.headers().getFirst("User-Agent"))
                 .map(USER_AGENT_PATTERN::matcher)
                 .filter(Matcher::matches)
                 .map(matcher -> matcher.group(1));
     }
 
-    // Protected for testing
-    protected static InputStream unzipStreamIfNeeded(InputStream inputStream, HttpRequest httpRequest)
-            throws IOException {
-        String contentEncodingHeader = httpRequest.getHeader("content-encoding");
-        if ("gzip".equals(contentEncodingHeader)) {
-            return new GZIPInputStream(inputStream);
-        } else {
-            return inputStream;
-        }
-    }
-
     @Override
     protected void destroy() {
         feedHandlerV3.destroy();
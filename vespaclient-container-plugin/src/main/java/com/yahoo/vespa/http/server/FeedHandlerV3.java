@@ -4,15 +4,16 @@ package com.yahoo.vespa.http.server;
 import com.yahoo.concurrent.ThreadFactoryFactory;
 import com.yahoo.container.handler.ThreadpoolConfig;
 import com.yahoo.container.jdisc.HttpRequest;
-import com.yahoo.container.jdisc.HttpResponse;
-import com.yahoo.container.jdisc.LoggingRequestHandler;
 import com.yahoo.container.jdisc.messagebus.SessionCache;
-import com.yahoo.container.logging.AccessLog;
 import com.yahoo.document.DocumentTypeManager;
 import com.yahoo.document.config.DocumentmanagerConfig;
 import com.yahoo.documentapi.metrics.DocumentApiMetrics;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.jdisc.ReferencedResource;
+import com.yahoo.jdisc.Request;
+import com.yahoo.jdisc.handler.AbstractRequestHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.jdisc.handler.ResponseHandler;
 import com.yahoo.log.LogLevel;
 import com.yahoo.messagebus.ReplyHandler;
 import com.yahoo.messagebus.SourceSessionParams;
@@ -20,6 +21,7 @@ import com.yahoo.messagebus.shared.SharedSourceSession;
 import com.yahoo.vespa.http.client.core.Headers;
 import com.yahoo.yolean.Exceptions;
 
+import java.io.ByteArrayInputStream;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
@@ -33,40 +35,46 @@ import java.util.logging.Logger;
  * This code is based on v2 code, however, in v3, one client has one ClientFeederV3 shared between all client threads.
  * The new API has more logic for shutting down cleanly as the server is more likely to be upgraded.
  * The code is restructured a bit.
- * 
+ * <p>
+ * Requests are handled asynchronously: No thread is held while waiting for request content, for capacity
+ * to send operations, or for replies. Operations are parsed and sent by tasks run by the given executor, which is
+ * the container's request executor, so the number of concurrent feed requests is not limited by its number of threads.
+ *
  * @author dybis
  */
-public class FeedHandlerV3 extends LoggingRequestHandler {
+public class FeedHandlerV3 extends AbstractRequestHandler {
 
     private DocumentTypeManager docTypeManager;
     private final Map<String, ClientFeederV3> clientFeederByClientId = new HashMap<>();
     private final ScheduledThreadPoolExecutor cron;
+    private final Executor workers;
     private final SessionCache sessionCache;
     protected final ReplyHandler feedReplyHandler;
     private final Metric metric;
     private final Object monitor = new Object();
-    private final AtomicInteger threadsAvailableForFeeding;
+    private final AtomicInteger requestsAvailableForFeeding;
     private static final Logger log = Logger.getLogger(FeedHandlerV3.class.getName());
 
     public FeedHandlerV3(
-            LoggingRequestHandler.Context parentCtx,
+            Metric metric,
             DocumentmanagerConfig documentManagerConfig,
             SessionCache sessionCache,
             ThreadpoolConfig threadpoolConfig,
-            DocumentApiMetrics metricsHelper) throws Exception {
-        super(parentCtx);
+            DocumentApiMetrics metricsHelper,
+            Executor workers) throws Exception {
         docTypeManager = new DocumentTypeManager(documentManagerConfig);
         this.sessionCache = sessionCache;
-        feedReplyHandler = new FeedReplyReader(parentCtx.getMetric(), metricsHelper);
+        feedReplyHandler = new FeedReplyReader(metric, metricsHelper);
         cron = new ScheduledThreadPoolExecutor(1, ThreadFactoryFactory.getThreadFactory("feedhandlerv3.cron"));
         cron.scheduleWithFixedDelay(this::removeOldClients, 16, 11, TimeUnit.MINUTES);
-        this.metric = parentCtx.getMetric();
-        // 40% of the threads can be blocking on feeding before we deny requests.
+        this.workers = workers;
+        this.metric = metric;
+        // 40% of the container threads can be waiting to feed before we deny requests.
         if (threadpoolConfig != null) {
-            threadsAvailableForFeeding = new AtomicInteger(Math.max((int) (0.4 * threadpoolConfig.maxthreads()), 1));
+            requestsAvailableForFeeding = new AtomicInteger(Math.max((int) (0.4 * threadpoolConfig.maxthreads()), 1));
         } else {
-            log.warning("No config for threadpool, using 200 for max blocking threads for feeding.");
-            threadsAvailableForFeeding = new AtomicInteger(200);
+            log.warning("No config for threadpool, using 200 for max concurrent requests for feeding.");
+            requestsAvailableForFeeding = new AtomicInteger(200);
         }
     }
 
@@ -74,11 +82,17 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
         this.docTypeManager = docTypeManager;
     }
 
-    // TODO: If this is set up to run without first invoking the old FeedHandler code, we should
-    // verify the version header first. This is done in the old code.
     @Override
-    public HttpResponse handle(HttpRequest request) {
-        final String clientId = clientId(request);
+    public ContentChannel handleRequest(Request jdiscRequest, ResponseHandler responseHandler) {
+        HttpRequest request = new HttpRequest((com.yahoo.jdisc.http.HttpRequest) jdiscRequest,
+                                              new ByteArrayInputStream(new byte[0]));
+        String clientId = clientId(request);
+        if (clientId == null) {
+            return new ErrorHttpResponse(com.yahoo.jdisc.http.HttpResponse.Status.BAD_REQUEST,
+                                         "Did not get any CLIENT_ID header (" + Headers.CLIENT_ID + ")")
+                    .dispatch(jdiscRequest, responseHandler);
+        }
+
         final ClientFeederV3 clientFeederV3;
         synchronized (monitor) {
             if (! clientFeederByClientId.containsKey(clientId)) {
@@ -92,20 +106,19 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
                                 clientId,
                                 metric,
                                 feedReplyHandler,
-                                threadsAvailableForFeeding));
+                                requestsAvailableForFeeding,
+                                workers,
+                                cron));
             }
             clientFeederV3 = clientFeederByClientId.get(clientId);
         }
         try {
-            return clientFeederV3.handleRequest(request);
-        } catch (UnknownClientException uce) {
-            String msg = Exceptions.toMessageString(uce);
-            log.log(LogLevel.WARNING, msg);
-            return new ErrorHttpResponse(com.yahoo.jdisc.http.HttpResponse.Status.BAD_REQUEST, msg);
+            return clientFeederV3.handleRequest(request, responseHandler);
         } catch (Exception e) {
             String msg = "Could not initialize document parsing: " + Exceptions.toMessageString(e);
             log.log(LogLevel.WARNING, msg);
-            return new ErrorHttpResponse(com.yahoo.jdisc.http.HttpResponse.Status.INTERNAL_SERVER_ERROR, msg);
+            return new ErrorHttpResponse(com.yahoo.jdisc.http.HttpResponse.Status.INTERNAL_SERVER_ERROR, msg)
+                    .dispatch(jdiscRequest, responseHandler);
         }
     }
 
@@ -121,13 +134,13 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
         // and started destructing something that required something only the messenger thread could provide.
         Thread destroyer = new Thread(() -> {
             super.destroy();
-            cron.shutdown();
             synchronized (monitor) {
                 for (ClientFeederV3 client : clientFeederByClientId.values()) {
                     client.kill();
                 }
                 clientFeederByClientId.clear();
             }
+            cron.shutdown();
         });
         destroyer.setDaemon(true);
         destroyer.start();
@@ -135,8 +148,8 @@ public class FeedHandlerV3 extends LoggingRequestHandler {
 
     private String clientId(HttpRequest request) {
         String clientDictatedId = request.getHeader(Headers.CLIENT_ID);
-        if (clientDictatedId == null ||  clientDictatedId.isEmpty()) {
-            throw new IllegalArgumentException("Did not get any CLIENT_ID header (" + Headers.CLIENT_ID + ")");
+        if (clientDictatedId == null || clientDictatedId.isEmpty()) {
+            return null;
         }
         return clientDictatedId;
     }
@@ -61,6 +61,7 @@ public class FeedReplyReader implements ReplyHandler {
             String traceMessage = (trace != null && trace.getLevel() > 0) ? trace.toString() : "";
 
             context.feedReplies.put(new OperationStatus(message, context.docId, status, isConditionNotMet, traceMessage));
+            context.replyListener.run();
         } catch (InterruptedException e) {
             log.log(LogLevel.WARNING, 
                     "Interrupted while enqueueing result from putting document with id: " + context.docId);
@@ -0,0 +1,282 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.server;
+
+import com.yahoo.jdisc.ResourceReference;
+import com.yahoo.jdisc.Response;
+import com.yahoo.jdisc.handler.CompletionHandler;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.jdisc.handler.ResponseHandler;
+import com.yahoo.log.LogLevel;
+import com.yahoo.vespa.http.client.core.ErrorCode;
+import com.yahoo.vespa.http.client.core.OperationStatus;
+import com.yahoo.vespa.http.server.util.GzipDecoder;
+import com.yahoo.yolean.Exceptions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import java.util.zip.ZipException;
+
+/**
+ * A feed request from a client, which is handled without holding any thread while waiting:
+ * The request content is split into operations as it arrives, and the operations are parsed and sent on a worker
+ * thread, one at a time and in order. An operation which can not be sent because the session has too much pending
+ * is retried after a short delay. Replies to the operations of the client are written to the response as they arrive,
+ * until all operations in the request are sent.
+ *
+ * @author agent
+ */
+class FeedRequestV3 implements ContentChannel {
+
+    private static final Logger log = Logger.getLogger(FeedRequestV3.class.getName());
+
+    /** The delay before retrying to send a message when the session has too much pending */
+    private static final long retryDelayMillis = 10;
+
+    private final ClientFeederV3 feeder;
+    private final FeederSettings settings;
+    private final ResponseHandler responseHandler;
+    private final Supplier<Response> responseFactory;
+    private final ResourceReference requestReference;
+    private final Executor workers;
+    private final ScheduledExecutorService timer;
+
+    // Request content state, guarded by this
+    private final OperationFramerV3 framer;
+    private final GzipDecoder gzipDecoder;
+
+    // Sending state. Only one worker sends the operations of a request at any time, as guarded by working
+    private final Queue<OperationFramerV3.Frame> frames = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean working = new AtomicBoolean(false);
+    private final AtomicBoolean finished = new AtomicBoolean(false);
+    private volatile boolean contentClosed = false;
+    private DocumentOperationMessageV3 waitingMessage = null;
+    private boolean endOfFeed = false;
+
+    // Response state, guarded by responseMonitor
+    private final Object responseMonitor = new Object();
+    private ContentChannel response = null;
+
+    FeedRequestV3(ClientFeederV3 feeder, FeederSettings settings, boolean gzipped,
+                  ResponseHandler responseHandler, Supplier<Response> responseFactory,
+                  ResourceReference requestReference, Executor workers, ScheduledExecutorService timer) {
+        this.feeder = feeder;
+        this.settings = settings;
+        this.responseHandler = responseHandler;
+        this.responseFactory = responseFactory;
+        this.requestReference = requestReference;
+        this.workers = workers;
+        this.timer = timer;
+        this.framer = new OperationFramerV3(frames::add);
+        this.gzipDecoder = gzipped ? new GzipDecoder() : null;
+    }
+
+    @Override
+    public void write(ByteBuffer buf, CompletionHandler handler) {
+        try {
+            synchronized (this) {
+                if (gzipDecoder == null)
+                    framer.append(buf);
+                else if ( ! framer.isAtEnd())
+                    gzipDecoder.decode(buf, framer::append);
+            }
+        }
+        catch (ZipException e) {
+            log.log(LogLevel.WARNING, "Could not decompress feed request content: " + Exceptions.toMessageString(e));
+            synchronized (this) {
+                framer.close(); // Ignore the rest of the content
+            }
+        }
+        finally {
+            if (handler != null) handler.completed();
+        }
+        scheduleSending();
+    }
+
+    @Override
+    public void close(CompletionHandler handler) {
+        synchronized (this) {
+            framer.close();
+        }
+        if (handler != null) handler.completed();
+        contentClosed = true;
+        scheduleSending();
+    }
+
+    private void scheduleSending() {
+        if ( ! working.compareAndSet(false, true)) return;
+        try {
+            workers.execute(this::sendOperations);
+        }
+        catch (RejectedExecutionException e) { // Shutting down, or the container executor is full
+            abandon();
+        }
+    }
+
+    private void retryLater() {
+        try {
+            timer.schedule(() -> {
+                try {
+                    workers.execute(this::sendOperations);
+                }
+                catch (RejectedExecutionException e) {
+                    abandon();
+                }
+            }, retryDelayMillis, TimeUnit.MILLISECONDS);
+        }
+        catch (RejectedExecutionException e) {
+            abandon();
+        }
+    }
+
+    private void abandon() {
+        frames.clear();
+        waitingMessage = null;
+        working.set(false);
+        finishIfDone();
+    }
+
+    private void sendOperations() {
+        do {
+            if ( ! sendPending()) return; // A retry is scheduled, which continues where this left off
+            working.set(false);
+        } while ( ! frames.isEmpty() && working.compareAndSet(false, true));
+        finishIfDone();
+    }
+
+    /** Sends all pending operations in order, and returns false if sending must wait for the session to have capacity */
+    private boolean sendPending() {
+        if (waitingMessage != null) {
+            if ( ! feeder.send(waitingMessage, settings, this)) {
+                retryLater();
+                return false;
+            }
+            waitingMessage = null;
+        }
+
+        OperationFramerV3.Frame frame;
+        while ((frame = frames.poll()) != null) {
+            if (endOfFeed) continue;
+
+            if (frame.error != null) {
+                reply(new OperationStatus(frame.error, frame.operationId, ErrorCode.ERROR, false, ""));
+                continue;
+            }
+
+            DocumentOperationMessageV3 message;
+            try {
+                message = feeder.createMessage(frame.operationId, frame.data, settings);
+            }
+            catch (Exception e) {
+                if (log.isLoggable(LogLevel.DEBUG)) {
+                    log.log(LogLevel.DEBUG, Exceptions.toMessageString(e), e);
+                }
+                reply(new OperationStatus(Exceptions.toMessageString(e), frame.operationId, ErrorCode.ERROR, false, ""));
+                continue;
+            }
+            if (message == null) { // typical end of feed
+                endOfFeed = true;
+                continue;
+            }
+
+            if ( ! feeder.send(message, settings, this)) {
+                waitingMessage = message;
+                retryLater();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void finishIfDone() {
+        if ( ! contentClosed || ! frames.isEmpty() || working.get()) return;
+        if ( ! finished.compareAndSet(false, true)) return;
+
+        try {
+            feeder.requestDone(this);
+        }
+        finally {
+            if (gzipDecoder != null) {
+                synchronized (this) {
+                    gzipDecoder.close();
+                }
+            }
+            requestReference.close();
+        }
+    }
+
+    /** Writes the status of an operation in this request to the response */
+    void reply(OperationStatus status) {
+        write(Collections.singletonList(status));
+    }
+
+    /** Writes the given operation statuses to the response */
+    void write(List<OperationStatus> statuses) {
+        if (statuses.isEmpty()) return;
+
+        StringBuilder rendered = new StringBuilder();
+        for (OperationStatus status : statuses)
+            rendered.append(status.render());
+        ByteBuffer content = ByteBuffer.wrap(rendered.toString().getBytes(StandardCharsets.US_ASCII)); // render ensures ASCII only
+        synchronized (responseMonitor) {
+            response().write(content, completionHandler);
+        }
+    }
+
+    /** Completes the response. No more statuses can be written after this. */
+    void closeResponse() {
+        synchronized (responseMonitor) {
+            response().close(completionHandler);
+        }
+    }
+
+    /** Returns the channel of the response, which is dispatched the first time this is called */
+    private ContentChannel response() {
+        if (response == null) {
+            try {
+                response = responseHandler.handleResponse(responseFactory.get());
+            }
+            catch (RuntimeException e) {
+                log.log(LogLevel.DEBUG, "Could not respond to feed request - connection probably terminated by client", e);
+                response = new DevNullChannel();
+            }
+        }
+        return response;
+    }
+
+    private static final CompletionHandler completionHandler = new CompletionHandler() {
+
+        @Override
+        public void completed() { }
+
+        @Override
+        public void failed(Throwable t) {
+            if (log.isLoggable(LogLevel.DEBUG)) {
+                log.log(LogLevel.DEBUG, "Error writing feed response to client - connection probably terminated " +
+                                        "from client side.", t);
+            }
+        }
+
+    };
+
+    private static class DevNullChannel implements ContentChannel {
+
+        @Override
+        public void write(ByteBuffer buf, CompletionHandler handler) { }
+
+        @Override
+        public void close(CompletionHandler handler) { }
+
+    }
+
+}
@@ -0,0 +1,146 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.server;
+
+import com.yahoo.vespa.http.client.core.Encoder;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Splits the content of a feed request into operations as the content arrives, without waiting for more of it.
+ * Each operation is written by the client as its id, a space, the length of its data in hex, a newline,
+ * and then the data.
+ * <p>
+ * This is not thread safe.
+ *
+ * @author agent
+ */
+class OperationFramerV3 {
+
+    /** The initial size of the buffer holding the data of an operation, to avoid trusting huge lengths up front */
+    private static final int maxInitialDataSize = 64 * 1024;
+
+    private enum State { ID, LENGTH, DATA, END }
+
+    private final Consumer<Frame> frames;
+    private final StringBuilder token = new StringBuilder(100);
+
+    private State state = State.ID;
+    private String operationId;
+    private byte[] data;
+    private int dataLength;
+    private int dataRead;
+
+    /** Creates a framer which passes each complete operation to the given consumer */
+    OperationFramerV3(Consumer<Frame> frames) {
+        this.frames = frames;
+    }
+
+    /** Reads the given content, passing on all the operations which are completed by it */
+    void append(ByteBuffer content) {
+        while (content.hasRemaining() && state != State.END) {
+            switch (state) {
+                case ID: readId(content); break;
+                case LENGTH: readLength(content); break;
+                case DATA: readData(content); break;
+            }
+        }
+    }
+
+    /** Signals that there is no more content, which passes on any incomplete operation as it is */
+    void close() {
+        if (state == State.ID && token.length() > 0)
+            frames.accept(new Frame(decode(token), null, "Operation length missing."));
+        else if (state == State.DATA)
+            frames.accept(new Frame(operationId, Arrays.copyOf(data, dataRead), null));
+        else if (state == State.LENGTH)
+            frames.accept(new Frame(operationId, null, "Operation length missing."));
+        state = State.END;
+    }
+
+    /** Returns whether this has seen the end of the feed. No more operations are passed on after this. */
+    boolean isAtEnd() { return state == State.END; }
+
+    private void readId(ByteBuffer content) {
+        byte b = content.get();
+        if (b != ' ') {
+            token.append((char) (b & 0xff)); // it's ASCII
+            return;
+        }
+        if (token.length() == 0) { // An empty id marks the end of the feed
+            state = State.END;
+            return;
+        }
+        operationId = decode(token);
+        token.setLength(0);
+        state = State.LENGTH;
+    }
+
+    private void readLength(ByteBuffer content) {
+        byte b = content.get();
+        if (b != '\n') {
+            token.append((char) (b & 0xff)); // it's ASCII
+            return;
+        }
+        String length = token.toString();
+        token.setLength(0);
+        state = State.ID;
+        if (length.isEmpty()) {
+            frames.accept(new Frame(operationId, null, "Operation length missing."));
+            return;
+        }
+        try {
+            dataLength = Integer.parseInt(length, 16);
+        }
+        catch (NumberFormatException e) {
+            frames.accept(new Frame(operationId, null, "Invalid operation length '" + length + "'"));
+            return;
+        }
+        if (dataLength < 0) {
+            frames.accept(new Frame(operationId, null, "Invalid operation length '" + length + "'"));
+            return;
+        }
+        data = new byte[Math.min(dataLength, maxInitialDataSize)];
+        dataRead = 0;
+        state = State.DATA;
+        if (dataLength == 0)
+            completeData();
+    }
+
+    private void readData(ByteBuffer content) {
+        int length = Math.min(content.remaining(), dataLength - dataRead);
+        if (dataRead + length > data.length)
+            data = Arrays.copyOf(data, Math.min(dataLength, Math.max(dataRead + length, data.length * 2)));
+        content.get(data, dataRead, length);
+        dataRead += length;
+        if (dataRead == dataLength)
+            completeData();
+    }
+
+    private static String decode(StringBuilder id) {
+        return Encoder.decode(id.toString(), new StringBuilder(id.length())).toString();
+    }
+
+    private void completeData() {
+        frames.accept(new Frame(operationId, data, null));
+        data = null;
+        state = State.ID;
+    }
+
+    /** The id and data of one operation, or the reason it could not be read */
+    static class Frame {
+
+        final String operationId;
+        final byte[] data;
+        final String error;
+
+        Frame(String operationId, byte[] data, String error) {
+            this.operationId = operationId;
+            this.data = data;
+            this.error = error;
+        }
+
+    }
+
+}
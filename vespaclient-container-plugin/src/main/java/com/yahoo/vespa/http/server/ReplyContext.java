@@ -17,11 +17,19 @@ public class ReplyContext {
     public DocumentOperationType documentOperationType;
     public final BlockingQueue<OperationStatus> feedReplies;
     public final long creationTime;
+    /** Called after each reply is added to feedReplies */
+    public final Runnable replyListener;
 
     public ReplyContext(String docId, BlockingQueue<OperationStatus> feedReplies, DocumentOperationType documentOperationType) {
+        this(docId, feedReplies, documentOperationType, () -> {});
+    }
+
+    public ReplyContext(String docId, BlockingQueue<OperationStatus> feedReplies,
+                        DocumentOperationType documentOperationType, Runnable replyListener) {
         this.docId = docId;
         this.feedReplies = feedReplies;
         this.creationTime = System.currentTimeMillis();
+        this.replyListener = replyListener;
     }
 
 }
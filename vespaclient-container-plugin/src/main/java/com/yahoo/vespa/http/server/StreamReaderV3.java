@@ -1,21 +1,17 @@
 // Copyright 2017 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
 package com.yahoo.vespa.http.server;
 
-import com.yahoo.container.jdisc.HttpRequest;
 import com.yahoo.document.DocumentTypeManager;
-import com.yahoo.vespa.http.client.core.Encoder;
-import com.yahoo.vespa.http.server.util.ByteLimitedInputStream;
 import com.yahoo.vespaxmlparser.FeedReader;
 import com.yahoo.vespaxmlparser.VespaXMLFeedReader;
 
-import java.io.IOException;
 import java.io.InputStream;
-import java.util.Optional;
 import java.util.logging.Logger;
-import java.util.zip.GZIPInputStream;
 
 /**
  * This code is based on v2 code, but restructured so stream reading code is in one dedicated class.
+ * Splitting the request content into operations is done by {@link OperationFramerV3}, this parses each of them.
+ *
  * @author dybis
  */
 public class StreamReaderV3 {
@@ -30,57 +26,16 @@ public class StreamReaderV3 {
         this.docTypeManager = docTypeManager;
     }
 
+    /** Parses the data of a single operation, which is all the content of the given stream */
     public VespaXMLFeedReader.Operation getNextOperation(
-            InputStream requestInputStream, FeederSettings settings) throws Exception {
+            InputStream operationInputStream, FeederSettings settings) throws Exception {
         VespaXMLFeedReader.Operation op = new VespaXMLFeedReader.Operation();
 
-        int length = readByteLength(requestInputStream);
-
-        try (InputStream limitedInputStream = new ByteLimitedInputStream(requestInputStream, length)){
-            FeedReader reader = feedReaderFactory.createReader(limitedInputStream, docTypeManager, settings.dataFormat);
+        try (InputStream inputStream = operationInputStream) {
+            FeedReader reader = feedReaderFactory.createReader(inputStream, docTypeManager, settings.dataFormat);
             reader.read(op);
         }
         return op;
     }
 
-    public Optional<String> getNextOperationId(InputStream requestInputStream) throws IOException {
-        StringBuilder idBuf = new StringBuilder(100);
-        int c;
-        while ((c = requestInputStream.read()) != -1) {
-            if (c == 32) {
-                break;
-            }
-            idBuf.append((char) c);  //it's ASCII
-        }
-        if (idBuf.length() == 0) {
-            return Optional.empty();
-        }
-        return Optional.of(Encoder.decode(idBuf.toString(), new StringBuilder(idBuf.length())).toString());
-    }
-
-    private int readByteLength(InputStream requestInputStream) throws IOException {
-        StringBuilder lenBuf = new StringBuilder(8);
-        int c;
-        while ((c = requestInputStream.read()) != -1) {
-            if (c == 10) {
-                break;
-            }
-            lenBuf.append((char) c);  //it's ASCII
-        }
-        if (lenBuf.length() == 0) {
-            throw new IllegalStateException("Operation length missing.");
-        }
-        return Integer.valueOf(lenBuf.toString(), 16);
-    }
-
-    public static InputStream unzipStreamIfNeeded(final HttpRequest httpRequest)
-            throws IOException {
-        final String contentEncodingHeader = httpRequest.getHeader("content-encoding");
-        if ("gzip".equals(contentEncodingHeader)) {
-            return new GZIPInputStream(httpRequest.getData());
-        } else {
-            return httpRequest.getData();
-        }
-    }
-
 }
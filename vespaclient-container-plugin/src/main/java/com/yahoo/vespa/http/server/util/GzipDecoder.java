@@ -0,0 +1,154 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.server.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses gzip data incrementally, as it arrives in chunks, without ever waiting for more input.
+ * This is the non-blocking counterpart of {@link java.util.zip.GZIPInputStream}, for use with content which is
+ * pushed to the consumer rather than pulled by it. Concatenated gzip members are decompressed as one stream.
+ * <p>
+ * This is not thread safe. Call {@link #close} when done to release the native resources of the inflater.
+ *
+ * @author agent
+ */
+public class GzipDecoder implements AutoCloseable {
+
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+    private static final int TRAILER_SIZE = 8;
+
+    private enum State { HEADER, DATA, TRAILER }
+
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final byte[] buffer = new byte[8 * 1024];
+
+    /** Input bytes which are held back until a complete header or trailer is available */
+    private final ByteArrayOutputStream heldBack = new ByteArrayOutputStream();
+
+    private State state = State.HEADER;
+
+    /**
+     * Decompresses the given bytes, passing all output which can be produced from the input so far to the given
+     * consumer. The buffers passed to the consumer are only valid until it returns.
+     *
+     * @throws ZipException if the input is not valid gzip data
+     */
+    public void decode(ByteBuffer input, Consumer<ByteBuffer> output) throws ZipException {
+        byte[] bytes = new byte[input.remaining()];
+        input.get(bytes);
+        decode(bytes, 0, bytes.length, output);
+    }
+
+    private void decode(byte[] bytes, int offset, int end, Consumer<ByteBuffer> output) throws ZipException {
+        while (offset < end) {
+            switch (state) {
+                case HEADER:
+                    heldBack.write(bytes, offset, end - offset);
+                    bytes = heldBack.toByteArray();
+                    offset = headerLength(bytes);
+                    end = bytes.length;
+                    if (offset < 0) return; // Need more input
+                    heldBack.reset();
+                    inflater.reset();
+                    crc.reset();
+                    state = State.DATA;
+                    break;
+                case DATA:
+                    inflater.setInput(bytes, offset, end - offset);
+                    inflate(output);
+                    offset = end - inflater.getRemaining();
+                    if (inflater.finished())
+                        state = State.TRAILER;
+                    else
+                        offset = end;
+                    break;
+                case TRAILER:
+                    int length = Math.min(TRAILER_SIZE - heldBack.size(), end - offset);
+                    heldBack.write(bytes, offset, length);
+                    offset += length;
+                    if (heldBack.size() == TRAILER_SIZE) {
+                        verifyTrailer(heldBack.toByteArray());
+                        heldBack.reset();
+                        state = State.HEADER;
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void inflate(Consumer<ByteBuffer> output) throws ZipException {
+        try {
+            int length;
+            while ((length = inflater.inflate(buffer)) > 0) {
+                crc.update(buffer, 0, length);
+                output.accept(ByteBuffer.wrap(buffer, 0, length));
+            }
+            if (inflater.needsDictionary())
+                throw new ZipException("Unexpected preset dictionary in gzip data");
+        }
+        catch (DataFormatException e) {
+            throw new ZipException("Invalid gzip data: " + e.getMessage());
+        }
+    }
+
+    /** Returns the length of the gzip header at the start of the given bytes, or -1 if it is not complete yet */
+    private static int headerLength(byte[] bytes) throws ZipException {
+        if (bytes.length < 10) return -1;
+        if ((bytes[0] & 0xff) != 0x1f || (bytes[1] & 0xff) != 0x8b)
+            throw new ZipException("Not in gzip format");
+        if (bytes[2] != 8)
+            throw new ZipException("Unsupported gzip compression method " + bytes[2]);
+
+        int flags = bytes[3] & 0xff;
+        int length = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (bytes.length < length + 2) return -1;
+            length += 2 + ((bytes[length] & 0xff) | (bytes[length + 1] & 0xff) << 8);
+        }
+        if ((flags & FNAME) != 0)
+            length = endOfZeroTerminated(bytes, length);
+        if ((flags & FCOMMENT) != 0 && length >= 0)
+            length = endOfZeroTerminated(bytes, length);
+        if (length < 0) return -1;
+        if ((flags & FHCRC) != 0)
+            length += 2;
+        return length <= bytes.length ? length : -1;
+    }
+
+    /** Returns the position after the zero terminated string starting at start, or -1 if it is not complete yet */
+    private static int endOfZeroTerminated(byte[] bytes, int start) {
+        for (int i = start; i < bytes.length; i++)
+            if (bytes[i] == 0) return i + 1;
+        return -1;
+    }
+
+    private void verifyTrailer(byte[] trailer) throws ZipException {
+        if (littleEndianInt(trailer, 0) != crc.getValue())
+            throw new ZipException("Corrupt gzip data: Checksum mismatch");
+        if (littleEndianInt(trailer, 4) != (inflater.getBytesWritten() & 0xffffffffL))
+            throw new ZipException("Corrupt gzip data: Size mismatch");
+    }
+
+    private static long littleEndianInt(byte[] bytes, int offset) {
+        return  (bytes[offset]     & 0xffL)        |
+                (bytes[offset + 1] & 0xffL) << 8  |
+                (bytes[offset + 2] & 0xffL) << 16 |
+                (bytes[offset + 3] & 0xffL) << 24;
+    }
+
+    @Override
+    public void close() {
+        inflater.end();
+    }
+
+}
@@ -2,9 +2,7 @@
 package com.yahoo.feedhandler.v3;
 
 import com.google.common.base.Splitter;
-import com.yahoo.container.jdisc.HttpResponse;
 import com.yahoo.container.jdisc.messagebus.SessionCache;
-import com.yahoo.container.logging.AccessLog;
 import com.yahoo.document.DataType;
 import com.yahoo.document.DocumentType;
 import com.yahoo.document.DocumentTypeManager;
@@ -13,6 +11,9 @@ import com.yahoo.documentapi.messagebus.protocol.PutDocumentMessage;
 import com.yahoo.documentapi.metrics.DocumentApiMetrics;
 import com.yahoo.feedhandler.NullFeedMetric;
 import com.yahoo.jdisc.ReferencedResource;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.jdisc.handler.FutureResponse;
+import com.yahoo.jdisc.handler.ReadableContentChannel;
 import com.yahoo.messagebus.SourceSessionParams;
 import com.yahoo.messagebus.shared.SharedSourceSession;
 import com.yahoo.metrics.simple.MetricReceiver;
@@ -23,16 +24,20 @@ import com.yahoo.vespa.http.client.core.Headers;
 import com.yahoo.vespa.http.client.core.OperationStatus;
 import com.yahoo.vespa.http.server.ReplyContext;
 import com.yahoo.vespa.http.server.FeedHandlerV3;
+import org.junit.After;
 import org.junit.Test;
 import com.yahoo.container.jdisc.HttpRequest;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.Executor;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
 
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.startsWith;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.anyObject;
 import static org.mockito.Mockito.mock;
@@ -43,28 +48,81 @@ import org.mockito.stubbing.Answer;
 
 public class FeedTesterV3 {
 
+    private final ExecutorService workers = Executors.newFixedThreadPool(2);
+
+    @After
+    public void shutdown() {
+        workers.shutdown();
+    }
+
     @Test
     public void feedOneDocument() throws Exception {
         final FeedHandlerV3 feedHandlerV3 = setupFeederHandler();
-        HttpResponse httpResponse = feedHandlerV3.handle(createRequest(1));
-        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-        httpResponse.render(outStream);
-        assertThat(httpResponse.getContentType(), is("text/plain"));
-        assertThat(Utf8.toString(outStream.toByteArray()), is("1230 OK message trace\n"));
-
+        ReadableContentChannel responseContent = new ReadableContentChannel();
+        FutureResponse response = new FutureResponse(responseContent);
+        feed(feedHandlerV3, createWireData(1), response);
+        String result = readAll(responseContent);
+        assertThat(response.get().headers().getFirst("Content-Type"), startsWith("text/plain"));
+        assertThat(result, is("1230 OK message trace\n"));
     }
 
     @Test
     public void feedManyDocument() throws Exception {
         final FeedHandlerV3 feedHandlerV3 = setupFeederHandler();
-        HttpResponse httpResponse = feedHandlerV3.handle(createRequest(100));
-        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
-        httpResponse.render(outStream);
-        assertThat(httpResponse.getContentType(), is("text/plain"));
-        String result = Utf8.toString(outStream.toByteArray());
+        ReadableContentChannel responseContent = new ReadableContentChannel();
+        FutureResponse response = new FutureResponse(responseContent);
+        feed(feedHandlerV3, createWireData(100), response);
+        String result = readAll(responseContent);
+        assertThat(response.get().headers().getFirst("Content-Type"), startsWith("text/plain"));
         assertThat(Splitter.on("\n").splitToList(result).size(), is(101));
     }
 
+    @Test
+    public void feedContentInSmallPieces() throws Exception {
+        final FeedHandlerV3 feedHandlerV3 = setupFeederHandler();
+        ReadableContentChannel responseContent = new ReadableContentChannel();
+        ContentChannel requestContent = feedHandlerV3.handleRequest(createRequest().getJDiscRequest(),
+                                                                    new FutureResponse(responseContent));
+        byte[] wireData = createWireData(10);
+        for (int i = 0; i < wireData.length; i += 7)
+            requestContent.write(ByteBuffer.wrap(wireData, i, Math.min(7, wireData.length - i)), null);
+        requestContent.close(null);
+        String result = readAll(responseContent);
+        assertThat(Splitter.on("\n").splitToList(result).size(), is(11));
+    }
+
+    @Test
+    public void feedGzippedContentInSmallPieces() throws Exception {
+        final FeedHandlerV3 feedHandlerV3 = setupFeederHandler();
+        ReadableContentChannel responseContent = new ReadableContentChannel();
+        HttpRequest request = createRequest();
+        request.getJDiscRequest().headers().add("content-encoding", "gzip");
+        ContentChannel requestContent = feedHandlerV3.handleRequest(request.getJDiscRequest(),
+                                                                    new FutureResponse(responseContent));
+        byte[] wireData = compress(createWireData(10));
+        for (int i = 0; i < wireData.length; i += 7)
+            requestContent.write(ByteBuffer.wrap(wireData, i, Math.min(7, wireData.length - i)), null);
+        requestContent.close(null);
+        String result = readAll(responseContent);
+        assertThat(Splitter.on("\n").splitToList(result).size(), is(11));
+    }
+
+    private void feed(FeedHandlerV3 feedHandlerV3, byte[] wireData, FutureResponse response) {
+        ContentChannel requestContent = feedHandlerV3.handleRequest(createRequest().getJDiscRequest(), response);
+        requestContent.write(ByteBuffer.wrap(wireData), null);
+        requestContent.close(null);
+    }
+
+    private String readAll(ReadableContentChannel responseContent) throws IOException {
+        ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+        try (InputStream in = responseContent.toStream()) {
+            byte[] buffer = new byte[1024];
+            for (int read; (read = in.read(buffer)) != -1; )
+                outStream.write(buffer, 0, read);
+        }
+        return Utf8.toString(outStream.toByteArray());
+    }
+
     DocumentTypeManager createDoctypeManager() {
         DocumentTypeManager docTypeManager = new DocumentTypeManager();
         DocumentType documentType = new DocumentType("testdocument");
@@ -74,19 +132,29 @@ public class FeedTesterV3 {
         return docTypeManager;
     }
 
-    HttpRequest createRequest(int numberOfDocs) {
-        String clientId = "client123";
+    byte[] createWireData(int numberOfDocs) {
         StringBuilder wireData = new StringBuilder();
         for (int x = 0; x < numberOfDocs; x++) {
             String docData = "[{\"put\": \"id:testdocument:testdocument::c\", \"fields\": { \"title\": \"fooKey\", \"body\": \"value\"}}]";
             String operationId = "123" + x;
             wireData.append(operationId + " " + Integer.toHexString(docData.length()) + "\n" + docData);
         }
-        InputStream inputStream =  new ByteArrayInputStream(wireData.toString().getBytes());
+        return wireData.toString().getBytes();
+    }
+
+    private static byte[] compress(byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(data);
+        }
+        return compressed.toByteArray();
+    }
+
+    HttpRequest createRequest() {
+        String clientId = "client123";
         HttpRequest request = HttpRequest.createTestRequest(
                 "http://dummyhostname:19020/reserved-for-internal-use/feedapi",
-                com.yahoo.jdisc.http.HttpRequest.Method.POST,
-                inputStream);
+                com.yahoo.jdisc.http.HttpRequest.Method.POST);
         request.getJDiscRequest().headers().add(Headers.VERSION, "3");
         request.getJDiscRequest().headers().add(Headers.DATA_FORMAT, FeedParams.DataFormat.JSON_UTF8.name());
         request.getJDiscRequest().headers().add(Headers.TIMEOUT, "1000000000");
@@ -98,32 +166,28 @@ public class FeedTesterV3 {
     }
 
     FeedHandlerV3 setupFeederHandler() throws Exception {
-        Executor threadPool = Executors.newCachedThreadPool();
         DocumentmanagerConfig docMan = new DocumentmanagerConfig(new DocumentmanagerConfig.Builder().enablecompression(true));
         FeedHandlerV3 feedHandlerV3 = new FeedHandlerV3(
-                new FeedHandlerV3.Context(threadPool, AccessLog.voidAccessLog(), new NullFeedMetric(true)),
+                new NullFeedMetric(true),
                 docMan,
                 null /* session cache */,
                 null /* thread pool config */, 
-                new DocumentApiMetrics(MetricReceiver.nullImplementation, "test")) {
+                new DocumentApiMetrics(MetricReceiver.nullImplementation, "test"),
+                workers) {
             @Override
             protected ReferencedResource<SharedSourceSession> retainSource(
                     SessionCache sessionCache, SourceSessionParams sessionParams)  {
                 SharedSourceSession sharedSourceSession = mock(SharedSourceSession.class);
 
-                try {
-                    Mockito.stub(sharedSourceSession.sendMessageBlocking(anyObject())).toAnswer((Answer) invocation -> {
-                        Object[] args = invocation.getArguments();
-                        PutDocumentMessage putDocumentMessage = (PutDocumentMessage) args[0];
-                        ReplyContext replyContext = (ReplyContext)putDocumentMessage.getContext();
-                        replyContext.feedReplies.add(new OperationStatus("message", replyContext.docId, ErrorCode.OK, false, "trace"));
-                        Result result = mock(Result.class);
-                        when(result.isAccepted()).thenReturn(true);
-                        return result;
-                    });
-                } catch (InterruptedException e) {
-                    e.printStackTrace();
-                }
+                Mockito.stub(sharedSourceSession.sendMessage(anyObject())).toAnswer((Answer) invocation -> {
+                    Object[] args = invocation.getArguments();
+                    PutDocumentMessage putDocumentMessage = (PutDocumentMessage) args[0];
+                    ReplyContext replyContext = (ReplyContext)putDocumentMessage.getContext();
+                    replyContext.feedReplies.add(new OperationStatus("message", replyContext.docId, ErrorCode.OK, false, "trace"));
+                    Result result = mock(Result.class);
+                    when(result.isAccepted()).thenReturn(true);
+                    return result;
+                });
 
                 Result result = mock(Result.class);
                 when(result.isAccepted()).thenReturn(true);
@@ -0,0 +1,81 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.server;
+
+import com.yahoo.text.Utf8;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author agent
+ */
+public class OperationFramerV3TestCase {
+
+    private static final String content = "op1 3\nfoo" + "op2 a\n0123456789" + "op3 0\n" + "op4 zz\n" + "op5 1\nx";
+
+    @Test
+    public void testFramingAllAtOnce() {
+        List<OperationFramerV3.Frame> frames = new ArrayList<>();
+        OperationFramerV3 framer = new OperationFramerV3(frames::add);
+        framer.append(ByteBuffer.wrap(Utf8.toBytes(content)));
+        framer.close();
+        assertFrames(frames);
+    }
+
+    @Test
+    public void testFramingByteByByte() {
+        List<OperationFramerV3.Frame> frames = new ArrayList<>();
+        OperationFramerV3 framer = new OperationFramerV3(frames::add);
+        for (byte b : Utf8.toBytes(content))
+            framer.append(ByteBuffer.wrap(new byte[] { b }));
+        framer.close();
+        assertFrames(frames);
+    }
+
+    @Test
+    public void testEndOfFeed() {
+        List<OperationFramerV3.Frame> frames = new ArrayList<>();
+        OperationFramerV3 framer = new OperationFramerV3(frames::add);
+        framer.append(ByteBuffer.wrap(Utf8.toBytes("op1 3\nfoo 0\nop2 3\nbar")));
+        assertTrue(framer.isAtEnd());
+        framer.close();
+        assertEquals(1, frames.size());
+        assertEquals("op1", frames.get(0).operationId);
+    }
+
+    @Test
+    public void testIncompleteOperation() {
+        List<OperationFramerV3.Frame> frames = new ArrayList<>();
+        OperationFramerV3 framer = new OperationFramerV3(frames::add);
+        framer.append(ByteBuffer.wrap(Utf8.toBytes("op1 5\nfoo")));
+        assertTrue(frames.isEmpty());
+        assertFalse(framer.isAtEnd());
+        framer.close();
+        assertEquals(1, frames.size());
+        assertEquals("foo", Utf8.toString(frames.get(0).data));
+    }
+
+    private static void assertFrames(List<OperationFramerV3.Frame> frames) {
+        assertEquals(5, frames.size());
+        assertFrame("op1", "foo", frames.get(0));
+        assertFrame("op2", "0123456789", frames.get(1));
+        assertFrame("op3", "", frames.get(2));
+        assertEquals("op4", frames.get(3).operationId);
+        assertEquals("Invalid operation length 'zz'", frames.get(3).error);
+        assertFrame("op5", "x", frames.get(4));
+    }
+
+    private static void assertFrame(String id, String data, OperationFramerV3.Frame frame) {
+        assertEquals(id, frame.operationId);
+        assertEquals(data, Utf8.toString(frame.data));
+        assertNull(frame.error);
+    }
+
+}
@@ -7,6 +7,9 @@ import com.yahoo.documentapi.metrics.DocumentApiMetrics;
 import com.yahoo.jdisc.Metric;
 import com.yahoo.jdisc.ReferencedResource;
 import com.yahoo.jdisc.References;
+import com.yahoo.jdisc.handler.ContentChannel;
+import com.yahoo.jdisc.handler.FutureResponse;
+import com.yahoo.jdisc.handler.ReadableContentChannel;
 import com.yahoo.messagebus.ErrorCode;
 import com.yahoo.messagebus.Message;
 import com.yahoo.messagebus.MessageBus;
@@ -21,13 +24,15 @@ import com.yahoo.vespa.http.client.core.Headers;
 import com.yahoo.vespaxmlparser.MockFeedReaderFactory;
 import com.yahoo.vespaxmlparser.VespaXMLFeedReader;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
 import java.io.InputStream;
-
-
+import java.nio.ByteBuffer;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertTrue;
@@ -42,8 +47,8 @@ public class V3CongestionTestCase {
 
         private final DocumentOperationMessageV3 docOp;
 
-        ClientFeederWithMocks(ReferencedResource<SharedSourceSession> sourceSession, FeedReaderFactory feedReaderFactory, DocumentTypeManager docTypeManager, String clientId, Metric metric, ReplyHandler feedReplyHandler, AtomicInteger threadsAvailableForFeeding) {
-            super(sourceSession, feedReaderFactory, docTypeManager, clientId, metric, feedReplyHandler, threadsAvailableForFeeding);
+        ClientFeederWithMocks(ReferencedResource<SharedSourceSession> sourceSession, FeedReaderFactory feedReaderFactory, DocumentTypeManager docTypeManager, String clientId, Metric metric, ReplyHandler feedReplyHandler, AtomicInteger threadsAvailableForFeeding, ScheduledExecutorService timer) {
+            super(sourceSession, feedReaderFactory, docTypeManager, clientId, metric, feedReplyHandler, threadsAvailableForFeeding, Runnable::run, timer);
             // The operation to return from the client feeder.
             VespaXMLFeedReader.Operation op = new VespaXMLFeedReader.Operation();
             docOp = DocumentOperationMessageV3.newRemoveMessage(op, "operation id");
@@ -53,12 +58,6 @@ public class V3CongestionTestCase {
         @Override
         protected DocumentOperationMessageV3 getNextMessage(
                 String operationId, InputStream requestInputStream, FeederSettings settings) throws Exception {
-            while (true) {
-                int data = requestInputStream.read();
-                if (data == -1 || data == (char)'\n') {
-                    break;
-                }
-            }
             return docOp;
         }
     }
@@ -67,15 +66,15 @@ public class V3CongestionTestCase {
 
     ClientFeederV3 clientFeederV3;
     HttpRequest request;
+    ScheduledExecutorService timer = new ScheduledThreadPoolExecutor(1);
 
     @Before
     public void setup() {
         // Set up a request to be used from the tests.
-        InputStream in = new MetaStream(new byte[] { 1 });
         request = HttpRequest
                 .createTestRequest(
                         "http://foo.bar:19020/reserved-for-internal-use/feedapi",
-                        com.yahoo.jdisc.http.HttpRequest.Method.POST, in);
+                        com.yahoo.jdisc.http.HttpRequest.Method.POST);
         request.getJDiscRequest().headers().add(Headers.VERSION, "3");
         request.getJDiscRequest().headers().add(Headers.CLIENT_ID, "clientId");
 
@@ -89,7 +88,25 @@ public class V3CongestionTestCase {
                 "clientID",
                 null/*metric*/,
                 new FeedReplyReader(null/*metric*/, new DocumentApiMetrics(MetricReceiver.nullImplementation, "tester")),
-                threadsAvail);
+                threadsAvail,
+                timer);
+    }
+
+    @After
+    public void shutdown() {
+        timer.shutdown();
+    }
+
+    /** Writes the content of a feed with one operation to the client feeder, and waits for the response to complete */
+    private void feed() throws IOException {
+        ReadableContentChannel responseContent = new ReadableContentChannel();
+        ContentChannel requestContent = clientFeederV3.handleRequest(request, new FutureResponse(responseContent));
+        MetaStream in = new MetaStream(new byte[] { 1 });
+        requestContent.write(ByteBuffer.wrap(in.readAllBytes()), null);
+        requestContent.close(null);
+        try (InputStream response = responseContent.toStream()) {
+            while (response.read() != -1) { }
+        }
     }
 
     // A mock for message bus that can simulate blocking requests.
@@ -103,11 +120,6 @@ public class V3CongestionTestCase {
             this.requests = requests;
         }
 
-        @Override
-        public Result sendMessageBlocking(Message msg) throws InterruptedException {
-            return sendMessage(msg);
-        }
-
         @Override
         public Result sendMessage(Message msg) {
             ReplyHandler handler = msg.popHandler();
@@ -138,7 +150,7 @@ public class V3CongestionTestCase {
         request.getJDiscRequest().headers().add(Headers.DENY_IF_BUSY, "true");
         threadsAvail.set(10);
 
-        clientFeederV3.handleRequest(request);
+        feed();
         assertTrue(requests.get() == NUMBER_OF_QUEUE_FULL_RESPONSES);
     }
 
@@ -147,7 +159,7 @@ public class V3CongestionTestCase {
         request.getJDiscRequest().headers().add(Headers.DENY_IF_BUSY, "true");
         threadsAvail.set(0);
 
-        clientFeederV3.handleRequest(request);
+        feed();
         assertTrue(requests.get() == 1);
     }
 
@@ -156,7 +168,7 @@ public class V3CongestionTestCase {
         request.getJDiscRequest().headers().add(Headers.DENY_IF_BUSY, "false");
         threadsAvail.set(0);
 
-        clientFeederV3.handleRequest(request);
+        feed();
         assertTrue(requests.get() == NUMBER_OF_QUEUE_FULL_RESPONSES);
     }
 }
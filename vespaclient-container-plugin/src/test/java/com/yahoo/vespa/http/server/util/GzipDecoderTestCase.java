@@ -0,0 +1,75 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.vespa.http.server.util;
+
+import com.yahoo.text.Utf8;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author agent
+ */
+public class GzipDecoderTestCase {
+
+    @Test
+    public void testDecodingInPieces() throws IOException {
+        StringBuilder data = new StringBuilder();
+        for (int i = 0; i < 10000; i++)
+            data.append("operation ").append(i).append('\n');
+        byte[] compressed = compress(data.toString());
+
+        for (int pieceSize : new int[] { 1, 3, 100, compressed.length }) {
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            try (GzipDecoder decoder = new GzipDecoder()) {
+                for (int i = 0; i < compressed.length; i += pieceSize)
+                    decoder.decode(ByteBuffer.wrap(compressed, i, Math.min(pieceSize, compressed.length - i)),
+                                   buffer -> decoded.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining()));
+            }
+            assertEquals(data.toString(), Utf8.toString(decoded.toByteArray()));
+        }
+    }
+
+    @Test
+    public void testConcatenatedMembers() throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        compressed.write(compress("foo "));
+        compressed.write(compress("bar"));
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        try (GzipDecoder decoder = new GzipDecoder()) {
+            decoder.decode(ByteBuffer.wrap(compressed.toByteArray()),
+                           buffer -> decoded.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining()));
+        }
+        assertEquals("foo bar", Utf8.toString(decoded.toByteArray()));
+    }
+
+    @Test(expected = ZipException.class)
+    public void testNotGzip() throws IOException {
+        try (GzipDecoder decoder = new GzipDecoder()) {
+            decoder.decode(ByteBuffer.wrap(Utf8.toBytes("this is not gzip data")), buffer -> { });
+        }
+    }
+
+    @Test(expected = ZipException.class)
+    public void testCorruptChecksum() throws IOException {
+        byte[] compressed = compress("foo bar");
+        compressed[compressed.length - 8] ^= 1;
+        try (GzipDecoder decoder = new GzipDecoder()) {
+            decoder.decode(ByteBuffer.wrap(compressed), buffer -> { });
+        }
+    }
+
+    private static byte[] compress(String data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(Utf8.toBytes(data));
+        }
+        return compressed.toByteArray();
+    }
+
+}
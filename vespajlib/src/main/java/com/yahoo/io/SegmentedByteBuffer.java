@@ -0,0 +1,601 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import com.yahoo.text.Utf8;
+
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A growable byte buffer backed by a chain of equally sized direct memory segments taken from a {@link Pool}.
+ * This is an alternative to {@link GrowableByteBuffer} for large content which should not be copied:
+ * Growing the buffer adds another segment instead of copying the content to a larger buffer,
+ * {@link #slice()} returns a view sharing the segments of this, and {@link #writeTo(GatheringByteChannel)}
+ * writes the content to a channel with a single gathering write, without copying it to the heap.
+ * <p>
+ * Position, limit and the relative and absolute get and put methods behave as in ByteBuffer, and multi-byte
+ * values may span segments. The buffer grows as needed when writing until it is flipped or its limit is set.
+ * <p>
+ * Segments are returned to the pool by {@link #release()}, which must be called explicitly when the buffer
+ * is no longer needed. Slices do not own their segments and must not be used after the buffer they are
+ * sliced from is released. This is not thread safe.
+ *
+ * @author agent
+ */
+public class SegmentedByteBuffer {
+
+    public static final int DEFAULT_SEGMENT_SIZE = 8 * 1024;
+
+    /** The default pool retains at most 1 Mb of unused segments. Pass a pool to the constructor to change this. */
+    private static final Pool defaultPool = new Pool(DEFAULT_SEGMENT_SIZE, 128);
+
+    /** The pool owning the segments of this, or null if this is a slice */
+    private final Pool pool;
+    private final List<ByteBuffer> segments;
+    private final int segmentSize;
+
+    /** The offset of index 0 of this in the first segment. This is only non-zero for slices. */
+    private final int offset;
+
+    private int position = 0;
+    private int limit;
+    private int capacity;
+    private boolean growable;
+    private boolean released = false;
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+
+    /** Creates a buffer taking segments from the default pool, which holds segments of DEFAULT_SEGMENT_SIZE */
+    public SegmentedByteBuffer() {
+        this(defaultPool);
+    }
+
+    /** Creates a buffer taking segments from the given pool */
+    public SegmentedByteBuffer(Pool pool) {
+        this.pool = pool;
+        this.segments = new ArrayList<>();
+        this.segmentSize = pool.segmentSize();
+        this.offset = 0;
+        this.limit = 0;
+        this.capacity = 0;
+        this.growable = true;
+    }
+
+    private SegmentedByteBuffer(List<ByteBuffer> segments, int segmentSize, int offset, int capacity, ByteOrder order) {
+        this.pool = null;
+        this.segments = segments;
+        this.segmentSize = segmentSize;
+        this.offset = offset;
+        this.limit = capacity;
+        this.capacity = capacity;
+        this.growable = false;
+        this.order = order;
+    }
+
+    /**
+     * Returns a buffer with the content of the given buffer from its position to its limit as its single segment,
+     * without copying it. The returned buffer cannot grow, and releasing it does not return anything to a pool.
+     */
+    public static SegmentedByteBuffer wrap(ByteBuffer buffer) {
+        return new SegmentedByteBuffer(new ArrayList<>(List.of(buffer.slice())), Math.max(buffer.remaining(), 1), 0,
+                                       buffer.remaining(), buffer.order());
+    }
+
+    /** Returns the pool used by default, for inspection */
+    public static Pool defaultPool() { return defaultPool; }
+
+    // SEGMENT MANAGEMENT:
+
+    private void ensureWritable(int size) {
+        if (released) throw new IllegalStateException("This buffer is released");
+        if (position + size <= limit) return;
+        if ( ! growable) throw new BufferOverflowException();
+
+        while (capacity < position + size) {
+            segments.add(pool.acquire().order(order));
+            capacity += segmentSize;
+        }
+        limit = capacity;
+    }
+
+    private void ensureReadable(int size) {
+        if (position + size > limit) throw new BufferUnderflowException();
+    }
+
+    private void checkIndex(int index, int size) {
+        if (index < 0 || index + size > limit)
+            throw new IndexOutOfBoundsException("Index " + index + " with size " + size + " is outside the limit " + limit);
+    }
+
+    private ByteBuffer segmentOf(int index) {
+        return segments.get((offset + index) / segmentSize);
+    }
+
+    private int indexInSegment(int index) {
+        return (offset + index) % segmentSize;
+    }
+
+    /** Returns a view of the given segment limited to the given range of this buffer, which must be inside it */
+    private ByteBuffer viewOf(int index, int length) {
+        ByteBuffer view = segmentOf(index).duplicate();
+        int start = indexInSegment(index);
+        view.limit(start + length);
+        view.position(start);
+        return view;
+    }
+
+    /**
+     * Returns the segments of this buffer between position and limit as a set of ByteBuffers sharing content
+     * with this. The position and limit of this is not changed.
+     */
+    public ByteBuffer[] toByteBuffers() {
+        List<ByteBuffer> buffers = new ArrayList<>();
+        for (int index = position; index < limit; ) {
+            int length = Math.min(limit - index, segmentSize - indexInSegment(index));
+            buffers.add(viewOf(index, length).order(order));
+            index += length;
+        }
+        return buffers.toArray(new ByteBuffer[0]);
+    }
+
+    /**
+     * Writes the remaining content of this to the given channel using a gathering write,
+     * and advances the position of this by the number of bytes written.
+     *
+     * @return the number of bytes written, which may be less than remaining if the channel is non-blocking
+     */
+    public long writeTo(GatheringByteChannel channel) throws IOException {
+        long written = channel.write(toByteBuffers());
+        position += (int) written;
+        return written;
+    }
+
+    /**
+     * Returns the segments of this to the pool. This buffer, and any slices of it, must not be used after this.
+     * Calling this more than once has no effect.
+     */
+    public void release() {
+        if (released) return;
+        released = true;
+        if (pool != null) {
+            for (ByteBuffer segment : segments)
+                pool.recycle(segment);
+        }
+        segments.clear();
+        position = 0;
+        limit = 0;
+        capacity = 0;
+        growable = false;
+    }
+
+    public boolean isReleased() { return released; }
+
+    /**
+     * Returns a buffer sharing the content of this from position to limit, without copying it.
+     * The returned buffer cannot grow, and is only valid until this is released.
+     *
+     * @see ByteBuffer#slice()
+     */
+    public SegmentedByteBuffer slice() {
+        int start = offset + position;
+        int firstSegment = start / segmentSize;
+        int lastSegment = (start + remaining() - 1) / segmentSize;
+        List<ByteBuffer> sliceSegments = remaining() == 0 ? new ArrayList<>()
+                                                          : new ArrayList<>(segments.subList(firstSegment, lastSegment + 1));
+        return new SegmentedByteBuffer(sliceSegments, segmentSize, start % segmentSize, remaining(), order);
+    }
+
+    // POSITION AND LIMIT:
+
+    /** Returns the number of bytes this can hold without growing */
+    public int capacity() { return capacity; }
+
+    /** Returns the number of segments currently held by this */
+    public int segmentCount() { return segments.size(); }
+
+    public int position() { return position; }
+
+    public void position(int newPosition) {
+        if (newPosition < 0 || newPosition > limit)
+            throw new IllegalArgumentException("Position " + newPosition + " is outside the limit " + limit);
+        position = newPosition;
+    }
+
+    public int limit() { return limit; }
+
+    /** Sets the limit of this. This buffer will not grow after this is called, until it is cleared. */
+    public void limit(int newLimit) {
+        if (newLimit < 0 || newLimit > capacity)
+            throw new IllegalArgumentException("Limit " + newLimit + " is outside the capacity " + capacity);
+        limit = newLimit;
+        if (position > limit) position = limit;
+        growable = false;
+    }
+
+    public int remaining() { return limit - position; }
+
+    public boolean hasRemaining() { return position < limit; }
+
+    /** Sets the limit to the position and the position to 0, to read what has been written */
+    public void flip() {
+        limit = position;
+        position = 0;
+        growable = false;
+    }
+
+    /** Sets the position to 0 and the limit to the capacity, to write anew. This buffer keeps its segments. */
+    public void clear() {
+        position = 0;
+        limit = capacity;
+        growable = pool != null && ! released;
+    }
+
+    public void rewind() {
+        position = 0;
+    }
+
+    public ByteOrder order() { return order; }
+
+    public SegmentedByteBuffer order(ByteOrder order) {
+        this.order = order;
+        return this;
+    }
+
+    // PUT:
+
+    public SegmentedByteBuffer put(byte b) {
+        ensureWritable(1);
+        put(position, b);
+        position++;
+        return this;
+    }
+
+    public SegmentedByteBuffer put(int index, byte b) {
+        checkIndex(index, 1);
+        segmentOf(index).put(indexInSegment(index), b);
+        return this;
+    }
+
+    public SegmentedByteBuffer put(byte[] src) {
+        return put(src, 0, src.length);
+    }
+
+    public SegmentedByteBuffer put(byte[] src, int offset, int length) {
+        ensureWritable(length);
+        while (length > 0) {
+            int toPut = Math.min(length, segmentSize - indexInSegment(position));
+            viewOf(position, toPut).put(src, offset, toPut);
+            position += toPut;
+            offset += toPut;
+            length -= toPut;
+        }
+        return this;
+    }
+
+    /** Puts the remaining content of the given buffer into this, and advances the position of both */
+    public SegmentedByteBuffer put(ByteBuffer src) {
+        ensureWritable(src.remaining());
+        while (src.hasRemaining()) {
+            int toPut = Math.min(src.remaining(), segmentSize - indexInSegment(position));
+            ByteBuffer part = src.duplicate();
+            part.limit(part.position() + toPut);
+            viewOf(position, toPut).put(part);
+            src.position(src.position() + toPut);
+            position += toPut;
+        }
+        return this;
+    }
+
+    public SegmentedByteBuffer putShort(short value) {
+        ensureWritable(2);
+        putNumber(position, value, 2);
+        position += 2;
+        return this;
+    }
+
+    public SegmentedByteBuffer putShort(int index, short value) {
+        checkIndex(index, 2);
+        putNumber(index, value, 2);
+        return this;
+    }
+
+    public SegmentedByteBuffer putInt(int value) {
+        ensureWritable(4);
+        putNumber(position, value, 4);
+        position += 4;
+        return this;
+    }
+
+    public SegmentedByteBuffer putInt(int index, int value) {
+        checkIndex(index, 4);
+        putNumber(index, value, 4);
+        return this;
+    }
+
+    public SegmentedByteBuffer putLong(long value) {
+        ensureWritable(8);
+        putNumber(position, value, 8);
+        position += 8;
+        return this;
+    }
+
+    public SegmentedByteBuffer putLong(int index, long value) {
+        checkIndex(index, 8);
+        putNumber(index, value, 8);
+        return this;
+    }
+
+    public SegmentedByteBuffer putFloat(float value) {
+        return putInt(Float.floatToRawIntBits(value));
+    }
+
+    public SegmentedByteBuffer putDouble(double value) {
+        return putLong(Double.doubleToRawLongBits(value));
+    }
+
+    private void putNumber(int index, long value, int size) {
+        int inSegment = indexInSegment(index);
+        if (inSegment + size <= segmentSize) {
+            ByteBuffer segment = segmentOf(index).order(order);
+            switch (size) {
+                case 2: segment.putShort(inSegment, (short) value); break;
+                case 4: segment.putInt(inSegment, (int) value); break;
+                default: segment.putLong(inSegment, value);
+            }
+            return;
+        }
+        for (int i = 0; i < size; i++)
+            put(index + i, (byte) (value >>> shiftOf(i, size)));
+    }
+
+    // GET:
+
+    public byte get() {
+        ensureReadable(1);
+        return get(position++);
+    }
+
+    public byte get(int index) {
+        checkIndex(index, 1);
+        return segmentOf(index).get(indexInSegment(index));
+    }
+
+    public SegmentedByteBuffer get(byte[] dst) {
+        return get(dst, 0, dst.length);
+    }
+
+    public SegmentedByteBuffer get(byte[] dst, int offset, int length) {
+        ensureReadable(length);
+        while (length > 0) {
+            int toGet = Math.min(length, segmentSize - indexInSegment(position));
+            viewOf(position, toGet).get(dst, offset, toGet);
+            position += toGet;
+            offset += toGet;
+            length -= toGet;
+        }
+        return this;
+    }
+
+    public short getShort() {
+        ensureReadable(2);
+        short value = (short) getNumber(position, 2);
+        position += 2;
+        return value;
+    }
+
+    public short getShort(int index) {
+        checkIndex(index, 2);
+        return (short) getNumber(index, 2);
+    }
+
+    public int getInt() {
+        ensureReadable(4);
+        int value = (int) getNumber(position, 4);
+        position += 4;
+        return value;
+    }
+
+    public int getInt(int index) {
+        checkIndex(index, 4);
+        return (int) getNumber(index, 4);
+    }
+
+    public long getLong() {
+        ensureReadable(8);
+        long value = getNumber(position, 8);
+        position += 8;
+        return value;
+    }
+
+    public long getLong(int index) {
+        checkIndex(index, 8);
+        return getNumber(index, 8);
+    }
+
+    public float getFloat() {
+        return Float.intBitsToFloat(getInt());
+    }
+
+    public double getDouble() {
+        return Double.longBitsToDouble(getLong());
+    }
+
+    private long getNumber(int index, int size) {
+        int inSegment = indexInSegment(index);
+        if (inSegment + size <= segmentSize) {
+            ByteBuffer segment = segmentOf(index).order(order);
+            switch (size) {
+                case 2: return segment.getShort(inSegment);
+                case 4: return segment.getInt(inSegment);
+                default: return segment.getLong(inSegment);
+            }
+        }
+        long value = 0;
+        for (int i = 0; i < size; i++)
+            value |= (get(index + i) & 0xffL) << shiftOf(i, size);
+        return value;
+    }
+
+    /** Returns the number of bits to shift the byte at the given position in a number of the given size */
+    private int shiftOf(int byteIndex, int size) {
+        return 8 * (order == ByteOrder.BIG_ENDIAN ? size - 1 - byteIndex : byteIndex);
+    }
+
+    // VESPA-ENCODED INTEGERS, as in GrowableByteBuffer:
+
+    /**
+     * Writes a 62-bit positive integer to the buffer, using 2, 4, or 8 bytes.
+     *
+     * @param number the integer to write
+     */
+    public void putInt2_4_8Bytes(long number) {
+        GrowableByteBuffer.getSerializedSize2_4_8Bytes(number); // validates
+        if (number < 0x8000L)
+            putShort((short) number);
+        else if (number < 0x40000000L)
+            putInt(((int) number) | 0x80000000);
+        else
+            putLong(number | 0xC000000000000000L);
+    }
+
+    /**
+     * Reads a 62-bit positive integer from the buffer, which was written using 2, 4, or 8 bytes.
+     *
+     * @return the integer read
+     */
+    public long getInt2_4_8Bytes() {
+        ensureReadable(1);
+        byte flagByte = get(position);
+        if ((flagByte & 0x80) == 0) return getShort();
+        if ((flagByte & 0x40) == 0) return getInt() & 0x3FFFFFFF;
+        return getLong() & 0x3FFFFFFFFFFFFFFFL;
+    }
+
+    /**
+     * Writes a 30-bit positive integer to the buffer, using 1, 2, or 4 bytes.
+     *
+     * @param number the integer to write
+     */
+    public void putInt1_2_4Bytes(int number) {
+        GrowableByteBuffer.getSerializedSize1_2_4Bytes(number); // validates
+        if (number < 0x80)
+            put((byte) number);
+        else if (number < 0x4000)
+            putShort((short) (((short)number) | ((short) 0x8000)));
+        else
+            putInt(number | 0xC0000000);
+    }
+
+    /**
+     * Reads a 30-bit positive integer from the buffer, which was written using 1, 2, or 4 bytes.
+     *
+     * @return the integer read
+     */
+    public int getInt1_2_4Bytes() {
+        ensureReadable(1);
+        byte flagByte = get(position);
+        if ((flagByte & 0x80) == 0) return get();
+        if ((flagByte & 0x40) == 0) return getShort() & 0x3FFF;
+        return getInt() & 0x3FFFFFFF;
+    }
+
+    /**
+     * Writes a 31-bit positive integer to the buffer, using 1 or 4 bytes.
+     *
+     * @param number the integer to write
+     */
+    public void putInt1_4Bytes(int number) {
+        GrowableByteBuffer.getSerializedSize1_4Bytes(number); // validates
+        if (number < 0x80)
+            put((byte) number);
+        else
+            putInt(number | 0x80000000);
+    }
+
+    /**
+     * Reads a 31-bit positive integer from the buffer, which was written using 1 or 4 bytes.
+     *
+     * @return the integer read
+     */
+    public int getInt1_4Bytes() {
+        ensureReadable(1);
+        byte flagByte = get(position);
+        if ((flagByte & 0x80) == 0) return get();
+        return getInt() & 0x7FFFFFFF;
+    }
+
+    /** Writes this string to the buffer as a 1_4 encoded length in bytes followed by the utf8 bytes */
+    public void putUtf8String(String value) {
+        byte[] stringBytes = Utf8.toBytes(value);
+        putInt1_4Bytes(stringBytes.length);
+        put(stringBytes);
+    }
+
+    /** Reads a string from the buffer as a 1_4 encoded length in bytes followed by the utf8 bytes */
+    public String getUtf8String() {
+        byte[] stringBytes = new byte[getInt1_4Bytes()];
+        get(stringBytes);
+        return Utf8.toString(stringBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "SegmentedByteBuffer"
+                + "[pos=" + position
+                + " lim=" + limit
+                + " cap=" + capacity
+                + " segments=" + segments.size()
+                + "]";
+    }
+
+    /**
+     * A pool of direct buffer segments of a fixed size. Segments are allocated when the pool is empty,
+     * and recycled segments beyond the max pooled count are left to the garbage collector.
+     * This is thread safe.
+     */
+    public static class Pool {
+
+        private final int segmentSize;
+        private final int maxPooledSegments;
+        private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger freeCount = new AtomicInteger(0);
+
+        public Pool(int segmentSize, int maxPooledSegments) {
+            if (segmentSize < 16) throw new IllegalArgumentException("Segment size must be at least 16, was " + segmentSize);
+            this.segmentSize = segmentSize;
+            this.maxPooledSegments = maxPooledSegments;
+        }
+
+        public int segmentSize() { return segmentSize; }
+
+        /** Returns the number of segments currently available in this pool */
+        public int pooledSegments() { return freeCount.get(); }
+
+        ByteBuffer acquire() {
+            ByteBuffer segment = free.poll();
+            if (segment == null) return ByteBuffer.allocateDirect(segmentSize);
+
+            freeCount.decrementAndGet();
+            segment.clear();
+            return segment;
+        }
+
+        void recycle(ByteBuffer segment) {
+            if (freeCount.incrementAndGet() > maxPooledSegments) {
+                freeCount.decrementAndGet();
+                return;
+            }
+            free.offer(segment);
+        }
+
+    }
+
+}
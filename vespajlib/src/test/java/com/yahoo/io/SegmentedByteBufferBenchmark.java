@@ -0,0 +1,82 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+
+/**
+ * Microbenchmark of writing packets encoded in heap buffers to a non-blocking channel, either directly,
+ * or through a SegmentedByteBuffer as FS4Connection does. The channel only accepts part of a large packet
+ * in each write, so the heap buffer is copied to temporary direct memory by the channel once per write.
+ *
+ * @author agent
+ */
+public class SegmentedByteBufferBenchmark {
+
+    private final SegmentedByteBuffer.Pool pool = new SegmentedByteBuffer.Pool(64 * 1024, 16);
+
+    public double benchmark(int iterations, int packetSize, boolean segmented) throws IOException {
+        ByteBuffer packet = ByteBuffer.allocate(packetSize);
+        write(Math.max(iterations / 10, 10), packet, segmented); // warmup
+        System.gc();
+        long startTime = System.nanoTime();
+        write(iterations, packet, segmented);
+        long totalTime = System.nanoTime() - startTime;
+        return totalTime / 1_000_000.0 / iterations;
+    }
+
+    private void write(int iterations, ByteBuffer packet, boolean segmented) throws IOException {
+        Pipe pipe = Pipe.open();
+        pipe.sink().configureBlocking(false);
+        Thread reader = new Thread(() -> drain(pipe.source()));
+        reader.start();
+        for (int i = 0; i < iterations; i++) {
+            packet.clear();
+            if (segmented) {
+                SegmentedByteBuffer buffer = new SegmentedByteBuffer(pool);
+                buffer.put(packet);
+                buffer.flip();
+                while (buffer.hasRemaining())
+                    buffer.writeTo(pipe.sink());
+                buffer.release();
+            }
+            else {
+                while (packet.hasRemaining())
+                    pipe.sink().write(packet);
+            }
+        }
+        pipe.sink().close();
+        try {
+            reader.join();
+        }
+        catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void drain(Pipe.SourceChannel source) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        try {
+            while (source.read(buffer) >= 0)
+                buffer.clear();
+            source.close();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        SegmentedByteBufferBenchmark benchmark = new SegmentedByteBufferBenchmark();
+        for (int packetSize : new int[] { 1024, 64 * 1024, 256 * 1024, 512 * 1024, 4 * 1024 * 1024 }) {
+            int iterations = 100 * 1024 * 1024 / packetSize;
+            double heapTime = benchmark.benchmark(iterations, packetSize, false);
+            double segmentedTime = benchmark.benchmark(iterations, packetSize, true);
+            System.out.printf("Packets of %7d bytes: heap buffer %.4f ms, segmented buffer %.4f ms per packet%n",
+                              packetSize, heapTime, segmentedTime);
+        }
+    }
+
+}
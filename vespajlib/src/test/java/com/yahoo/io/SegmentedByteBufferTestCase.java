@@ -0,0 +1,219 @@
+// Copyright 2019 Yahoo Holdings. Licensed under the terms of the Apache 2.0 license. See LICENSE in the project root.
+package com.yahoo.io;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests SegmentedByteBuffer.
+ *
+ * @author agent
+ */
+public class SegmentedByteBufferTestCase {
+
+    private static final double delta = 0.00000000001;
+
+    @Test
+    public void testPutAndGetAcrossSegments() {
+        SegmentedByteBuffer buf = new SegmentedByteBuffer(new SegmentedByteBuffer.Pool(16, 10));
+        assertEquals(0, buf.capacity());
+
+        buf.put((byte) 7);
+        buf.putShort((short) 1234);
+        buf.putInt(987654);
+        buf.putLong(1234567890123L);
+        buf.putDouble(983.982d); // spans the first segment boundary
+        buf.putFloat(94.322f);
+        buf.putInt(-5);
+        buf.putInt2_4_8Bytes(0x40000001L); // spans the second segment boundary
+        buf.putInt1_2_4Bytes(0x3FFF);
+        buf.putInt1_4Bytes(5);
+        buf.putUtf8String("blåbær");
+        assertEquals(51, buf.position());
+        assertEquals(4, buf.segmentCount());
+        assertEquals(64, buf.capacity());
+
+        buf.flip();
+        assertEquals(51, buf.limit());
+        assertEquals(7, buf.get());
+        assertEquals(1234, buf.getShort());
+        assertEquals(987654, buf.getInt());
+        assertEquals(1234567890123L, buf.getLong());
+        assertEquals(983.982d, buf.getDouble(), delta);
+        assertEquals(94.322f, buf.getFloat(), delta);
+        assertEquals(-5, buf.getInt());
+        assertEquals(0x40000001L, buf.getInt2_4_8Bytes());
+        assertEquals(0x3FFF, buf.getInt1_2_4Bytes());
+        assertEquals(5, buf.getInt1_4Bytes());
+        assertEquals("blåbær", buf.getUtf8String());
+        assertFalse(buf.hasRemaining());
+        try {
+            buf.get();
+            fail("Expected exception");
+        } catch (BufferUnderflowException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testBulkAndAbsoluteAccess() {
+        SegmentedByteBuffer buf = new SegmentedByteBuffer(new SegmentedByteBuffer.Pool(16, 10));
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        buf.putInt(0); // placeholder
+        byte[] content = bytes(50);
+        buf.put(content);
+        buf.put(ByteBuffer.wrap(content, 10, 20));
+        buf.putInt(14, 0x01020304); // spans a segment boundary
+        buf.putInt(0, 70);
+        buf.flip();
+
+        assertEquals(74, buf.remaining());
+        assertEquals(70, buf.getInt());
+        assertEquals(0x01020304, buf.getInt(14));
+        assertEquals(0x04, buf.get(14));
+        byte[] read = new byte[70];
+        buf.get(read);
+        for (int i = 0; i < 50; i++)
+            if (i < 10 || i >= 14) assertEquals(content[i], read[i]);
+        for (int i = 0; i < 20; i++)
+            assertEquals(content[10 + i], read[50 + i]);
+    }
+
+    @Test
+    public void testSliceSharesContent() {
+        SegmentedByteBuffer buf = new SegmentedByteBuffer(new SegmentedByteBuffer.Pool(16, 10));
+        buf.put(bytes(40));
+        buf.flip();
+        buf.position(10);
+        buf.limit(30);
+
+        SegmentedByteBuffer slice = buf.slice();
+        assertEquals(0, slice.position());
+        assertEquals(20, slice.limit());
+        assertEquals(20, slice.capacity());
+        assertEquals(10, slice.get(0));
+        assertEquals(29, slice.get(19));
+
+        buf.put(20, (byte) 100);
+        assertEquals("Changes are visible in the slice", 100, slice.get(10));
+        slice.putInt(4, 0);
+        assertEquals("Changes are visible in the buffer", 0, buf.getInt(14));
+
+        slice.position(20);
+        try {
+            slice.put((byte) 1);
+            fail("Expected exception");
+        } catch (BufferOverflowException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testWrapSharesContent() {
+        ByteBuffer content = ByteBuffer.wrap(bytes(40));
+        content.position(10);
+        SegmentedByteBuffer buf = SegmentedByteBuffer.wrap(content);
+        assertEquals(0, buf.position());
+        assertEquals(30, buf.limit());
+        assertEquals(1, buf.segmentCount());
+        assertEquals(10, buf.get());
+        assertEquals(ByteBuffer.wrap(bytes(40), 11, 29), buf.toByteBuffers()[0]);
+
+        buf.put(0, (byte) 100);
+        assertEquals("Changes are visible in the wrapped buffer", 100, content.get(10));
+        buf.release();
+        assertEquals("The wrapped buffer is still usable", 100, content.get(10));
+    }
+
+    @Test
+    public void testGatheringWrite() throws IOException {
+        SegmentedByteBuffer buf = new SegmentedByteBuffer(new SegmentedByteBuffer.Pool(16, 10));
+        byte[] content = bytes(100);
+        buf.put(content);
+        buf.flip();
+        buf.position(5);
+        assertEquals(7, buf.toByteBuffers().length);
+
+        File file = File.createTempFile("segmented", ".bin");
+        file.deleteOnExit();
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            assertEquals(95, buf.writeTo(channel));
+        }
+        assertFalse(buf.hasRemaining());
+        byte[] written = Files.readAllBytes(file.toPath());
+        assertEquals(95, written.length);
+        for (int i = 0; i < 95; i++)
+            assertEquals(content[i + 5], written[i]);
+    }
+
+    @Test
+    public void testReleaseReturnsSegmentsToPool() {
+        SegmentedByteBuffer.Pool pool = new SegmentedByteBuffer.Pool(16, 3);
+        SegmentedByteBuffer buf = new SegmentedByteBuffer(pool);
+        buf.put(bytes(40));
+        assertEquals(3, buf.segmentCount());
+        assertEquals(0, pool.pooledSegments());
+
+        SegmentedByteBuffer slice = buf.slice();
+        slice.release();
+        assertEquals("Slices do not own segments", 0, pool.pooledSegments());
+
+        buf.release();
+        assertTrue(buf.isReleased());
+        assertEquals(3, pool.pooledSegments());
+        assertEquals(0, buf.capacity());
+        buf.release();
+        assertEquals(3, pool.pooledSegments());
+
+        SegmentedByteBuffer other = new SegmentedByteBuffer(pool);
+        other.put(bytes(64));
+        assertEquals(0, pool.pooledSegments());
+        other.release();
+        assertEquals("At most the max number of segments are pooled", 3, pool.pooledSegments());
+
+        try {
+            buf.put((byte) 1);
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testClearReusesSegments() {
+        SegmentedByteBuffer buf = new SegmentedByteBuffer(new SegmentedByteBuffer.Pool(16, 10));
+        buf.put(bytes(20));
+        buf.flip();
+        buf.clear();
+        assertEquals(32, buf.limit());
+        buf.put(bytes(40));
+        assertEquals(3, buf.segmentCount());
+        buf.flip();
+        byte[] read = new byte[40];
+        buf.get(read);
+        assertArrayEquals(bytes(40), read);
+    }
+
+    private static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++)
+            bytes[i] = (byte) i;
+        return bytes;
+    }
+
+}